@@ -41,4 +41,14 @@ public final class PlatformDetector {
     public static boolean isLowLevel() {
         return false;
     }
+
+    @PlatformMarker(Platforms.MULTITHREADED)
+    public static boolean isMultithreaded() {
+        return false;
+    }
+
+    @PlatformMarker(Platforms.NATIVE_STRINGS)
+    public static boolean hasNativeStrings() {
+        return false;
+    }
 }
@@ -46,5 +46,5 @@ public interface VirtualFile {
 
     boolean setReadOnly(boolean readOnly);
 
-    int length();
+    long length();
 }
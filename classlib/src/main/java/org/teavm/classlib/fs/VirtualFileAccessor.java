@@ -16,15 +16,24 @@
 package org.teavm.classlib.fs;
 
 import java.io.IOException;
+import org.teavm.classlib.java.nio.TMappedByteBuffer;
+import org.teavm.classlib.java.nio.channels.TFileChannel;
 
 public interface VirtualFileAccessor {
-    int read(int pos, byte[] buffer, int offset, int limit) throws IOException;
+    int read(long pos, byte[] buffer, int offset, int limit) throws IOException;
 
-    void write(int pos, byte[] buffer, int offset, int limit) throws IOException;
+    void write(long pos, byte[] buffer, int offset, int limit) throws IOException;
 
-    int size() throws IOException;
+    long size() throws IOException;
 
-    void resize(int size) throws IOException;
+    void resize(long size) throws IOException;
+
+    /**
+     * Maps region of file directly into memory. File should be already large enough to contain the region.
+     *
+     * @throws IOException if file system does not support memory mapping or mapping failed.
+     */
+    TMappedByteBuffer map(TFileChannel.MapMode mode, long pos, int size) throws IOException;
 
     void close() throws IOException;
 
@@ -0,0 +1,263 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.fs;
+
+import java.io.IOException;
+import org.teavm.classlib.java.nio.TByteBuffer;
+import org.teavm.classlib.java.nio.TMappedByteBuffer;
+import org.teavm.classlib.java.nio.TReadOnlyBufferException;
+import org.teavm.classlib.java.nio.channels.TClosedChannelException;
+import org.teavm.classlib.java.nio.channels.TFileChannel;
+import org.teavm.classlib.java.nio.channels.TNonReadableChannelException;
+import org.teavm.classlib.java.nio.channels.TNonWritableChannelException;
+import org.teavm.classlib.java.nio.channels.TReadableByteChannel;
+import org.teavm.classlib.java.nio.channels.TWritableByteChannel;
+
+/**
+ * <p>File channel over {@link VirtualFileAccessor}. Position is kept by the stream or random access file
+ * which created the channel, so that moving one moves another as well.</p>
+ */
+public class VirtualFileChannel extends TFileChannel {
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+    private VirtualFileAccessor accessor;
+    private Owner owner;
+    private boolean readable;
+    private boolean writable;
+
+    public VirtualFileChannel(VirtualFileAccessor accessor, Owner owner, boolean readable, boolean writable) {
+        this.accessor = accessor;
+        this.owner = owner;
+        this.readable = readable;
+        this.writable = writable;
+    }
+
+    @Override
+    public int read(TByteBuffer dst) throws IOException {
+        long position = position();
+        int result = read(dst, position);
+        if (result > 0) {
+            owner.setPosition(position + result);
+        }
+        return result;
+    }
+
+    @Override
+    public int read(TByteBuffer dst, long position) throws IOException {
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position: " + position);
+        }
+        ensureReadable();
+        if (dst.isReadOnly()) {
+            throw new TReadOnlyBufferException();
+        }
+        if (position >= accessor.size()) {
+            return -1;
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+
+        int result;
+        if (dst.hasArray()) {
+            result = accessor.read(position, dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+            dst.position(dst.position() + result);
+        } else {
+            byte[] buffer = new byte[Math.min(dst.remaining(), TRANSFER_BUFFER_SIZE)];
+            result = accessor.read(position, buffer, 0, buffer.length);
+            dst.put(buffer, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int write(TByteBuffer src) throws IOException {
+        long position = position();
+        int result = write(src, position);
+        owner.setPosition(position + result);
+        return result;
+    }
+
+    @Override
+    public int write(TByteBuffer src, long position) throws IOException {
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position: " + position);
+        }
+        ensureWritable();
+        int result = src.remaining();
+        if (src.hasArray()) {
+            accessor.write(position, src.array(), src.arrayOffset() + src.position(), result);
+            src.position(src.limit());
+        } else {
+            byte[] buffer = new byte[Math.min(result, TRANSFER_BUFFER_SIZE)];
+            while (src.hasRemaining()) {
+                int chunkSize = Math.min(src.remaining(), buffer.length);
+                src.get(buffer, 0, chunkSize);
+                accessor.write(position, buffer, 0, chunkSize);
+                position += chunkSize;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return owner.getPosition();
+    }
+
+    @Override
+    public TFileChannel position(long newPosition) throws IOException {
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+        }
+        ensureOpen();
+        owner.setPosition(newPosition);
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return accessor.size();
+    }
+
+    @Override
+    public TFileChannel truncate(long size) throws IOException {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative size: " + size);
+        }
+        ensureWritable();
+        if (size < accessor.size()) {
+            accessor.resize(size);
+        }
+        if (owner.getPosition() > size) {
+            owner.setPosition(size);
+        }
+        return this;
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+        ensureOpen();
+        accessor.flush();
+    }
+
+    @Override
+    public long transferTo(long position, long count, TWritableByteChannel target) throws IOException {
+        if (position < 0 || count < 0) {
+            throw new IllegalArgumentException();
+        }
+        ensureReadable();
+        count = Math.min(count, accessor.size() - position);
+        if (count <= 0) {
+            return 0;
+        }
+
+        byte[] buffer = new byte[(int) Math.min(count, TRANSFER_BUFFER_SIZE)];
+        long transferred = 0;
+        while (transferred < count) {
+            int chunkSize = (int) Math.min(count - transferred, buffer.length);
+            int bytesRead = accessor.read(position + transferred, buffer, 0, chunkSize);
+            if (bytesRead <= 0) {
+                break;
+            }
+            TByteBuffer chunk = TByteBuffer.wrap(buffer, 0, bytesRead);
+            while (chunk.hasRemaining()) {
+                target.write(chunk);
+            }
+            transferred += bytesRead;
+        }
+        return transferred;
+    }
+
+    @Override
+    public long transferFrom(TReadableByteChannel src, long position, long count) throws IOException {
+        if (position < 0 || count < 0) {
+            throw new IllegalArgumentException();
+        }
+        ensureWritable();
+        if (position > accessor.size() || count == 0) {
+            return 0;
+        }
+
+        byte[] buffer = new byte[(int) Math.min(count, TRANSFER_BUFFER_SIZE)];
+        long transferred = 0;
+        while (transferred < count) {
+            int chunkSize = (int) Math.min(count - transferred, buffer.length);
+            int bytesRead = src.read(TByteBuffer.wrap(buffer, 0, chunkSize));
+            if (bytesRead <= 0) {
+                break;
+            }
+            accessor.write(position + transferred, buffer, 0, bytesRead);
+            transferred += bytesRead;
+        }
+        return transferred;
+    }
+
+    @Override
+    public TMappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+        if (position < 0 || size < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid region: position = " + position + ", size = " + size);
+        }
+        ensureReadable();
+        if (mode == MapMode.READ_WRITE) {
+            ensureWritable();
+        }
+        if (position + size > accessor.size()) {
+            if (!writable) {
+                throw new IOException("Channel not open for writing, can't extend file to required size");
+            }
+            accessor.resize(position + size);
+        }
+        return accessor.map(mode, position, (int) size);
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+        owner.close();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (!isOpen()) {
+            throw new TClosedChannelException();
+        }
+    }
+
+    private void ensureReadable() throws IOException {
+        ensureOpen();
+        if (!readable) {
+            throw new TNonReadableChannelException();
+        }
+    }
+
+    private void ensureWritable() throws IOException {
+        ensureOpen();
+        if (!writable) {
+            throw new TNonWritableChannelException();
+        }
+    }
+
+    /**
+     * Stream or random access file the channel belongs to. Closing the channel closes the owner.
+     */
+    public interface Owner {
+        long getPosition() throws IOException;
+
+        void setPosition(long position) throws IOException;
+
+        void close() throws IOException;
+    }
+}
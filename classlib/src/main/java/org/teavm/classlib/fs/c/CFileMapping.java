@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.fs.c;
+
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.Set;
+import org.teavm.classlib.java.nio.TMappedByteBuffer;
+import org.teavm.classlib.java.nio.TMappedByteBufferImpl;
+import org.teavm.interop.Address;
+
+/**
+ * <p>Region of file mapped into memory. Every buffer created from the region (including slices, duplicates
+ * and views) holds a reference to it. There is no finalization in TeaVM, so once the GC finds all of these
+ * buffers unreachable, the region is unmapped by the next {@link #releaseUnreachable()}, which runs whenever
+ * a file region is mapped or forced and whenever a native file is closed.</p>
+ */
+public final class CFileMapping {
+    private static ReferenceQueue<CFileMapping> referenceQueue = new ReferenceQueue<>();
+    private static Set<Region> regions = new HashSet<>();
+
+    private CFileMapping() {
+    }
+
+    static TMappedByteBuffer map(long file, int mode, long position, int size) throws IOException {
+        releaseUnreachable();
+
+        CFileMapping mapping = new CFileMapping();
+        Address address = null;
+        if (size > 0) {
+            address = CFileSystem.map(file, mode, position, size);
+            if (address == null) {
+                throw new IOException("Could not map file region");
+            }
+            regions.add(new Region(mapping, address, size, referenceQueue));
+        }
+        return new TMappedByteBufferImpl(mapping, address, size, mode == 0);
+    }
+
+    public void force(Address address, int size) {
+        releaseUnreachable();
+        if (size > 0) {
+            CFileSystem.forceMapped(address, size);
+        }
+    }
+
+    static void releaseUnreachable() {
+        while (true) {
+            Region region = (Region) referenceQueue.poll();
+            if (region == null) {
+                break;
+            }
+            regions.remove(region);
+            CFileSystem.unmap(region.address, region.size);
+        }
+    }
+
+    static class Region extends WeakReference<CFileMapping> {
+        Address address;
+        int size;
+
+        Region(CFileMapping referent, Address address, int size, ReferenceQueue<? super CFileMapping> queue) {
+            super(referent, queue);
+            this.address = address;
+            this.size = size;
+        }
+    }
+}
@@ -162,7 +162,7 @@ public class CFileSystem implements VirtualFileSystem {
 
     @Import(name = "teavm_file_length")
     @Unmanaged
-    static native int length(char[] name, int nameSize);
+    static native long length(char[] name, int nameSize);
 
     @Import(name = "teavm_file_lastModified")
     @Unmanaged
@@ -186,11 +186,11 @@ public class CFileSystem implements VirtualFileSystem {
 
     @Import(name = "teavm_file_seek")
     @Unmanaged
-    static native boolean seek(long file, int where, int offset);
+    static native boolean seek(long file, int where, long offset);
 
     @Import(name = "teavm_file_tell")
     @Unmanaged
-    static native int tell(long file);
+    static native long tell(long file);
 
     @Import(name = "teavm_file_read")
     @Unmanaged
@@ -200,6 +200,18 @@ public class CFileSystem implements VirtualFileSystem {
     @Unmanaged
     static native int write(long file, byte[] data, int offset, int count);
 
+    @Import(name = "teavm_file_map")
+    @Unmanaged
+    static native Address map(long file, int mode, long position, int size);
+
+    @Import(name = "teavm_file_unmap")
+    @Unmanaged
+    static native boolean unmap(Address address, int size);
+
+    @Import(name = "teavm_file_forceMapped")
+    @Unmanaged
+    static native boolean forceMapped(Address address, int size);
+
     @Import(name = "teavm_file_isWindows")
     @Unmanaged
     static native boolean isWindowsNative();
@@ -170,7 +170,7 @@ public class CVirtualFile implements VirtualFile {
     }
 
     @Override
-    public int length() {
+    public long length() {
         char[] chars = path.toCharArray();
         return CFileSystem.length(chars, chars.length);
     }
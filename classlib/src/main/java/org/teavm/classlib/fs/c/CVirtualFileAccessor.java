@@ -17,18 +17,20 @@ package org.teavm.classlib.fs.c;
 
 import java.io.IOException;
 import org.teavm.classlib.fs.VirtualFileAccessor;
+import org.teavm.classlib.java.nio.TMappedByteBuffer;
+import org.teavm.classlib.java.nio.channels.TFileChannel;
 
 public class CVirtualFileAccessor implements VirtualFileAccessor {
     private long file;
-    private int position;
+    private long position;
 
-    public CVirtualFileAccessor(long file, int position) {
+    public CVirtualFileAccessor(long file, long position) {
         this.file = file;
         this.position = position;
     }
 
     @Override
-    public int read(int pos, byte[] buffer, int offset, int limit) throws IOException {
+    public int read(long pos, byte[] buffer, int offset, int limit) throws IOException {
         ensurePosition(pos);
         int bytesRead = CFileSystem.read(file, buffer, offset, limit);
         position += bytesRead;
@@ -36,7 +38,7 @@ public class CVirtualFileAccessor implements VirtualFileAccessor {
     }
 
     @Override
-    public void write(int pos, byte[] buffer, int offset, int limit) throws IOException {
+    public void write(long pos, byte[] buffer, int offset, int limit) throws IOException {
         ensurePosition(pos);
         int bytesWritten = CFileSystem.write(file, buffer, offset, limit);
         if (bytesWritten < limit) {
@@ -46,7 +48,7 @@ public class CVirtualFileAccessor implements VirtualFileAccessor {
     }
 
     @Override
-    public int size() throws IOException {
+    public long size() throws IOException {
         if (!CFileSystem.seek(file, 2, 0)) {
             throw new IOException();
         }
@@ -55,7 +57,7 @@ public class CVirtualFileAccessor implements VirtualFileAccessor {
     }
 
     @Override
-    public void resize(int size) throws IOException {
+    public void resize(long size) throws IOException {
         if (!CFileSystem.seek(file, 2, 0)) {
             throw new IOException();
         }
@@ -63,15 +65,32 @@ public class CVirtualFileAccessor implements VirtualFileAccessor {
         if (position < size) {
             byte[] zeros = new byte[4096];
             while (position < size) {
-                write(position, zeros, 0, Math.min(zeros.length, size - position));
+                write(position, zeros, 0, (int) Math.min(zeros.length, size - position));
             }
         }
     }
 
+    @Override
+    public TMappedByteBuffer map(TFileChannel.MapMode mode, long pos, int size) throws IOException {
+        int nativeMode;
+        if (mode == TFileChannel.MapMode.READ_ONLY) {
+            nativeMode = 0;
+        } else if (mode == TFileChannel.MapMode.READ_WRITE) {
+            nativeMode = 1;
+        } else {
+            nativeMode = 2;
+        }
+        if (!CFileSystem.flush(file)) {
+            throw new IOException();
+        }
+        return CFileMapping.map(file, nativeMode, pos, size);
+    }
+
     @Override
     public void close() throws IOException {
         long file = this.file;
         this.file = 0;
+        CFileMapping.releaseUnreachable();
         if (!CFileSystem.close(file)) {
             throw new IOException();
         }
@@ -84,7 +103,7 @@ public class CVirtualFileAccessor implements VirtualFileAccessor {
         }
     }
 
-    private void ensurePosition(int pos) throws IOException {
+    private void ensurePosition(long pos) throws IOException {
         if (position != pos) {
             if (!CFileSystem.seek(file, 0, pos)) {
                 throw new IOException();
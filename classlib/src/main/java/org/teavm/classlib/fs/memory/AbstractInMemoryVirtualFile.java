@@ -92,7 +92,7 @@ public abstract class AbstractInMemoryVirtualFile {
 
     public abstract boolean adopt(AbstractInMemoryVirtualFile file, String fileName);
 
-    public int length() {
+    public long length() {
         return 0;
     }
 }
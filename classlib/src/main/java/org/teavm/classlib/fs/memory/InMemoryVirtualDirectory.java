@@ -91,7 +91,7 @@ public class InMemoryVirtualDirectory extends AbstractInMemoryVirtualFile {
     }
 
     @Override
-    public int length() {
+    public long length() {
         return 0;
     }
 
@@ -18,6 +18,8 @@ package org.teavm.classlib.fs.memory;
 import java.io.IOException;
 import java.util.Arrays;
 import org.teavm.classlib.fs.VirtualFileAccessor;
+import org.teavm.classlib.java.nio.TMappedByteBuffer;
+import org.teavm.classlib.java.nio.channels.TFileChannel;
 
 public class InMemoryVirtualFile extends AbstractInMemoryVirtualFile {
     byte[] data = new byte[0];
@@ -59,32 +61,42 @@ public class InMemoryVirtualFile extends AbstractInMemoryVirtualFile {
 
         return new VirtualFileAccessor() {
             @Override
-            public int read(int pos, byte[] buffer, int offset, int limit) {
-                limit = Math.max(0, Math.min(size - pos, limit));
-                System.arraycopy(data, pos, buffer, offset, limit);
+            public int read(long pos, byte[] buffer, int offset, int limit) {
+                if (pos >= size) {
+                    return 0;
+                }
+                limit = Math.max(0, Math.min(size - (int) pos, limit));
+                System.arraycopy(data, (int) pos, buffer, offset, limit);
                 return limit;
             }
 
             @Override
-            public void write(int pos, byte[] buffer, int offset, int limit) {
-                expandData(pos + limit);
-                System.arraycopy(buffer, offset, data, pos, limit);
-                size = pos + limit;
+            public void write(long pos, byte[] buffer, int offset, int limit) throws IOException {
+                int end = checkSize(pos + limit);
+                expandData(end);
+                System.arraycopy(buffer, offset, data, (int) pos, limit);
+                size = Math.max(size, end);
                 modify();
             }
 
             @Override
-            public int size() {
+            public long size() {
                 return size;
             }
 
             @Override
-            public void resize(int size) {
-                expandData(size);
-                InMemoryVirtualFile.this.size = size;
+            public void resize(long size) throws IOException {
+                int newSize = checkSize(size);
+                expandData(newSize);
+                InMemoryVirtualFile.this.size = newSize;
                 modify();
             }
 
+            @Override
+            public TMappedByteBuffer map(TFileChannel.MapMode mode, long pos, int size) throws IOException {
+                throw new IOException("In-memory file system does not support memory mapping");
+            }
+
             @Override
             public void close() {
             }
@@ -111,10 +123,17 @@ public class InMemoryVirtualFile extends AbstractInMemoryVirtualFile {
     }
 
     @Override
-    public int length() {
+    public long length() {
         return size;
     }
 
+    private static int checkSize(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("In-memory file can't be larger than 2GB");
+        }
+        return (int) size;
+    }
+
     private void expandData(int newSize) {
         if (newSize > data.length) {
             int newCapacity = Math.max(newSize, data.length) * 3 / 2;
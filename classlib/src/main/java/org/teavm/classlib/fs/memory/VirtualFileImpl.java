@@ -122,7 +122,7 @@ public class VirtualFileImpl implements VirtualFile {
     }
 
     @Override
-    public int length() {
+    public long length() {
         AbstractInMemoryVirtualFile inMemory = findInMemory();
         return inMemory != null ? inMemory.length() : 0;
     }
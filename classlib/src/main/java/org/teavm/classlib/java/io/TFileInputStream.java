@@ -21,10 +21,13 @@ import java.io.InputStream;
 import java.util.Objects;
 import org.teavm.classlib.fs.VirtualFile;
 import org.teavm.classlib.fs.VirtualFileAccessor;
+import org.teavm.classlib.fs.VirtualFileChannel;
+import org.teavm.classlib.java.nio.channels.TFileChannel;
 
 public class TFileInputStream extends InputStream {
     private VirtualFileAccessor accessor;
-    private int pos;
+    private VirtualFileChannel channel;
+    private long pos;
     private boolean eof;
 
     public TFileInputStream(TFile file) throws FileNotFoundException {
@@ -73,8 +76,8 @@ public class TFileInputStream extends InputStream {
         if (eof) {
             return 0;
         }
-        int newPos = Math.max(pos, Math.min(accessor.size(), pos + (int) n));
-        int result = newPos - pos;
+        long newPos = Math.max(pos, Math.min(accessor.size(), pos + n));
+        long result = newPos - pos;
         pos = newPos;
         if (result == 0) {
             eof = true;
@@ -88,15 +91,42 @@ public class TFileInputStream extends InputStream {
         if (eof) {
             return 0;
         }
-        return Math.max(0, accessor.size() - pos);
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, accessor.size() - pos));
     }
 
     @Override
     public void close() throws IOException {
+        VirtualFileAccessor accessor = this.accessor;
+        this.accessor = null;
         if (accessor != null) {
             accessor.close();
         }
-        accessor = null;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public TFileChannel getChannel() {
+        if (channel == null) {
+            channel = new VirtualFileChannel(accessor, new VirtualFileChannel.Owner() {
+                @Override
+                public long getPosition() {
+                    return pos;
+                }
+
+                @Override
+                public void setPosition(long position) {
+                    pos = position;
+                    eof = false;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    TFileInputStream.this.close();
+                }
+            }, true, false);
+        }
+        return channel;
     }
 
     @Override
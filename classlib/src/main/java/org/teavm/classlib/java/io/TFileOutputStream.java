@@ -22,10 +22,13 @@ import java.io.OutputStream;
 import java.util.Objects;
 import org.teavm.classlib.fs.VirtualFile;
 import org.teavm.classlib.fs.VirtualFileAccessor;
+import org.teavm.classlib.fs.VirtualFileChannel;
+import org.teavm.classlib.java.nio.channels.TFileChannel;
 
 public class TFileOutputStream extends OutputStream {
     private VirtualFileAccessor accessor;
-    private int pos;
+    private VirtualFileChannel channel;
+    private long pos;
 
     public TFileOutputStream(TFile file) throws FileNotFoundException {
         this(file, false);
@@ -82,10 +85,37 @@ public class TFileOutputStream extends OutputStream {
 
     @Override
     public void close() throws IOException {
+        VirtualFileAccessor accessor = this.accessor;
+        this.accessor = null;
         if (accessor != null) {
             accessor.close();
         }
-        accessor = null;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public TFileChannel getChannel() {
+        if (channel == null) {
+            channel = new VirtualFileChannel(accessor, new VirtualFileChannel.Owner() {
+                @Override
+                public long getPosition() throws IOException {
+                    ensurePos();
+                    return pos;
+                }
+
+                @Override
+                public void setPosition(long position) {
+                    pos = position;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    TFileOutputStream.this.close();
+                }
+            }, false, true);
+        }
+        return channel;
     }
 
     @Override
@@ -25,14 +25,17 @@ import java.io.UTFDataFormatException;
 import java.util.Objects;
 import org.teavm.classlib.fs.VirtualFile;
 import org.teavm.classlib.fs.VirtualFileAccessor;
+import org.teavm.classlib.fs.VirtualFileChannel;
 import org.teavm.classlib.java.lang.TIndexOutOfBoundsException;
 import org.teavm.classlib.java.lang.TNullPointerException;
+import org.teavm.classlib.java.nio.channels.TFileChannel;
 
 public class TRandomAccessFile implements DataInput, DataOutput, Closeable {
     private boolean readOnly;
     private boolean autoFlush;
     private VirtualFileAccessor accessor;
-    private int pos;
+    private VirtualFileChannel channel;
+    private long pos;
     private byte[] buff;
 
     public TRandomAccessFile(String name, String mode) throws FileNotFoundException {
@@ -68,7 +71,36 @@ public class TRandomAccessFile implements DataInput, DataOutput, Closeable {
 
     @Override
     public void close() throws IOException {
-        accessor = null;
+        VirtualFileAccessor accessor = this.accessor;
+        this.accessor = null;
+        if (accessor != null) {
+            accessor.close();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public TFileChannel getChannel() {
+        if (channel == null) {
+            channel = new VirtualFileChannel(accessor, new VirtualFileChannel.Owner() {
+                @Override
+                public long getPosition() {
+                    return pos;
+                }
+
+                @Override
+                public void setPosition(long position) {
+                    pos = position;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    TRandomAccessFile.this.close();
+                }
+            }, true, !readOnly);
+        }
+        return channel;
     }
 
     public int read(byte[] b, int off, int len) throws IOException {
@@ -76,10 +108,10 @@ public class TRandomAccessFile implements DataInput, DataOutput, Closeable {
         if (off < 0 || len < 0 || off + len > b.length) {
             throw new IndexOutOfBoundsException();
         }
+        ensureOpened();
         if (pos >= accessor.size()) {
             return -1;
         }
-        ensureOpened();
         int result = accessor.read(pos, b, off, len);
         pos += result;
         return result;
@@ -134,8 +166,8 @@ public class TRandomAccessFile implements DataInput, DataOutput, Closeable {
     public int skipBytes(int n) throws IOException {
         ensureOpened();
 
-        int newPos = Math.max(pos, Math.min(accessor.size(), pos));
-        int result = newPos - pos;
+        long newPos = Math.max(pos, Math.min(accessor.size(), pos + n));
+        int result = (int) (newPos - pos);
         pos = newPos;
         return result;
     }
@@ -147,7 +179,10 @@ public class TRandomAccessFile implements DataInput, DataOutput, Closeable {
 
     public void seek(long pos) throws IOException {
         ensureOpened();
-        this.pos = (int) pos;
+        if (pos < 0) {
+            throw new IOException("Negative position: " + pos);
+        }
+        this.pos = pos;
     }
 
     public long length() throws IOException {
@@ -157,7 +192,10 @@ public class TRandomAccessFile implements DataInput, DataOutput, Closeable {
 
     public void setLength(long newLength) throws IOException {
         ensureOpened();
-        accessor.resize((int) newLength);
+        accessor.resize(newLength);
+        if (pos > newLength) {
+            pos = newLength;
+        }
     }
 
     @Override
@@ -17,14 +17,17 @@ package org.teavm.classlib.java.lang;
 
 import java.io.IOException;
 import org.teavm.backend.javascript.codegen.SourceWriter;
+import org.teavm.backend.javascript.rendering.Precedence;
 import org.teavm.backend.javascript.spi.Generator;
 import org.teavm.backend.javascript.spi.GeneratorContext;
+import org.teavm.backend.javascript.spi.Injector;
+import org.teavm.backend.javascript.spi.InjectorContext;
 import org.teavm.dependency.DependencyAgent;
 import org.teavm.dependency.DependencyPlugin;
 import org.teavm.dependency.MethodDependency;
 import org.teavm.model.MethodReference;
 
-public class StringNativeGenerator implements Generator, DependencyPlugin {
+public class StringNativeGenerator implements Generator, Injector, DependencyPlugin {
     @Override
     public void generate(GeneratorContext context, SourceWriter writer, MethodReference methodRef) throws IOException {
         if (methodRef.getName().equals("intern")) {
@@ -32,16 +35,94 @@ public class StringNativeGenerator implements Generator, DependencyPlugin {
         }
     }
 
+    @Override
+    public void generate(InjectorContext context, MethodReference methodRef) throws IOException {
+        SourceWriter writer = context.getWriter();
+        switch (methodRef.getName()) {
+            case "initNative":
+                writer.append("(");
+                writeString(context, 0);
+                writer.ws().append("=").ws().append("$rt_charsToString(");
+                context.writeExpr(context.getArgument(1));
+                writer.append(",").ws();
+                context.writeExpr(context.getArgument(2));
+                writer.append(",").ws();
+                context.writeExpr(context.getArgument(3));
+                writer.append("))");
+                break;
+            case "copyNative":
+                writer.append("(");
+                writeString(context, 0);
+                writer.ws().append("=").ws();
+                writeString(context, 1);
+                writer.append(")");
+                break;
+            case "nativeLength":
+                writeString(context, 0);
+                writer.append(".length");
+                break;
+            case "nativeCharAt":
+                writeString(context, 0);
+                writer.append(".charCodeAt(");
+                context.writeExpr(context.getArgument(1));
+                writer.append(")");
+                break;
+            case "nativeEquals":
+                writer.append("(");
+                writeString(context, 0);
+                writer.ws().append("===").ws();
+                writeString(context, 1);
+                writer.ws().append("?").ws().append("1").ws().append(":").ws().append("0)");
+                break;
+            case "nativeIndexOf":
+            case "nativeLastIndexOf":
+                writeString(context, 0);
+                writer.append(methodRef.getName().equals("nativeIndexOf") ? ".indexOf(" : ".lastIndexOf(");
+                writeString(context, 1);
+                writer.append(",").ws();
+                context.writeExpr(context.getArgument(2));
+                writer.append(")");
+                break;
+            case "nativeSubstring":
+                writer.append("$rt_str(");
+                writeString(context, 0);
+                writer.append(".substring(");
+                context.writeExpr(context.getArgument(1));
+                writer.append(",").ws();
+                context.writeExpr(context.getArgument(2));
+                writer.append("))");
+                break;
+            case "nativeConcat":
+                writer.append("$rt_str(");
+                writeString(context, 0);
+                writer.ws().append("+").ws();
+                writeString(context, 1);
+                writer.append(")");
+                break;
+        }
+    }
+
+    private void writeString(InjectorContext context, int index) throws IOException {
+        context.writeExpr(context.getArgument(index), Precedence.MEMBER_ACCESS);
+        context.getWriter().append(".$jsString$");
+    }
+
     @Override
     public void methodReached(DependencyAgent agent, MethodDependency method) {
-        if (method.getReference().getName().equals("intern")) {
-            agent.linkMethod(new MethodReference(String.class, "hashCode", int.class))
-                    .propagate(0, agent.getType("java.lang.String"))
-                    .use();
-            agent.linkMethod(new MethodReference(String.class, "equals", Object.class, boolean.class))
-                    .propagate(0, agent.getType("java.lang.String"))
-                    .propagate(1, agent.getType("java.lang.String"))
-                    .use();
+        switch (method.getReference().getName()) {
+            case "intern":
+                agent.linkMethod(new MethodReference(String.class, "hashCode", int.class))
+                        .propagate(0, agent.getType("java.lang.String"))
+                        .use();
+                agent.linkMethod(new MethodReference(String.class, "equals", Object.class, boolean.class))
+                        .propagate(0, agent.getType("java.lang.String"))
+                        .propagate(1, agent.getType("java.lang.String"))
+                        .use();
+                break;
+            case "nativeSubstring":
+            case "nativeConcat":
+                method.getResult().propagate(agent.getType("java.lang.String"));
+                break;
         }
     }
 }
@@ -28,7 +28,6 @@ import org.teavm.interop.Superclass;
 import org.teavm.interop.Unmanaged;
 import org.teavm.jso.browser.TimerHandler;
 import org.teavm.platform.Platform;
-import org.teavm.platform.PlatformObject;
 import org.teavm.platform.PlatformQueue;
 import org.teavm.platform.PlatformRunnable;
 import org.teavm.runtime.Allocator;
@@ -36,6 +35,7 @@ import org.teavm.runtime.EventQueue;
 import org.teavm.runtime.RuntimeArray;
 import org.teavm.runtime.RuntimeClass;
 import org.teavm.runtime.RuntimeObject;
+import org.teavm.runtime.Threads;
 
 @Superclass("")
 public class TObject {
@@ -60,6 +60,10 @@ public class TObject {
     }
 
     static void monitorEnterSync(TObject o) {
+        if (PlatformDetector.isMultithreaded()) {
+            Threads.monitorEnter(o.identity(), 1);
+            return;
+        }
         if (o.monitor == null) {
             createMonitor(o);
         }
@@ -72,6 +76,10 @@ public class TObject {
     }
 
     static void monitorExitSync(TObject o) {
+        if (PlatformDetector.isMultithreaded()) {
+            monitorExit(o, 1);
+            return;
+        }
         if (o.isEmptyMonitor() || o.monitor.owner != TThread.currentThread()) {
             throw new TIllegalMonitorStateException();
         }
@@ -86,6 +94,10 @@ public class TObject {
     }
 
     static void monitorEnter(TObject o, int count) {
+        if (PlatformDetector.isMultithreaded()) {
+            Threads.monitorEnter(o.identity(), count);
+            return;
+        }
         if (o.monitor == null) {
            createMonitor(o);
         }
@@ -145,6 +157,12 @@ public class TObject {
     }
 
     static void monitorExit(TObject o, int count) {
+        if (PlatformDetector.isMultithreaded()) {
+            if (!Threads.monitorExit(o.identity(), count)) {
+                throw new TIllegalMonitorStateException();
+            }
+            return;
+        }
         if (o.isEmptyMonitor() || o.monitor.owner != TThread.currentThread()) {
             throw new TIllegalMonitorStateException();
         }
@@ -207,6 +225,9 @@ public class TObject {
     }
 
     static boolean holdsLock(TObject o) {
+        if (PlatformDetector.isMultithreaded()) {
+            return Threads.holdsLock(o.identity());
+        }
         return o.monitor != null && o.monitor.owner == TThread.currentThread();
     }
 
@@ -244,6 +265,9 @@ public class TObject {
     }
 
     final int identity() {
+        if (PlatformDetector.isMultithreaded()) {
+            return Threads.identity(this);
+        }
         if (PlatformDetector.isLowLevel()) {
             Monitor monitor = this.monitor;
             if (monitor == null) {
@@ -262,11 +286,7 @@ public class TObject {
                 return hashCode;
             }
         }
-        PlatformObject platformThis = Platform.getPlatformObject(this);
-        if (platformThis.getId() == 0) {
-            platformThis.setId(Platform.nextObjectId());
-        }
-        return Platform.getPlatformObject(this).getId();
+        return Platform.getObjectId(Platform.getPlatformObject(this));
     }
 
     @DelegateTo("hashCodeLowLevelImpl")
@@ -324,7 +344,7 @@ public class TObject {
             throw new TCloneNotSupportedException();
         }
         Object result = Platform.clone(this);
-        Platform.getPlatformObject(result).setId(Platform.nextObjectId());
+        Platform.resetObjectId(Platform.getPlatformObject(result));
         return result;
     }
 
@@ -352,6 +372,12 @@ public class TObject {
 
     @Rename("notify")
     public final void notify0() {
+        if (PlatformDetector.isMultithreaded()) {
+            if (!Threads.notifyMonitor(identity(), false)) {
+                throw new TIllegalMonitorStateException();
+            }
+            return;
+        }
         if (!holdsLock(this)) {
             throw new TIllegalMonitorStateException();
         }
@@ -377,6 +403,12 @@ public class TObject {
 
     @Rename("notifyAll")
     public final void notifyAll0() {
+        if (PlatformDetector.isMultithreaded()) {
+            if (!Threads.notifyMonitor(identity(), true)) {
+                throw new TIllegalMonitorStateException();
+            }
+            return;
+        }
         if (!holdsLock(this)) {
             throw new TIllegalMonitorStateException();
         }
@@ -408,6 +440,15 @@ public class TObject {
 
     @Rename("wait")
     private void wait0(long timeout, int nanos) throws TInterruptedException {
+        if (PlatformDetector.isMultithreaded()) {
+            int result = Threads.waitMonitor(identity(), timeout == 0 && nanos > 0 ? 1 : timeout);
+            if (result < 0) {
+                throw new TIllegalMonitorStateException();
+            } else if (result > 0) {
+                throw new TInterruptedException();
+            }
+            return;
+        }
         if (!holdsLock(this)) {
             throw new TIllegalMonitorStateException();
         }
@@ -85,4 +85,18 @@ public class TRuntime {
     private long totalMemoryLowLevel() {
         return GC.availableBytes();
     }
+
+    /**
+     * Returns the maximum amount of memory that the Java virtual machine will
+     * attempt to use. If there is no inherent limit then the value
+     * {@link Long#MAX_VALUE} will be returned.
+     */
+    @DelegateTo("maxMemoryLowLevel")
+    public long maxMemory() {
+        return Long.MAX_VALUE;
+    }
+
+    private long maxMemoryLowLevel() {
+        return GC.maxAvailableBytes();
+    }
 }
\ No newline at end of file
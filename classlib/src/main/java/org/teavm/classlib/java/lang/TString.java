@@ -18,6 +18,8 @@ package org.teavm.classlib.java.lang;
 import java.util.Iterator;
 import java.util.Locale;
 import org.teavm.backend.javascript.spi.GeneratedBy;
+import org.teavm.backend.javascript.spi.InjectedBy;
+import org.teavm.classlib.PlatformDetector;
 import org.teavm.classlib.java.io.TSerializable;
 import org.teavm.classlib.java.io.TUnsupportedEncodingException;
 import org.teavm.classlib.java.nio.TByteBuffer;
@@ -38,14 +40,26 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
     private transient int hashCode;
 
     public TString() {
+        if (PlatformDetector.hasNativeStrings()) {
+            initNative(this, new char[0], 0, 0);
+            return;
+        }
         this.characters = new char[0];
     }
 
     public TString(TString other) {
+        if (PlatformDetector.hasNativeStrings()) {
+            copyNative(this, other);
+            return;
+        }
         characters = other.characters;
     }
 
     public TString(char[] characters) {
+        if (PlatformDetector.hasNativeStrings()) {
+            initNative(this, characters, 0, characters.length);
+            return;
+        }
         this.characters = new char[characters.length];
         for (int i = 0; i < characters.length; ++i) {
             this.characters[i] = characters[i];
@@ -53,6 +67,13 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
     }
 
     public TString(char[] value, int offset, int count) {
+        if (PlatformDetector.hasNativeStrings()) {
+            if (offset < 0 || count < 0 || offset + count > value.length) {
+                throw new TIndexOutOfBoundsException();
+            }
+            initNative(this, value, offset, count);
+            return;
+        }
         this.characters = new char[count];
         for (int i = 0; i < count; ++i) {
             this.characters[i] = value[i + offset];
@@ -98,6 +119,7 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
         if (charCount < characters.length) {
             characters = TArrays.copyOf(characters, charCount);
         }
+        moveToNative();
     }
 
     private void initWithBytes(byte[] bytes, int offset, int length, TCharset charset) {
@@ -108,6 +130,14 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
             characters = new char[buffer.remaining()];
             buffer.get(characters);
         }
+        moveToNative();
+    }
+
+    private void moveToNative() {
+        if (PlatformDetector.hasNativeStrings()) {
+            initNative(this, characters, 0, characters.length);
+            characters = null;
+        }
     }
 
     public TString(TStringBuilder sb) {
@@ -116,6 +146,12 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
 
     @Override
     public char charAt(int index) {
+        if (PlatformDetector.hasNativeStrings()) {
+            if (index < 0 || index >= nativeLength(this)) {
+                throw new TStringIndexOutOfBoundsException();
+            }
+            return nativeCharAt(this, index);
+        }
         if (index < 0 || index >= characters.length) {
             throw new TStringIndexOutOfBoundsException();
         }
@@ -140,10 +176,16 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
 
     @Override
     public int length() {
+        if (PlatformDetector.hasNativeStrings()) {
+            return nativeLength(this);
+        }
         return characters.length;
     }
 
     public boolean isEmpty() {
+        if (PlatformDetector.hasNativeStrings()) {
+            return nativeLength(this) == 0;
+        }
         return characters.length == 0;
     }
 
@@ -152,12 +194,19 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
                 || dstBegin + (srcEnd - srcBegin) > dst.length) {
             throw new TIndexOutOfBoundsException();
         }
+        if (PlatformDetector.hasNativeStrings()) {
+            while (srcBegin < srcEnd) {
+                dst[dstBegin++] = nativeCharAt(this, srcBegin++);
+            }
+            return;
+        }
         while (srcBegin < srcEnd) {
             dst[dstBegin++] = charAt(srcBegin++);
         }
     }
 
     public boolean contentEquals(TStringBuffer buffer) {
+        char[] characters = chars();
         if (characters.length != buffer.length()) {
             return false;
         }
@@ -173,6 +222,7 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
         if (this == charSeq) {
             return true;
         }
+        char[] characters = chars();
         if (characters.length != charSeq.length()) {
             return false;
         }
@@ -282,6 +332,9 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
 
     public int indexOf(int ch, int fromIndex) {
         fromIndex = Math.max(0, fromIndex);
+        if (PlatformDetector.hasNativeStrings()) {
+            return nativeIndexOf(this, valueOfCodePoint(ch), fromIndex);
+        }
         if (ch < TCharacter.MIN_SUPPLEMENTARY_CODE_POINT) {
             char bmpChar = (char) ch;
             for (int i = fromIndex; i < characters.length; ++i) {
@@ -308,6 +361,9 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
 
     public int lastIndexOf(int ch, int fromIndex) {
         fromIndex = Math.min(fromIndex, length() - 1);
+        if (PlatformDetector.hasNativeStrings()) {
+            return fromIndex >= 0 ? nativeLastIndexOf(this, valueOfCodePoint(ch), fromIndex) : -1;
+        }
         if (ch < TCharacter.MIN_SUPPLEMENTARY_CODE_POINT) {
             char bmpChar = (char) ch;
             for (int i = fromIndex; i >= 0; --i) {
@@ -334,6 +390,9 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
 
     public int indexOf(TString str, int fromIndex) {
         fromIndex = Math.max(0, fromIndex);
+        if (PlatformDetector.hasNativeStrings()) {
+            return fromIndex <= length() - str.length() ? nativeIndexOf(this, str, fromIndex) : -1;
+        }
         int toIndex = length() - str.length();
         outer:
         for (int i = fromIndex; i <= toIndex; ++i) {
@@ -353,6 +412,9 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
 
     public int lastIndexOf(TString str, int fromIndex) {
         fromIndex = Math.min(fromIndex, length() - str.length());
+        if (PlatformDetector.hasNativeStrings()) {
+            return fromIndex >= 0 ? nativeLastIndexOf(this, str, fromIndex) : -1;
+        }
         outer:
         for (int i = fromIndex; i >= 0; --i) {
             for (int j = 0; j < str.length(); ++j) {
@@ -373,6 +435,12 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
         if (beginIndex > endIndex) {
             throw new TIndexOutOfBoundsException();
         }
+        if (PlatformDetector.hasNativeStrings()) {
+            if (beginIndex < 0 || endIndex > length()) {
+                throw new TIndexOutOfBoundsException();
+            }
+            return nativeSubstring(this, beginIndex, endIndex);
+        }
         return new TString(characters, beginIndex, endIndex - beginIndex);
     }
 
@@ -389,6 +457,9 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
         if (str.isEmpty()) {
             return this;
         }
+        if (PlatformDetector.hasNativeStrings()) {
+            return nativeConcat(this, str);
+        }
         char[] buffer = new char[length() + str.length()];
         int index = 0;
         for (int i = 0; i < length(); ++i) {
@@ -462,6 +533,11 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
     }
 
     public char[] toCharArray() {
+        if (PlatformDetector.hasNativeStrings()) {
+            char[] array = new char[length()];
+            getChars(0, array.length, array, 0);
+            return array;
+        }
         char[] array = new char[characters.length];
         for (int i = 0; i < array.length; ++i) {
             array[i] = characters[i];
@@ -522,6 +598,9 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
             return false;
         }
         TString str = (TString) other;
+        if (PlatformDetector.hasNativeStrings()) {
+            return nativeEquals(this, str);
+        }
         if (str.length() != length()) {
             return false;
         }
@@ -560,7 +639,7 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
     }
 
     public byte[] getBytes(TCharset charset) {
-        TByteBuffer buffer = charset.encode(TCharBuffer.wrap(characters));
+        TByteBuffer buffer = charset.encode(TCharBuffer.wrap(chars()));
         if (buffer.hasArray() && buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
             return buffer.array();
         } else {
@@ -573,6 +652,13 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
     @Override
     public int hashCode() {
         if (hashCode == 0) {
+            if (PlatformDetector.hasNativeStrings()) {
+                int length = nativeLength(this);
+                for (int i = 0; i < length; ++i) {
+                    hashCode = 31 * hashCode + nativeCharAt(this, i);
+                }
+                return hashCode;
+            }
             for (char c : characters) {
                 hashCode = 31 * hashCode + c;
             }
@@ -584,6 +670,7 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
         if (isEmpty()) {
             return this;
         }
+        char[] characters = chars();
         int[] codePoints = new int[characters.length];
         int codePointCount = 0;
         for (int i = 0; i < characters.length; ++i) {
@@ -607,6 +694,7 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
         if (isEmpty()) {
             return this;
         }
+        char[] characters = chars();
         int[] codePoints = new int[characters.length];
         int codePointCount = 0;
         for (int i = 0; i < characters.length; ++i) {
@@ -631,6 +719,57 @@ public class TString extends TObject implements TSerializable, TComparable<TStri
     @NoSideEffects
     public native TString intern();
 
+    private char[] chars() {
+        return PlatformDetector.hasNativeStrings() ? toCharArray() : characters;
+    }
+
+    private static TString valueOfCodePoint(int codePoint) {
+        return codePoint < TCharacter.MIN_SUPPLEMENTARY_CODE_POINT
+                ? new TString(new char[] { (char) codePoint })
+                : new TString(new char[] { TCharacter.highSurrogate(codePoint), TCharacter.lowSurrogate(codePoint) });
+    }
+
+    /*
+     * Following methods are only called in native strings mode of JavaScript backend, where characters
+     * are kept in $jsString$ property of string and characters field is always null.
+     */
+
+    @InjectedBy(StringNativeGenerator.class)
+    private static native void initNative(TString target, char[] characters, int offset, int count);
+
+    @InjectedBy(StringNativeGenerator.class)
+    private static native void copyNative(TString target, TString source);
+
+    @InjectedBy(StringNativeGenerator.class)
+    @NoSideEffects
+    private static native int nativeLength(TString string);
+
+    @InjectedBy(StringNativeGenerator.class)
+    @NoSideEffects
+    private static native char nativeCharAt(TString string, int index);
+
+    @InjectedBy(StringNativeGenerator.class)
+    @NoSideEffects
+    private static native boolean nativeEquals(TString a, TString b);
+
+    @InjectedBy(StringNativeGenerator.class)
+    @NoSideEffects
+    private static native int nativeIndexOf(TString string, TString substring, int fromIndex);
+
+    @InjectedBy(StringNativeGenerator.class)
+    @NoSideEffects
+    private static native int nativeLastIndexOf(TString string, TString substring, int fromIndex);
+
+    @InjectedBy(StringNativeGenerator.class)
+    @PluggableDependency(StringNativeGenerator.class)
+    @NoSideEffects
+    private static native TString nativeSubstring(TString string, int beginIndex, int endIndex);
+
+    @InjectedBy(StringNativeGenerator.class)
+    @PluggableDependency(StringNativeGenerator.class)
+    @NoSideEffects
+    private static native TString nativeConcat(TString a, TString b);
+
     public boolean matches(String regex) {
         return TPattern.matches(regex, this.toString());
     }
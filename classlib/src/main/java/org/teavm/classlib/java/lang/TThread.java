@@ -22,12 +22,15 @@ import org.teavm.platform.Platform;
 import org.teavm.platform.PlatformRunnable;
 import org.teavm.runtime.EventQueue;
 import org.teavm.runtime.Fiber;
+import org.teavm.runtime.Threads;
 
 public class TThread extends TObject implements TRunnable {
     private static TThread mainThread = new TThread("main");
     private static TThread currentThread = mainThread;
     private static long nextId = 1;
     private static int activeCount = 1;
+    private static TThread[] threadsById;
+    private static final Object threadsLock = new Object();
     private long id;
     private int priority;
     private boolean daemon;
@@ -35,12 +38,17 @@ public class TThread extends TObject implements TRunnable {
     private int yieldCount;
     private final Object finishedLock = new Object();
     private boolean interruptedFlag;
+    private int nativeId = -1;
     public TThreadInterruptHandler interruptHandler;
 
     private String name;
-    private boolean alive = true;
+    private boolean alive;
     TRunnable target;
 
+    static {
+        mainThread.alive = true;
+    }
+
     public TThread() {
         this(null, null);
     }
@@ -60,7 +68,13 @@ public class TThread extends TObject implements TRunnable {
     }
 
     public void start() {
-        if (PlatformDetector.isLowLevel()) {
+        alive = true;
+        if (PlatformDetector.isMultithreaded()) {
+            synchronized (threadsLock) {
+                nativeId = registerThread(this);
+            }
+            Threads.start(nativeId, daemon);
+        } else if (PlatformDetector.isLowLevel()) {
             boolean daemon = this.daemon;
             if (!daemon) {
                 Fiber.userThreadCount++;
@@ -71,6 +85,44 @@ public class TThread extends TObject implements TRunnable {
         }
     }
 
+    private static int registerThread(TThread thread) {
+        if (threadsById == null) {
+            threadsById = new TThread[16];
+            threadsById[0] = mainThread;
+        }
+        int id = 1;
+        while (id < threadsById.length && threadsById[id] != null) {
+            ++id;
+        }
+        if (id == threadsById.length) {
+            TThread[] newThreadsById = new TThread[threadsById.length * 2];
+            System.arraycopy(threadsById, 0, newThreadsById, 0, threadsById.length);
+            threadsById = newThreadsById;
+        }
+        threadsById[id] = thread;
+        return id;
+    }
+
+    private int nativeId() {
+        return this == mainThread ? 0 : nativeId;
+    }
+
+    /**
+     * Entry point of OS thread in multithreaded C runtime.
+     */
+    static void runStartedThread(int id) {
+        TThread thread = threadsById[id];
+        try {
+            thread.runThread();
+        } catch (Throwable e) {
+            e.printStackTrace();
+        } finally {
+            synchronized (threadsLock) {
+                threadsById[id] = null;
+            }
+        }
+    }
+
     private void runThread() {
         try {
             activeCount++;
@@ -78,6 +130,9 @@ public class TThread extends TObject implements TRunnable {
             TThread.this.run();
         } finally {
             synchronized (finishedLock) {
+                if (PlatformDetector.isMultithreaded()) {
+                    alive = false;
+                }
                 finishedLock.notifyAll();
             }
             alive = false;
@@ -87,6 +142,9 @@ public class TThread extends TObject implements TRunnable {
     }
 
     static void setCurrentThread(TThread thread) {
+        if (PlatformDetector.isMultithreaded()) {
+            return;
+        }
         if (currentThread != thread) {
             currentThread = thread;
         }
@@ -105,6 +163,10 @@ public class TThread extends TObject implements TRunnable {
     }
 
     public static TThread currentThread() {
+        if (PlatformDetector.isMultithreaded()) {
+            int id = Threads.currentId();
+            return id == 0 ? mainThread : threadsById[id];
+        }
         return currentThread;
     }
 
@@ -125,7 +187,22 @@ public class TThread extends TObject implements TRunnable {
             return;
         }
         synchronized (finishedLock) {
-            finishedLock.wait(millis, nanos);
+            if (PlatformDetector.isMultithreaded()) {
+                long deadline = millis > 0 ? System.currentTimeMillis() + millis : 0;
+                while (alive) {
+                    if (deadline == 0) {
+                        finishedLock.wait();
+                    } else {
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        finishedLock.wait(remaining);
+                    }
+                }
+            } else if (alive) {
+                finishedLock.wait(millis, nanos);
+            }
         }
     }
 
@@ -138,6 +215,10 @@ public class TThread extends TObject implements TRunnable {
     }
 
     public static void yield() {
+        if (PlatformDetector.isMultithreaded()) {
+            Threads.yield();
+            return;
+        }
         TThread currentThread = currentThread();
         if (++currentThread.yieldCount < 30) {
             return;
@@ -166,6 +247,10 @@ public class TThread extends TObject implements TRunnable {
     }
 
     public void interrupt() {
+        if (PlatformDetector.isMultithreaded()) {
+            Threads.interrupt(nativeId());
+            return;
+        }
         interruptedFlag = true;
         if (interruptHandler != null) {
             interruptHandler.interrupted();
@@ -174,6 +259,9 @@ public class TThread extends TObject implements TRunnable {
     }
 
     public static boolean interrupted() {
+        if (PlatformDetector.isMultithreaded()) {
+            return Threads.isInterrupted(Threads.currentId(), true);
+        }
         TThread thread = currentThread();
         boolean result = thread.interruptedFlag;
         thread.interruptedFlag = false;
@@ -181,6 +269,9 @@ public class TThread extends TObject implements TRunnable {
     }
 
     public boolean isInterrupted() {
+        if (PlatformDetector.isMultithreaded()) {
+            return Threads.isInterrupted(nativeId(), false);
+        }
         return interruptedFlag;
     }
 
@@ -200,10 +291,20 @@ public class TThread extends TObject implements TRunnable {
         return TObject.holdsLock(obj);
     }
 
+    public static void sleep(long millis) throws TInterruptedException {
+        if (PlatformDetector.isMultithreaded()) {
+            if (Threads.sleep(millis)) {
+                throw new TInterruptedException();
+            }
+        } else {
+            sleepAsync(millis);
+        }
+    }
+
     @Async
-    public static native void sleep(long millis) throws TInterruptedException;
+    private static native void sleepAsync(long millis) throws TInterruptedException;
 
-    private static void sleep(long millis, AsyncCallback<Void> callback) {
+    private static void sleepAsync(long millis, AsyncCallback<Void> callback) {
         TThread current = currentThread();
         SleepHandler handler = new SleepHandler(current, callback);
         if (PlatformDetector.isLowLevel()) {
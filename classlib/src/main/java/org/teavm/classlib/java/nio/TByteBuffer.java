@@ -93,6 +93,18 @@ public abstract class TByteBuffer extends TBuffer implements TComparable<TByteBu
     }
 
     public TByteBuffer put(TByteBuffer src) {
+        if (src.array == null) {
+            if (isReadOnly()) {
+                throw new TReadOnlyBufferException();
+            }
+            if (remaining() < src.remaining()) {
+                throw new TBufferOverflowException();
+            }
+            while (src.hasRemaining()) {
+                put(src.get());
+            }
+            return this;
+        }
         return put(src.array, src.start + src.position, src.remaining());
     }
 
@@ -135,11 +147,17 @@ public abstract class TByteBuffer extends TBuffer implements TComparable<TByteBu
 
     @Override
     public final byte[] array() {
+        if (array == null) {
+            throw new UnsupportedOperationException();
+        }
         return array;
     }
 
     @Override
     public int arrayOffset() {
+        if (array == null) {
+            throw new UnsupportedOperationException();
+        }
         return start;
     }
 
@@ -157,6 +175,12 @@ public abstract class TByteBuffer extends TBuffer implements TComparable<TByteBu
     @Override
     public int hashCode() {
         int hashCode = 0;
+        if (array == null) {
+            for (int i = position; i < limit; ++i) {
+                hashCode = 31 * hashCode + get(i);
+            }
+            return hashCode;
+        }
         int pos = position + start;
         for (int i = position; i < limit; ++i) {
             hashCode = 31 * hashCode + array[pos++];
@@ -177,6 +201,14 @@ public abstract class TByteBuffer extends TBuffer implements TComparable<TByteBu
         if (sz != other.remaining()) {
             return false;
         }
+        if (array == null || other.array == null) {
+            for (int i = 0; i < sz; ++i) {
+                if (get(position + i) != other.get(other.position + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
         int a = position + start;
         int b = other.position + other.start;
         for (int i = 0; i < sz; ++i) {
@@ -193,6 +225,15 @@ public abstract class TByteBuffer extends TBuffer implements TComparable<TByteBu
             return 0;
         }
         int sz = Math.min(remaining(), other.remaining());
+        if (array == null || other.array == null) {
+            for (int i = 0; i < sz; ++i) {
+                int r = Byte.compare(get(position + i), other.get(other.position + i));
+                if (r != 0) {
+                    return r;
+                }
+            }
+            return Integer.compare(remaining(), other.remaining());
+        }
         int a = position + start;
         int b = other.position + other.start;
         for (int i = 0; i < sz; ++i) {
@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.java.nio;
+
+class TCharBufferOverMappedBuffer extends TCharBufferImpl {
+    private TMappedByteBufferImpl buffer;
+    private TByteOrder byteOrder;
+    private boolean readOnly;
+    private int start;
+
+    TCharBufferOverMappedBuffer(int start, int capacity, TMappedByteBufferImpl buffer, int position, int limit,
+            boolean readOnly, TByteOrder byteOrder) {
+        super(capacity, position, limit);
+        this.start = start;
+        this.buffer = buffer;
+        this.readOnly = readOnly;
+        this.byteOrder = byteOrder;
+    }
+
+    @Override
+    TCharBuffer duplicate(int start, int capacity, int position, int limit, boolean readOnly) {
+        return new TCharBufferOverMappedBuffer(this.start + start * 2, capacity, buffer, position, limit, readOnly,
+                byteOrder);
+    }
+
+    @Override
+    char getChar(int index) {
+        return (char) buffer.readAt(start + index * 2, 2, byteOrder);
+    }
+
+    @Override
+    void putChar(int index, char value) {
+        buffer.writeAt(start + index * 2, 2, value, byteOrder);
+    }
+
+    @Override
+    boolean isArrayPresent() {
+        return false;
+    }
+
+    @Override
+    char[] getArray() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    int getArrayOffset() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isDirect() {
+        return true;
+    }
+
+    @Override
+    boolean readOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public TByteOrder order() {
+        return byteOrder;
+    }
+}
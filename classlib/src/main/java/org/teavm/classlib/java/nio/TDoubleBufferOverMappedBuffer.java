@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.java.nio;
+
+class TDoubleBufferOverMappedBuffer extends TDoubleBufferImpl {
+    private TMappedByteBufferImpl buffer;
+    private TByteOrder byteOrder;
+    private boolean readOnly;
+    private int start;
+
+    TDoubleBufferOverMappedBuffer(int start, int capacity, TMappedByteBufferImpl buffer, int position, int limit,
+            boolean readOnly, TByteOrder byteOrder) {
+        super(capacity, position, limit);
+        this.start = start;
+        this.buffer = buffer;
+        this.readOnly = readOnly;
+        this.byteOrder = byteOrder;
+    }
+
+    @Override
+    TDoubleBuffer duplicate(int start, int capacity, int position, int limit, boolean readOnly) {
+        return new TDoubleBufferOverMappedBuffer(this.start + start * 8, capacity, buffer, position, limit, readOnly,
+                byteOrder);
+    }
+
+    @Override
+    double getElement(int index) {
+        return Double.longBitsToDouble(buffer.readAt(start + index * 8, 8, byteOrder));
+    }
+
+    @Override
+    void putElement(int index, double value) {
+        buffer.writeAt(start + index * 8, 8, Double.doubleToRawLongBits(value), byteOrder);
+    }
+
+    @Override
+    boolean isArrayPresent() {
+        return false;
+    }
+
+    @Override
+    double[] getArray() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    int getArrayOffset() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isDirect() {
+        return true;
+    }
+
+    @Override
+    boolean readOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public TByteOrder order() {
+        return byteOrder;
+    }
+}
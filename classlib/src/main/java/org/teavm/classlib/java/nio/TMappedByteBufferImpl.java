@@ -0,0 +1,399 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.java.nio;
+
+import org.teavm.classlib.fs.c.CFileMapping;
+import org.teavm.classlib.impl.c.Memory;
+import org.teavm.interop.Address;
+
+/**
+ * <p>Byte buffer over memory mapped by native code. Unlike {@link TByteBufferImpl}, it has no backing array,
+ * so views of other primitive types read and write the mapped memory directly.</p>
+ */
+public class TMappedByteBufferImpl extends TMappedByteBuffer {
+    private CFileMapping mapping;
+    private Address address;
+    private boolean readOnly;
+
+    public TMappedByteBufferImpl(CFileMapping mapping, Address address, int capacity, boolean readOnly) {
+        this(mapping, address, capacity, 0, capacity, readOnly);
+    }
+
+    private TMappedByteBufferImpl(CFileMapping mapping, Address address, int capacity, int position, int limit,
+            boolean readOnly) {
+        super(capacity, position, limit);
+        this.mapping = mapping;
+        this.address = address;
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    void flush() {
+        mapping.force(address, capacity);
+    }
+
+    @Override
+    public TByteBuffer slice() {
+        return new TMappedByteBufferImpl(mapping, address.add(position), limit - position, readOnly);
+    }
+
+    @Override
+    public TByteBuffer duplicate() {
+        TMappedByteBufferImpl result = new TMappedByteBufferImpl(mapping, address, capacity, position, limit,
+                readOnly);
+        result.mark = mark;
+        return result;
+    }
+
+    @Override
+    public TByteBuffer asReadOnlyBuffer() {
+        TMappedByteBufferImpl result = new TMappedByteBufferImpl(mapping, address, capacity, position, limit, true);
+        result.mark = mark;
+        return result;
+    }
+
+    @Override
+    public byte get() {
+        if (position >= limit) {
+            throw new TBufferUnderflowException();
+        }
+        return address.add(position++).getByte();
+    }
+
+    @Override
+    public TByteBuffer put(byte b) {
+        if (readOnly) {
+            throw new TReadOnlyBufferException();
+        }
+        if (position >= limit) {
+            throw new TBufferOverflowException();
+        }
+        address.add(position++).putByte(b);
+        return this;
+    }
+
+    @Override
+    public byte get(int index) {
+        checkIndex(index, 1);
+        return address.add(index).getByte();
+    }
+
+    @Override
+    public TByteBuffer put(int index, byte b) {
+        if (readOnly) {
+            throw new TReadOnlyBufferException();
+        }
+        checkIndex(index, 1);
+        address.add(index).putByte(b);
+        return this;
+    }
+
+    @Override
+    public TByteBuffer get(byte[] dst, int offset, int length) {
+        if (offset < 0 || offset > dst.length) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " is outside of range [0;" + dst.length + "]");
+        }
+        if (length < 0 || offset + length > dst.length) {
+            throw new IndexOutOfBoundsException("The last byte in dst " + (offset + length) + " is outside "
+                    + "of array of size " + dst.length);
+        }
+        if (remaining() < length) {
+            throw new TBufferUnderflowException();
+        }
+        if (length > 0) {
+            Memory.memcpy(Address.ofData(dst).add(offset), address.add(position), length);
+        }
+        position += length;
+        return this;
+    }
+
+    @Override
+    public TByteBuffer put(byte[] src, int offset, int length) {
+        if (length == 0) {
+            return this;
+        }
+        if (readOnly) {
+            throw new TReadOnlyBufferException();
+        }
+        if (remaining() < length) {
+            throw new TBufferOverflowException();
+        }
+        if (offset < 0 || offset >= src.length) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " is outside of range [0;" + src.length + ")");
+        }
+        if (length < 0 || offset + length > src.length) {
+            throw new IndexOutOfBoundsException("The last byte in src " + (offset + length) + " is outside "
+                    + "of array of size " + src.length);
+        }
+        Memory.memcpy(address.add(position), Address.ofData(src).add(offset), length);
+        position += length;
+        return this;
+    }
+
+    @Override
+    public TByteBuffer put(TByteBuffer src) {
+        if (src.array != null) {
+            put(src.array, src.start + src.position, src.remaining());
+            src.position = src.limit;
+            return this;
+        }
+        if (readOnly) {
+            throw new TReadOnlyBufferException();
+        }
+        int length = src.remaining();
+        if (remaining() < length) {
+            throw new TBufferOverflowException();
+        }
+        while (src.hasRemaining()) {
+            address.add(position++).putByte(src.get());
+        }
+        return this;
+    }
+
+    @Override
+    public boolean hasArray() {
+        return false;
+    }
+
+    @Override
+    public TByteBuffer compact() {
+        if (readOnly) {
+            throw new TReadOnlyBufferException();
+        }
+        int sz = remaining();
+        if (position > 0) {
+            Address dst = address;
+            Address src = address.add(position);
+            for (int i = 0; i < sz; ++i) {
+                dst.putByte(src.getByte());
+                dst = dst.add(1);
+                src = src.add(1);
+            }
+        }
+        position = sz;
+        limit = capacity;
+        mark = -1;
+        return this;
+    }
+
+    @Override
+    public boolean isDirect() {
+        return true;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public char getChar() {
+        char result = (char) read(position, 2);
+        position += 2;
+        return result;
+    }
+
+    @Override
+    public TByteBuffer putChar(char value) {
+        write(position, 2, value);
+        position += 2;
+        return this;
+    }
+
+    @Override
+    public char getChar(int index) {
+        checkIndex(index, 2);
+        return (char) read(index, 2);
+    }
+
+    @Override
+    public TByteBuffer putChar(int index, char value) {
+        checkIndex(index, 2);
+        write(index, 2, value);
+        return this;
+    }
+
+    @Override
+    public TCharBuffer asCharBuffer() {
+        int sz = remaining() / 2;
+        return new TCharBufferOverMappedBuffer(position, sz, this, 0, sz, readOnly, order);
+    }
+
+    @Override
+    public short getShort() {
+        short result = (short) read(position, 2);
+        position += 2;
+        return result;
+    }
+
+    @Override
+    public TByteBuffer putShort(short value) {
+        write(position, 2, value);
+        position += 2;
+        return this;
+    }
+
+    @Override
+    public short getShort(int index) {
+        checkIndex(index, 2);
+        return (short) read(index, 2);
+    }
+
+    @Override
+    public TByteBuffer putShort(int index, short value) {
+        checkIndex(index, 2);
+        write(index, 2, value);
+        return this;
+    }
+
+    @Override
+    public TShortBuffer asShortBuffer() {
+        int sz = remaining() / 2;
+        return new TShortBufferOverMappedBuffer(position, sz, this, 0, sz, readOnly, order);
+    }
+
+    @Override
+    public int getInt() {
+        int result = (int) read(position, 4);
+        position += 4;
+        return result;
+    }
+
+    @Override
+    public TByteBuffer putInt(int value) {
+        write(position, 4, value);
+        position += 4;
+        return this;
+    }
+
+    @Override
+    public int getInt(int index) {
+        checkIndex(index, 4);
+        return (int) read(index, 4);
+    }
+
+    @Override
+    public TByteBuffer putInt(int index, int value) {
+        checkIndex(index, 4);
+        write(index, 4, value);
+        return this;
+    }
+
+    @Override
+    public TIntBuffer asIntBuffer() {
+        int sz = remaining() / 4;
+        return new TIntBufferOverMappedBuffer(position, sz, this, 0, sz, readOnly, order);
+    }
+
+    @Override
+    public long getLong() {
+        long result = read(position, 8);
+        position += 8;
+        return result;
+    }
+
+    @Override
+    public TByteBuffer putLong(long value) {
+        write(position, 8, value);
+        position += 8;
+        return this;
+    }
+
+    @Override
+    public long getLong(int index) {
+        checkIndex(index, 8);
+        return read(index, 8);
+    }
+
+    @Override
+    public TByteBuffer putLong(int index, long value) {
+        checkIndex(index, 8);
+        write(index, 8, value);
+        return this;
+    }
+
+    @Override
+    public TLongBuffer asLongBuffer() {
+        int sz = remaining() / 8;
+        return new TLongBufferOverMappedBuffer(position, sz, this, 0, sz, readOnly, order);
+    }
+
+    @Override
+    public TFloatBuffer asFloatBuffer() {
+        int sz = remaining() / 4;
+        return new TFloatBufferOverMappedBuffer(position, sz, this, 0, sz, readOnly, order);
+    }
+
+    @Override
+    public TDoubleBuffer asDoubleBuffer() {
+        int sz = remaining() / 8;
+        return new TDoubleBufferOverMappedBuffer(position, sz, this, 0, sz, readOnly, order);
+    }
+
+    private void checkIndex(int index, int size) {
+        if (index < 0 || index + size > limit) {
+            throw new IndexOutOfBoundsException("Index " + index + " is outside of range [0;"
+                    + (limit - size + 1) + ")");
+        }
+    }
+
+    private long read(int index, int size) {
+        if (index + size > limit) {
+            throw new TBufferUnderflowException();
+        }
+        return readAt(index, size, order);
+    }
+
+    private void write(int index, int size, long value) {
+        if (readOnly) {
+            throw new TReadOnlyBufferException();
+        }
+        if (index + size > limit) {
+            throw new TBufferOverflowException();
+        }
+        writeAt(index, size, value, order);
+    }
+
+    long readAt(int index, int size, TByteOrder byteOrder) {
+        Address ptr = address.add(index);
+        long result = 0;
+        if (byteOrder == TByteOrder.BIG_ENDIAN) {
+            for (int i = 0; i < size; ++i) {
+                result = (result << 8) | (ptr.add(i).getByte() & 0xFF);
+            }
+        } else {
+            for (int i = size - 1; i >= 0; --i) {
+                result = (result << 8) | (ptr.add(i).getByte() & 0xFF);
+            }
+        }
+        return result;
+    }
+
+    void writeAt(int index, int size, long value, TByteOrder byteOrder) {
+        Address ptr = address.add(index);
+        if (byteOrder == TByteOrder.BIG_ENDIAN) {
+            for (int i = size - 1; i >= 0; --i) {
+                ptr.add(i).putByte((byte) value);
+                value >>>= 8;
+            }
+        } else {
+            for (int i = 0; i < size; ++i) {
+                ptr.add(i).putByte((byte) value);
+                value >>>= 8;
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.java.nio.channels;
+
+import java.io.IOException;
+import org.teavm.classlib.java.nio.TByteBuffer;
+import org.teavm.classlib.java.nio.TMappedByteBuffer;
+
+public abstract class TFileChannel implements TSeekableByteChannel {
+    private boolean closed;
+
+    protected TFileChannel() {
+    }
+
+    @Override
+    public abstract int read(TByteBuffer dst) throws IOException;
+
+    public abstract int read(TByteBuffer dst, long position) throws IOException;
+
+    @Override
+    public abstract int write(TByteBuffer src) throws IOException;
+
+    public abstract int write(TByteBuffer src, long position) throws IOException;
+
+    @Override
+    public abstract long position() throws IOException;
+
+    @Override
+    public abstract TFileChannel position(long newPosition) throws IOException;
+
+    @Override
+    public abstract long size() throws IOException;
+
+    @Override
+    public abstract TFileChannel truncate(long size) throws IOException;
+
+    public abstract void force(boolean metaData) throws IOException;
+
+    public abstract long transferTo(long position, long count, TWritableByteChannel target) throws IOException;
+
+    public abstract long transferFrom(TReadableByteChannel src, long position, long count) throws IOException;
+
+    public abstract TMappedByteBuffer map(MapMode mode, long position, long size) throws IOException;
+
+    @Override
+    public final boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public final void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            implCloseChannel();
+        }
+    }
+
+    protected abstract void implCloseChannel() throws IOException;
+
+    public static class MapMode {
+        public static final MapMode READ_ONLY = new MapMode("READ_ONLY");
+        public static final MapMode READ_WRITE = new MapMode("READ_WRITE");
+        public static final MapMode PRIVATE = new MapMode("PRIVATE");
+
+        private final String name;
+
+        private MapMode(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
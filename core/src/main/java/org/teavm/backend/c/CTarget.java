@@ -20,17 +20,22 @@ import com.carrotsearch.hppc.ObjectByteMap;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import org.teavm.ast.AsyncMethodNode;
 import org.teavm.ast.InvocationExpr;
 import org.teavm.ast.decompilation.Decompiler;
 import org.teavm.backend.c.analyze.CDependencyListener;
@@ -77,12 +82,21 @@ import org.teavm.backend.lowlevel.dependency.ExceptionHandlingDependencyListener
 import org.teavm.backend.lowlevel.dependency.WeakReferenceDependencyListener;
 import org.teavm.backend.lowlevel.transform.CoroutineTransformation;
 import org.teavm.backend.lowlevel.transform.WeakReferenceTransformation;
+import org.teavm.cache.AstCacheEntry;
+import org.teavm.cache.CacheStatus;
 import org.teavm.cache.EmptyMethodNodeCache;
 import org.teavm.cache.MethodNodeCache;
+import org.teavm.common.ParallelExecutor;
 import org.teavm.dependency.ClassDependency;
 import org.teavm.dependency.DependencyAnalyzer;
+import org.teavm.dependency.DependencyInfo;
 import org.teavm.dependency.DependencyListener;
+import org.teavm.dependency.SynchronizedDependencyInfo;
+import org.teavm.diagnostics.AccumulationDiagnostics;
+import org.teavm.diagnostics.Diagnostics;
+import org.teavm.diagnostics.Problem;
 import org.teavm.interop.Address;
+import org.teavm.interop.Async;
 import org.teavm.interop.Platforms;
 import org.teavm.interop.Structure;
 import org.teavm.model.BasicBlock;
@@ -90,6 +104,9 @@ import org.teavm.model.ClassHierarchy;
 import org.teavm.model.ClassHolder;
 import org.teavm.model.ClassHolderTransformer;
 import org.teavm.model.ClassReader;
+import org.teavm.model.ClassReaderSource;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.FieldHolder;
 import org.teavm.model.FieldReader;
 import org.teavm.model.FieldReference;
 import org.teavm.model.Instruction;
@@ -128,6 +145,7 @@ import org.teavm.runtime.RuntimeArray;
 import org.teavm.runtime.RuntimeClass;
 import org.teavm.runtime.RuntimeObject;
 import org.teavm.vm.BuildTarget;
+import org.teavm.vm.MemoryBuildTarget;
 import org.teavm.vm.TeaVMEntryPoint;
 import org.teavm.vm.TeaVMTarget;
 import org.teavm.vm.TeaVMTargetController;
@@ -139,6 +157,8 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
     ));
     private static final MethodReference STRING_CONSTRUCTOR = new MethodReference(String.class,
             "<init>", char[].class, void.class);
+    private static final int DEFAULT_MIN_HEAP_FREE_RATIO = 30;
+    private static final int DEFAULT_MAX_HEAP_FREE_RATIO = 70;
 
     private TeaVMTargetController controller;
     private ClassInitializerEliminator classInitializerEliminator;
@@ -147,7 +167,10 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
     private NullCheckInsertion nullCheckInsertion;
     private NullCheckTransformation nullCheckTransformation;
     private ExportDependencyListener exportDependencyListener = new ExportDependencyListener();
-    private int minHeapSize = 32 * 1024 * 1024;
+    private long minHeapSize = 32 * 1024 * 1024;
+    private long maxHeapSize;
+    private int minHeapFreeRatio;
+    private int maxHeapFreeRatio;
     private List<IntrinsicFactory> intrinsicFactories = new ArrayList<>();
     private List<GeneratorFactory> generatorFactories = new ArrayList<>();
     private Characteristics characteristics;
@@ -159,12 +182,38 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
     private SimpleStringPool stringPool;
     private boolean longjmpUsed = true;
     private boolean heapDump;
+    private boolean generationalGC;
+    private boolean multithreaded;
     private List<CallSiteDescriptor> callSites = new ArrayList<>();
 
-    public void setMinHeapSize(int minHeapSize) {
+    public void setMinHeapSize(long minHeapSize) {
         this.minHeapSize = minHeapSize;
     }
 
+    /**
+     * Sets size up to which heap may grow when there's not enough free memory after garbage collection.
+     * When not set or less than minimum heap size, heap never grows.
+     */
+    public void setMaxHeapSize(long maxHeapSize) {
+        this.maxHeapSize = maxHeapSize;
+    }
+
+    /**
+     * Sets percentage of heap that must remain free after garbage collection, otherwise heap grows.
+     * When not set, 30% is used.
+     */
+    public void setMinHeapFreeRatio(int minHeapFreeRatio) {
+        this.minHeapFreeRatio = minHeapFreeRatio;
+    }
+
+    /**
+     * Sets percentage of free heap above which heap is shrunk after several garbage collections in a row.
+     * When not set, 70% is used.
+     */
+    public void setMaxHeapFreeRatio(int maxHeapFreeRatio) {
+        this.maxHeapFreeRatio = maxHeapFreeRatio;
+    }
+
     public void setIncremental(boolean incremental) {
         this.incremental = incremental;
     }
@@ -181,6 +230,19 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         this.heapDump = heapDump;
     }
 
+    public void setGenerationalGC(boolean generationalGC) {
+        this.generationalGC = generationalGC;
+    }
+
+    /**
+     * Makes {@link Thread} run on OS threads instead of coroutines switched by event loop.
+     * Generated code should be linked with POSIX threads library. Methods that rely on coroutines
+     * (i.e. {@link org.teavm.interop.Async} methods) can't be used in this mode, neither can generational GC.
+     */
+    public void setMultithreaded(boolean multithreaded) {
+        this.multithreaded = multithreaded;
+    }
+
     public void setAstCache(MethodNodeCache astCache) {
         this.astCache = astCache;
     }
@@ -293,6 +355,13 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         dependencyAnalyzer.linkClass(CallSite.class.getName());
         dependencyAnalyzer.linkClass(CallSiteLocation.class.getName());
 
+        if (multithreaded) {
+            dependencyAnalyzer.linkMethod(new MethodReference(Thread.class, "runStartedThread", int.class,
+                    void.class)).use();
+            dependencyAnalyzer.linkMethod(new MethodReference(GC.class, "releaseCurrentThreadBuffer",
+                    void.class)).use();
+        }
+
         dependencyAnalyzer.addDependencyListener(new ExceptionHandlingDependencyListener());
     }
 
@@ -303,6 +372,48 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         asyncMethods = new HashSet<>(asyncFinder.getAsyncMethods());
         asyncMethods.addAll(asyncFinder.getAsyncFamilyMethods());
         hasThreads = asyncFinder.hasAsyncMethods();
+        checkHeapSettings();
+
+        if (multithreaded) {
+            if (generationalGC) {
+                controller.getDiagnostics().error(null, "Generational GC is not supported by multithreaded "
+                        + "runtime");
+            }
+            for (MethodReference method : asyncFinder.getAsyncMethods()) {
+                MethodReader methodReader = classSource.resolve(method);
+                if (methodReader != null && methodReader.getAnnotations().get(Async.class.getName()) != null) {
+                    controller.getDiagnostics().error(null, "Method {{m0}} relies on coroutines, which are "
+                            + "not supported by multithreaded runtime", method);
+                }
+            }
+            asyncMethods = new HashSet<>();
+            hasThreads = false;
+        }
+    }
+
+    private void checkHeapSettings() {
+        Diagnostics diagnostics = controller.getDiagnostics();
+        if (minHeapSize <= 0) {
+            diagnostics.error(null, "Minimum heap size must be positive, got " + minHeapSize + " bytes");
+        }
+        if (maxHeapSize > 0 && maxHeapSize < minHeapSize) {
+            diagnostics.error(null, "Maximum heap size (" + maxHeapSize + " bytes) is less than minimum heap size ("
+                    + minHeapSize + " bytes)");
+        }
+        if (minHeapFreeRatio < 0 || minHeapFreeRatio >= 100) {
+            diagnostics.error(null, "Minimum heap free ratio must be between 0 and 99 (0 for default), got "
+                    + minHeapFreeRatio);
+        }
+        if (maxHeapFreeRatio < 0 || maxHeapFreeRatio > 100) {
+            diagnostics.error(null, "Maximum heap free ratio must be between 0 and 100 (0 for default), got "
+                    + maxHeapFreeRatio);
+        }
+        int effectiveMinRatio = minHeapFreeRatio > 0 ? minHeapFreeRatio : DEFAULT_MIN_HEAP_FREE_RATIO;
+        int effectiveMaxRatio = maxHeapFreeRatio > 0 ? maxHeapFreeRatio : DEFAULT_MAX_HEAP_FREE_RATIO;
+        if (effectiveMinRatio > effectiveMaxRatio) {
+            diagnostics.error(null, "Minimum heap free ratio (" + effectiveMinRatio + "%) is greater than "
+                    + "maximum heap free ratio (" + effectiveMaxRatio + "%)");
+        }
     }
 
     @Override
@@ -331,43 +442,31 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         ClassHierarchy hierarchy = new ClassHierarchy(classes);
         TagRegistry tagRegistry = new TagRegistry(classes, hierarchy);
 
+        boolean concurrent = isGeneratedConcurrently();
+        DependencyInfo dependencyInfo = concurrent
+                ? new SynchronizedDependencyInfo(controller.getDependencyInfo())
+                : controller.getDependencyInfo();
+        ClassReaderSource unprocessedClassSource = concurrent
+                ? dependencyInfo.getClassSource()
+                : controller.getUnprocessedClassSource();
+
         Decompiler decompiler = new Decompiler(classes, new HashSet<>(), controller.isFriendlyToDebugger());
-        Characteristics characteristics = new Characteristics(controller.getUnprocessedClassSource());
+        Characteristics characteristics = new Characteristics(unprocessedClassSource);
 
-        NameProvider nameProvider = new NameProvider(controller.getUnprocessedClassSource());
+        NameProvider nameProvider = new NameProvider(unprocessedClassSource);
 
-        List<Intrinsic> intrinsics = new ArrayList<>();
-        intrinsics.add(new ShadowStackIntrinsic());
-        intrinsics.add(new AddressIntrinsic());
-        intrinsics.add(new AllocatorIntrinsic());
-        intrinsics.add(new StructureIntrinsic(characteristics));
-        intrinsics.add(new PlatformIntrinsic());
-        intrinsics.add(new PlatformObjectIntrinsic());
-        intrinsics.add(new PlatformClassIntrinsic());
-        intrinsics.add(new PlatformClassMetadataIntrinsic());
-        intrinsics.add(new GCIntrinsic());
-        intrinsics.add(new MemoryTraceIntrinsic());
-        intrinsics.add(new MutatorIntrinsic());
-        intrinsics.add(new ExceptionHandlingIntrinsic());
-        intrinsics.add(new FunctionIntrinsic(characteristics, exportDependencyListener.getResolvedMethods()));
-        intrinsics.add(new RuntimeClassIntrinsic());
-        intrinsics.add(new FiberIntrinsic());
-        intrinsics.add(new LongIntrinsic());
-        intrinsics.add(new IntegerIntrinsic());
-        intrinsics.add(new StringsIntrinsic());
-        intrinsics.add(new ConsoleIntrinsic());
-
-        List<Generator> generators = new ArrayList<>();
-        generators.add(new ArrayGenerator());
-        generators.add(new WeakReferenceGenerator());
-        generators.add(new ReferenceQueueGenerator());
+        IntrinsicFactoryContextImpl intrinsicFactoryContext = new IntrinsicFactoryContextImpl(
+                unprocessedClassSource, controller.getClassLoader(), controller.getServices(),
+                controller.getProperties());
+        List<Intrinsic> intrinsics = createIntrinsics(characteristics, intrinsicFactoryContext);
+        List<Generator> generators = createGenerators(intrinsicFactoryContext);
 
         stringPool = new SimpleStringPool();
         boolean vmAssertions = Boolean.parseBoolean(System.getProperty("teavm.c.vmAssertions", "false"));
         GenerationContext context = new GenerationContext(vtableProvider, characteristics,
-                controller.getDependencyInfo(), stringPool, nameProvider, controller.getDiagnostics(), classes,
+                dependencyInfo, stringPool, nameProvider, controller.getDiagnostics(), classes,
                 intrinsics, generators, asyncMethods::contains, buildTarget, incremental, longjmpUsed,
-                vmAssertions, vmAssertions || heapDump);
+                vmAssertions, vmAssertions || heapDump, generationalGC, multithreaded);
 
         BufferedCodeWriter runtimeWriter = new BufferedCodeWriter(false);
         BufferedCodeWriter runtimeHeaderWriter = new BufferedCodeWriter(false);
@@ -386,6 +485,18 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         if (heapDump) {
             runtimeHeaderWriter.println("#define TEAVM_HEAP_DUMP 1");
         }
+        if (generationalGC) {
+            runtimeHeaderWriter.println("#define TEAVM_GC_GENERATIONAL 1");
+        }
+        if (multithreaded) {
+            runtimeHeaderWriter.println("#define TEAVM_MULTITHREADED 1");
+        }
+        if (minHeapFreeRatio > 0) {
+            runtimeHeaderWriter.println("#define TEAVM_GC_MIN_HEAP_FREE_RATIO " + minHeapFreeRatio);
+        }
+        if (maxHeapFreeRatio > 0) {
+            runtimeHeaderWriter.println("#define TEAVM_GC_MAX_HEAP_FREE_RATIO " + maxHeapFreeRatio);
+        }
         emitResource(runtimeHeaderWriter, "runtime.h");
 
         ClassGenerator classGenerator = new ClassGenerator(context, tagRegistry, decompiler,
@@ -394,17 +505,14 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         if (context.isLongjmp() && !context.isIncremental()) {
             classGenerator.setCallSites(callSites);
         }
-        IntrinsicFactoryContextImpl intrinsicFactoryContext = new IntrinsicFactoryContextImpl(
-                controller.getUnprocessedClassSource(), controller.getClassLoader(), controller.getServices(),
-                controller.getProperties());
-        for (IntrinsicFactory intrinsicFactory : intrinsicFactories) {
-            context.addIntrinsic(intrinsicFactory.createIntrinsic(intrinsicFactoryContext));
-        }
-        for (GeneratorFactory generatorFactory : generatorFactories) {
-            context.addGenerator(generatorFactory.createGenerator(intrinsicFactoryContext));
-        }
 
-        generateClasses(classes, classGenerator, buildTarget);
+        if (concurrent) {
+            generateClassesConcurrently(classes, classGenerator, context, buildTarget,
+                    () -> createIntrinsics(characteristics, intrinsicFactoryContext),
+                    () -> createGenerators(intrinsicFactoryContext));
+        } else {
+            generateClasses(classes, classGenerator, buildTarget);
+        }
         generateSpecialFunctions(context, runtimeWriter);
         OutputFileUtil.write(runtimeWriter, "runtime.c", buildTarget);
         OutputFileUtil.write(runtimeHeaderWriter, "runtime.h", buildTarget);
@@ -413,6 +521,9 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         copyResource("date.c", buildTarget);
         copyResource("file.c", buildTarget);
         copyResource("heap.c", buildTarget);
+        if (multithreaded) {
+            copyResource("threads.c", buildTarget);
+        }
         generateCallSites(buildTarget, context, classes.getClassNames());
         generateStrings(buildTarget, context);
 
@@ -482,6 +593,239 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         }
     }
 
+    private List<Intrinsic> createIntrinsics(Characteristics characteristics,
+            IntrinsicFactoryContextImpl intrinsicFactoryContext) {
+        List<Intrinsic> intrinsics = new ArrayList<>();
+        intrinsics.add(new ShadowStackIntrinsic());
+        intrinsics.add(new AddressIntrinsic());
+        intrinsics.add(new AllocatorIntrinsic());
+        intrinsics.add(new StructureIntrinsic(characteristics));
+        intrinsics.add(new PlatformIntrinsic());
+        intrinsics.add(new PlatformObjectIntrinsic());
+        intrinsics.add(new PlatformClassIntrinsic());
+        intrinsics.add(new PlatformClassMetadataIntrinsic());
+        intrinsics.add(new GCIntrinsic());
+        intrinsics.add(new MemoryTraceIntrinsic());
+        intrinsics.add(new MutatorIntrinsic());
+        intrinsics.add(new ExceptionHandlingIntrinsic());
+        intrinsics.add(new FunctionIntrinsic(characteristics, exportDependencyListener.getResolvedMethods()));
+        intrinsics.add(new RuntimeClassIntrinsic());
+        intrinsics.add(new FiberIntrinsic());
+        intrinsics.add(new LongIntrinsic());
+        intrinsics.add(new IntegerIntrinsic());
+        intrinsics.add(new StringsIntrinsic());
+        intrinsics.add(new ConsoleIntrinsic());
+        for (IntrinsicFactory intrinsicFactory : intrinsicFactories) {
+            intrinsics.add(intrinsicFactory.createIntrinsic(intrinsicFactoryContext));
+        }
+        return intrinsics;
+    }
+
+    private List<Generator> createGenerators(IntrinsicFactoryContextImpl intrinsicFactoryContext) {
+        List<Generator> generators = new ArrayList<>();
+        generators.add(new ArrayGenerator());
+        generators.add(new WeakReferenceGenerator());
+        generators.add(new ReferenceQueueGenerator());
+        for (GeneratorFactory generatorFactory : generatorFactories) {
+            generators.add(generatorFactory.createGenerator(intrinsicFactoryContext));
+        }
+        return generators;
+    }
+
+    private boolean isGeneratedConcurrently() {
+        return incremental;
+    }
+
+    /*
+     * In incremental mode every file has its own string pool and call sites, so files can be generated
+     * independently. Names are shared between files, so they are reserved up front in the same order as files
+     * are written, which keeps output deterministic. AST cache lookups and stores, as well as writes
+     * to the build target and diagnostics, happen on the calling thread in class order. This path is taken
+     * in incremental mode regardless of number of threads, so that output does not depend on it.
+     * Intrinsics and generators, including ones supplied by plugins, are not required to be thread-safe,
+     * so every thread gets its own instances.
+     */
+    private void generateClassesConcurrently(ListableClassHolderSource classes, ClassGenerator classGenerator,
+            GenerationContext context, BuildTarget buildTarget, Supplier<List<Intrinsic>> intrinsicsFactory,
+            Supplier<List<Generator>> generatorsFactory) throws IOException {
+        List<String> classNames = sortClassNames(classes);
+        classGenerator.prepare(classes);
+
+        List<FileGenerationTask> tasks = new ArrayList<>();
+        for (String className : classNames) {
+            tasks.add(new FileGenerationTask(className, classes.get(className), ValueType.object(className)));
+        }
+        for (ValueType type : classGenerator.getTypes()) {
+            if (!(type instanceof ValueType.Object)) {
+                tasks.add(new FileGenerationTask(null, null, type));
+            }
+        }
+        reserveNames(context.getNames(), tasks);
+
+        ThreadLocal<List<Intrinsic>> threadIntrinsics = ThreadLocal.withInitial(intrinsicsFactory);
+        ThreadLocal<List<Generator>> threadGenerators = ThreadLocal.withInitial(generatorsFactory);
+        int batchSize = controller.getOptimizationThreads() * 16;
+        try (ParallelExecutor executor = new ParallelExecutor(controller.getOptimizationThreads())) {
+            for (int start = 0; start < tasks.size(); start += batchSize) {
+                List<FileGenerationTask> batch = tasks.subList(start, Math.min(tasks.size(), start + batchSize));
+                for (FileGenerationTask task : batch) {
+                    prefetchAst(task);
+                }
+                executor.forEach(batch.size(), i -> generateFile(batch.get(i), classes, classGenerator,
+                        context, threadIntrinsics.get(), threadGenerators.get()));
+                for (FileGenerationTask task : batch) {
+                    task.complete(buildTarget, controller.getDiagnostics(), astCache);
+                }
+                if (controller.wasCancelled()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void reserveNames(NameProvider names, List<FileGenerationTask> tasks) {
+        for (FileGenerationTask task : tasks) {
+            names.forClassSystemInitializer(task.type);
+            names.forClassInstance(task.type);
+            names.forSupertypeFunction(task.type);
+            if (task.cls == null) {
+                continue;
+            }
+            names.forClass(task.className);
+            names.forClassClass(task.className);
+            names.forClassInitializer(task.className);
+            for (FieldHolder field : task.cls.getFields()) {
+                if (field.hasModifier(ElementModifier.STATIC)) {
+                    names.forStaticField(field.getReference());
+                } else {
+                    names.forMemberField(field.getReference());
+                }
+            }
+            for (MethodHolder method : task.cls.getMethods()) {
+                names.forMethod(method.getReference());
+                if (!method.hasModifier(ElementModifier.STATIC) && !method.getName().equals("<init>")) {
+                    names.forVirtualMethod(method.getDescriptor());
+                }
+            }
+        }
+    }
+
+    private void prefetchAst(FileGenerationTask task) {
+        if (task.cls == null) {
+            return;
+        }
+        for (MethodHolder method : task.cls.getMethods()) {
+            if (method.getProgram() == null || method.hasModifier(ElementModifier.ABSTRACT)
+                    || method.hasModifier(ElementModifier.NATIVE)) {
+                continue;
+            }
+            AstCacheEntry entry = astCache.get(method.getReference(), controller.getCacheStatus());
+            if (entry != null) {
+                task.astCache.prefetched.put(method.getReference(), entry);
+            }
+        }
+    }
+
+    private void generateFile(FileGenerationTask task, ListableClassHolderSource classes,
+            ClassGenerator classGenerator, GenerationContext context, List<Intrinsic> intrinsics,
+            List<Generator> generators) {
+        GenerationContext taskContext = context.fork(new SimpleStringPool(), task.diagnostics, task.output,
+                intrinsics, generators);
+        ClassGenerator taskGenerator = classGenerator.fork(taskContext,
+                new Decompiler(classes, new HashSet<>(), controller.isFriendlyToDebugger()));
+        taskGenerator.setAstCache(task.astCache);
+
+        BufferedCodeWriter writer = new BufferedCodeWriter(task.className != null && lineNumbersGenerated);
+        BufferedCodeWriter headerWriter = new BufferedCodeWriter(false);
+        String name;
+        if (task.className != null) {
+            if (task.cls != null) {
+                taskGenerator.generateClass(writer, headerWriter, task.cls);
+            }
+            name = ClassGenerator.fileName(task.className);
+        } else {
+            taskGenerator.generateType(writer, headerWriter, task.type);
+            name = ClassGenerator.fileName(task.type);
+        }
+        try {
+            OutputFileUtil.write(writer, name + ".c", task.output);
+            OutputFileUtil.write(headerWriter, name + ".h", task.output);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static class FileGenerationTask {
+        final String className;
+        final ClassHolder cls;
+        final ValueType type;
+        final MemoryBuildTarget output = new MemoryBuildTarget();
+        final AccumulationDiagnostics diagnostics = new AccumulationDiagnostics();
+        final RecordingMethodNodeCache astCache = new RecordingMethodNodeCache();
+
+        FileGenerationTask(String className, ClassHolder cls, ValueType type) {
+            this.className = className;
+            this.cls = cls;
+            this.type = type;
+        }
+
+        void complete(BuildTarget buildTarget, Diagnostics targetDiagnostics, MethodNodeCache targetAstCache)
+                throws IOException {
+            for (RecordingMethodNodeCache.StoredEntry stored : astCache.stored) {
+                targetAstCache.store(stored.method, stored.entry, stored.dependencies);
+            }
+            for (Problem problem : diagnostics.getProblems()) {
+                if (diagnostics.getSevereProblems().contains(problem)) {
+                    targetDiagnostics.error(problem.getLocation(), problem.getText(), problem.getParams());
+                } else {
+                    targetDiagnostics.warning(problem.getLocation(), problem.getText(), problem.getParams());
+                }
+            }
+            for (String name : output.getNames()) {
+                try (OutputStream stream = buildTarget.createResource(name)) {
+                    stream.write(output.getContent(name));
+                }
+            }
+        }
+    }
+
+    static class RecordingMethodNodeCache implements MethodNodeCache {
+        final Map<MethodReference, AstCacheEntry> prefetched = new HashMap<>();
+        final List<StoredEntry> stored = new ArrayList<>();
+
+        @Override
+        public AstCacheEntry get(MethodReference methodReference, CacheStatus cacheStatus) {
+            return prefetched.get(methodReference);
+        }
+
+        @Override
+        public void store(MethodReference methodReference, AstCacheEntry entry, Supplier<String[]> dependencies) {
+            stored.add(new StoredEntry(methodReference, entry, dependencies));
+        }
+
+        @Override
+        public AsyncMethodNode getAsync(MethodReference methodReference, CacheStatus cacheStatus) {
+            return null;
+        }
+
+        @Override
+        public void storeAsync(MethodReference methodReference, AsyncMethodNode node,
+                Supplier<String[]> dependencies) {
+        }
+
+        static class StoredEntry {
+            final MethodReference method;
+            final AstCacheEntry entry;
+            final Supplier<String[]> dependencies;
+
+            StoredEntry(MethodReference method, AstCacheEntry entry, Supplier<String[]> dependencies) {
+                this.method = method;
+                this.entry = entry;
+                this.dependencies = dependencies;
+            }
+        }
+    }
+
     private List<String> sortClassNames(ListableClassReaderSource classes) {
         List<String> classNames = new ArrayList<>(classes.getClassNames().size());
         Deque<String> stack = new ArrayDeque<>(classes.getClassNames());
@@ -660,6 +1004,9 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         includes.includePath("strings.h");
 
         generateArrayOfClassReferences(context, writer, includes, types);
+        if (multithreaded) {
+            generateThreadEntry(context, writer, includes);
+        }
         generateMain(context, writer, includes, classes, types);
         OutputFileUtil.write(writer, "main.c", buildTarget);
     }
@@ -698,6 +1045,9 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         files.add("date.c");
         files.add("file.c");
         files.add("heap.c");
+        if (multithreaded) {
+            files.add("threads.c");
+        }
 
         for (String className : classes.getClassNames()) {
             files.add(ClassGenerator.fileName(className) + ".c");
@@ -743,7 +1093,11 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         writer.println("int " + mainFunctionName + "(int argc, char** argv) {").indent();
 
         writer.println("teavm_beforeInit();");
-        writer.println("teavm_initHeap(" + minHeapSize + ");");
+        if (multithreaded) {
+            writer.println("teavm_initThreads();");
+        }
+        writer.println("teavm_initHeap(INT64_C(" + minHeapSize + "), INT64_C("
+                + Math.max(minHeapSize, maxHeapSize) + "));");
         generateVirtualTableHeaders(context, writer);
         writer.println("teavm_initStringPool();");
         for (ValueType type : types) {
@@ -807,10 +1161,22 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
         String processName = context.getNames().forMethod(new MethodReference(EventQueue.class, "process", void.class));
         writer.println(startName + "(teavm_parseArguments(argc, argv));");
         writer.println(processName + "();");
+        if (multithreaded) {
+            writer.println("teavm_thread_joinAll();");
+        }
         includes.includeClass(Fiber.class.getName());
         includes.includeClass(EventQueue.class.getName());
     }
 
+    private void generateThreadEntry(GenerationContext context, CodeWriter writer, IncludeManager includes) {
+        String runName = context.getNames().forMethod(new MethodReference(Thread.class, "runStartedThread",
+                int.class, void.class));
+        includes.includeClass(Thread.class.getName());
+        writer.println("void teavm_thread_run(int32_t id) {").indent();
+        writer.println(runName + "(id);");
+        writer.outdent().println("}");
+    }
+
     class FiberIntrinsic implements Intrinsic {
         @Override
         public boolean canHandle(MethodReference method) {
@@ -859,6 +1225,9 @@ public class CTarget implements TeaVMTarget, TeaVMCHost {
 
     @Override
     public String[] getPlatformTags() {
+        if (multithreaded) {
+            return new String[] { Platforms.C, Platforms.LOW_LEVEL, Platforms.MULTITHREADED };
+        }
         return new String[] { Platforms.C, Platforms.LOW_LEVEL };
     }
 
@@ -110,6 +110,18 @@ public class ClassGenerator {
         this.cacheStatus = cacheStatus;
     }
 
+    /**
+     * Creates a generator that reuses types collected by {@link #prepare(ListableClassHolderSource)},
+     * but otherwise is independent from this one, so that both can generate files at the same time.
+     */
+    public ClassGenerator fork(GenerationContext context, Decompiler decompiler) {
+        ClassGenerator copy = new ClassGenerator(context, tagRegistry, decompiler, cacheStatus);
+        copy.types = types;
+        copy.astCache = astCache;
+        copy.callSites = callSites;
+        return copy;
+    }
+
     public void setAstCache(MethodNodeCache astCache) {
         this.astCache = astCache;
     }
@@ -361,9 +373,18 @@ public class ClassGenerator {
         String clinitName = context.getNames().forMethod(
                 new MethodReference(cls.getName(), "<clinit>", ValueType.VOID));
         codeWriter.print("TeaVM_Class* cls = (TeaVM_Class*) &").print(classInstanceName).println(";");
-        codeWriter.println("if (!(cls->flags & INT32_C(" + RuntimeClass.INITIALIZED + "))) {").indent();
-        codeWriter.println("cls->flags |= INT32_C(" + RuntimeClass.INITIALIZED + ");");
-        codeWriter.print(clinitName).println("();");
+        if (context.isMultithreaded()) {
+            // Other threads must see effects of initializer once they see initialized flag. Initialization
+            // state is kept by runtime, which blocks concurrent initialization until the first one completes.
+            codeWriter.println("if (!(__atomic_load_n(&cls->flags, __ATOMIC_ACQUIRE) & TEAVM_CLASS_INITIALIZED)"
+                    + " && teavm_thread_beginClassInit(cls)) {").indent();
+            codeWriter.print(clinitName).println("();");
+            codeWriter.println("teavm_thread_endClassInit(cls);");
+        } else {
+            codeWriter.println("if (!(cls->flags & INT32_C(" + RuntimeClass.INITIALIZED + "))) {").indent();
+            codeWriter.println("cls->flags |= INT32_C(" + RuntimeClass.INITIALIZED + ");");
+            codeWriter.print(clinitName).println("();");
+        }
         codeWriter.outdent().println("}");
 
         codeWriter.outdent().println("}");
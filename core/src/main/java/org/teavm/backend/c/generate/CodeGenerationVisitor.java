@@ -88,6 +88,7 @@ import org.teavm.model.CallLocation;
 import org.teavm.model.ClassReader;
 import org.teavm.model.ClassReaderSource;
 import org.teavm.model.ElementModifier;
+import org.teavm.model.FieldReader;
 import org.teavm.model.FieldReference;
 import org.teavm.model.MethodReader;
 import org.teavm.model.MethodReference;
@@ -1021,6 +1022,12 @@ public class CodeGenerationVisitor implements ExprVisitor, StatementVisitor {
                 }
             }
 
+            if (context.isGenerationalGC() && needsWriteBarrier(statement.getLeftValue())) {
+                assignWithWriteBarrier(statement.getLeftValue(), statement.getRightValue());
+                popLocation(statement.getLocation());
+                return;
+            }
+
             statement.getLeftValue().acceptVisitor(this);
             writer.print(" = ");
         }
@@ -1036,6 +1043,59 @@ public class CodeGenerationVisitor implements ExprVisitor, StatementVisitor {
         popLocation(statement.getLocation());
     }
 
+    private boolean needsWriteBarrier(Expr expr) {
+        if (expr instanceof SubscriptExpr) {
+            return ((SubscriptExpr) expr).getType() == ArrayType.OBJECT;
+        }
+        if (!(expr instanceof QualificationExpr)) {
+            return false;
+        }
+        QualificationExpr qualification = (QualificationExpr) expr;
+        if (qualification.getQualified() == null
+                || !context.getCharacteristics().isManaged(qualification.getField().getClassName())) {
+            return false;
+        }
+        FieldReader field = context.getClassSource().resolve(qualification.getField());
+        if (field == null) {
+            return false;
+        }
+        ValueType type = field.getType();
+        if (type instanceof ValueType.Array) {
+            return true;
+        }
+        return type instanceof ValueType.Object
+                && context.getCharacteristics().isManaged(((ValueType.Object) type).getClassName());
+    }
+
+    private void assignWithWriteBarrier(Expr leftValue, Expr rightValue) {
+        String tmp = allocTemporaryVariable(CVariableType.PTR);
+        if (leftValue instanceof SubscriptExpr) {
+            SubscriptExpr subscript = (SubscriptExpr) leftValue;
+            pushLocation(subscript.getLocation());
+            writer.print("TEAVM_ARRAY_AT((" + tmp + " = ");
+            visitReference(subscript.getArray());
+            writer.print("), ").print(getArrayType(subscript.getType())).print(", ");
+            subscript.getIndex().acceptVisitor(this);
+            writer.print(")");
+            popLocation(subscript.getLocation());
+        } else {
+            QualificationExpr qualification = (QualificationExpr) leftValue;
+            FieldReference field = qualification.getField();
+            pushLocation(qualification.getLocation());
+            includes.includeClass(field.getClassName());
+            writer.print("TEAVM_FIELD((" + tmp + " = ");
+            visitReference(qualification.getQualified());
+            writer.print("), ").print(names.forClass(field.getClassName())).print(", ")
+                    .print(names.forMemberField(field)).print(")");
+            popLocation(qualification.getLocation());
+        }
+        writer.print(" = ");
+        rightValue.acceptVisitor(this);
+        writer.println(";");
+        writer.println("teavm_gc_writeBarrier(" + tmp + ");");
+        freeTemporaryVariable(CVariableType.PTR);
+    }
+
     @Override
     public void visit(SequentialStatement statement) {
         visitMany(statement.getSequence());
@@ -47,12 +47,15 @@ public class GenerationContext {
     private boolean longjmp;
     private boolean vmAssertions;
     private boolean heapDump;
+    private boolean generationalGC;
+    private boolean multithreaded;
 
     public GenerationContext(VirtualTableProvider virtualTableProvider, Characteristics characteristics,
             DependencyInfo dependencies, StringPool stringPool, NameProvider names, Diagnostics diagnostics,
             ClassReaderSource classSource, List<Intrinsic> intrinsics, List<Generator> generators,
             Predicate<MethodReference> asyncMethods, BuildTarget buildTarget, boolean incremental,
-            boolean longjmp, boolean vmAssertions, boolean heapDump) {
+            boolean longjmp, boolean vmAssertions, boolean heapDump, boolean generationalGC,
+            boolean multithreaded) {
         this.virtualTableProvider = virtualTableProvider;
         this.characteristics = characteristics;
         this.dependencies = dependencies;
@@ -68,6 +71,27 @@ public class GenerationContext {
         this.longjmp = longjmp;
         this.vmAssertions = vmAssertions;
         this.heapDump = heapDump;
+        this.generationalGC = generationalGC;
+        this.multithreaded = multithreaded;
+    }
+
+    /**
+     * Creates a context that shares everything with this one except for string pool, diagnostics
+     * and build target. This allows to generate several files concurrently, with results merged by the caller.
+     */
+    public GenerationContext fork(StringPool stringPool, Diagnostics diagnostics, BuildTarget buildTarget) {
+        return fork(stringPool, diagnostics, buildTarget, intrinsics, generators);
+    }
+
+    /**
+     * Same as {@link #fork(StringPool, Diagnostics, BuildTarget)}, but uses given intrinsics and generators,
+     * so that a thread can use its own instances.
+     */
+    public GenerationContext fork(StringPool stringPool, Diagnostics diagnostics, BuildTarget buildTarget,
+            List<Intrinsic> intrinsics, List<Generator> generators) {
+        return new GenerationContext(virtualTableProvider, characteristics, dependencies, stringPool, names,
+                diagnostics, classSource, intrinsics, generators, asyncMethods, buildTarget, incremental, longjmp,
+                vmAssertions, heapDump, generationalGC, multithreaded);
     }
 
     public void addIntrinsic(Intrinsic intrinsic) {
@@ -140,6 +164,14 @@ public class GenerationContext {
         return heapDump;
     }
 
+    public boolean isGenerationalGC() {
+        return generationalGC;
+    }
+
+    public boolean isMultithreaded() {
+        return multithreaded;
+    }
+
     public boolean isVmAssertions() {
         return vmAssertions;
     }
@@ -33,7 +33,15 @@ public class GCIntrinsic implements Intrinsic {
             case "regionsAddress":
             case "regionMaxCount":
             case "availableBytes":
+            case "minAvailableBytes":
+            case "maxAvailableBytes":
+            case "minHeapFreeRatio":
+            case "maxHeapFreeRatio":
+            case "resizeHeap":
             case "regionSize":
+            case "isGenerational":
+            case "cardTableAddress":
+            case "writeBarrier":
                 return true;
             default:
                 return false;
@@ -43,5 +51,10 @@ public class GCIntrinsic implements Intrinsic {
     @Override
     public void apply(IntrinsicContext context, InvocationExpr invocation) {
         context.writer().print("teavm_gc_").print(invocation.getMethod().getName());
+        if (!invocation.getArguments().isEmpty()) {
+            context.writer().print("(");
+            context.emit(invocation.getArguments().get(0));
+            context.writer().print(")");
+        }
     }
 }
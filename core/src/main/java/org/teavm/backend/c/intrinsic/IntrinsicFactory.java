@@ -16,5 +16,10 @@
 package org.teavm.backend.c.intrinsic;
 
 public interface IntrinsicFactory {
+    /**
+     * Creates new instance. When C files are generated on several threads, this method is called once
+     * per thread, possibly not on the thread that runs the build, and every thread uses only its own
+     * instance. Created intrinsics therefore don't need to be thread-safe, but must not share mutable state.
+     */
     Intrinsic createIntrinsic(IntrinsicFactoryContext context);
 }
@@ -0,0 +1,131 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.javascript;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import org.teavm.callgraph.CallGraph;
+import org.teavm.callgraph.CallGraphNode;
+import org.teavm.callgraph.CallSite;
+import org.teavm.interop.SplitPoint;
+import org.teavm.model.AnnotationReader;
+import org.teavm.model.AnnotationValue;
+import org.teavm.model.ClassReader;
+import org.teavm.model.ListableClassReaderSource;
+import org.teavm.model.MethodReader;
+import org.teavm.model.MethodReference;
+
+/**
+ * <p>Assigns methods to chunks of code according to {@link SplitPoint} annotations.</p>
+ *
+ * <p>Method belongs to a chunk if it's a split point of this chunk, or if all of its callers in call graph belong
+ * to this chunk. Methods called from several chunks, as well as methods with unknown callers, stay in main chunk.
+ * Since calls to methods of a chunk always load this chunk first, imprecise call graph only affects when chunk
+ * is loaded, never correctness.</p>
+ *
+ * <p>Split points are treated as asynchronous methods, since their stubs suspend current thread while
+ * chunk is loading.</p>
+ */
+class ChunkPartitioner {
+    private final ListableClassReaderSource classes;
+    private final CallGraph callGraph;
+    private final String baseName;
+    private final Map<MethodReference, String> chunks = new HashMap<>();
+    private final Set<MethodReference> splitPoints = new HashSet<>();
+    private final Queue<MethodReference> queue = new ArrayDeque<>();
+
+    ChunkPartitioner(ListableClassReaderSource classes, CallGraph callGraph, String baseName) {
+        this.classes = classes;
+        this.callGraph = callGraph;
+        this.baseName = baseName;
+    }
+
+    Map<MethodReference, String> partition() {
+        findSplitPoints();
+        while (!queue.isEmpty()) {
+            MethodReference method = queue.remove();
+            CallGraphNode node = callGraph.getNode(method);
+            if (node == null) {
+                continue;
+            }
+            for (CallSite callSite : node.getCallSites()) {
+                for (CallGraphNode callee : callSite.getCalledMethods()) {
+                    MethodReference calleeMethod = callee.getMethod();
+                    if (chunks.containsKey(calleeMethod)) {
+                        continue;
+                    }
+                    String chunk = getCommonCallerChunk(callee);
+                    if (chunk != null) {
+                        chunks.put(calleeMethod, chunk);
+                        queue.add(calleeMethod);
+                    }
+                }
+            }
+        }
+        return chunks;
+    }
+
+    Set<MethodReference> getSplitPoints() {
+        return splitPoints;
+    }
+
+    private void findSplitPoints() {
+        for (String className : classes.getClassNames()) {
+            ClassReader cls = classes.get(className);
+            for (MethodReader method : cls.getMethods()) {
+                AnnotationReader annot = method.getAnnotations().get(SplitPoint.class.getName());
+                if (annot == null) {
+                    continue;
+                }
+                AnnotationValue value = annot.getValue("value");
+                String name = value != null ? value.getString() : "";
+                if (name.isEmpty()) {
+                    name = className.substring(className.lastIndexOf('.') + 1);
+                }
+                chunks.put(method.getReference(), getFileName(name));
+                splitPoints.add(method.getReference());
+                queue.add(method.getReference());
+            }
+        }
+    }
+
+    private String getCommonCallerChunk(CallGraphNode node) {
+        String result = null;
+        for (CallSite callSite : node.getCallerCallSites()) {
+            for (CallGraphNode caller : callSite.getCallers()) {
+                String chunk = chunks.get(caller.getMethod());
+                if (chunk == null || (result != null && !result.equals(chunk))) {
+                    return null;
+                }
+                result = chunk;
+            }
+        }
+        return result;
+    }
+
+    private String getFileName(String chunkName) {
+        StringBuilder sb = new StringBuilder(baseName).append('-');
+        for (int i = 0; i < chunkName.length(); ++i) {
+            char c = chunkName.charAt(i);
+            sb.append(Character.isLetterOrDigit(c) || c == '-' || c == '_' ? c : '_');
+        }
+        return sb.append(".js").toString();
+    }
+}
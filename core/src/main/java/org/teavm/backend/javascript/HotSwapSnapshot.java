@@ -0,0 +1,103 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.javascript;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes JavaScript generated by a single build in a way that allows to compute a patch
+ * which turns a page running code of previous build into a page running code of this build.
+ *
+ * @see JavaScriptTarget#setHotSwapSupported(boolean)
+ */
+public class HotSwapSnapshot {
+    private static final String FUNCTIONS_VAR = "$rt_hotSwapFunctions";
+    private final String globalHash;
+    private final Map<String, ClassCode> classes;
+
+    public HotSwapSnapshot(String globalHash, Map<String, ClassCode> classes) {
+        this.globalHash = globalHash;
+        this.classes = Collections.unmodifiableMap(classes);
+    }
+
+    public String getGlobalHash() {
+        return globalHash;
+    }
+
+    public Map<String, ClassCode> getClasses() {
+        return classes;
+    }
+
+    /**
+     * Computes a patch that should be passed to {@code $teavm_hotSwap} function of a page that runs
+     * code of previous build.
+     *
+     * @param previous snapshot of the code that runs in a page.
+     * @return JavaScript code that replaces changed methods, or {@code null} if anything besides method bodies
+     * changed (i.e. class set, class layout, class hierarchy, metadata or string pool) and the page must be reloaded.
+     */
+    public String createPatch(HotSwapSnapshot previous) {
+        if (previous == null || !globalHash.equals(previous.globalHash)
+                || !classes.keySet().equals(previous.classes.keySet())) {
+            return null;
+        }
+
+        StringBuilder body = new StringBuilder();
+        List<String> functions = new ArrayList<>();
+        for (Map.Entry<String, ClassCode> entry : classes.entrySet()) {
+            ClassCode code = entry.getValue();
+            if (!code.getCode().equals(previous.classes.get(entry.getKey()).getCode())) {
+                body.append(code.getCode());
+                functions.addAll(code.getFunctions());
+            }
+        }
+        if (body.length() == 0) {
+            return "";
+        }
+
+        // Function declarations can't be replaced from eval, so declare them in a nested function
+        // and assign to the outer variables afterwards. Scoped functions are assigned by the code itself.
+        StringBuilder sb = new StringBuilder();
+        sb.append("(function(){var ").append(FUNCTIONS_VAR).append("=(function(){\n").append(body);
+        sb.append("return [").append(String.join(",", functions)).append("];})();\n");
+        for (int i = 0; i < functions.size(); ++i) {
+            sb.append(functions.get(i)).append("=").append(FUNCTIONS_VAR).append("[").append(i).append("];");
+        }
+        sb.append("})();");
+        return sb.toString();
+    }
+
+    public static class ClassCode {
+        private final String code;
+        private final List<String> functions;
+
+        public ClassCode(String code, List<String> functions) {
+            this.code = code;
+            this.functions = Collections.unmodifiableList(new ArrayList<>(functions));
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public List<String> getFunctions() {
+            return functions;
+        }
+    }
+}
@@ -48,6 +48,7 @@ import org.teavm.backend.javascript.codegen.SourceWriter;
 import org.teavm.backend.javascript.codegen.SourceWriterBuilder;
 import org.teavm.backend.javascript.decompile.PreparedClass;
 import org.teavm.backend.javascript.decompile.PreparedMethod;
+import org.teavm.backend.javascript.rendering.HotSwapRecorder;
 import org.teavm.backend.javascript.rendering.Renderer;
 import org.teavm.backend.javascript.rendering.RenderingContext;
 import org.teavm.backend.javascript.rendering.RuntimeRenderer;
@@ -62,6 +63,7 @@ import org.teavm.cache.AstDependencyExtractor;
 import org.teavm.cache.CacheStatus;
 import org.teavm.cache.EmptyMethodNodeCache;
 import org.teavm.cache.MethodNodeCache;
+import org.teavm.common.ParallelExecutor;
 import org.teavm.debugging.information.DebugInformationEmitter;
 import org.teavm.debugging.information.DummyDebugInformationEmitter;
 import org.teavm.debugging.information.SourceLocation;
@@ -114,6 +116,12 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
     private TeaVMTargetController controller;
     private boolean minifying = true;
     private boolean stackTraceIncluded;
+    private boolean lazyStringPool;
+    private boolean longAsBigInt;
+    private boolean objectSideTables;
+    private boolean nativeStrings;
+    private boolean hotSwapSupported;
+    private HotSwapSnapshot hotSwapSnapshot;
     private final Map<MethodReference, Generator> methodGenerators = new HashMap<>();
     private final Map<MethodReference, Injector> methodInjectors = new HashMap<>();
     private final List<Function<ProviderContext, Generator>> generatorProviders = new ArrayList<>();
@@ -216,6 +224,67 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
         this.stackTraceIncluded = stackTraceIncluded;
     }
 
+    /**
+     * Specifies whether string constants should be converted to Java strings on first access. Reduces startup time
+     * of large applications, most of which string constants are not used right after start.
+     *
+     * @param lazyStringPool whether string pool should be materialized lazily.
+     */
+    public void setLazyStringPool(boolean lazyStringPool) {
+        this.lazyStringPool = lazyStringPool;
+    }
+
+    /**
+     * Specifies whether Java {@code long} should be represented by JavaScript {@code BigInt} rather than by
+     * an object with two 32-bit halves. Arithmetic on BigInt does not allocate objects, but requires
+     * a JavaScript engine that supports BigInt.
+     *
+     * @param longAsBigInt whether to represent long values as BigInt.
+     */
+    public void setLongAsBigInt(boolean longAsBigInt) {
+        this.longAsBigInt = longAsBigInt;
+    }
+
+    /**
+     * Specifies whether monitors and identity hash codes should be kept in {@code WeakMap} side tables
+     * instead of in fields of every object. Objects get smaller, but the first {@code synchronized}
+     * block or {@code hashCode()} call on an object is slower. Requires a JavaScript engine that
+     * supports WeakMap.
+     *
+     * @param objectSideTables whether to keep monitors and identity hash codes in side tables.
+     */
+    public void setObjectSideTables(boolean objectSideTables) {
+        this.objectSideTables = objectSideTables;
+    }
+
+    /**
+     * Specifies whether {@code java.lang.String} should keep its characters in a JavaScript string instead
+     * of in a {@code char[]}. Passing strings between Java and JavaScript no longer copies them, and
+     * {@code equals}, {@code indexOf}, {@code substring} and {@code concat} use native string operations,
+     * but reading characters one by one in a loop is slightly slower.
+     *
+     * @param nativeStrings whether to back strings by JavaScript strings.
+     */
+    public void setNativeStrings(boolean nativeStrings) {
+        this.nativeStrings = nativeStrings;
+    }
+
+    /**
+     * Specifies whether generated code should support replacing method bodies in a running page.
+     * When set, the output defines global {@code $teavm_hotSwap} function, which evaluates a patch
+     * produced by {@link HotSwapSnapshot#createPatch(HotSwapSnapshot)}, and {@link #getHotSwapSnapshot()}
+     * becomes available after each build. Splitting code into chunks is turned off in this mode.
+     *
+     * @param hotSwapSupported whether to support hot swap.
+     */
+    public void setHotSwapSupported(boolean hotSwapSupported) {
+        this.hotSwapSupported = hotSwapSupported;
+    }
+
+    public HotSwapSnapshot getHotSwapSnapshot() {
+        return hotSwapSnapshot;
+    }
+
     @Override
     public List<TeaVMHostExtension> getHostExtensions() {
         return Collections.singletonList(this);
@@ -316,7 +385,7 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
     public void emit(ListableClassHolderSource classes, BuildTarget target, String outputName) {
         try (OutputStream output = target.createResource(outputName);
                 Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
-            emit(classes, writer, target);
+            emit(classes, writer, target, outputName);
         } catch (IOException e) {
             throw new RenderingException(e);
         }
@@ -330,19 +399,36 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
     public void afterOptimizations(Program program, MethodReader method) {
     }
 
-    private void emit(ListableClassHolderSource classes, Writer writer, BuildTarget target) {
-        List<PreparedClass> clsNodes = modelToAst(classes);
+    private void emit(ListableClassHolderSource classes, Writer writer, BuildTarget target, String outputName) {
+        Map<MethodReference, String> methodChunks = Collections.emptyMap();
+        Set<MethodReference> splitPoints = Collections.emptySet();
+        if (!hotSwapSupported) {
+            ChunkPartitioner partitioner = new ChunkPartitioner(classes,
+                    controller.getDependencyInfo().getCallGraph(), getChunkBaseName(outputName));
+            methodChunks = partitioner.partition();
+            splitPoints = partitioner.getSplitPoints();
+            if (!methodChunks.isEmpty() && debugEmitter != null) {
+                controller.getDiagnostics().warning(null, "Debug information is not generated for "
+                        + "methods moved to chunks by @SplitPoint");
+            }
+        }
+
+        List<PreparedClass> clsNodes = modelToAst(classes, splitPoints);
         if (controller.wasCancelled()) {
             return;
         }
 
+        // Chunks capture names of main output by value, so all names that can change go to scope object
+        int nameLimit = methodChunks.isEmpty() ? topLevelNameLimit : 0;
         AliasProvider aliasProvider = minifying
-                ? new MinifyingAliasProvider(topLevelNameLimit)
-                : new DefaultAliasProvider(topLevelNameLimit);
+                ? new MinifyingAliasProvider(nameLimit)
+                : new DefaultAliasProvider(nameLimit);
         DefaultNamingStrategy naming = new DefaultNamingStrategy(aliasProvider, controller.getUnprocessedClassSource());
         SourceWriterBuilder builder = new SourceWriterBuilder(naming);
         builder.setMinified(minifying);
-        SourceWriter sourceWriter = builder.build(writer);
+        hotSwapSnapshot = null;
+        HotSwapRecorder hotSwapRecorder = hotSwapSupported ? new HotSwapRecorder(writer) : null;
+        SourceWriter sourceWriter = builder.build(hotSwapRecorder != null ? hotSwapRecorder : writer);
 
         DebugInformationEmitter debugEmitterToUse = debugEmitter;
         if (debugEmitterToUse == null) {
@@ -356,12 +442,19 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
                 controller.getDependencyInfo(), m -> isVirtual(virtualMethodContributorContext, m),
                 controller.getClassInitializerInfo());
         renderingContext.setMinifying(minifying);
+        renderingContext.setLongAsBigInt(longAsBigInt);
+        renderingContext.setObjectSideTables(objectSideTables);
         Renderer renderer = new Renderer(sourceWriter, asyncMethods, asyncFamilyMethods,
                 controller.getDiagnostics(), renderingContext);
         RuntimeRenderer runtimeRenderer = new RuntimeRenderer(classes, sourceWriter);
+        runtimeRenderer.setLongAsBigInt(longAsBigInt);
+        runtimeRenderer.setObjectSideTables(objectSideTables);
+        runtimeRenderer.setNativeStrings(nativeStrings);
         renderer.setProperties(controller.getProperties());
         renderer.setMinifying(minifying);
+        renderer.setLazyStringPool(lazyStringPool);
         renderer.setProgressConsumer(controller::reportProgress);
+        renderer.setHotSwapRecorder(hotSwapRecorder);
         if (debugEmitter != null) {
             for (PreparedClass preparedClass : clsNodes) {
                 for (PreparedMethod preparedMethod : preparedClass.getMethods()) {
@@ -376,6 +469,7 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
             renderer.setDebugEmitter(debugEmitter);
         }
         renderer.getDebugEmitter().setLocationProvider(sourceWriter);
+        renderer.setMethodChunks(methodChunks);
         for (Map.Entry<MethodReference, Injector> entry : methodInjectors.entrySet()) {
             renderingContext.addInjector(entry.getKey(), entry.getValue());
         }
@@ -399,7 +493,7 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
             renderer.renderStringConstants();
             renderer.renderCompatibilityStubs();
 
-            if (renderer.isLongLibraryUsed()) {
+            if (renderer.isLongLibraryUsed() && !longAsBigInt) {
                 runtimeRenderer.renderHandWrittenRuntime("long.js");
             }
             if (renderer.isThreadLibraryUsed()) {
@@ -407,6 +501,10 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
             } else {
                 runtimeRenderer.renderHandWrittenRuntime("simpleThread.js");
             }
+            if (renderer.hasChunks()) {
+                runtimeRenderer.renderHandWrittenRuntime("chunks.js");
+                renderer.renderChunkDeclarations();
+            }
 
             for (Map.Entry<? extends String, ? extends TeaVMEntryPoint> entry
                     : controller.getEntryPoints().entrySet()) {
@@ -421,6 +519,10 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
             }
 
             printWrapperEnd(sourceWriter);
+            emitChunks(renderer, target, outputName);
+            if (hotSwapRecorder != null) {
+                hotSwapSnapshot = hotSwapRecorder.createSnapshot();
+            }
 
             int totalSize = sourceWriter.getOffset() - start;
             printStats(renderer, totalSize);
@@ -429,12 +531,34 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
         }
     }
 
+    private void emitChunks(Renderer renderer, BuildTarget target, String outputName) throws IOException {
+        String directory = outputName.substring(0, outputName.lastIndexOf('/') + 1);
+        for (Map.Entry<String, String> entry : renderer.getChunkSources().entrySet()) {
+            try (OutputStream output = target.createResource(directory + entry.getKey());
+                    Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
+                writer.write(entry.getValue());
+            }
+        }
+    }
+
+    private static String getChunkBaseName(String outputName) {
+        String baseName = outputName.substring(outputName.lastIndexOf('/') + 1);
+        return baseName.endsWith(".js") ? baseName.substring(0, baseName.length() - 3) : baseName;
+    }
+
     private void printWrapperStart(SourceWriter writer) throws IOException {
         writer.append("\"use strict\";").newLine();
         for (String key : controller.getEntryPoints().keySet()) {
             writer.append("var ").append(key).append(";").softNewLine();
         }
+        if (hotSwapSupported) {
+            writer.append("var $teavm_hotSwap;").softNewLine();
+        }
         writer.append("(function()").ws().append("{").newLine();
+        if (hotSwapSupported) {
+            writer.append("$teavm_hotSwap").ws().append("=").ws().append("function(code)").ws().append("{")
+                    .ws().append("eval(code);").ws().append("};").newLine();
+        }
     }
 
     private void printWrapperEnd(SourceWriter writer) throws IOException {
@@ -469,17 +593,19 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
         return STATS_NUM_FORMAT.format(size) + " (" + STATS_PERCENT_FORMAT.format((double) size / totalSize) + ")";
     }
 
-    private List<PreparedClass> modelToAst(ListableClassHolderSource classes) {
+    private List<PreparedClass> modelToAst(ListableClassHolderSource classes, Set<MethodReference> splitPoints) {
         AsyncMethodFinder asyncFinder = new AsyncMethodFinder(controller.getDependencyInfo().getCallGraph());
+        for (MethodReference splitPoint : splitPoints) {
+            asyncFinder.addAsyncMethod(splitPoint);
+        }
         asyncFinder.find(classes);
         asyncMethods.addAll(asyncFinder.getAsyncMethods());
         asyncFamilyMethods.addAll(asyncFinder.getAsyncFamilyMethods());
         Set<MethodReference> splitMethods = new HashSet<>(asyncMethods);
         splitMethods.addAll(asyncFamilyMethods);
 
-        Decompiler decompiler = new Decompiler(classes, splitMethods, controller.isFriendlyToDebugger());
-
         List<PreparedClass> classNodes = new ArrayList<>();
+        List<MethodDecompilation> decompilations = new ArrayList<>();
         for (String className : getClassOrdering(classes)) {
             ClassHolder cls = classes.get(className);
             for (MethodHolder method : cls.getMethods()) {
@@ -488,7 +614,16 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
                     break;
                 }
             }
-            classNodes.add(decompile(decompiler, cls));
+            PreparedClass clsNode = new PreparedClass(cls);
+            collectDecompilations(clsNode, decompilations);
+            classNodes.add(clsNode);
+        }
+
+        decompile(classes, splitMethods, decompilations);
+        for (MethodDecompilation decompilation : decompilations) {
+            if (decompilation.result != null) {
+                decompilation.cls.getMethods().add(decompilation.result);
+            }
         }
         return classNodes;
     }
@@ -519,9 +654,8 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
         order.add(className);
     }
 
-    private PreparedClass decompile(Decompiler decompiler, ClassHolder cls) {
-        PreparedClass clsNode = new PreparedClass(cls);
-        for (MethodHolder method : cls.getMethods()) {
+    private void collectDecompilations(PreparedClass clsNode, List<MethodDecompilation> decompilations) {
+        for (MethodHolder method : clsNode.getClassHolder().getMethods()) {
             if (method.getModifiers().contains(ElementModifier.ABSTRACT)) {
                 continue;
             }
@@ -532,13 +666,111 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
             if (!method.hasModifier(ElementModifier.NATIVE) && !method.hasProgram()) {
                 continue;
             }
+            decompilations.add(new MethodDecompilation(clsNode, method));
+        }
+    }
+
+    /*
+     * Methods are decompiled in batches. Native methods, as well as AST cache lookups and stores,
+     * are processed on the calling thread in class order, while methods missing from cache are decompiled
+     * concurrently. Decompiler keeps state of the method being decompiled, so each method gets its own
+     * instance. Result does not depend on number of threads. Rendering is not parallelized, since
+     * names and string pool indexes are allocated in order of their first appearance in output.
+     */
+    private void decompile(ListableClassHolderSource classes, Set<MethodReference> splitMethods,
+            List<MethodDecompilation> decompilations) {
+        int threads = controller.getOptimizationThreads();
+        int batchSize = threads * 64;
+        try (ParallelExecutor executor = new ParallelExecutor(threads)) {
+            for (int start = 0; start < decompilations.size(); start += batchSize) {
+                List<MethodDecompilation> batch = decompilations.subList(start,
+                        Math.min(decompilations.size(), start + batchSize));
+                for (MethodDecompilation decompilation : batch) {
+                    prepareDecompilation(decompilation);
+                }
+                executor.forEach(batch.size(), i -> {
+                    MethodDecompilation decompilation = batch.get(i);
+                    if (decompilation.result == null) {
+                        Decompiler decompiler = new Decompiler(classes, splitMethods,
+                                controller.isFriendlyToDebugger());
+                        decompileCacheMiss(decompiler, decompilation);
+                    }
+                });
+                for (MethodDecompilation decompilation : batch) {
+                    storeDecompilation(decompilation);
+                }
+                if (controller.wasCancelled()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void prepareDecompilation(MethodDecompilation decompilation) {
+        MethodHolder method = decompilation.method;
+        if (method.hasModifier(ElementModifier.NATIVE)) {
+            decompilation.result = decompileNative(method);
+            return;
+        }
 
-            PreparedMethod preparedMethod = method.hasModifier(ElementModifier.NATIVE)
-                    ? decompileNative(method)
-                    : decompile(decompiler, method);
-            clsNode.getMethods().add(preparedMethod);
+        MethodReference reference = method.getReference();
+        CacheStatus cacheStatus = controller.getCacheStatus();
+        if (astCache == null || cacheStatus.isStaleMethod(reference)) {
+            return;
+        }
+        if (asyncMethods.contains(reference)) {
+            AsyncMethodNode node = astCache.getAsync(reference, cacheStatus);
+            if (node != null) {
+                ControlFlowEntry[] cfg = ProgramUtils.getLocationCFG(method.getProgram());
+                decompilation.result = new PreparedMethod(method, node, null, false, cfg);
+            }
+        } else {
+            AstCacheEntry entry = astCache.get(reference, cacheStatus);
+            if (entry != null) {
+                decompilation.result = new PreparedMethod(method, entry.method, null, false, entry.cfg);
+            }
+        }
+    }
+
+    private void decompileCacheMiss(Decompiler decompiler, MethodDecompilation decompilation) {
+        MethodHolder method = decompilation.method;
+        if (asyncMethods.contains(method.getReference())) {
+            AsyncMethodNode node = decompiler.decompileAsync(method);
+            ControlFlowEntry[] cfg = ProgramUtils.getLocationCFG(method.getProgram());
+            decompilation.asyncNodeToStore = node;
+            decompilation.result = new PreparedMethod(method, node, null, false, cfg);
+        } else {
+            AstCacheEntry entry = decompileRegularCacheMiss(decompiler, method);
+            decompilation.entryToStore = entry;
+            decompilation.result = new PreparedMethod(method, entry.method, null, false, entry.cfg);
+        }
+    }
+
+    private void storeDecompilation(MethodDecompilation decompilation) {
+        if (astCache == null) {
+            return;
+        }
+        MethodReference reference = decompilation.method.getReference();
+        if (decompilation.entryToStore != null) {
+            RegularMethodNode finalNode = decompilation.entryToStore.method;
+            astCache.store(reference, decompilation.entryToStore, () -> dependencyExtractor.extract(finalNode));
+        } else if (decompilation.asyncNodeToStore != null) {
+            AsyncMethodNode finalNode = decompilation.asyncNodeToStore;
+            astCache.storeAsync(reference, finalNode, () -> dependencyExtractor.extract(finalNode));
+        }
+    }
+
+    static class MethodDecompilation {
+        final PreparedClass cls;
+        final MethodHolder method;
+        PreparedMethod result;
+        AstCacheEntry entryToStore;
+        AsyncMethodNode asyncNodeToStore;
+
+        MethodDecompilation(PreparedClass cls, MethodHolder method) {
+            this.cls = cls;
+            this.method = method;
         }
-        return clsNode;
     }
 
     private PreparedMethod decompileNative(MethodHolder method) {
@@ -564,58 +796,12 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
         return new PreparedMethod(method, null, generator, asyncMethods.contains(reference), null);
     }
 
-    private PreparedMethod decompile(Decompiler decompiler, MethodHolder method) {
-        MethodReference reference = method.getReference();
-        if (asyncMethods.contains(reference)) {
-            AsyncMethodNode node = decompileAsync(decompiler, method);
-            ControlFlowEntry[] cfg = ProgramUtils.getLocationCFG(method.getProgram());
-            return new PreparedMethod(method, node, null, false, cfg);
-        } else {
-            AstCacheEntry entry = decompileRegular(decompiler, method);
-            return new PreparedMethod(method, entry.method, null, false, entry.cfg);
-        }
-    }
-
-    private AstCacheEntry decompileRegular(Decompiler decompiler, MethodHolder method) {
-        if (astCache == null) {
-            return decompileRegularCacheMiss(decompiler, method);
-        }
-
-        CacheStatus cacheStatus = controller.getCacheStatus();
-        AstCacheEntry entry = !cacheStatus.isStaleMethod(method.getReference())
-                ? astCache.get(method.getReference(), cacheStatus)
-                : null;
-        if (entry == null) {
-            entry = decompileRegularCacheMiss(decompiler, method);
-            RegularMethodNode finalNode = entry.method;
-            astCache.store(method.getReference(), entry, () -> dependencyExtractor.extract(finalNode));
-        }
-        return entry;
-    }
-
     private AstCacheEntry decompileRegularCacheMiss(Decompiler decompiler, MethodHolder method) {
         RegularMethodNode node = decompiler.decompileRegular(method);
         ControlFlowEntry[] cfg = LocationGraphBuilder.build(node.getBody());
         return new AstCacheEntry(node, cfg);
     }
 
-    private AsyncMethodNode decompileAsync(Decompiler decompiler, MethodHolder method) {
-        if (astCache == null) {
-            return decompiler.decompileAsync(method);
-        }
-
-        CacheStatus cacheStatus = controller.getCacheStatus();
-        AsyncMethodNode node = !cacheStatus.isStaleMethod(method.getReference())
-                ? astCache.getAsync(method.getReference(), cacheStatus)
-                : null;
-        if (node == null) {
-            node = decompiler.decompileAsync(method);
-            AsyncMethodNode finalNode = node;
-            astCache.storeAsync(method.getReference(), node, () -> dependencyExtractor.extract(finalNode));
-        }
-        return node;
-    }
-
     private void preprocessNativeMethod(MethodHolder method) {
         if (!method.getModifiers().contains(ElementModifier.NATIVE)
                 || methodGenerators.get(method.getReference()) != null
@@ -732,7 +918,9 @@ public class JavaScriptTarget implements TeaVMTarget, TeaVMJavaScriptHost {
 
     @Override
     public String[] getPlatformTags() {
-        return new String[] { Platforms.JAVASCRIPT };
+        return nativeStrings
+                ? new String[] { Platforms.JAVASCRIPT, Platforms.NATIVE_STRINGS }
+                : new String[] { Platforms.JAVASCRIPT };
     }
 
     @Override
@@ -0,0 +1,119 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.javascript.rendering;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.teavm.backend.javascript.HotSwapSnapshot;
+
+/**
+ * Passes generated code through to the actual output, splitting it into method bodies of each class,
+ * which can be replaced in a running page, and everything else, which can't.
+ * The latter is only kept as a digest.
+ */
+public class HotSwapRecorder implements Appendable {
+    private static final int FLUSH_THRESHOLD = 65536;
+    private final Appendable innerWriter;
+    private final MessageDigest globalDigest;
+    private final StringBuilder globalBuffer = new StringBuilder();
+    private StringBuilder classBuffer;
+    private String currentClass;
+    private List<String> currentFunctions;
+    private Map<String, HotSwapSnapshot.ClassCode> classes = new LinkedHashMap<>();
+
+    public HotSwapRecorder(Appendable innerWriter) {
+        this.innerWriter = innerWriter;
+        try {
+            globalDigest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void beginClass(String className) {
+        currentClass = className;
+        classBuffer = new StringBuilder();
+        currentFunctions = new ArrayList<>();
+    }
+
+    void addFunction(String name) {
+        if (currentFunctions != null) {
+            currentFunctions.add(name);
+        }
+    }
+
+    void endClass() {
+        classes.put(currentClass, new HotSwapSnapshot.ClassCode(classBuffer.toString(), currentFunctions));
+        currentClass = null;
+        classBuffer = null;
+        currentFunctions = null;
+    }
+
+    public HotSwapSnapshot createSnapshot() {
+        flushGlobal();
+        StringBuilder hash = new StringBuilder();
+        for (byte b : globalDigest.digest()) {
+            hash.append(Character.forDigit((b >>> 4) & 15, 16)).append(Character.forDigit(b & 15, 16));
+        }
+        return new HotSwapSnapshot(hash.toString(), classes);
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        innerWriter.append(csq, start, end);
+        if (classBuffer != null) {
+            classBuffer.append(csq, start, end);
+        } else {
+            globalBuffer.append(csq, start, end);
+            flushGlobalIfNecessary();
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        innerWriter.append(c);
+        if (classBuffer != null) {
+            classBuffer.append(c);
+        } else {
+            globalBuffer.append(c);
+            flushGlobalIfNecessary();
+        }
+        return this;
+    }
+
+    private void flushGlobalIfNecessary() {
+        if (globalBuffer.length() >= FLUSH_THRESHOLD) {
+            flushGlobal();
+        }
+    }
+
+    private void flushGlobal() {
+        globalDigest.update(globalBuffer.toString().getBytes(StandardCharsets.UTF_8));
+        globalBuffer.setLength(0);
+    }
+}
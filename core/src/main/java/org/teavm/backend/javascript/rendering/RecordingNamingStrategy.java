@@ -0,0 +1,91 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.javascript.rendering;
+
+import java.util.Set;
+import org.teavm.backend.javascript.codegen.NamingStrategy;
+import org.teavm.backend.javascript.codegen.ScopedName;
+import org.teavm.model.FieldReference;
+import org.teavm.model.MethodDescriptor;
+import org.teavm.model.MethodReference;
+
+/**
+ * Delegates to another naming strategy and remembers top-level names it returned, i.e. names that
+ * code written with this strategy takes from the enclosing scope.
+ */
+class RecordingNamingStrategy implements NamingStrategy {
+    private final NamingStrategy underlying;
+    private final Set<String> topLevelNames;
+
+    RecordingNamingStrategy(NamingStrategy underlying, Set<String> topLevelNames) {
+        this.underlying = underlying;
+        this.topLevelNames = topLevelNames;
+    }
+
+    @Override
+    public ScopedName getNameFor(String cls) {
+        return record(underlying.getNameFor(cls));
+    }
+
+    @Override
+    public String getNameFor(MethodDescriptor method) {
+        return underlying.getNameFor(method);
+    }
+
+    @Override
+    public ScopedName getNameForInit(MethodReference method) {
+        return record(underlying.getNameForInit(method));
+    }
+
+    @Override
+    public ScopedName getFullNameFor(MethodReference method) {
+        return record(underlying.getFullNameFor(method));
+    }
+
+    @Override
+    public String getNameFor(FieldReference field) {
+        return underlying.getNameFor(field);
+    }
+
+    @Override
+    public ScopedName getFullNameFor(FieldReference method) {
+        return record(underlying.getFullNameFor(method));
+    }
+
+    @Override
+    public String getNameForFunction(String name) {
+        String result = underlying.getNameForFunction(name);
+        topLevelNames.add(result);
+        return result;
+    }
+
+    @Override
+    public ScopedName getNameForClassInit(String className) {
+        return record(underlying.getNameForClassInit(className));
+    }
+
+    @Override
+    public String getScopeName() {
+        String result = underlying.getScopeName();
+        topLevelNames.add(result);
+        return result;
+    }
+
+    private ScopedName record(ScopedName name) {
+        topLevelNames.add(name.scoped ? underlying.getScopeName() : name.value);
+        return name;
+    }
+}
@@ -22,11 +22,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.teavm.ast.AsyncMethodNode;
 import org.teavm.ast.AsyncMethodPart;
@@ -38,6 +42,7 @@ import org.teavm.backend.javascript.codegen.NamingOrderer;
 import org.teavm.backend.javascript.codegen.NamingStrategy;
 import org.teavm.backend.javascript.codegen.ScopedName;
 import org.teavm.backend.javascript.codegen.SourceWriter;
+import org.teavm.backend.javascript.codegen.SourceWriterBuilder;
 import org.teavm.backend.javascript.decompile.PreparedClass;
 import org.teavm.backend.javascript.decompile.PreparedMethod;
 import org.teavm.backend.javascript.spi.GeneratorContext;
@@ -62,7 +67,7 @@ import org.teavm.vm.TeaVMProgressFeedback;
 
 public class Renderer implements RenderingManager {
     private final NamingStrategy naming;
-    private final SourceWriter writer;
+    private SourceWriter writer;
     private final ListableClassReaderSource classSource;
     private final ClassLoader classLoader;
     private boolean minifying;
@@ -79,7 +84,11 @@ public class Renderer implements RenderingManager {
 
     private ObjectIntMap<String> sizeByClass = new ObjectIntHashMap<>();
     private int stringPoolSize;
+    private boolean lazyStringPool;
     private int metadataSize;
+    private Map<MethodReference, String> methodChunks = new HashMap<>();
+    private Map<String, Chunk> chunks = new LinkedHashMap<>();
+    private HotSwapRecorder hotSwapRecorder;
 
     private boolean longLibraryUsed;
     private boolean threadLibraryUsed;
@@ -105,6 +114,86 @@ public class Renderer implements RenderingManager {
         return threadLibraryUsed;
     }
 
+    /**
+     * Sets whether string constants are converted to Java strings when first accessed, rather than
+     * all at once on startup.
+     */
+    public void setLazyStringPool(boolean lazyStringPool) {
+        this.lazyStringPool = lazyStringPool;
+    }
+
+    /**
+     * Moves bodies of given methods to separate chunks of code. Main output gets a stub instead of each of these
+     * methods, which loads corresponding chunk on first call. All top-level names should be scoped, since chunks
+     * capture names of the main output by value.
+     *
+     * @param methodChunks maps method to a name of its chunk.
+     */
+    public void setMethodChunks(Map<MethodReference, String> methodChunks) {
+        this.methodChunks = new HashMap<>(methodChunks);
+    }
+
+    /**
+     * Reports bounds of method bodies of each class to the recorder, which must be the output
+     * of the writer this renderer writes to.
+     */
+    public void setHotSwapRecorder(HotSwapRecorder hotSwapRecorder) {
+        this.hotSwapRecorder = hotSwapRecorder;
+    }
+
+    public boolean hasChunks() {
+        return !chunks.isEmpty();
+    }
+
+    /**
+     * Renders declarations of chunks that bind names captured by each chunk, should be called after
+     * {@link #render(List)}.
+     */
+    public void renderChunkDeclarations() throws IOException {
+        for (Map.Entry<String, Chunk> entry : chunks.entrySet()) {
+            writer.append("$rt_declareChunk(");
+            RenderingUtil.writeString(writer, entry.getKey());
+            writer.append(",").ws().append("function(f)").ws().append("{").indent().softNewLine();
+            writer.append("return f(");
+            boolean first = true;
+            for (String name : entry.getValue().getImports(naming.getScopeName())) {
+                if (!first) {
+                    writer.append(",").ws();
+                }
+                first = false;
+                if (name.equals(naming.getScopeName())) {
+                    writer.append(name);
+                } else {
+                    writer.append("typeof ").append(name).ws().append("!==").ws().append("\"undefined\"")
+                            .ws().append("?").ws().append(name).ws().append(":").ws().append("void 0");
+                }
+            }
+            writer.append(");").softNewLine();
+            writer.outdent().append("});").newLine();
+        }
+    }
+
+    /**
+     * Returns contents of chunk files by chunk name. Each chunk registers itself in global {@code TeaVMChunks}
+     * object, so it can be loaded either by main output or by a {@code <script>} tag of a page.
+     */
+    public Map<String, String> getChunkSources() {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Chunk> entry : chunks.entrySet()) {
+            Chunk chunk = entry.getValue();
+            StringBuilder sb = new StringBuilder();
+            sb.append("(function(g){var c=g.TeaVMChunks||(g.TeaVMChunks={});c[\"")
+                    .append(RenderingUtil.escapeString(entry.getKey())).append("\"]=function(");
+            sb.append(String.join(",", chunk.getImports(naming.getScopeName())));
+            sb.append("){\"use strict\";return[\n");
+            sb.append(chunk.text);
+            sb.append("\n];};})(typeof globalThis!==\"undefined\"?globalThis:typeof self!==\"undefined\"?self")
+                    .append(":typeof window!==\"undefined\"?window:global);\n");
+            result.put(entry.getKey(), sb.toString());
+        }
+        return result;
+    }
+
     public int getStringPoolSize() {
         return stringPoolSize;
     }
@@ -180,7 +269,7 @@ public class Renderer implements RenderingManager {
         }
         try {
             int start = writer.getOffset();
-            writer.append("$rt_stringPool([");
+            writer.append(lazyStringPool ? "$rt_lazyStringPool([" : "$rt_stringPool([");
             for (int i = 0; i < context.getStringPool().size(); ++i) {
                 if (i > 0) {
                     writer.append(',').ws();
@@ -310,7 +399,7 @@ public class Renderer implements RenderingManager {
             for (FieldHolder field : cls.getClassHolder().getFields()) {
                 if (field.getModifiers().contains(ElementModifier.STATIC)) {
                     staticFields.add(field);
-                } else {
+                } else if (!context.isObjectSideTables() || !isMonitorField(field.getReference())) {
                     nonStaticFields.add(field);
                 }
             }
@@ -336,9 +425,13 @@ public class Renderer implements RenderingManager {
                 debugEmitter.addField(field.getName(), naming.getNameFor(fieldRef));
             }
 
-            if (cls.getName().equals("java.lang.Object")) {
+            if (cls.getName().equals("java.lang.Object") && !context.isObjectSideTables()) {
                 writer.append("this.$id$").ws().append('=').ws().append("0;").softNewLine();
             }
+            if (cls.getName().equals("java.lang.String")) {
+                writer.append(thisAliased ? "a" : "this").append(".$jsString$").ws().append('=').ws()
+                        .append("null;").softNewLine();
+            }
 
             writer.outdent().append("}");
             if (jsName.scoped) {
@@ -381,6 +474,9 @@ public class Renderer implements RenderingManager {
             if (clinit != null && context.isDynamicInitializer(cls.getName())) {
                 renderCallClinit(clinit, cls);
             }
+            if (hotSwapRecorder != null) {
+                hotSwapRecorder.beginClass(cls.getName());
+            }
             if (!cls.getClassHolder().getModifiers().contains(ElementModifier.INTERFACE)) {
                 for (PreparedMethod method : cls.getMethods()) {
                     if (!method.methodHolder.getModifiers().contains(ElementModifier.STATIC)) {
@@ -394,6 +490,9 @@ public class Renderer implements RenderingManager {
             for (PreparedMethod method : cls.getMethods()) {
                 renderBody(method);
             }
+            if (hotSwapRecorder != null) {
+                hotSwapRecorder.endClass();
+            }
         } catch (IOException e) {
             throw new RenderingException("IO error occurred", e);
         }
@@ -806,14 +905,81 @@ public class Renderer implements RenderingManager {
     }
 
     private void renderBody(PreparedMethod method) throws IOException {
+        MethodReference ref = method.reference;
+        String chunk = methodChunks.get(ref);
+        if (chunk != null) {
+            renderChunkedBody(method, chunk);
+            return;
+        }
+
         StatementRenderer statementRenderer = new StatementRenderer(context, writer);
         statementRenderer.setCurrentMethod(method.node);
 
-        MethodReference ref = method.reference;
         debugEmitter.emitMethod(ref.getDescriptor());
         ScopedName name = naming.getFullNameFor(ref);
 
         renderFunctionDeclaration(name);
+        renderFunctionBody(method, statementRenderer);
+        if (name.scoped) {
+            writer.append(";");
+        }
+
+        writer.newLine();
+        debugEmitter.emitMethod(null);
+
+        longLibraryUsed |= statementRenderer.isLongLibraryUsed();
+    }
+
+    private void renderChunkedBody(PreparedMethod method, String chunkName) throws IOException {
+        MethodReference ref = method.reference;
+        Chunk chunk = chunks.computeIfAbsent(chunkName, k -> new Chunk());
+        int index = chunk.methodCount++;
+
+        debugEmitter.emitMethod(ref.getDescriptor());
+        ScopedName name = naming.getFullNameFor(ref);
+        renderFunctionDeclaration(name);
+        writer.append("()").ws().append("{").softNewLine().indent();
+        writer.append("return $rt_chunkCall(");
+        RenderingUtil.writeString(writer, chunkName);
+        writer.append(",").ws().append(index).append(",").ws().append("this,").ws().append("arguments);")
+                .softNewLine();
+        writer.outdent().append("}");
+        if (name.scoped) {
+            writer.append(";");
+        }
+        writer.newLine();
+        debugEmitter.emitMethod(null);
+
+        // Debug information describes main output only, so chunks are rendered without it
+        SourceWriter mainWriter = writer;
+        DebugInformationEmitter mainDebugEmitter = debugEmitter;
+        if (chunk.writer == null) {
+            SourceWriterBuilder builder = new SourceWriterBuilder(new RecordingNamingStrategy(naming,
+                    chunk.importedNames));
+            builder.setMinified(minifying);
+            chunk.writer = builder.build(chunk.text);
+        }
+        writer = chunk.writer;
+        debugEmitter = new DummyDebugInformationEmitter();
+        context.setDebugEmitter(debugEmitter);
+        try {
+            if (index > 0) {
+                writer.append(",").newLine();
+            }
+            StatementRenderer statementRenderer = new StatementRenderer(context, writer);
+            statementRenderer.setCurrentMethod(method.node);
+            writer.append("function");
+            renderFunctionBody(method, statementRenderer);
+            longLibraryUsed |= statementRenderer.isLongLibraryUsed();
+        } finally {
+            writer = mainWriter;
+            debugEmitter = mainDebugEmitter;
+            context.setDebugEmitter(mainDebugEmitter);
+        }
+    }
+
+    private void renderFunctionBody(PreparedMethod method, StatementRenderer statementRenderer) throws IOException {
+        MethodReference ref = method.reference;
         writer.append("(");
         int startParam = 0;
         if (method.methodHolder.getModifiers().contains(ElementModifier.STATIC)) {
@@ -835,14 +1001,6 @@ public class Renderer implements RenderingManager {
         }
 
         writer.outdent().append("}");
-        if (name.scoped) {
-            writer.append(";");
-        }
-
-        writer.newLine();
-        debugEmitter.emitMethod(null);
-
-        longLibraryUsed |= statementRenderer.isLongLibraryUsed();
     }
 
     private void renderFunctionDeclaration(ScopedName name) throws IOException {
@@ -852,6 +1010,9 @@ public class Renderer implements RenderingManager {
         writer.append("function");
         if (!name.scoped) {
             writer.append(" ").append(name.value);
+            if (hotSwapRecorder != null) {
+                hotSwapRecorder.addFunction(name.value);
+            }
         }
     }
 
@@ -1161,4 +1322,29 @@ public class Renderer implements RenderingManager {
     private boolean isVirtual(MethodReference method) {
         return context.isVirtual(method);
     }
+
+    private boolean isMonitorField(FieldReference field) {
+        return field.getClassName().equals("java.lang.Object") && field.getFieldName().equals("monitor");
+    }
+
+    private static class Chunk {
+        private static final Pattern RUNTIME_NAME = Pattern.compile("(?<![\\w$.])(\\$rt_[\\w$]*|Long_[\\w$]*)");
+        final StringBuilder text = new StringBuilder();
+        final Set<String> importedNames = new LinkedHashSet<>();
+        SourceWriter writer;
+        int methodCount;
+
+        List<String> getImports(String scopeName) {
+            Set<String> result = new LinkedHashSet<>();
+            result.add(scopeName);
+            result.addAll(importedNames);
+
+            // Some runtime functions are written as is, without naming strategy
+            Matcher matcher = RUNTIME_NAME.matcher(text);
+            while (matcher.find()) {
+                result.add(matcher.group(1));
+            }
+            return new ArrayList<>(result);
+        }
+    }
 }
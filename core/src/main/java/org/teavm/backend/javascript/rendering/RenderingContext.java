@@ -46,7 +46,7 @@ import org.teavm.model.ValueType;
 import org.teavm.model.analysis.ClassInitializerInfo;
 
 public class RenderingContext {
-    private final DebugInformationEmitter debugEmitter;
+    private DebugInformationEmitter debugEmitter;
     private ClassReaderSource initialClassSource;
     private ListableClassReaderSource classSource;
     private ClassLoader classLoader;
@@ -61,6 +61,8 @@ public class RenderingContext {
     private final List<String> readonlyStringPool = Collections.unmodifiableList(stringPool);
     private final Map<MethodReference, InjectorHolder> injectorMap = new HashMap<>();
     private boolean minifying;
+    private boolean longAsBigInt;
+    private boolean objectSideTables;
     private ClassInitializerInfo classInitializerInfo;
 
     public RenderingContext(DebugInformationEmitter debugEmitter,
@@ -112,10 +114,30 @@ public class RenderingContext {
         this.minifying = minifying;
     }
 
+    public boolean isLongAsBigInt() {
+        return longAsBigInt;
+    }
+
+    public void setLongAsBigInt(boolean longAsBigInt) {
+        this.longAsBigInt = longAsBigInt;
+    }
+
+    public boolean isObjectSideTables() {
+        return objectSideTables;
+    }
+
+    public void setObjectSideTables(boolean objectSideTables) {
+        this.objectSideTables = objectSideTables;
+    }
+
     public DebugInformationEmitter getDebugEmitter() {
         return debugEmitter;
     }
 
+    void setDebugEmitter(DebugInformationEmitter debugEmitter) {
+        this.debugEmitter = debugEmitter;
+    }
+
     public boolean isVirtual(MethodReference method) {
         return virtualPredicate.test(method);
     }
@@ -180,7 +202,9 @@ public class RenderingContext {
             writer.appendFunction("$rt_s").append("(" + index + ")");
         } else if (cst instanceof Long) {
             long value = (Long) cst;
-            if (value == 0) {
+            if (longAsBigInt) {
+                writer.append(value < 0 ? "(" + value + "n)" : value + "n");
+            } else if (value == 0) {
                 writer.append("Long_ZERO");
             } else if ((int) value == value) {
                 writer.append("Long_fromInt(" + value + ")");
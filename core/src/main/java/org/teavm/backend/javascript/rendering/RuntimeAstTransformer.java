@@ -17,11 +17,13 @@ package org.teavm.backend.javascript.rendering;
 
 import org.mozilla.javascript.Token;
 import org.mozilla.javascript.ast.AstNode;
+import org.mozilla.javascript.ast.EmptyExpression;
 import org.mozilla.javascript.ast.ExpressionStatement;
 import org.mozilla.javascript.ast.FunctionCall;
 import org.mozilla.javascript.ast.InfixExpression;
 import org.mozilla.javascript.ast.KeywordLiteral;
 import org.mozilla.javascript.ast.Name;
+import org.mozilla.javascript.ast.NumberLiteral;
 import org.mozilla.javascript.ast.PropertyGet;
 import org.teavm.backend.javascript.codegen.NamingStrategy;
 import org.teavm.model.FieldReference;
@@ -30,9 +32,11 @@ public class RuntimeAstTransformer extends AstVisitor {
     private static final FieldReference MONITOR_FIELD = new FieldReference(
             "java.lang.Object", "monitor");
     private NamingStrategy names;
+    private boolean objectSideTables;
 
-    public RuntimeAstTransformer(NamingStrategy names) {
+    public RuntimeAstTransformer(NamingStrategy names, boolean objectSideTables) {
         this.names = names;
+        this.objectSideTables = objectSideTables;
     }
 
     @Override
@@ -42,15 +46,32 @@ public class RuntimeAstTransformer extends AstVisitor {
             FunctionCall call = (FunctionCall) expression;
             if (call.getTarget().getType() == Token.NAME) {
                 String id = ((Name) call.getTarget()).getIdentifier();
-                if (id.equals("$rt_initMonitorField")) {
-                    AstNode arg = call.getArguments().get(0);
-                    accept(arg);
-                    String fieldId = names.getNameFor(MONITOR_FIELD);
-                    PropertyGet propertyGet = new PropertyGet(arg, new Name(0, fieldId));
-                    KeywordLiteral nullExpr = new KeywordLiteral(0, 0, Token.NULL);
-                    InfixExpression assign = new InfixExpression(Token.ASSIGN, propertyGet, nullExpr, 0);
-                    node.setExpression(assign);
-                    return;
+                switch (id) {
+                    case "$rt_initMonitorField": {
+                        if (objectSideTables) {
+                            node.setExpression(new EmptyExpression());
+                            return;
+                        }
+                        AstNode arg = call.getArguments().get(0);
+                        accept(arg);
+                        String fieldId = names.getNameFor(MONITOR_FIELD);
+                        PropertyGet propertyGet = new PropertyGet(arg, new Name(0, fieldId));
+                        KeywordLiteral nullExpr = new KeywordLiteral(0, 0, Token.NULL);
+                        node.setExpression(new InfixExpression(Token.ASSIGN, propertyGet, nullExpr, 0));
+                        return;
+                    }
+                    case "$rt_initIdField": {
+                        if (objectSideTables) {
+                            node.setExpression(new EmptyExpression());
+                            return;
+                        }
+                        AstNode arg = call.getArguments().get(0);
+                        accept(arg);
+                        PropertyGet propertyGet = new PropertyGet(arg, new Name(0, "$id$"));
+                        NumberLiteral zero = new NumberLiteral(0, "0");
+                        node.setExpression(new InfixExpression(Token.ASSIGN, propertyGet, zero, 0));
+                        return;
+                    }
                 }
             }
         }
@@ -36,6 +36,7 @@ import org.teavm.vm.RenderingException;
 public class RuntimeRenderer {
     private static final String STRING_CLASS = String.class.getName();
     private static final String THREAD_CLASS = Thread.class.getName();
+    private static final int USTR_CHUNK_SIZE = 4096;
 
     private static final MethodReference NPE_INIT_METHOD = new MethodReference(NullPointerException.class,
             "<init>", void.class);
@@ -49,19 +50,42 @@ public class RuntimeRenderer {
 
     private final ClassReaderSource classSource;
     private final SourceWriter writer;
+    private boolean longAsBigInt;
+    private boolean objectSideTables;
+    private boolean nativeStrings;
 
     public RuntimeRenderer(ClassReaderSource classSource, SourceWriter writer) {
         this.classSource = classSource;
         this.writer = writer;
     }
 
+    public void setLongAsBigInt(boolean longAsBigInt) {
+        this.longAsBigInt = longAsBigInt;
+    }
+
+    public void setObjectSideTables(boolean objectSideTables) {
+        this.objectSideTables = objectSideTables;
+    }
+
+    public void setNativeStrings(boolean nativeStrings) {
+        this.nativeStrings = nativeStrings;
+    }
+
     public void renderRuntime() throws RenderingException {
         try {
             renderHandWrittenRuntime("runtime.js");
+            renderHandWrittenRuntime(longAsBigInt ? "bigIntLong.js" : "longRuntime.js");
+            renderHandWrittenRuntime(objectSideTables ? "objectSideTables.js" : "objectFields.js");
             renderSetCloneMethod();
             renderRuntimeCls();
-            renderRuntimeString();
-            renderRuntimeUnwrapString();
+            renderRuntimeCharsToString();
+            if (nativeStrings) {
+                renderRuntimeNativeString();
+                renderRuntimeUnwrapNativeString();
+            } else {
+                renderRuntimeString();
+                renderRuntimeUnwrapString();
+            }
             renderRuntimeObjcls();
             renderRuntimeNullCheck();
             renderRuntimeIntern();
@@ -77,7 +101,7 @@ public class RuntimeRenderer {
     public void renderHandWrittenRuntime(String name) throws IOException {
         AstRoot ast = parseRuntime(name);
         ast.visit(new StringConstantElimination());
-        new RuntimeAstTransformer(writer.getNaming()).accept(ast);
+        new RuntimeAstTransformer(writer.getNaming(), objectSideTables).accept(ast);
         AstWriter astWriter = new AstWriter(writer);
         astWriter.hoist(ast);
         astWriter.print(ast);
@@ -112,6 +136,11 @@ public class RuntimeRenderer {
         writer.outdent().append("}").newLine();
     }
 
+    /*
+     * Java strings remember JavaScript string they were converted from or to in $jsString$ property,
+     * so that strings passed back and forth between Java and JavaScript are only converted once.
+     * It's safe, since characters of a string are never modified after construction.
+     */
     private void renderRuntimeString() throws IOException {
         MethodReference stringCons = new MethodReference(String.class, "<init>", char[].class, void.class);
         writer.append("function $rt_str(str) {").indent().softNewLine();
@@ -123,7 +152,9 @@ public class RuntimeRenderer {
         writer.append("for (var i = 0; i < str.length; i = (i + 1) | 0) {").indent().softNewLine();
         writer.append("charsBuffer[i] = str.charCodeAt(i) & 0xFFFF;").softNewLine();
         writer.outdent().append("}").softNewLine();
-        writer.append("return ").appendInit(stringCons).append("(characters);").softNewLine();
+        writer.append("var result = ").appendInit(stringCons).append("(characters);").softNewLine();
+        writer.append("result.$jsString$ = str;").softNewLine();
+        writer.append("return result;").softNewLine();
         writer.outdent().append("}").newLine();
     }
 
@@ -134,15 +165,52 @@ public class RuntimeRenderer {
         writer.append("return null;").softNewLine();
         writer.outdent().append("}").softNewLine();
 
-        writer.append("var data = str.").appendField(stringChars).append(".data;").softNewLine();
+        writer.append("var result = str.$jsString$;").softNewLine();
+        writer.append("if (typeof result === \"string\") {").indent().softNewLine();
+        writer.append("return result;").softNewLine();
+        writer.outdent().append("}").softNewLine();
+        writer.append("var characters = str.").appendField(stringChars).append(";").softNewLine();
+        writer.append("result = $rt_charsToString(characters, 0, characters.data.length);").softNewLine();
+        writer.append("str.$jsString$ = result;").softNewLine();
+        writer.append("return result;").softNewLine();
+        writer.outdent().append("}").newLine();
+    }
+
+    private void renderRuntimeCharsToString() throws IOException {
+        writer.append("function $rt_charsToString(characters, offset, count) {").indent().softNewLine();
+        writer.append("var data = characters.data;").softNewLine();
+        writer.append("var end = (offset + count) | 0;").softNewLine();
         writer.append("var result = \"\";").softNewLine();
-        writer.append("for (var i = 0; i < data.length; i = (i + 1) | 0) {").indent().softNewLine();
-        writer.append("result += String.fromCharCode(data[i]);").softNewLine();
+        writer.append("for (var i = offset; i < end; i = (i + " + USTR_CHUNK_SIZE + ") | 0) {").indent()
+                .softNewLine();
+        writer.append("result += String.fromCharCode.apply(null, data.subarray(i, Math.min((i + "
+                + USTR_CHUNK_SIZE + ") | 0, end)));").softNewLine();
         writer.outdent().append("}").softNewLine();
         writer.append("return result;").softNewLine();
         writer.outdent().append("}").newLine();
     }
 
+    /*
+     * In native strings mode $jsString$ property is the only storage of string characters, so conversion
+     * in both directions only wraps or unwraps JavaScript string.
+     */
+    private void renderRuntimeNativeString() throws IOException {
+        writer.append("function $rt_str(str) {").indent().softNewLine();
+        writer.append("if (str === null) {").indent().softNewLine();
+        writer.append("return null;").softNewLine();
+        writer.outdent().append("}").softNewLine();
+        writer.append("var result = new ").appendClass(STRING_CLASS).append("();").softNewLine();
+        writer.append("result.$jsString$ = str;").softNewLine();
+        writer.append("return result;").softNewLine();
+        writer.outdent().append("}").newLine();
+    }
+
+    private void renderRuntimeUnwrapNativeString() throws IOException {
+        writer.append("function $rt_ustr(str) {").indent().softNewLine();
+        writer.append("return str !== null ? str.$jsString$ : null;").softNewLine();
+        writer.outdent().append("}").newLine();
+    }
+
     private void renderRuntimeNullCheck() throws IOException {
         writer.append("function $rt_nullCheck(val) {").indent().softNewLine();
         writer.append("if (val === null) {").indent().softNewLine();
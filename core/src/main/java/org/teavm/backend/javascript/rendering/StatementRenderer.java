@@ -75,6 +75,7 @@ import org.teavm.debugging.information.DeferredCallSite;
 import org.teavm.model.ClassReader;
 import org.teavm.model.ClassReaderSource;
 import org.teavm.model.ElementModifier;
+import org.teavm.model.FieldReference;
 import org.teavm.model.ListableClassReaderSource;
 import org.teavm.model.MethodDescriptor;
 import org.teavm.model.MethodReader;
@@ -110,7 +111,7 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
         this.writer = writer;
         this.classSource = context.getClassSource();
         this.minifying = context.isMinifying();
-        this.naming = context.getNaming();
+        this.naming = writer.getNaming();
         this.debugEmitter = context.getDebugEmitter();
         if (!minifying) {
             usedVariableNames.add("$tmp");
@@ -159,22 +160,31 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
                 pushLocation(statement.getLocation());
             }
             prevCallSite = debugEmitter.emitCallSite();
+            QualificationExpr sideTableField = getSideTableField(statement.getLeftValue());
             if (statement.getLeftValue() != null) {
                 if (statement.isAsync()) {
-                    writer.append(context.tempVarName());
+                    writer.append(context.tempVarName()).ws().append("=").ws();
+                } else if (sideTableField != null) {
+                    renderSideTableFieldWrite(sideTableField);
                 } else {
                     precedence = Precedence.COMMA;
                     statement.getLeftValue().acceptVisitor(this);
+                    writer.ws().append("=").ws();
                 }
-                writer.ws().append("=").ws();
             }
             precedence = Precedence.COMMA;
             statement.getRightValue().acceptVisitor(this);
+            if (sideTableField != null && !statement.isAsync()) {
+                writer.append(")");
+            }
             debugEmitter.emitCallSite();
             writer.append(";").softNewLine();
             if (statement.isAsync()) {
                 emitSuspendChecker();
-                if (statement.getLeftValue() != null) {
+                if (sideTableField != null) {
+                    renderSideTableFieldWrite(sideTableField);
+                    writer.append(context.tempVarName()).append(");").softNewLine();
+                } else if (statement.getLeftValue() != null) {
                     precedence = Precedence.COMMA;
                     statement.getLeftValue().acceptVisitor(this);
                     writer.ws().append("=").ws().append(context.tempVarName()).append(";").softNewLine();
@@ -188,6 +198,29 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
         }
     }
 
+    private QualificationExpr getSideTableField(Expr expr) {
+        if (!(expr instanceof QualificationExpr)) {
+            return null;
+        }
+        QualificationExpr qualification = (QualificationExpr) expr;
+        return isSideTableField(qualification) ? qualification : null;
+    }
+
+    private boolean isSideTableField(QualificationExpr expr) {
+        if (!context.isObjectSideTables() || expr.getQualified() == null) {
+            return false;
+        }
+        FieldReference field = expr.getField();
+        return field.getClassName().equals("java.lang.Object") && field.getFieldName().equals("monitor");
+    }
+
+    private void renderSideTableFieldWrite(QualificationExpr expr) throws IOException {
+        writer.appendFunction("$rt_setMonitor").append("(");
+        precedence = Precedence.min();
+        expr.getQualified().acceptVisitor(this);
+        writer.append(",").ws();
+    }
+
     @Override
     public void visit(SequentialStatement statement) {
         visitStatements(statement.getSequence());
@@ -658,9 +691,131 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
         }
     }
 
+    private void visitBigIntBinary(BinaryExpr expr) {
+        switch (expr.getOperation()) {
+            case ADD:
+                visitWrappedBigInt(expr, "+");
+                break;
+            case SUBTRACT:
+                visitWrappedBigInt(expr, "-");
+                break;
+            case MULTIPLY:
+                visitWrappedBigInt(expr, "*");
+                break;
+            case DIVIDE:
+                visitWrappedBigInt(expr, "/");
+                break;
+            case MODULO:
+                visitBinary(expr, "%", false);
+                break;
+            case BITWISE_OR:
+                visitBinary(expr, "|", false);
+                break;
+            case BITWISE_AND:
+                visitBinary(expr, "&", false);
+                break;
+            case BITWISE_XOR:
+                visitBinary(expr, "^", false);
+                break;
+            case LEFT_SHIFT:
+                visitBigIntShift(expr, "<<", true, false);
+                break;
+            case RIGHT_SHIFT:
+                visitBigIntShift(expr, ">>", false, false);
+                break;
+            case UNSIGNED_RIGHT_SHIFT:
+                visitBigIntShift(expr, ">>", true, true);
+                break;
+            case COMPARE:
+                visitBinaryFunction(expr, "Long_compare");
+                break;
+            case EQUALS:
+                visitBinary(expr, "===", false);
+                break;
+            case NOT_EQUALS:
+                visitBinary(expr, "!==", false);
+                break;
+            case LESS:
+                visitBinary(expr, "<", false);
+                break;
+            case LESS_OR_EQUALS:
+                visitBinary(expr, "<=", false);
+                break;
+            case GREATER:
+                visitBinary(expr, ">", false);
+                break;
+            case GREATER_OR_EQUALS:
+                visitBinary(expr, ">=", false);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void visitWrappedBigInt(BinaryExpr expr, String op) {
+        try {
+            writer.append("BigInt.asIntN(64,").ws();
+            precedence = Precedence.min();
+            visitBinary(expr, op, false);
+            writer.append(")");
+        } catch (IOException e) {
+            throw new RenderingException("IO error occurred", e);
+        }
+    }
+
+    private void visitBigIntShift(BinaryExpr expr, String op, boolean wrap, boolean unsigned) {
+        try {
+            if (expr.getLocation() != null) {
+                pushLocation(expr.getLocation());
+            }
+            if (wrap) {
+                writer.append("BigInt.asIntN(64,").ws();
+                precedence = Precedence.min();
+            }
+            visitBinary(expr.getOperation(), op, () -> {
+                try {
+                    if (unsigned) {
+                        writer.append("BigInt.asUintN(64,").ws();
+                        precedence = Precedence.min();
+                    }
+                    expr.getFirstOperand().acceptVisitor(this);
+                    if (unsigned) {
+                        writer.append(")");
+                    }
+                } catch (IOException e) {
+                    throw new RenderingException("IO error occurred", e);
+                }
+            }, () -> {
+                try {
+                    Expr amount = expr.getSecondOperand();
+                    if (amount instanceof ConstantExpr && ((ConstantExpr) amount).getValue() instanceof Integer) {
+                        writer.append(((Integer) ((ConstantExpr) amount).getValue() & 63) + "n");
+                    } else {
+                        writer.append("BigInt(");
+                        precedence = Precedence.BITWISE_AND;
+                        amount.acceptVisitor(this);
+                        writer.ws().append("&").ws().append("63)");
+                    }
+                } catch (IOException e) {
+                    throw new RenderingException("IO error occurred", e);
+                }
+            });
+            if (wrap) {
+                writer.append(")");
+            }
+            if (expr.getLocation() != null) {
+                popLocation();
+            }
+        } catch (IOException e) {
+            throw new RenderingException("IO error occurred", e);
+        }
+    }
+
     @Override
     public void visit(BinaryExpr expr) {
-        if (expr.getType() == OperationType.LONG) {
+        if (expr.getType() == OperationType.LONG && context.isLongAsBigInt()) {
+            visitBigIntBinary(expr);
+        } else if (expr.getType() == OperationType.LONG) {
             longLibraryUsed = true;
             switch (expr.getOperation()) {
                 case ADD:
@@ -808,7 +963,7 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
             Precedence outerPrecedence = precedence;
             switch (expr.getOperation()) {
                 case NOT: {
-                    if (expr.getType() == OperationType.LONG) {
+                    if (expr.getType() == OperationType.LONG && !context.isLongAsBigInt()) {
                         longLibraryUsed = true;
                         writer.append("Long_not(");
                         precedence = Precedence.min();
@@ -828,7 +983,12 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
                     break;
                 }
                 case NEGATE:
-                    if (expr.getType() == OperationType.LONG) {
+                    if (expr.getType() == OperationType.LONG && context.isLongAsBigInt()) {
+                        writer.append("BigInt.asIntN(64,").ws().append("-");
+                        precedence = Precedence.UNARY;
+                        expr.getOperand().acceptVisitor(this);
+                        writer.append(')');
+                    } else if (expr.getType() == OperationType.LONG) {
                         longLibraryUsed = true;
                         writer.append("Long_neg(");
                         precedence = Precedence.min();
@@ -910,6 +1070,14 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
             if (expr.getLocation() != null) {
                 pushLocation(expr.getLocation());
             }
+            if (context.isLongAsBigInt() && (expr.getSource() == OperationType.LONG
+                    || expr.getTarget() == OperationType.LONG)) {
+                visitBigIntCast(expr);
+                if (expr.getLocation() != null) {
+                    popLocation();
+                }
+                return;
+            }
             switch (expr.getSource()) {
                 case INT:
                     if (expr.getTarget() == OperationType.LONG) {
@@ -977,6 +1145,37 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
         }
     }
 
+    private void visitBigIntCast(PrimitiveCastExpr expr) throws IOException {
+        String prefix;
+        String suffix = ")";
+        if (expr.getSource() == OperationType.LONG) {
+            switch (expr.getTarget()) {
+                case INT:
+                    prefix = "Number(BigInt.asIntN(32,";
+                    suffix = "))";
+                    break;
+                case FLOAT:
+                case DOUBLE:
+                    prefix = "Number(";
+                    break;
+                default:
+                    expr.getValue().acceptVisitor(this);
+                    return;
+            }
+        } else if (expr.getSource() == OperationType.INT) {
+            prefix = "BigInt(";
+        } else {
+            prefix = "Long_fromNumber(";
+        }
+        writer.append(prefix);
+        if (prefix.endsWith(",")) {
+            writer.ws();
+        }
+        precedence = Precedence.min();
+        expr.getValue().acceptVisitor(this);
+        writer.append(suffix);
+    }
+
     private Expr extractLongRightShiftedBy32(Expr expr) {
         if (!(expr instanceof BinaryExpr)) {
             return null;
@@ -1198,9 +1397,13 @@ public class StatementRenderer implements ExprVisitor, StatementVisitor {
             if (expr.getLocation() != null) {
                 pushLocation(expr.getLocation());
             }
-            precedence = Precedence.MEMBER_ACCESS;
-
-            if (expr.getQualified() != null) {
+            if (isSideTableField(expr)) {
+                writer.appendFunction("$rt_getMonitor").append("(");
+                precedence = Precedence.min();
+                expr.getQualified().acceptVisitor(this);
+                writer.append(")");
+            } else if (expr.getQualified() != null) {
+                precedence = Precedence.MEMBER_ACCESS;
                 expr.getQualified().acceptVisitor(this);
                 writer.append('.').appendField(expr.getField());
             } else {
@@ -31,6 +31,11 @@ import org.teavm.model.MethodReader;
 import org.teavm.model.MethodReference;
 import org.teavm.model.ValueType;
 
+/**
+ * Assigns unique C/Wasm identifiers to program elements on first request. Methods are synchronized,
+ * since C backend may request names from several threads; callers that need deterministic names
+ * must request them in a deterministic order beforehand.
+ */
 public abstract class LowLevelNameProvider {
     private ClassReaderSource classSource;
 
@@ -55,14 +60,14 @@ public abstract class LowLevelNameProvider {
         this.classSource = classSource;
     }
 
-    public String forMethod(MethodReference method) {
+    public synchronized String forMethod(MethodReference method) {
         return methodNames.computeIfAbsent(method, k -> {
             String specialName = getSpecialName(k);
             return specialName == null ? pickUnoccupied("meth_" + suggestForMethod(k)) : specialName;
         });
     }
 
-    public String forVirtualMethod(MethodDescriptor method) {
+    public synchronized String forVirtualMethod(MethodDescriptor method) {
         return virtualMethodNames.computeIfAbsent(method, k -> {
             Set<String> occupied = occupiedVtableNames;
             return pickUnoccupied("virt_" + sanitize(k.getName()), occupied);
@@ -88,11 +93,11 @@ public abstract class LowLevelNameProvider {
         return null;
     }
 
-    public String forStaticField(FieldReference field) {
+    public synchronized String forStaticField(FieldReference field) {
         return staticFieldNames.computeIfAbsent(field, k -> pickUnoccupied("sfld_" + suggestForStaticField(k)));
     }
 
-    public String forMemberField(FieldReference field) {
+    public synchronized String forMemberField(FieldReference field) {
         return memberFieldNames.computeIfAbsent(field, k -> {
             Set<String> occupied = occupiedClassNames.computeIfAbsent(k.getClassName(),
                     c -> new HashSet<>(Arrays.asList("parent")));
@@ -100,28 +105,28 @@ public abstract class LowLevelNameProvider {
         });
     }
 
-    public String forClass(String className) {
+    public synchronized String forClass(String className) {
         return classNames.computeIfAbsent(className, k -> pickUnoccupied("cls_" + suggestForClass(k)));
     }
 
-    public String forClassInitializer(String className) {
+    public synchronized String forClassInitializer(String className) {
         return classInitializerNames.computeIfAbsent(className, k -> pickUnoccupied("initclass_" + suggestForClass(k)));
     }
 
-    public String forClassSystemInitializer(ValueType type) {
+    public synchronized String forClassSystemInitializer(ValueType type) {
         return classSystemInitializerNames.computeIfAbsent(type, k -> pickUnoccupied("sysinitclass_"
                 + suggestForType(k)));
     }
 
-    public String forClassClass(String className) {
+    public synchronized String forClassClass(String className) {
         return classClassNames.computeIfAbsent(className, k -> pickUnoccupied(suggestForClass(k) + "_VT"));
     }
 
-    public String forClassInstance(ValueType type) {
+    public synchronized String forClassInstance(ValueType type) {
         return classInstanceNames.computeIfAbsent(type, k -> pickUnoccupied(suggestForType(k) + "_Cls"));
     }
 
-    public String forSupertypeFunction(ValueType type) {
+    public synchronized String forSupertypeFunction(ValueType type) {
         return supertypeNames.computeIfAbsent(type, k -> pickUnoccupied("supertypeof_" + suggestForType(k)));
     }
 
@@ -15,6 +15,7 @@
  */
 package org.teavm.backend.wasm;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -88,7 +89,6 @@ import org.teavm.backend.wasm.model.expression.WasmStoreInt32;
 import org.teavm.backend.wasm.optimization.UnusedFunctionElimination;
 import org.teavm.backend.wasm.render.WasmBinaryRenderer;
 import org.teavm.backend.wasm.render.WasmBinaryVersion;
-import org.teavm.backend.wasm.render.WasmBinaryWriter;
 import org.teavm.backend.wasm.render.WasmCRenderer;
 import org.teavm.backend.wasm.render.WasmRenderer;
 import org.teavm.backend.wasm.transformation.IndirectCallTraceTransformation;
@@ -137,6 +137,7 @@ import org.teavm.model.lowlevel.ShadowStackTransformer;
 import org.teavm.model.transformation.ClassPatch;
 import org.teavm.runtime.Allocator;
 import org.teavm.runtime.ExceptionHandling;
+import org.teavm.runtime.GC;
 import org.teavm.runtime.RuntimeArray;
 import org.teavm.runtime.RuntimeClass;
 import org.teavm.runtime.RuntimeObject;
@@ -158,6 +159,7 @@ public class WasmTarget implements TeaVMTarget, TeaVMWasmHost {
     private WasmBinaryVersion version = WasmBinaryVersion.V_0x1;
     private List<WasmIntrinsicFactory> additionalIntrinsics = new ArrayList<>();
     private int minHeapSize;
+    private boolean generationalGC;
 
     @Override
     public void setController(TeaVMTargetController controller) {
@@ -235,6 +237,10 @@ public class WasmTarget implements TeaVMTarget, TeaVMWasmHost {
         this.version = version;
     }
 
+    public void setGenerationalGC(boolean generationalGC) {
+        this.generationalGC = generationalGC;
+    }
+
     public void setMinHeapSize(int minHeapSize) {
         this.minHeapSize = minHeapSize;
     }
@@ -286,6 +292,10 @@ public class WasmTarget implements TeaVMTarget, TeaVMWasmHost {
                 RuntimeClass.class, int.class, Address.class)).use();
         dependencyAnalyzer.linkMethod(new MethodReference(Allocator.class, "allocateMultiArray",
                 RuntimeClass.class, Address.class, int.class, RuntimeArray.class)).use();
+        if (generationalGC) {
+            dependencyAnalyzer.linkMethod(new MethodReference(GC.class, "writeBarrier",
+                    RuntimeObject.class, void.class)).use();
+        }
 
         dependencyAnalyzer.linkMethod(new MethodReference(Allocator.class, "<clinit>", void.class)).use();
 
@@ -336,6 +346,7 @@ public class WasmTarget implements TeaVMTarget, TeaVMWasmHost {
         WasmStringPool stringPool = classGenerator.getStringPool();
         WasmGenerationContext context = new WasmGenerationContext(classes, module, controller.getDiagnostics(),
                 vtableProvider, tagRegistry, stringPool, names);
+        context.setGenerationalGC(generationalGC);
 
         context.addIntrinsic(new AddressIntrinsic(classGenerator));
         context.addIntrinsic(new StructureIntrinsic(classes, classGenerator));
@@ -363,7 +374,7 @@ public class WasmTarget implements TeaVMTarget, TeaVMWasmHost {
             context.addIntrinsic(additionalIntrinsicFactory.create(intrinsicFactoryContext));
         }
 
-        GCIntrinsic gcIntrinsic = new GCIntrinsic();
+        GCIntrinsic gcIntrinsic = new GCIntrinsic(generationalGC);
         context.addIntrinsic(gcIntrinsic);
         MutatorIntrinsic mutatorIntrinsic = new MutatorIntrinsic();
         context.addIntrinsic(mutatorIntrinsic);
@@ -431,12 +442,10 @@ public class WasmTarget implements TeaVMTarget, TeaVMWasmHost {
             new IndirectCallTraceTransformation(module).apply();
         }
 
-        WasmBinaryWriter writer = new WasmBinaryWriter();
-        WasmBinaryRenderer renderer = new WasmBinaryRenderer(writer, version);
-        renderer.render(module);
-
-        try (OutputStream output = buildTarget.createResource(outputName)) {
-            output.write(writer.getData());
+        try (OutputStream output = new BufferedOutputStream(buildTarget.createResource(outputName), 65536)) {
+            WasmBinaryRenderer renderer = new WasmBinaryRenderer(output, version);
+            renderer.setThreads(controller.getOptimizationThreads());
+            renderer.render(module);
             output.flush();
         }
 
@@ -772,6 +781,10 @@ public class WasmTarget implements TeaVMTarget, TeaVMWasmHost {
         gcIntrinsic.setRegionMaxCount(regionCount);
 
         address += regionCount * 2;
+        if (generationalGC) {
+            gcIntrinsic.setCardTableAddress(address);
+            address += regionCount;
+        }
         address = (address + 4) >> 2 << 2;
 
         gcMemory = module.getMemorySize() * 65536 - address;
@@ -36,6 +36,7 @@ import org.teavm.model.MethodReference;
 import org.teavm.model.ValueType;
 import org.teavm.model.classes.TagRegistry;
 import org.teavm.model.classes.VirtualTableProvider;
+import org.teavm.model.lowlevel.Characteristics;
 
 public class WasmGenerationContext {
     private ClassReaderSource classSource;
@@ -50,6 +51,8 @@ public class WasmGenerationContext {
     private List<WasmMethodGenerator> generators = new ArrayList<>();
     private Map<MethodReference, IntrinsicHolder> intrinsicCache = new HashMap<>();
     private Map<MethodReference, GeneratorHolder> generatorCache = new HashMap<>();
+    private Characteristics characteristics;
+    private boolean generationalGC;
 
     public WasmGenerationContext(ClassReaderSource classSource, WasmModule module, Diagnostics diagnostics,
             VirtualTableProvider vtableProvider, TagRegistry tagRegistry, WasmStringPool stringPool,
@@ -61,6 +64,26 @@ public class WasmGenerationContext {
         this.tagRegistry = tagRegistry;
         this.stringPool = stringPool;
         this.names = names;
+        characteristics = new Characteristics(classSource);
+    }
+
+    public boolean isGenerationalGC() {
+        return generationalGC;
+    }
+
+    public void setGenerationalGC(boolean generationalGC) {
+        this.generationalGC = generationalGC;
+    }
+
+    public boolean isManaged(String className) {
+        return characteristics.isManaged(className);
+    }
+
+    public boolean isManagedReference(ValueType type) {
+        if (type instanceof ValueType.Array) {
+            return true;
+        }
+        return type instanceof ValueType.Object && isManaged(((ValueType.Object) type).getClassName());
     }
 
     public void addIntrinsic(WasmIntrinsic intrinsic) {
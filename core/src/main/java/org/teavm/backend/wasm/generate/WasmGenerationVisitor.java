@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.teavm.ast.ArrayType;
 import org.teavm.ast.AssignmentStatement;
 import org.teavm.ast.BinaryExpr;
 import org.teavm.ast.BlockStatement;
@@ -116,12 +117,16 @@ import org.teavm.model.TextLocation;
 import org.teavm.model.ValueType;
 import org.teavm.model.classes.VirtualTable;
 import org.teavm.runtime.Allocator;
+import org.teavm.runtime.GC;
 import org.teavm.runtime.RuntimeArray;
 import org.teavm.runtime.RuntimeClass;
+import org.teavm.runtime.RuntimeObject;
 import org.teavm.runtime.ShadowStack;
 
 class WasmGenerationVisitor implements StatementVisitor, ExprVisitor {
     private static final int SWITCH_TABLE_THRESHOLD = 256;
+    private static final MethodReference WRITE_BARRIER = new MethodReference(GC.class, "writeBarrier",
+            RuntimeObject.class, void.class);
     private WasmGenerationContext context;
     private WasmClassGenerator classGenerator;
     private WasmTypeInference typeInference;
@@ -479,8 +484,14 @@ class WasmGenerationVisitor implements StatementVisitor, ExprVisitor {
     }
 
     private void storeField(Expr qualified, FieldReference field, Expr value, TextLocation location) {
-        WasmExpression address = getAddress(qualified, field, location);
         ValueType type = context.getFieldType(field);
+        if (qualified != null && context.isGenerationalGC() && context.isManagedReference(type)
+                && context.isManaged(field.getClassName())) {
+            storeFieldWithWriteBarrier(qualified, field, value, location);
+            return;
+        }
+
+        WasmExpression address = getAddress(qualified, field, location);
         accept(value);
 
         WasmMemoryAccess resultExpr;
@@ -520,7 +531,36 @@ class WasmGenerationVisitor implements StatementVisitor, ExprVisitor {
         result.setLocation(location);
     }
 
+    private void storeFieldWithWriteBarrier(Expr qualified, FieldReference field, Expr value,
+            TextLocation location) {
+        WasmLocal objectVar = getTemporary(WasmType.INT32);
+        WasmBlock block = new WasmBlock(false);
+        block.setLocation(location);
+
+        accept(qualified);
+        block.getBody().add(new WasmSetLocal(objectVar, result));
+        accept(value);
+        WasmStoreInt32 store = new WasmStoreInt32(4, new WasmGetLocal(objectVar), result, WasmInt32Subtype.INT32);
+        store.setOffset(getOffset(qualified, field));
+        block.getBody().add(store);
+        block.getBody().add(writeBarrier(objectVar));
+
+        releaseTemporary(objectVar);
+        result = block;
+    }
+
+    private WasmExpression writeBarrier(WasmLocal objectVar) {
+        WasmCall call = new WasmCall(context.names.forMethod(WRITE_BARRIER));
+        call.getArguments().add(new WasmGetLocal(objectVar));
+        return call;
+    }
+
     private void storeArrayItem(SubscriptExpr leftValue, Expr rightValue) {
+        if (leftValue.getType() == ArrayType.OBJECT && context.isGenerationalGC()) {
+            storeArrayItemWithWriteBarrier(leftValue, rightValue);
+            return;
+        }
+
         WasmExpression ptr = getArrayElementPointer(leftValue);
         accept(rightValue);
 
@@ -662,10 +702,28 @@ class WasmGenerationVisitor implements StatementVisitor, ExprVisitor {
         }
     }
 
+    private void storeArrayItemWithWriteBarrier(SubscriptExpr leftValue, Expr rightValue) {
+        WasmLocal arrayVar = getTemporary(WasmType.INT32);
+        WasmBlock block = new WasmBlock(false);
+        block.setLocation(leftValue.getLocation());
+
+        accept(leftValue.getArray());
+        block.getBody().add(new WasmSetLocal(arrayVar, result));
+        WasmExpression ptr = getArrayElementPointer(new WasmGetLocal(arrayVar), leftValue);
+        accept(rightValue);
+        block.getBody().add(new WasmStoreInt32(4, ptr, result, WasmInt32Subtype.INT32));
+        block.getBody().add(writeBarrier(arrayVar));
+
+        releaseTemporary(arrayVar);
+        result = block;
+    }
+
     private WasmExpression getArrayElementPointer(SubscriptExpr expr) {
         accept(expr.getArray());
-        WasmExpression array = result;
+        return getArrayElementPointer(result, expr);
+    }
 
+    private WasmExpression getArrayElementPointer(WasmExpression array, SubscriptExpr expr) {
         accept(expr.getIndex());
         WasmExpression index = result;
 
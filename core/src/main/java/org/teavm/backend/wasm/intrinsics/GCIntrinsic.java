@@ -38,6 +38,12 @@ public class GCIntrinsic implements WasmIntrinsic {
     private List<WasmInt32Constant> regionSizeExpressions = new ArrayList<>();
     private List<WasmInt32Constant> regionsAddressExpressions = new ArrayList<>();
     private List<WasmInt32Constant> regionMaxCountExpressions = new ArrayList<>();
+    private List<WasmInt32Constant> cardTableAddressExpressions = new ArrayList<>();
+    private boolean generational;
+
+    public GCIntrinsic(boolean generational) {
+        this.generational = generational;
+    }
 
     public void setHeapAddress(int address) {
         for (WasmInt32Constant constant : heapAddressExpressions) {
@@ -81,6 +87,12 @@ public class GCIntrinsic implements WasmIntrinsic {
         }
     }
 
+    public void setCardTableAddress(int address) {
+        for (WasmInt32Constant constant : cardTableAddressExpressions) {
+            constant.setValue(address);
+        }
+    }
+
     @Override
     public boolean isApplicable(MethodReference methodReference) {
         if (!methodReference.getClassName().endsWith(GC.class.getName())) {
@@ -96,6 +108,13 @@ public class GCIntrinsic implements WasmIntrinsic {
             case "regionMaxCount":
             case "regionSize":
             case "outOfMemory":
+            case "isGenerational":
+            case "cardTableAddress":
+            case "minAvailableBytes":
+            case "maxAvailableBytes":
+            case "minHeapFreeRatio":
+            case "maxHeapFreeRatio":
+            case "resizeHeap":
                 return true;
             default:
                 return false;
@@ -124,7 +143,19 @@ public class GCIntrinsic implements WasmIntrinsic {
             case "regionSize":
                 list = regionSizeExpressions;
                 break;
-            case "availableBytes": {
+            case "cardTableAddress":
+                list = cardTableAddressExpressions;
+                break;
+            case "isGenerational":
+                return new WasmInt32Constant(generational ? 1 : 0);
+            case "minHeapFreeRatio":
+            case "maxHeapFreeRatio":
+            case "resizeHeap":
+                // Heap is laid out statically, min and max heap sizes are always equal to available bytes
+                return new WasmInt32Constant(0);
+            case "availableBytes":
+            case "minAvailableBytes":
+            case "maxAvailableBytes": {
                 WasmInt64Constant constant = new WasmInt64Constant(0);
                 availableBytesExpressions.add(constant);
                 return constant;
@@ -15,6 +15,8 @@
  */
 package org.teavm.backend.wasm.render;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -27,6 +29,7 @@ import org.teavm.backend.wasm.model.WasmMemorySegment;
 import org.teavm.backend.wasm.model.WasmModule;
 import org.teavm.backend.wasm.model.WasmType;
 import org.teavm.backend.wasm.model.expression.WasmExpression;
+import org.teavm.common.ParallelExecutor;
 
 public class WasmBinaryRenderer {
     private static final int SECTION_UNKNOWN = 0;
@@ -44,24 +47,38 @@ public class WasmBinaryRenderer {
     private static final int EXTERNAL_KIND_FUNCTION = 0;
     private static final int EXTERNAL_KIND_MEMORY = 2;
 
-    private WasmBinaryWriter output;
+    private OutputStream output;
     private WasmBinaryVersion version;
+    private int threads = 1;
     private List<WasmSignature> signatures = new ArrayList<>();
     private Map<WasmSignature, Integer> signatureIndexes = new HashMap<>();
     private Map<String, Integer> functionIndexes = new HashMap<>();
 
-    public WasmBinaryRenderer(WasmBinaryWriter output, WasmBinaryVersion version) {
+    public WasmBinaryRenderer(OutputStream output, WasmBinaryVersion version) {
         this.output = output;
         this.version = version;
     }
 
-    public void render(WasmModule module) {
-        output.writeInt32(0x6d736100);
+    /**
+     * Sets number of threads used to encode function bodies. Bodies are independent from each other
+     * once function and signature indexes are assigned, so they are encoded concurrently and then written
+     * to the output in their original order.
+     *
+     * @param threads number of threads, 1 (default) means that functions are encoded sequentially.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public void render(WasmModule module) throws IOException {
+        WasmBinaryWriter header = new WasmBinaryWriter();
+        header.writeInt32(0x6d736100);
         switch (version) {
             case V_0x1:
-                output.writeInt32(0x01);
+                header.writeInt32(0x01);
                 break;
         }
+        header.writeTo(output);
 
         renderSignatures(module);
         renderImports(module);
@@ -76,7 +93,7 @@ public class WasmBinaryRenderer {
         renderNames(module);
     }
 
-    private void renderSignatures(WasmModule module) {
+    private void renderSignatures(WasmModule module) throws IOException {
         WasmBinaryWriter section = new WasmBinaryWriter();
         WasmSignatureCollector signatureCollector = new WasmSignatureCollector(this::registerSignature);
 
@@ -102,10 +119,10 @@ public class WasmBinaryRenderer {
             }
         }
 
-        writeSection(SECTION_TYPE, "type", section.getData());
+        writeSection(SECTION_TYPE, "type", section);
     }
 
-    private void renderImports(WasmModule module) {
+    private void renderImports(WasmModule module) throws IOException {
         List<WasmFunction> functions = new ArrayList<>();
         for (WasmFunction function : module.getFunctions().values()) {
             if (function.getImportName() == null) {
@@ -137,10 +154,10 @@ public class WasmBinaryRenderer {
             section.writeLEB(signatureIndex);
         }
 
-        writeSection(SECTION_IMPORT, "import", section.getData());
+        writeSection(SECTION_IMPORT, "import", section);
     }
 
-    private void renderFunctions(WasmModule module) {
+    private void renderFunctions(WasmModule module) throws IOException {
         WasmBinaryWriter section = new WasmBinaryWriter();
 
         List<WasmFunction> functions = module.getFunctions().values().stream()
@@ -156,10 +173,10 @@ public class WasmBinaryRenderer {
             section.writeLEB(signatureIndexes.get(signature));
         }
 
-        writeSection(SECTION_FUNCTION, "function", section.getData());
+        writeSection(SECTION_FUNCTION, "function", section);
     }
 
-    private void renderTable(WasmModule module) {
+    private void renderTable(WasmModule module) throws IOException {
         if (module.getFunctionTable().isEmpty()) {
             return;
         }
@@ -171,10 +188,10 @@ public class WasmBinaryRenderer {
         section.writeByte(0);
         section.writeLEB(functionIndexes.size());
 
-        writeSection(SECTION_TABLE, "table", section.getData());
+        writeSection(SECTION_TABLE, "table", section);
     }
 
-    private void renderMemory(WasmModule module) {
+    private void renderMemory(WasmModule module) throws IOException {
         WasmBinaryWriter section = new WasmBinaryWriter();
 
         section.writeByte(1);
@@ -182,10 +199,10 @@ public class WasmBinaryRenderer {
         section.writeLEB(module.getMemorySize());
         section.writeLEB(module.getMemorySize());
 
-        writeSection(SECTION_MEMORY, "memory", section.getData());
+        writeSection(SECTION_MEMORY, "memory", section);
     }
 
-    private void renderExport(WasmModule module) {
+    private void renderExport(WasmModule module) throws IOException {
 
         // https://github.com/WebAssembly/design/blob/master/BinaryEncoding.md#export-section
 
@@ -210,10 +227,10 @@ public class WasmBinaryRenderer {
         section.writeByte(EXTERNAL_KIND_MEMORY);
         section.writeLEB(0);
 
-        writeSection(SECTION_EXPORT, "export", section.getData());
+        writeSection(SECTION_EXPORT, "export", section);
     }
 
-    private void renderStart(WasmModule module) {
+    private void renderStart(WasmModule module) throws IOException {
         if (module.getStartFunction() == null) {
             return;
         }
@@ -221,10 +238,10 @@ public class WasmBinaryRenderer {
         WasmBinaryWriter section = new WasmBinaryWriter();
         section.writeLEB(functionIndexes.get(module.getStartFunction().getName()));
 
-        writeSection(SECTION_START, "start", section.getData());
+        writeSection(SECTION_START, "start", section);
     }
 
-    private void renderElement(WasmModule module) {
+    private void renderElement(WasmModule module) throws IOException {
         if (module.getFunctionTable().isEmpty()) {
             return;
         }
@@ -240,24 +257,35 @@ public class WasmBinaryRenderer {
             section.writeLEB(functionIndexes.get(function.getName()));
         }
 
-        writeSection(SECTION_ELEMENT, "element", section.getData());
+        writeSection(SECTION_ELEMENT, "element", section);
     }
 
-    private void renderCode(WasmModule module) {
-        WasmBinaryWriter section = new WasmBinaryWriter();
-
+    private void renderCode(WasmModule module) throws IOException {
         List<WasmFunction> functions = module.getFunctions().values().stream()
                 .filter(function -> function.getImportName() == null)
                 .collect(Collectors.toList());
 
-        section.writeLEB(functions.size());
-        for (WasmFunction function : functions) {
-            byte[] body = renderFunction(function);
-            section.writeLEB(body.length);
-            section.writeBytes(body);
+        byte[][] bodies = new byte[functions.size()][];
+        try (ParallelExecutor executor = new ParallelExecutor(threads)) {
+            executor.forEach(bodies.length, i -> bodies[i] = renderFunction(functions.get(i)));
         }
 
-        writeSection(SECTION_CODE, "code", section.getData());
+        int size = WasmBinaryWriter.getLEBSize(bodies.length);
+        for (byte[] body : bodies) {
+            size += WasmBinaryWriter.getLEBSize(body.length) + body.length;
+        }
+        writeSectionHeader(SECTION_CODE, "code", size);
+
+        WasmBinaryWriter prefix = new WasmBinaryWriter();
+        prefix.writeLEB(bodies.length);
+        prefix.writeTo(output);
+        for (int i = 0; i < bodies.length; ++i) {
+            prefix = new WasmBinaryWriter();
+            prefix.writeLEB(bodies[i].length);
+            prefix.writeTo(output);
+            output.write(bodies[i]);
+            bodies[i] = null;
+        }
     }
 
     private byte[] renderFunction(WasmFunction function) {
@@ -305,30 +333,38 @@ public class WasmBinaryRenderer {
         output.writeByte(0x0B);
     }
 
-    private void renderData(WasmModule module) {
+    private void renderData(WasmModule module) throws IOException {
         if (module.getSegments().isEmpty()) {
             return;
         }
 
-        WasmBinaryWriter section = new WasmBinaryWriter();
-
-        section.writeLEB(module.getSegments().size());
+        List<WasmBinaryWriter> segmentHeaders = new ArrayList<>();
+        int size = WasmBinaryWriter.getLEBSize(module.getSegments().size());
         for (WasmMemorySegment segment : module.getSegments()) {
-            section.writeByte(0);
-            renderInitializer(section, segment.getOffset());
-
-            section.writeLEB(segment.getLength());
+            WasmBinaryWriter segmentHeader = new WasmBinaryWriter();
+            segmentHeader.writeByte(0);
+            renderInitializer(segmentHeader, segment.getOffset());
+            segmentHeader.writeLEB(segment.getLength());
+            segmentHeaders.add(segmentHeader);
+            size += segmentHeader.getPosition() + segment.getLength();
+        }
+        writeSectionHeader(SECTION_DATA, "data", size);
+
+        WasmBinaryWriter prefix = new WasmBinaryWriter();
+        prefix.writeLEB(module.getSegments().size());
+        prefix.writeTo(output);
+        for (int i = 0; i < module.getSegments().size(); ++i) {
+            WasmMemorySegment segment = module.getSegments().get(i);
+            segmentHeaders.get(i).writeTo(output);
             int chunkSize = 65536;
-            for (int i = 0; i < segment.getLength(); i += chunkSize) {
-                int next = Math.min(i + chunkSize, segment.getLength());
-                section.writeBytes(segment.getData(i, next - i));
+            for (int j = 0; j < segment.getLength(); j += chunkSize) {
+                int next = Math.min(j + chunkSize, segment.getLength());
+                output.write(segment.getData(j, next - j));
             }
         }
-
-        writeSection(SECTION_DATA, "data", section.getData());
     }
 
-    private void renderNames(WasmModule module) {
+    private void renderNames(WasmModule module) throws IOException {
         WasmBinaryWriter section = new WasmBinaryWriter();
 
         WasmBinaryWriter functionsSubsection = new WasmBinaryWriter();
@@ -346,7 +382,7 @@ public class WasmBinaryRenderer {
         section.writeLEB(payload.length);
         section.writeBytes(payload);
 
-        writeSection(SECTION_UNKNOWN, "name", section.getData());
+        writeSection(SECTION_UNKNOWN, "name", section);
     }
 
     static class LocalEntry {
@@ -366,17 +402,22 @@ public class WasmBinaryRenderer {
         });
     }
 
-    private void writeSection(int id, String name, byte[] data) {
-        output.writeByte(id);
-        int length = data.length;
+    private void writeSection(int id, String name, WasmBinaryWriter data) throws IOException {
+        writeSectionHeader(id, name, data.getPosition());
+        data.writeTo(output);
+    }
+
+    private void writeSectionHeader(int id, String name, int payloadLength) throws IOException {
+        WasmBinaryWriter header = new WasmBinaryWriter();
+        header.writeByte(id);
+        int length = payloadLength;
         if (id == 0) {
             length += name.length() + 1;
         }
-        output.writeLEB(length);
+        header.writeLEB(length);
         if (id == 0) {
-            output.writeAsciiString(name);
+            header.writeAsciiString(name);
         }
-
-        output.writeBytes(data);
+        header.writeTo(output);
     }
 }
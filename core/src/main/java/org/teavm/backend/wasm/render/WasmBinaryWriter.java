@@ -15,6 +15,8 @@
  */
 package org.teavm.backend.wasm.render;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 import org.teavm.backend.wasm.model.WasmType;
 
@@ -170,4 +172,16 @@ public class WasmBinaryWriter {
     public byte[] getData() {
         return Arrays.copyOf(data, pointer);
     }
+
+    public void writeTo(OutputStream output) throws IOException {
+        output.write(data, 0, pointer);
+    }
+
+    public static int getLEBSize(int v) {
+        int size = 1;
+        while ((v >>>= 7) != 0) {
+            ++size;
+        }
+        return size;
+    }
 }
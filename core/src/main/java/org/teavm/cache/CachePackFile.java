@@ -0,0 +1,348 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Stores many small binary entries in a single append-only pack file, addressed by string keys.</p>
+ *
+ * <p>Pack file is accompanied by index file, that maps keys to regions of pack file. New entries are
+ * appended to the end of pack file, then index is written to a temporary file and atomically moved over
+ * the previous one, so that an interrupted flush leaves the previous state of cache intact. Entries that
+ * were superseded by newer ones remain in pack file until they take more than a half of it; then live entries
+ * are copied into pack file of the next generation.</p>
+ *
+ * <p>Pack file is read through a memory-mapped buffer, entries are only copied when actually requested.</p>
+ *
+ * <p>Pack files of other generations, left by a crash between writing a new pack and deleting the old one,
+ * are removed when the index is loaded.</p>
+ */
+class CachePackFile {
+    private static final int INDEX_MAGIC = 0x54564D49;
+    private static final int INDEX_VERSION = 1;
+    private static final long MIN_COMPACTION_SIZE = 1 << 20;
+
+    private final File directory;
+    private final String name;
+    private int generation;
+    private Map<String, Entry> index = new LinkedHashMap<>();
+    private final Map<String, byte[]> pendingEntries = new LinkedHashMap<>();
+    private final Set<String> pendingRemovals = new LinkedHashSet<>();
+    private ByteBuffer mappedPack;
+    private boolean loaded;
+
+    CachePackFile(File directory, String name) {
+        this.directory = directory;
+        this.name = name;
+    }
+
+    ByteBuffer get(String key) {
+        byte[] pending = pendingEntries.get(key);
+        if (pending != null) {
+            return ByteBuffer.wrap(pending);
+        }
+
+        load();
+        Entry entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            if (mappedPack == null) {
+                mappedPack = map();
+            }
+            if (mappedPack != null) {
+                ByteBuffer result = mappedPack.duplicate();
+                result.position((int) entry.offset);
+                result.limit((int) entry.offset + entry.length);
+                return result.slice();
+            }
+            return readEntry(entry);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    void put(String key, byte[] data) {
+        pendingRemovals.remove(key);
+        pendingEntries.put(key, data);
+    }
+
+    void remove(String key) {
+        pendingEntries.remove(key);
+        pendingRemovals.add(key);
+    }
+
+    Collection<String> getKeys() {
+        load();
+        Set<String> keys = new LinkedHashSet<>(index.keySet());
+        keys.addAll(pendingEntries.keySet());
+        keys.removeAll(pendingRemovals);
+        return new ArrayList<>(keys);
+    }
+
+    void flush() throws IOException {
+        load();
+        pendingRemovals.retainAll(index.keySet());
+        if (pendingEntries.isEmpty() && pendingRemovals.isEmpty()) {
+            return;
+        }
+        directory.mkdirs();
+        mappedPack = null;
+
+        Map<String, Entry> newIndex = new LinkedHashMap<>(index);
+        newIndex.keySet().removeAll(pendingRemovals);
+        File packFile = getPackFile(generation);
+        long packSize;
+        try (FileChannel channel = FileChannel.open(packFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            long position = channel.size();
+            for (Map.Entry<String, byte[]> pending : pendingEntries.entrySet()) {
+                ByteBuffer buffer = ByteBuffer.wrap(pending.getValue());
+                newIndex.put(pending.getKey(), new Entry(position, buffer.remaining()));
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+            channel.force(true);
+            packSize = position;
+        }
+
+        long liveSize = 0;
+        for (Entry entry : newIndex.values()) {
+            liveSize += entry.length;
+        }
+        int newGeneration = generation;
+        if (packSize >= MIN_COMPACTION_SIZE && liveSize * 2 < packSize) {
+            newGeneration = generation + 1;
+            newIndex = compact(newIndex, getPackFile(generation), getPackFile(newGeneration));
+        }
+
+        writeIndex(newIndex, newGeneration);
+        if (newGeneration != generation) {
+            getPackFile(generation).delete();
+            generation = newGeneration;
+        }
+        index = newIndex;
+        pendingEntries.clear();
+        pendingRemovals.clear();
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!readIndex()) {
+            generation = 0;
+            index = new LinkedHashMap<>();
+            getPackFile(generation).delete();
+        }
+        deleteStaleFiles();
+    }
+
+    private boolean readIndex() {
+        File indexFile = getIndexFile();
+        if (!indexFile.exists()) {
+            return false;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(indexFile)))) {
+            if (input.readInt() != INDEX_MAGIC || input.readInt() != INDEX_VERSION) {
+                return false;
+            }
+            int storedGeneration = input.readInt();
+            long packSize = getPackFile(storedGeneration).length();
+            int count = input.readInt();
+            Map<String, Entry> storedIndex = new LinkedHashMap<>();
+            for (int i = 0; i < count; ++i) {
+                String key = input.readUTF();
+                long offset = input.readLong();
+                int length = input.readInt();
+                if (offset < 0 || length < 0 || offset + length > packSize) {
+                    return false;
+                }
+                storedIndex.put(key, new Entry(offset, length));
+            }
+            generation = storedGeneration;
+            index = storedIndex;
+            return true;
+        } catch (IOException e) {
+            // Index is damaged, start with empty cache
+            return false;
+        }
+    }
+
+    private void deleteStaleFiles() {
+        new File(directory, name + ".index.tmp").delete();
+        String prefix = name + "-";
+        String currentPack = getPackFile(generation).getName();
+        File[] files = directory.listFiles((dir, fileName) -> fileName.startsWith(prefix)
+                && fileName.endsWith(".pack") && !fileName.equals(currentPack)
+                && isGenerationNumber(fileName.substring(prefix.length(), fileName.length() - 5)));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private static boolean isGenerationNumber(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); ++i) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ByteBuffer map() throws IOException {
+        File packFile = getPackFile(generation);
+        try (FileChannel channel = FileChannel.open(packFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private ByteBuffer readEntry(Entry entry) throws IOException {
+        try (FileChannel channel = FileChannel.open(getPackFile(generation).toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+            long position = entry.offset;
+            while (buffer.hasRemaining()) {
+                int bytesRead = channel.read(buffer, position);
+                if (bytesRead < 0) {
+                    throw new IOException("Unexpected end of pack file");
+                }
+                position += bytesRead;
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    private Map<String, Entry> compact(Map<String, Entry> entries, File source, File target) throws IOException {
+        Map<String, Entry> result = new LinkedHashMap<>();
+        try (FileChannel input = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+                FileChannel output = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                long transferred = 0;
+                while (transferred < entry.length) {
+                    transferred += input.transferTo(entry.offset + transferred, entry.length - transferred,
+                            output);
+                }
+                result.put(mapEntry.getKey(), new Entry(position, entry.length));
+                position += entry.length;
+            }
+            output.force(true);
+        }
+        return result;
+    }
+
+    private void writeIndex(Map<String, Entry> entries, int indexGeneration) throws IOException {
+        File indexFile = getIndexFile();
+        File tempFile = new File(directory, name + ".index.tmp");
+        try (FileOutputStream fileOutput = new FileOutputStream(tempFile);
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput))) {
+            output.writeInt(INDEX_MAGIC);
+            output.writeInt(INDEX_VERSION);
+            output.writeInt(indexGeneration);
+            output.writeInt(entries.size());
+            for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                output.writeUTF(mapEntry.getKey());
+                output.writeLong(mapEntry.getValue().offset);
+                output.writeInt(mapEntry.getValue().length);
+            }
+            output.flush();
+            fileOutput.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private File getIndexFile() {
+        return new File(directory, name + ".index");
+    }
+
+    private File getPackFile(int packGeneration) {
+        return new File(directory, name + "-" + packGeneration + ".pack");
+    }
+
+    static InputStream asStream(ByteBuffer buffer) {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                len = Math.min(len, buffer.remaining());
+                buffer.get(b, off, len);
+                return len;
+            }
+
+            @Override
+            public int available() {
+                return buffer.remaining();
+            }
+        };
+    }
+
+    static class Entry {
+        final long offset;
+        final int length;
+
+        Entry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -17,6 +17,8 @@ package org.teavm.cache;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -24,6 +26,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -33,12 +36,25 @@ import org.teavm.model.ClassReader;
 import org.teavm.model.ClassReaderSource;
 import org.teavm.model.MethodReference;
 import org.teavm.model.ReferenceCache;
+import org.teavm.parsing.ClassContentHashProvider;
 import org.teavm.parsing.ClassDateProvider;
 
+/**
+ * <p>Keeps parsed classes in cache directory and tells whether class changed since previous build.</p>
+ *
+ * <p>When constructed with {@link ClassDateProvider}, class is considered changed if its class file is newer
+ * than cached class. When constructed with {@link ClassContentHashProvider}, content hashes of class files
+ * are kept in cache index, and class is considered changed only if hash differs. The latter survives
+ * clean builds and fresh checkouts, which touch all files, and allows to move cache between machines.</p>
+ */
 public class DiskCachedClassReaderSource implements ClassReaderSource, CacheStatus {
+    private static final String HASH_INDEX_FILE = "class-hashes";
     private File directory;
     private ClassHolderSource innerSource;
     private ClassDateProvider classDateProvider;
+    private ClassContentHashProvider classHashProvider;
+    private Map<String, String> storedHashes;
+    private Map<String, String> newHashes = new HashMap<>();
     private Map<String, Item> cache = new LinkedHashMap<>();
     private Set<String> newClasses = new HashSet<>();
     private ClassIO classIO;
@@ -52,6 +68,15 @@ public class DiskCachedClassReaderSource implements ClassReaderSource, CacheStat
         classIO = new ClassIO(referenceCache, symbolTable, fileTable, variableTable);
     }
 
+    public DiskCachedClassReaderSource(File directory, ReferenceCache referenceCache, SymbolTable symbolTable,
+            SymbolTable fileTable, SymbolTable variableTable, ClassHolderSource innerSource,
+            ClassContentHashProvider classHashProvider) {
+        this.directory = directory;
+        this.innerSource = innerSource;
+        this.classHashProvider = classHashProvider;
+        classIO = new ClassIO(referenceCache, symbolTable, fileTable, variableTable);
+    }
+
     @Override
     public ClassReader get(String name) {
         return getItemFromCache(name).cls;
@@ -73,15 +98,12 @@ public class DiskCachedClassReaderSource implements ClassReaderSource, CacheStat
             item = new Item();
             cache.put(name, item);
             File classFile = new File(directory, name.replace('.', '/') + ".teavm-cls");
-            if (classFile.exists()) {
-                Date classDate = classDateProvider.getModificationDate(name);
-                if (classDate != null && classDate.before(new Date(classFile.lastModified()))) {
-                    try (InputStream input = new BufferedInputStream(new FileInputStream(classFile))) {
-                        item.cls = classIO.readClass(input, name);
-                    } catch (IOException e) {
-                        // We could not access cache file, so let's parse class file
-                        item.cls = null;
-                    }
+            if (classFile.exists() && isCachedClassFresh(name, classFile)) {
+                try (InputStream input = new BufferedInputStream(new FileInputStream(classFile))) {
+                    item.cls = classIO.readClass(input, name);
+                } catch (IOException e) {
+                    // We could not access cache file, so let's parse class file
+                    item.cls = null;
                 }
             }
             if (item.cls == null) {
@@ -93,6 +115,40 @@ public class DiskCachedClassReaderSource implements ClassReaderSource, CacheStat
         return item;
     }
 
+    private boolean isCachedClassFresh(String name, File classFile) {
+        if (classHashProvider != null) {
+            String hash = classHashProvider.getContentHash(name);
+            if (hash == null) {
+                return false;
+            }
+            return hash.equals(getStoredHashes().get(name));
+        } else {
+            Date classDate = classDateProvider.getModificationDate(name);
+            return classDate != null && classDate.before(new Date(classFile.lastModified()));
+        }
+    }
+
+    private Map<String, String> getStoredHashes() {
+        if (storedHashes == null) {
+            storedHashes = new HashMap<>();
+            File indexFile = new File(directory, HASH_INDEX_FILE);
+            if (indexFile.exists()) {
+                try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                        new FileInputStream(indexFile)))) {
+                    int count = input.readInt();
+                    for (int i = 0; i < count; ++i) {
+                        String className = input.readUTF();
+                        storedHashes.put(className, input.readUTF());
+                    }
+                } catch (IOException e) {
+                    // Index is corrupted, so we consider all cached classes stale
+                    storedHashes.clear();
+                }
+            }
+        }
+        return storedHashes;
+    }
+
     private static class Item {
         ClassReader cls;
         boolean dirty;
@@ -107,6 +163,32 @@ public class DiskCachedClassReaderSource implements ClassReaderSource, CacheStat
                 try (OutputStream output = new BufferedOutputStream(new FileOutputStream(classFile))) {
                     classIO.writeClass(output, item.cls);
                 }
+                if (classHashProvider != null) {
+                    String hash = classHashProvider.getContentHash(className);
+                    if (hash != null) {
+                        newHashes.put(className, hash);
+                    }
+                }
+            }
+        }
+        if (classHashProvider != null) {
+            flushHashIndex();
+        }
+    }
+
+    private void flushHashIndex() throws IOException {
+        Map<String, String> hashes = getStoredHashes();
+        for (String className : newClasses) {
+            hashes.remove(className);
+        }
+        hashes.putAll(newHashes);
+        directory.mkdirs();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(new File(directory, HASH_INDEX_FILE))))) {
+            output.writeInt(hashes.size());
+            for (Map.Entry<String, String> entry : hashes.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeUTF(entry.getValue());
             }
         }
     }
@@ -0,0 +1,176 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.teavm.ast.AsyncMethodNode;
+import org.teavm.ast.ControlFlowEntry;
+import org.teavm.ast.RegularMethodNode;
+import org.teavm.model.MethodReference;
+import org.teavm.model.ReferenceCache;
+
+/**
+ * Alternative to {@link DiskMethodNodeCache} that keeps all method ASTs in a single pack file instead of
+ * a file per method. See {@link CachePackFile} for details on storage format.
+ */
+public class PackedMethodNodeCache implements MethodNodeCache {
+    private static final String ASYNC_PREFIX = "async:";
+    private final CachePackFile pack;
+    private final AstIO astIO;
+    private final Map<MethodReference, Item> cache = new HashMap<>();
+    private final Map<MethodReference, AsyncItem> asyncCache = new HashMap<>();
+    private CacheStatus lastCacheStatus;
+
+    public PackedMethodNodeCache(File directory, ReferenceCache referenceCache, SymbolTable symbolTable,
+            SymbolTable fileTable, SymbolTable variableTable) {
+        pack = new CachePackFile(directory, "ast");
+        astIO = new AstIO(referenceCache, symbolTable, fileTable, variableTable);
+    }
+
+    @Override
+    public AstCacheEntry get(MethodReference methodReference, CacheStatus cacheStatus) {
+        lastCacheStatus = cacheStatus;
+        Item item = cache.get(methodReference);
+        if (item == null) {
+            item = new Item();
+            cache.put(methodReference, item);
+            ByteBuffer data = pack.get(getKey(methodReference, false));
+            if (data != null) {
+                try {
+                    VarDataInput input = new VarDataInput(CachePackFile.asStream(data));
+                    if (checkIfDependenciesChanged(input, cacheStatus)) {
+                        pack.remove(getKey(methodReference, false));
+                    } else {
+                        RegularMethodNode node = astIO.read(input, methodReference);
+                        ControlFlowEntry[] cfg = astIO.readControlFlow(input);
+                        item.entry = new AstCacheEntry(node, cfg);
+                    }
+                } catch (IOException e) {
+                    // we could not read AST, just leave it empty
+                }
+            }
+        }
+        return item.entry;
+    }
+
+    @Override
+    public void store(MethodReference methodReference, AstCacheEntry entry, Supplier<String[]> dependencies) {
+        Item item = new Item();
+        item.entry = entry;
+        cache.put(methodReference, item);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (VarDataOutput output = new VarDataOutput(bytes)) {
+            writeDependencies(output, dependencies.get());
+            astIO.write(output, entry.method);
+            astIO.write(output, entry.cfg);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        pack.put(getKey(methodReference, false), bytes.toByteArray());
+    }
+
+    @Override
+    public AsyncMethodNode getAsync(MethodReference methodReference, CacheStatus cacheStatus) {
+        lastCacheStatus = cacheStatus;
+        AsyncItem item = asyncCache.get(methodReference);
+        if (item == null) {
+            item = new AsyncItem();
+            asyncCache.put(methodReference, item);
+            ByteBuffer data = pack.get(getKey(methodReference, true));
+            if (data != null) {
+                try {
+                    VarDataInput input = new VarDataInput(CachePackFile.asStream(data));
+                    if (checkIfDependenciesChanged(input, cacheStatus)) {
+                        pack.remove(getKey(methodReference, true));
+                    } else {
+                        item.node = astIO.readAsync(input, methodReference);
+                    }
+                } catch (IOException e) {
+                    // we could not read AST, just leave it empty
+                }
+            }
+        }
+        return item.node;
+    }
+
+    @Override
+    public void storeAsync(MethodReference methodReference, AsyncMethodNode node, Supplier<String[]> dependencies) {
+        AsyncItem item = new AsyncItem();
+        item.node = node;
+        asyncCache.put(methodReference, item);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (VarDataOutput output = new VarDataOutput(bytes)) {
+            writeDependencies(output, dependencies.get());
+            astIO.writeAsync(output, node);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        pack.put(getKey(methodReference, true), bytes.toByteArray());
+    }
+
+    public void flush() throws IOException {
+        if (lastCacheStatus != null) {
+            for (String key : pack.getKeys()) {
+                boolean async = key.startsWith(ASYNC_PREFIX);
+                MethodReference method = MethodReference.parseIfPossible(async
+                        ? key.substring(ASYNC_PREFIX.length()) : key);
+                if (method == null || (!(async ? asyncCache : cache).containsKey(method)
+                        && lastCacheStatus.isStaleClass(method.getClassName()))) {
+                    pack.remove(key);
+                }
+            }
+        }
+        pack.flush();
+    }
+
+    private boolean checkIfDependenciesChanged(VarDataInput input, CacheStatus cacheStatus) throws IOException {
+        int depCount = input.readUnsigned();
+        for (int i = 0; i < depCount; ++i) {
+            String depClass = input.read();
+            if (cacheStatus.isStaleClass(depClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeDependencies(VarDataOutput output, String[] dependencies) throws IOException {
+        output.writeUnsigned(dependencies.length);
+        for (String dependency : dependencies) {
+            output.write(dependency);
+        }
+    }
+
+    private static String getKey(MethodReference method, boolean async) {
+        return (async ? ASYNC_PREFIX : "") + method;
+    }
+
+    private static class Item {
+        AstCacheEntry entry;
+    }
+
+    private static class AsyncItem {
+        AsyncMethodNode node;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.teavm.model.MethodReference;
+import org.teavm.model.Program;
+import org.teavm.model.ProgramCache;
+import org.teavm.model.ReferenceCache;
+
+/**
+ * Alternative to {@link DiskProgramCache} that keeps all programs in a single pack file instead of
+ * a file per method. See {@link CachePackFile} for details on storage format.
+ */
+public class PackedProgramCache implements ProgramCache {
+    private final CachePackFile pack;
+    private final ProgramIO programIO;
+    private final Map<MethodReference, Item> cache = new HashMap<>();
+    private CacheStatus lastCacheStatus;
+
+    public PackedProgramCache(File directory, ReferenceCache referenceCache, SymbolTable symbolTable,
+            SymbolTable fileTable, SymbolTable variableTable) {
+        pack = new CachePackFile(directory, "programs");
+        programIO = new ProgramIO(referenceCache, symbolTable, fileTable, variableTable);
+    }
+
+    @Override
+    public Program get(MethodReference method, CacheStatus cacheStatus) {
+        lastCacheStatus = cacheStatus;
+        Item item = cache.get(method);
+        if (item == null) {
+            item = new Item();
+            cache.put(method, item);
+            ByteBuffer data = pack.get(method.toString());
+            if (data != null) {
+                try {
+                    VarDataInput input = new VarDataInput(CachePackFile.asStream(data));
+                    if (checkIfDependenciesChanged(input, cacheStatus)) {
+                        pack.remove(method.toString());
+                    } else {
+                        item.program = programIO.read(input);
+                    }
+                } catch (IOException e) {
+                    // we could not read program, just leave it empty
+                }
+            }
+        }
+        return item.program;
+    }
+
+    private boolean checkIfDependenciesChanged(VarDataInput input, CacheStatus cacheStatus) throws IOException {
+        int depCount = input.readUnsigned();
+        for (int i = 0; i < depCount; ++i) {
+            String depClass = input.read();
+            if (cacheStatus.isStaleClass(depClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void store(MethodReference method, Program program, Supplier<String[]> dependencies) {
+        Item item = new Item();
+        item.program = program;
+        cache.put(method, item);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (VarDataOutput output = new VarDataOutput(bytes)) {
+            String[] dependencyArray = dependencies.get();
+            output.writeUnsigned(dependencyArray.length);
+            for (String dependency : dependencyArray) {
+                output.write(dependency);
+            }
+            programIO.write(program, output);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        pack.put(method.toString(), bytes.toByteArray());
+    }
+
+    public void flush() throws IOException {
+        if (lastCacheStatus != null) {
+            for (String key : pack.getKeys()) {
+                MethodReference method = MethodReference.parseIfPossible(key);
+                if (method == null || (!cache.containsKey(method)
+                        && lastCacheStatus.isStaleClass(method.getClassName()))) {
+                    pack.remove(key);
+                }
+            }
+        }
+        pack.flush();
+    }
+
+    static class Item {
+        Program program;
+    }
+}
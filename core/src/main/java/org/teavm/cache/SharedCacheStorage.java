@@ -0,0 +1,166 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Bounded in-memory storage for serialized classes, optimized programs and ASTs, that may be shared
+ * by several builds running in one JVM, possibly in parallel. Entries are evicted in LRU order once total
+ * size of stored data exceeds capacity.</p>
+ *
+ * <p>Entries refer to symbols by their indexes in symbol tables, which can only grow. To keep them bounded,
+ * storage is split into generations. Once any symbol table of the current generation exceeds the limit,
+ * the generation is retired on next {@link #getGeneration()}: all entries are dropped and a new generation
+ * with empty tables is started. Users that still hold a retired generation keep working with their tables
+ * consistently, they just don't see entries and anything they store is discarded.</p>
+ *
+ * <p>Storage itself knows nothing about freshness of entries. It's up to {@link SharedCachedClassReaderSource},
+ * {@link SharedProgramCache} and {@link SharedMethodNodeCache} to key entries by class content hash
+ * and to validate dependencies.</p>
+ */
+public class SharedCacheStorage {
+    private static final int DEFAULT_MAX_SYMBOLS = 1 << 20;
+    private final long capacity;
+    private final int maxSymbols;
+    private long size;
+    private final Map<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, String> namespaces = new HashMap<>();
+    private Generation generation = new Generation();
+    private int generationCount = 1;
+
+    public SharedCacheStorage(long capacity) {
+        this(capacity, DEFAULT_MAX_SYMBOLS);
+    }
+
+    /**
+     * @param capacity total size of stored entries, in bytes.
+     * @param maxSymbols number of symbols in any symbol table after which generation is retired.
+     */
+    public SharedCacheStorage(long capacity, int maxSymbols) {
+        this.capacity = capacity;
+        this.maxSymbols = maxSymbols;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets number of generations started so far, including the current one.
+     */
+    public synchronized int getGenerationCount() {
+        return generationCount;
+    }
+
+    /**
+     * Gets current generation, retiring it first if its symbol tables grew too large. A user of the storage
+     * should get generation once and then use only it, since entries are only meaningful together with
+     * symbol tables they were written with.
+     */
+    public synchronized Generation getGeneration() {
+        if (generation.symbolTable.size() > maxSymbols || generation.fileTable.size() > maxSymbols
+                || generation.variableTable.size() > maxSymbols) {
+            entries.clear();
+            size = 0;
+            generation = new Generation();
+            generationCount++;
+        }
+        return generation;
+    }
+
+    /**
+     * Returns short identifier for a build configuration, so that entries that depend on configuration
+     * (like optimized programs, which differ between targets) don't mix up.
+     *
+     * @param descriptor arbitrary string that describes configuration.
+     * @return identifier that is same for equal descriptors.
+     */
+    public synchronized String getNamespace(String descriptor) {
+        return namespaces.computeIfAbsent(descriptor, k -> String.valueOf(namespaces.size()));
+    }
+
+    public final class Generation {
+        private final SynchronizedSymbolTable symbolTable = new SynchronizedSymbolTable();
+        private final SynchronizedSymbolTable fileTable = new SynchronizedSymbolTable();
+        private final SynchronizedSymbolTable variableTable = new SynchronizedSymbolTable();
+
+        private Generation() {
+        }
+
+        public byte[] get(String key) {
+            synchronized (SharedCacheStorage.this) {
+                return generation == this ? entries.get(key) : null;
+            }
+        }
+
+        public void put(String key, byte[] data) {
+            synchronized (SharedCacheStorage.this) {
+                if (generation != this) {
+                    return;
+                }
+                byte[] oldData = entries.put(key, data);
+                if (oldData != null) {
+                    size -= oldData.length;
+                }
+                size += data.length;
+
+                Iterator<byte[]> iter = entries.values().iterator();
+                while (size > capacity && iter.hasNext()) {
+                    size -= iter.next().length;
+                    iter.remove();
+                }
+            }
+        }
+
+        public SymbolTable getSymbolTable() {
+            return symbolTable;
+        }
+
+        public SymbolTable getFileTable() {
+            return fileTable;
+        }
+
+        public SymbolTable getVariableTable() {
+            return variableTable;
+        }
+    }
+
+    static class SynchronizedSymbolTable implements SymbolTable {
+        private final InMemorySymbolTable inner = new InMemorySymbolTable();
+
+        @Override
+        public synchronized String at(int index) {
+            return inner.at(index);
+        }
+
+        @Override
+        public synchronized int lookup(String symbol) {
+            return inner.lookup(symbol);
+        }
+
+        synchronized int size() {
+            return inner.size();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.teavm.model.ClassHolderSource;
+import org.teavm.model.ClassReader;
+import org.teavm.model.ClassReaderSource;
+import org.teavm.model.MethodReference;
+import org.teavm.model.ReferenceCache;
+import org.teavm.parsing.ClassContentHashProvider;
+
+/**
+ * Counterpart of {@link DiskCachedClassReaderSource} that keeps classes in {@link SharedCacheStorage}.
+ * Classes are keyed by content hash of their class files rather than by modification date, so that
+ * builds of different projects that have same libraries on classpath reuse each other's classes.
+ * Instances are meant to be used by one build only.
+ */
+public class SharedCachedClassReaderSource implements ClassReaderSource, CacheStatus {
+    private static final String NO_HASH = "";
+    private SharedCacheStorage.Generation generation;
+    private ClassHolderSource innerSource;
+    private ClassContentHashProvider hashProvider;
+    private Map<String, Item> cache = new HashMap<>();
+    private Map<String, String> hashes = new HashMap<>();
+    private Set<String> newClasses = new LinkedHashSet<>();
+    private ClassIO classIO;
+
+    public SharedCachedClassReaderSource(SharedCacheStorage storage, ReferenceCache referenceCache,
+            ClassHolderSource innerSource, ClassContentHashProvider hashProvider) {
+        this.generation = storage.getGeneration();
+        this.innerSource = innerSource;
+        this.hashProvider = hashProvider;
+        classIO = new ClassIO(referenceCache, generation.getSymbolTable(), generation.getFileTable(),
+                generation.getVariableTable());
+    }
+
+    @Override
+    public ClassReader get(String name) {
+        return getItemFromCache(name).cls;
+    }
+
+    @Override
+    public boolean isStaleClass(String className) {
+        return getItemFromCache(className).dirty;
+    }
+
+    @Override
+    public boolean isStaleMethod(MethodReference method) {
+        return isStaleClass(method.getClassName());
+    }
+
+    /**
+     * Gets content hash of class file. Unlike {@link #get(String)}, does not parse class.
+     *
+     * @param className name of the class.
+     * @return content hash or {@code null} if class does not come from class file.
+     */
+    public String getContentHash(String className) {
+        if (!hashes.containsKey(className)) {
+            hashes.put(className, hashProvider.getContentHash(className));
+        }
+        return hashes.get(className);
+    }
+
+    private Item getItemFromCache(String name) {
+        Item item = cache.get(name);
+        if (item == null) {
+            item = new Item();
+            cache.put(name, item);
+            String hash = getContentHash(name);
+            if (hash != null) {
+                byte[] data = generation.get(getKey(name, hash));
+                if (data != null) {
+                    try {
+                        item.cls = classIO.readClass(new ByteArrayInputStream(data), name);
+                    } catch (IOException e) {
+                        // Corrupted entry, let's parse class file
+                        item.cls = null;
+                    }
+                }
+            }
+            if (item.cls == null) {
+                item.dirty = true;
+                item.cls = innerSource.get(name);
+                if (hash != null) {
+                    newClasses.add(name);
+                }
+            }
+        }
+        return item;
+    }
+
+    public void flush() {
+        for (String className : newClasses) {
+            Item item = cache.get(className);
+            if (item.cls != null) {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                try {
+                    classIO.writeClass(output, item.cls);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                generation.put(getKey(className, getContentHash(className)), output.toByteArray());
+            }
+        }
+        newClasses.clear();
+    }
+
+    /*
+     * Entries produced from classes (i.e. programs and ASTs) keep content hashes of classes they depend on.
+     * Checking stale status alone is not enough, since another project could have put different
+     * version of the same class into the storage.
+     */
+    void writeDependencies(VarDataOutput output, String[] dependencies) throws IOException {
+        output.writeUnsigned(dependencies.length);
+        for (String dependency : dependencies) {
+            output.write(dependency);
+            String hash = getContentHash(dependency);
+            output.write(hash != null ? hash : NO_HASH);
+        }
+    }
+
+    boolean checkIfDependenciesChanged(VarDataInput input, CacheStatus cacheStatus) throws IOException {
+        int depCount = input.readUnsigned();
+        for (int i = 0; i < depCount; ++i) {
+            String depClass = input.read();
+            String depHash = input.read();
+            if (cacheStatus.isStaleClass(depClass)) {
+                return true;
+            }
+            String currentHash = getContentHash(depClass);
+            if (!depHash.equals(currentHash != null ? currentHash : NO_HASH)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getKey(String className, String hash) {
+        return "cls:" + className + "@" + hash;
+    }
+
+    private static class Item {
+        ClassReader cls;
+        boolean dirty;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.teavm.ast.AsyncMethodNode;
+import org.teavm.ast.ControlFlowEntry;
+import org.teavm.ast.RegularMethodNode;
+import org.teavm.model.MethodReference;
+import org.teavm.model.ReferenceCache;
+
+/**
+ * Keeps method ASTs in {@link SharedCacheStorage}. See {@link SharedProgramCache} for details on keys.
+ */
+public class SharedMethodNodeCache implements MethodNodeCache {
+    private SharedCacheStorage.Generation generation;
+    private SharedCachedClassReaderSource classSource;
+    private String namespace;
+    private AstIO astIO;
+    private Map<String, byte[]> newItems = new LinkedHashMap<>();
+
+    public SharedMethodNodeCache(SharedCacheStorage storage, SharedCachedClassReaderSource classSource,
+            String namespace, ReferenceCache referenceCache) {
+        this.generation = storage.getGeneration();
+        this.classSource = classSource;
+        this.namespace = namespace;
+        astIO = new AstIO(referenceCache, generation.getSymbolTable(), generation.getFileTable(),
+                generation.getVariableTable());
+    }
+
+    @Override
+    public AstCacheEntry get(MethodReference methodReference, CacheStatus cacheStatus) {
+        VarDataInput input = getInput(getKey(methodReference, false), cacheStatus);
+        if (input == null) {
+            return null;
+        }
+        try {
+            RegularMethodNode node = astIO.read(input, methodReference);
+            ControlFlowEntry[] cfg = astIO.readControlFlow(input);
+            return new AstCacheEntry(node, cfg);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void store(MethodReference methodReference, AstCacheEntry entry, Supplier<String[]> dependencies) {
+        String key = getKey(methodReference, false);
+        if (key == null) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (VarDataOutput output = new VarDataOutput(bytes)) {
+            classSource.writeDependencies(output, dependencies.get());
+            astIO.write(output, entry.method);
+            astIO.write(output, entry.cfg);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        newItems.put(key, bytes.toByteArray());
+    }
+
+    @Override
+    public AsyncMethodNode getAsync(MethodReference methodReference, CacheStatus cacheStatus) {
+        VarDataInput input = getInput(getKey(methodReference, true), cacheStatus);
+        if (input == null) {
+            return null;
+        }
+        try {
+            return astIO.readAsync(input, methodReference);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void storeAsync(MethodReference methodReference, AsyncMethodNode node, Supplier<String[]> dependencies) {
+        String key = getKey(methodReference, true);
+        if (key == null) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (VarDataOutput output = new VarDataOutput(bytes)) {
+            classSource.writeDependencies(output, dependencies.get());
+            astIO.writeAsync(output, node);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        newItems.put(key, bytes.toByteArray());
+    }
+
+    public void flush() {
+        for (Map.Entry<String, byte[]> entry : newItems.entrySet()) {
+            generation.put(entry.getKey(), entry.getValue());
+        }
+        newItems.clear();
+    }
+
+    private VarDataInput getInput(String key, CacheStatus cacheStatus) {
+        if (key == null) {
+            return null;
+        }
+        byte[] data = generation.get(key);
+        if (data == null) {
+            return null;
+        }
+        try {
+            VarDataInput input = new VarDataInput(new ByteArrayInputStream(data));
+            return !classSource.checkIfDependenciesChanged(input, cacheStatus) ? input : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private String getKey(MethodReference method, boolean async) {
+        String hash = classSource.getContentHash(method.getClassName());
+        if (hash == null) {
+            return null;
+        }
+        return (async ? "async:" : "ast:") + namespace + ":" + method + "@" + hash;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.teavm.model.MethodReference;
+import org.teavm.model.Program;
+import org.teavm.model.ProgramCache;
+import org.teavm.model.ReferenceCache;
+
+/**
+ * Keeps optimized programs in {@link SharedCacheStorage}. Programs are keyed by content hash of declaring
+ * class and by namespace of build configuration. New programs become visible to other builds
+ * after {@link #flush()}.
+ */
+public class SharedProgramCache implements ProgramCache {
+    private SharedCacheStorage.Generation generation;
+    private SharedCachedClassReaderSource classSource;
+    private String namespace;
+    private ProgramIO programIO;
+    private Map<String, byte[]> newItems = new LinkedHashMap<>();
+
+    public SharedProgramCache(SharedCacheStorage storage, SharedCachedClassReaderSource classSource,
+            String namespace, ReferenceCache referenceCache) {
+        this.generation = storage.getGeneration();
+        this.classSource = classSource;
+        this.namespace = namespace;
+        programIO = new ProgramIO(referenceCache, generation.getSymbolTable(), generation.getFileTable(),
+                generation.getVariableTable());
+    }
+
+    @Override
+    public Program get(MethodReference method, CacheStatus cacheStatus) {
+        String key = getKey(method);
+        if (key == null) {
+            return null;
+        }
+        byte[] data = generation.get(key);
+        if (data == null) {
+            return null;
+        }
+        try {
+            VarDataInput input = new VarDataInput(new ByteArrayInputStream(data));
+            if (classSource.checkIfDependenciesChanged(input, cacheStatus)) {
+                return null;
+            }
+            return programIO.read(input);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void store(MethodReference method, Program program, Supplier<String[]> dependencies) {
+        String key = getKey(method);
+        if (key == null) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (VarDataOutput output = new VarDataOutput(bytes)) {
+            classSource.writeDependencies(output, dependencies.get());
+            programIO.write(program, output);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        newItems.put(key, bytes.toByteArray());
+    }
+
+    public void flush() {
+        for (Map.Entry<String, byte[]> entry : newItems.entrySet()) {
+            generation.put(entry.getKey(), entry.getValue());
+        }
+        newItems.clear();
+    }
+
+    private String getKey(MethodReference method) {
+        String hash = classSource.getContentHash(method.getClassName());
+        return hash != null ? "opt:" + namespace + ":" + method + "@" + hash : null;
+    }
+}
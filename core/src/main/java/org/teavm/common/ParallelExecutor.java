@@ -0,0 +1,91 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.common;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>Runs independent indexed tasks on a fork-join pool of fixed size. When created with a single thread,
+ * executes all tasks sequentially on the calling thread, so that callers don't have to keep
+ * a separate sequential code path.</p>
+ *
+ * <p>Tasks must not depend on each other's order of execution. Exceptions thrown by tasks are propagated
+ * to the caller of {@link #forEach(int, IntConsumer)}.</p>
+ */
+public class ParallelExecutor implements AutoCloseable {
+    private final int threads;
+    private ForkJoinPool pool;
+
+    public ParallelExecutor(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public boolean isParallel() {
+        return threads > 1;
+    }
+
+    public void forEach(int count, IntConsumer task) {
+        if (count == 0) {
+            return;
+        }
+        if (!isParallel() || count == 1) {
+            for (int i = 0; i < count; ++i) {
+                task.accept(i);
+            }
+            return;
+        }
+        if (pool == null) {
+            pool = new ForkJoinPool(threads);
+        }
+        pool.invoke(new RangeAction(task, 0, count));
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    static class RangeAction extends RecursiveAction {
+        private final IntConsumer task;
+        private final int start;
+        private final int end;
+
+        RangeAction(IntConsumer task, int start, int end) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                task.accept(start);
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new RangeAction(task, start, middle), new RangeAction(task, middle, end));
+        }
+    }
+}
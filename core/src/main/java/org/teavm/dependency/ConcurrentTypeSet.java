@@ -0,0 +1,213 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.dependency;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Type set of a single node that can be extended concurrently by several threads during
+ * {@link ParallelTypePropagation}. Bits are set with CAS, so that exactly one thread observes the type as newly
+ * added in the common case. When the underlying array has to grow, the new array is published first and
+ * the old bits are copied afterwards, and writers retry on the new array if it was replaced under them.
+ * This may report a type as new more than once, which only leads to redundant propagation.</p>
+ *
+ * <p>Besides types, the set keeps types that were added since the node was last processed
+ * ({@code delta}) and types that were not reported to node's consumers yet. Both are guarded by
+ * the set's monitor.</p>
+ */
+class ConcurrentTypeSet extends TypeSet {
+    private static final AtomicLongArray EMPTY_WORDS = new AtomicLongArray(0);
+    private static final int[] EMPTY_INDEXES = new int[0];
+    private volatile AtomicLongArray words = EMPTY_WORDS;
+    private BitSet delta;
+    private boolean queued;
+    private BitSet consumerDelta;
+    private boolean consumersQueued;
+
+    ConcurrentTypeSet(DependencyAnalyzer dependencyAnalyzer, DependencyNode origin) {
+        super(dependencyAnalyzer, origin);
+    }
+
+    boolean add(int index) {
+        int wordIndex = index >>> 6;
+        long mask = 1L << index;
+        boolean added = false;
+        while (true) {
+            AtomicLongArray current = words;
+            if (wordIndex >= current.length()) {
+                grow(wordIndex + 1);
+                continue;
+            }
+            while (true) {
+                long word = current.get(wordIndex);
+                if ((word & mask) != 0) {
+                    break;
+                }
+                if (current.compareAndSet(wordIndex, word, word | mask)) {
+                    added = true;
+                    break;
+                }
+            }
+            if (words == current) {
+                return added;
+            }
+        }
+    }
+
+    private synchronized void grow(int wordCount) {
+        AtomicLongArray current = words;
+        if (current.length() >= wordCount) {
+            return;
+        }
+        AtomicLongArray result = new AtomicLongArray(Math.max(wordCount, current.length() * 2));
+        words = result;
+        for (int i = 0; i < current.length(); ++i) {
+            long bits = current.get(i);
+            if (bits != 0) {
+                while (true) {
+                    long word = result.get(i);
+                    if (result.compareAndSet(i, word, word | bits)) {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Records newly added type for further processing.
+     *
+     * @return {@code true} if the node has to be put to the worklist.
+     */
+    synchronized boolean addToDelta(int index) {
+        if (delta == null) {
+            delta = new BitSet();
+        }
+        delta.set(index);
+        if (queued) {
+            return false;
+        }
+        queued = true;
+        return true;
+    }
+
+    synchronized int[] takeDelta() {
+        queued = false;
+        if (delta == null || delta.isEmpty()) {
+            return EMPTY_INDEXES;
+        }
+        int[] result = delta.stream().toArray();
+        delta.clear();
+        return result;
+    }
+
+    /**
+     * Records newly added type that should be reported to node's consumers.
+     *
+     * @return {@code true} if the node has to be put to the list of nodes to notify.
+     */
+    synchronized boolean addToConsumerDelta(int index) {
+        if (consumerDelta == null) {
+            consumerDelta = new BitSet();
+        }
+        consumerDelta.set(index);
+        if (consumersQueued) {
+            return false;
+        }
+        consumersQueued = true;
+        return true;
+    }
+
+    synchronized int[] takeConsumerDelta() {
+        consumersQueued = false;
+        if (consumerDelta == null || consumerDelta.isEmpty()) {
+            return EMPTY_INDEXES;
+        }
+        int[] result = consumerDelta.stream().toArray();
+        consumerDelta.clear();
+        return result;
+    }
+
+    synchronized boolean isPendingForConsumers(int index) {
+        return consumerDelta != null && consumerDelta.get(index);
+    }
+
+    private BitSet snapshot() {
+        AtomicLongArray current = words;
+        long[] result = new long[current.length()];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = current.get(i);
+        }
+        return BitSet.valueOf(result);
+    }
+
+    @Override
+    void addType(DependencyType type) {
+        add(type.index);
+    }
+
+    @Override
+    DependencyType[] getTypes() {
+        BitSet bits = snapshot();
+        DependencyType[] types = new DependencyType[bits.cardinality()];
+        int j = 0;
+        for (int index = bits.nextSetBit(0); index >= 0; index = bits.nextSetBit(index + 1)) {
+            types[j++] = dependencyAnalyzer.types.get(index);
+        }
+        return types;
+    }
+
+    @Override
+    DependencyType[] getTypesForNode(DependencyNode sourceNode, DependencyNode targetNode,
+            DependencyTypeFilter filter) {
+        BitSet bits = snapshot();
+        return getTypesForNode(bits, bits.cardinality(), sourceNode, targetNode, filter);
+    }
+
+    @Override
+    boolean hasType(DependencyType type) {
+        AtomicLongArray current = words;
+        int wordIndex = type.index >>> 6;
+        return wordIndex < current.length() && (current.get(wordIndex) & (1L << type.index)) != 0;
+    }
+
+    @Override
+    boolean hasAnyType() {
+        AtomicLongArray current = words;
+        for (int i = 0; i < current.length(); ++i) {
+            if (current.get(i) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    TypeSet copy(DependencyNode origin) {
+        throw new IllegalStateException("Type sets are never shared between nodes during parallel analysis");
+    }
+
+    @Override
+    int typeCount() {
+        AtomicLongArray current = words;
+        int count = 0;
+        for (int i = 0; i < current.length(); ++i) {
+            count += Long.bitCount(current.get(i));
+        }
+        return count;
+    }
+}
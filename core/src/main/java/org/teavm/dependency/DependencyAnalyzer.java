@@ -110,11 +110,13 @@ public abstract class DependencyAnalyzer implements DependencyInfo {
     private boolean completing;
     private Map<String, DependencyTypeFilter> superClassFilters = new HashMap<>();
     private List<DependencyNode> allNodes = new ArrayList<>();
+    ParallelTypePropagation parallelPropagation;
     private ClassHierarchy classHierarchy;
     IncrementalCache incrementalCache = new IncrementalCache();
     boolean asyncSupported;
     private ReferenceCache referenceCache;
     private Set<String> generatedClassNames = new HashSet<>();
+    Set<MethodReference> submittedMethods = new HashSet<>();
 
     DependencyAnalyzer(ClassReaderSource classSource, ClassLoader classLoader, ServiceRepository services,
             Diagnostics diagnostics, ReferenceCache referenceCache) {
@@ -205,7 +207,11 @@ public abstract class DependencyAnalyzer implements DependencyInfo {
             typeFilter = null;
         }
         DependencyNode node = new DependencyNode(this, typeFilter);
+        node.index = allNodes.size();
         allNodes.add(node);
+        if (parallelPropagation != null) {
+            parallelPropagation.nodeCreated(node);
+        }
         return node;
     }
 
@@ -261,6 +267,7 @@ public abstract class DependencyAnalyzer implements DependencyInfo {
             method.setProgram(ProgramUtils.copy(program));
             new UnreachableBasicBlockEliminator().optimize(program);
             cls.addMethod(method);
+            submittedMethods.add(methodRef);
         } else {
             MethodDependency dep = getMethod(methodRef);
             if (dep == null) {
@@ -331,6 +338,12 @@ public abstract class DependencyAnalyzer implements DependencyInfo {
         if (!consumer.destination.filter(type)) {
             return;
         }
+        if (parallelPropagation != null) {
+            if (consumer.filterType(type)) {
+                consumer.destination.propagate(type);
+            }
+            return;
+        }
 
         if (consumer.pendingTypes == null && propagationDepth < PROPAGATION_STACK_THRESHOLD
                 && consumer.pointsToDomainOrigin() && consumer.destination.propagateCount < 20) {
@@ -354,6 +367,10 @@ public abstract class DependencyAnalyzer implements DependencyInfo {
             schedulePropagation(consumer, types[0]);
             return;
         }
+        if (parallelPropagation != null) {
+            consumer.consume(types);
+            return;
+        }
 
         if (consumer.pendingTypes == null && propagationDepth < PROPAGATION_STACK_THRESHOLD
                 && consumer.pointsToDomainOrigin() && consumer.destination.propagateCount < 20) {
@@ -507,10 +524,12 @@ public abstract class DependencyAnalyzer implements DependencyInfo {
     abstract DependencyNode createClassValueNode(int degree, DependencyNode parent);
 
     void scheduleMethodAnalysis(MethodDependency dep) {
-        deferredTasks.add(() -> {
-            processInvokeDynamic(dep);
-            processMethod(dep);
-        });
+        deferredTasks.add(() -> analyzeMethod(dep));
+    }
+
+    void analyzeMethod(MethodDependency dep) {
+        processInvokeDynamic(dep);
+        processMethod(dep);
     }
 
     @Override
@@ -650,9 +669,9 @@ public abstract class DependencyAnalyzer implements DependencyInfo {
         if (interrupted) {
             return;
         }
-        while (!deferredTasks.isEmpty() || !tasks.isEmpty() || !pendingTransitions.isEmpty()) {
+        while (!deferredTasks.isEmpty() || !tasks.isEmpty() || hasPendingPropagation()) {
             while (true) {
-                processNodeToNodeTransitionQueue();
+                processPendingPropagation();
                 if (tasks.isEmpty()) {
                     break;
                 }
@@ -673,6 +692,18 @@ public abstract class DependencyAnalyzer implements DependencyInfo {
         }
     }
 
+    private boolean hasPendingPropagation() {
+        return parallelPropagation != null ? parallelPropagation.hasPendingWork() : !pendingTransitions.isEmpty();
+    }
+
+    private void processPendingPropagation() {
+        if (parallelPropagation != null) {
+            parallelPropagation.run();
+        } else {
+            processNodeToNodeTransitionQueue();
+        }
+    }
+
     private void processNodeToNodeTransitionQueue() {
         while (!pendingTransitions.isEmpty()) {
             Transition transition = pendingTransitions.remove();
@@ -883,16 +914,18 @@ public abstract class DependencyAnalyzer implements DependencyInfo {
         return result;
     }
 
-    private void processInvokeDynamic(MethodDependency methodDep) {
+    boolean processInvokeDynamic(MethodDependency methodDep) {
         if (methodDep.method == null) {
-            return;
+            return false;
         }
 
         Program program = methodDep.method.getProgram();
         if (program == null) {
-            return;
+            return false;
         }
 
+        boolean found = false;
+
         ProgramEmitter pe = ProgramEmitter.create(program, classHierarchy);
         BasicBlockSplitter splitter = new BasicBlockSplitter(program);
         for (int i = 0; i < program.basicBlockCount(); ++i) {
@@ -904,6 +937,7 @@ public abstract class DependencyAnalyzer implements DependencyInfo {
                 block = insn.getBasicBlock();
 
                 InvokeDynamicInstruction indy = (InvokeDynamicInstruction) insn;
+                found = true;
                 MethodReference bootstrapMethod = new MethodReference(indy.getBootstrapMethod().getClassName(),
                         indy.getBootstrapMethod().getName(), indy.getBootstrapMethod().signature());
                 BootstrapMethodSubstitutor substitutor = bootstrapMethodSubstitutors.get(bootstrapMethod);
@@ -945,6 +979,7 @@ public abstract class DependencyAnalyzer implements DependencyInfo {
             }
         }
         splitter.fixProgram();
+        return found;
     }
 
     static class IncrementalCache implements IncrementalDependencyProvider, IncrementalDependencyRegistration {
@@ -54,6 +54,10 @@ class DependencyGraphBuilder {
     }
 
     public void buildGraph(MethodDependency dep) {
+        buildGraph(dep, null);
+    }
+
+    void buildGraph(MethodDependency dep, int[] nodeMapping) {
         caller = dependencyAnalyzer.callGraph.getNode(dep.getReference());
         MethodHolder method = dep.method;
         if (method.getProgram() == null || method.getProgram().basicBlockCount() == 0) {
@@ -62,17 +66,9 @@ class DependencyGraphBuilder {
         program = method.getProgram();
         resultNode = dep.getResult();
 
-        DataFlowGraphBuilder dfgBuilder = new DataFlowGraphBuilder();
-        boolean[] significantParams = new boolean[dep.getParameterCount()];
-        significantParams[0] = true;
-        for (int i = 1; i < dep.getParameterCount(); ++i) {
-            ValueType arg = method.parameterType(i - 1);
-            if (!(arg instanceof ValueType.Primitive)) {
-                significantParams[i] = true;
-            }
+        if (nodeMapping == null) {
+            nodeMapping = buildNodeMapping(method, program, dep.getParameterCount());
         }
-        int[] nodeMapping = dfgBuilder.buildMapping(program, significantParams,
-                !(method.getResultType() instanceof ValueType.Primitive) && method.getResultType() != ValueType.VOID);
 
         if (DependencyAnalyzer.shouldLog) {
             System.out.println("Method reached: " + method.getReference());
@@ -163,6 +159,20 @@ class DependencyGraphBuilder {
         }
     }
 
+    static int[] buildNodeMapping(MethodHolder method, Program program, int parameterCount) {
+        DataFlowGraphBuilder dfgBuilder = new DataFlowGraphBuilder();
+        boolean[] significantParams = new boolean[parameterCount];
+        significantParams[0] = true;
+        for (int i = 1; i < parameterCount; ++i) {
+            ValueType arg = method.parameterType(i - 1);
+            if (!(arg instanceof ValueType.Primitive)) {
+                significantParams[i] = true;
+            }
+        }
+        return dfgBuilder.buildMapping(program, significantParams,
+                !(method.getResultType() instanceof ValueType.Primitive) && method.getResultType() != ValueType.VOID);
+    }
+
     private ExceptionConsumer createExceptionConsumer(MethodDependency methodDep, BasicBlockReader block) {
         List<? extends TryCatchBlockReader> tryCatchBlocks = block.readTryCatchBlocks();
         ClassReader[] exceptions = new ClassReader[tryCatchBlocks.size()];
@@ -0,0 +1,96 @@
+/*
+ *  Copyright 2018 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.dependency;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.teavm.model.ValueType;
+
+/**
+ * <p>Keeps type sets of {@link FastDependencyAnalyzer} between builds. Fast analyzer puts all instances into
+ * a single node and all class literals into another, so these two sets are the whole result of type propagation.
+ * When analyzer is given a cache, it starts with types that reached these nodes in previous build, instead of
+ * discovering them again through the entire graph.</p>
+ *
+ * <p>Types of changed classes should be removed via {@link #evict(Collection)}. Types of unchanged classes
+ * are kept even if a changed method no longer instantiates them, so graph may only grow until
+ * {@link #invalidate()} is called. This is fine for development server, which prefers fast rebuilds
+ * to small output.</p>
+ *
+ * <p>Like {@link DependencySummaryCache}, this cache supports transactions.</p>
+ */
+public class DependencyGraphCache {
+    private Set<String> instanceTypes = new LinkedHashSet<>();
+    private Set<String> classTypes = new LinkedHashSet<>();
+    private String[] newInstanceTypes;
+    private String[] newClassTypes;
+
+    Set<String> getInstanceTypes() {
+        return instanceTypes;
+    }
+
+    Set<String> getClassTypes() {
+        return classTypes;
+    }
+
+    void store(String[] instanceTypes, String[] classTypes) {
+        newInstanceTypes = instanceTypes;
+        newClassTypes = classTypes;
+    }
+
+    /**
+     * Removes types that belong to any of given classes, including arrays of these classes.
+     */
+    public void evict(Collection<? extends String> classNames) {
+        Set<String> classNameSet = new HashSet<>(classNames);
+        instanceTypes.removeIf(type -> classNameSet.contains(getClassName(type)));
+        classTypes.removeIf(type -> classNameSet.contains(getClassName(type)));
+    }
+
+    static String getClassName(String type) {
+        if (!type.startsWith("[")) {
+            return type;
+        }
+        ValueType valueType = ValueType.parse(type);
+        while (valueType instanceof ValueType.Array) {
+            valueType = ((ValueType.Array) valueType).getItemType();
+        }
+        return valueType instanceof ValueType.Object ? ((ValueType.Object) valueType).getClassName() : null;
+    }
+
+    public void commit() {
+        if (newInstanceTypes != null) {
+            instanceTypes = new LinkedHashSet<>(Arrays.asList(newInstanceTypes));
+            classTypes = new LinkedHashSet<>(Arrays.asList(newClassTypes));
+        }
+        newInstanceTypes = null;
+        newClassTypes = null;
+    }
+
+    public void discard() {
+        newInstanceTypes = null;
+        newClassTypes = null;
+    }
+
+    public void invalidate() {
+        instanceTypes.clear();
+        classTypes.clear();
+        discard();
+    }
+}
@@ -32,7 +32,7 @@ import org.teavm.model.MethodReference;
 import org.teavm.model.ValueType;
 
 public class DependencyNode implements ValueDependencyInfo {
-    private static final int DEGREE_THRESHOLD = 2;
+    static final int DEGREE_THRESHOLD = 2;
     DependencyAnalyzer dependencyAnalyzer;
     List<DependencyConsumer> followers;
     TypeSet typeSet;
@@ -48,6 +48,7 @@ public class DependencyNode implements ValueDependencyInfo {
     MethodReference method;
     ValueType typeFilter;
     private DependencyTypeFilter cachedTypeFilter;
+    int index;
 
     int splitCount;
     public int propagateCount;
@@ -61,6 +62,10 @@ public class DependencyNode implements ValueDependencyInfo {
         if (degree > DEGREE_THRESHOLD) {
             return;
         }
+        if (dependencyAnalyzer.parallelPropagation != null) {
+            dependencyAnalyzer.parallelPropagation.propagate(this, type);
+            return;
+        }
         if (!hasType(type) && filter(type)) {
             propagateCount++;
             moveToSeparateDomain();
@@ -107,6 +112,10 @@ public class DependencyNode implements ValueDependencyInfo {
         if (newTypes.length == 0) {
             return;
         }
+        if (dependencyAnalyzer.parallelPropagation != null) {
+            dependencyAnalyzer.parallelPropagation.propagate(this, newTypes);
+            return;
+        }
         if (newTypes.length == 1) {
             propagate(newTypes[0]);
             return;
@@ -363,7 +372,7 @@ public class DependencyNode implements ValueDependencyInfo {
         }
     }
 
-    private void connectClassValueNodes() {
+    void connectClassValueNodes() {
         if (classNodeComplete) {
             return;
         }
@@ -380,7 +389,10 @@ public class DependencyNode implements ValueDependencyInfo {
 
     private void propagateTypes(DependencyConsumer transition) {
         if (typeSet != null) {
-            dependencyAnalyzer.schedulePropagation(transition, getTypesInternal());
+            DependencyType[] types = dependencyAnalyzer.parallelPropagation != null
+                    ? dependencyAnalyzer.parallelPropagation.getTypesForNewConsumer(this)
+                    : getTypesInternal();
+            dependencyAnalyzer.schedulePropagation(transition, types);
         }
     }
 
@@ -0,0 +1,129 @@
+/*
+ *  Copyright 2018 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.dependency;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.teavm.cache.CacheStatus;
+import org.teavm.model.MethodReference;
+
+/**
+ * <p>Keeps effects of method bodies on dependency graph of {@link FastDependencyAnalyzer} between builds,
+ * so that analyzer does not have to read bodies of methods that did not change since previous build.</p>
+ *
+ * <p>Like program caches, this cache supports transactions: summaries recorded during a build become visible
+ * to subsequent builds only after {@link #commit()}, {@link #discard()} drops them, e.g. when build fails.</p>
+ */
+public class DependencySummaryCache {
+    private Map<MethodReference, Item> cache = new HashMap<>();
+    private Map<MethodReference, Item> newItems = new HashMap<>();
+    private int hitCount;
+    private Set<MethodReference> missedMethods = new LinkedHashSet<>();
+
+    MethodDependencySummary get(MethodReference method, CacheStatus cacheStatus) {
+        Item item = cache.get(method);
+        if (item != null && item.summary == null) {
+            return null;
+        }
+        if (item == null || Arrays.stream(item.dependencies).anyMatch(cacheStatus::isStaleClass)) {
+            return miss(method);
+        }
+        hitCount++;
+        return item.summary;
+    }
+
+    MethodDependencySummary miss(MethodReference method) {
+        missedMethods.add(method);
+        return null;
+    }
+
+    /**
+     * Stores summary of a method. {@code null} summary means that method effects can't be reused, so
+     * that analyzer does not count this method as a miss each time.
+     */
+    void store(MethodReference method, MethodDependencySummary summary, String[] dependencies) {
+        newItems.put(method, new Item(summary, dependencies));
+    }
+
+    /**
+     * Removes summaries of methods that depend on any of given classes. Should be called for classes that
+     * changed since last build, even if they are not going to be reached in the next build. Otherwise,
+     * outdated summary of a method could be taken later, after the class is considered fresh again.
+     */
+    public void evict(Collection<? extends String> classNames) {
+        Set<String> classNameSet = new HashSet<>(classNames);
+        cache.values().removeIf(item -> Arrays.stream(item.dependencies).anyMatch(classNameSet::contains));
+    }
+
+    public void commit() {
+        cache.putAll(newItems);
+        newItems.clear();
+    }
+
+    public int getPendingItemsCount() {
+        return newItems.size();
+    }
+
+    /**
+     * Returns number of summaries taken from this cache since last {@link #resetStatistics()}.
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns number of methods which analyzer had to read since last {@link #resetStatistics()},
+     * because their summaries were missing or stale. Methods whose effects can't be reused at all,
+     * like ones that contain {@code invokedynamic}, are not counted.
+     */
+    public int getMissCount() {
+        return missedMethods.size();
+    }
+
+    public Set<MethodReference> getMissedMethods() {
+        return Collections.unmodifiableSet(missedMethods);
+    }
+
+    public void resetStatistics() {
+        hitCount = 0;
+        missedMethods.clear();
+    }
+
+    public void discard() {
+        newItems.clear();
+    }
+
+    public void invalidate() {
+        cache.clear();
+        newItems.clear();
+    }
+
+    static final class Item {
+        final MethodDependencySummary summary;
+        final String[] dependencies;
+
+        Item(MethodDependencySummary summary, String[] dependencies) {
+            this.summary = summary;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -19,20 +19,20 @@ import static org.teavm.dependency.AbstractInstructionAnalyzer.MONITOR_ENTER_MET
 import static org.teavm.dependency.AbstractInstructionAnalyzer.MONITOR_ENTER_SYNC_METHOD;
 import static org.teavm.dependency.AbstractInstructionAnalyzer.MONITOR_EXIT_METHOD;
 import static org.teavm.dependency.AbstractInstructionAnalyzer.MONITOR_EXIT_SYNC_METHOD;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import org.teavm.cache.AnnotationAwareCacheStatus;
+import org.teavm.cache.CacheStatus;
 import org.teavm.common.ServiceRepository;
 import org.teavm.diagnostics.Diagnostics;
-import org.teavm.model.BasicBlockReader;
 import org.teavm.model.ClassReader;
 import org.teavm.model.ClassReaderSource;
-import org.teavm.model.ElementModifier;
 import org.teavm.model.FieldReference;
-import org.teavm.model.MethodReader;
 import org.teavm.model.MethodReference;
-import org.teavm.model.ProgramReader;
 import org.teavm.model.ReferenceCache;
-import org.teavm.model.TryCatchBlockReader;
 import org.teavm.model.ValueType;
 
 public class FastDependencyAnalyzer extends DependencyAnalyzer {
@@ -40,6 +40,10 @@ public class FastDependencyAnalyzer extends DependencyAnalyzer {
     DependencyNode classesNode;
     private Map<MethodReference, FastVirtualCallConsumer> virtualCallConsumers = new HashMap<>();
     private Map<String, DependencyNode> subtypeNodes = new HashMap<>();
+    private DependencySummaryCache summaryCache;
+    private DependencyGraphCache graphCache;
+    private CacheStatus cacheStatus;
+    private CacheStatus methodCacheStatus;
 
     public FastDependencyAnalyzer(ClassReaderSource classSource, ClassLoader classLoader,
             ServiceRepository services, Diagnostics diagnostics, ReferenceCache referenceCache) {
@@ -53,31 +57,112 @@ public class FastDependencyAnalyzer extends DependencyAnalyzer {
         });
     }
 
+    /**
+     * Makes analyzer reuse effects of method bodies recorded by previous builds. Effects of a method are reused
+     * if the method is not stale according to given cache status, as well as to incremental dependencies
+     * registered by plugins during this build.
+     */
+    public void setSummaryCache(DependencySummaryCache summaryCache, CacheStatus cacheStatus) {
+        this.summaryCache = summaryCache;
+        this.cacheStatus = cacheStatus;
+    }
+
+    /**
+     * Makes analyzer start with types reached by previous build and record reached types for the next one.
+     * See {@link DependencyGraphCache} for details.
+     */
+    public void setGraphCache(DependencyGraphCache graphCache) {
+        this.graphCache = graphCache;
+    }
+
     @Override
-    protected void processMethod(MethodDependency methodDep) {
-        MethodReader method = methodDep.getMethod();
-        ProgramReader program = method.getProgram();
-
-        if (program != null) {
-            FastInstructionAnalyzer instructionAnalyzer = new FastInstructionAnalyzer(this);
-            instructionAnalyzer.setCaller(method.getReference());
-            for (BasicBlockReader block : program.getBasicBlocks()) {
-                block.readAllInstructions(instructionAnalyzer);
-
-                for (TryCatchBlockReader tryCatch : block.readTryCatchBlocks()) {
-                    if (tryCatch.getExceptionType() != null) {
-                        linkClass(tryCatch.getExceptionType());
-                    }
+    public void processDependencies() {
+        if (graphCache != null) {
+            restoreTypes(graphCache.getInstanceTypes(), instancesNode);
+            restoreTypes(graphCache.getClassTypes(), classesNode);
+        }
+        super.processDependencies();
+        if (graphCache != null && !wasInterrupted()) {
+            graphCache.store(instancesNode.getTypes(), classesNode.getTypes());
+        }
+    }
+
+    private void restoreTypes(Set<String> types, DependencyNode node) {
+        for (String type : types) {
+            String className = DependencyGraphCache.getClassName(type);
+            if (className != null && !className.startsWith("~")) {
+                if (getClassSource().get(className) == null) {
+                    continue;
                 }
+                linkClass(className);
             }
+            node.propagate(getType(type));
+        }
+    }
 
-            methodDep.variableNodes = new DependencyNode[program.variableCount()];
-            for (int i = 0; i < methodDep.variableNodes.length; ++i) {
-                methodDep.variableNodes[i] = instancesNode;
+    @Override
+    void analyzeMethod(MethodDependency methodDep) {
+        if (summaryCache == null || methodDep.method == null) {
+            super.analyzeMethod(methodDep);
+            return;
+        }
+
+        MethodReference method = methodDep.getReference();
+        boolean cacheable = !submittedMethods.contains(method) && !isSynthesizedClass(method.getClassName());
+        if (cacheable) {
+            MethodDependencySummary summary = getMethodCacheStatus().isStaleMethod(method)
+                    ? summaryCache.miss(method)
+                    : summaryCache.get(method, cacheStatus);
+            if (summary != null) {
+                applySummary(methodDep, summary);
+                return;
             }
         }
 
-        if (method.hasModifier(ElementModifier.SYNCHRONIZED)) {
+        boolean hasInvokeDynamic = processInvokeDynamic(methodDep);
+        MethodDependencySummaryBuilder summaryBuilder = new MethodDependencySummaryBuilder(this);
+        MethodDependencySummary summary = summaryBuilder.build(methodDep.getMethod());
+        if (cacheable) {
+            summaryCache.store(method, !hasInvokeDynamic && summaryBuilder.isReusable() ? summary : null,
+                    getSummaryDependencies(method));
+        }
+        applySummary(methodDep, summary);
+    }
+
+    private CacheStatus getMethodCacheStatus() {
+        if (methodCacheStatus == null) {
+            AnnotationAwareCacheStatus status = new AnnotationAwareCacheStatus(cacheStatus,
+                    getIncrementalDependencies(), getClassSource());
+            status.addSynthesizedClasses(this::isSynthesizedClass);
+            methodCacheStatus = status;
+        }
+        return methodCacheStatus;
+    }
+
+    private String[] getSummaryDependencies(MethodReference method) {
+        Set<String> dependencies = new LinkedHashSet<>();
+        dependencies.add(method.getClassName());
+        dependencies.addAll(Arrays.asList(getIncrementalDependencies().getDependencies(method.getClassName())));
+        dependencies.addAll(Arrays.asList(getIncrementalDependencies().getDependencies(method)));
+        return dependencies.toArray(new String[0]);
+    }
+
+    @Override
+    protected void processMethod(MethodDependency methodDep) {
+        applySummary(methodDep, new MethodDependencySummaryBuilder(this).build(methodDep.getMethod()));
+    }
+
+    private void applySummary(MethodDependency methodDep, MethodDependencySummary summary) {
+        for (MethodDependencySummary.Effect effect : summary.effects) {
+            effect.apply(this);
+        }
+
+        if (summary.variableCount >= 0) {
+            methodDep.variableNodes = new DependencyNode[summary.variableCount];
+            Arrays.fill(methodDep.variableNodes, instancesNode);
+        }
+
+        if (summary.synchronizedMethod) {
             processAsyncMethod();
         }
     }
@@ -0,0 +1,40 @@
+/*
+ *  Copyright 2018 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.dependency;
+
+import java.util.List;
+
+/**
+ * <p>Effects that analysis of a method body has on dependency graph of {@link FastDependencyAnalyzer}.
+ * Since fast analyzer merges all variables into a single node, the effects don't depend on data flow inside
+ * method, so they can be recorded once and applied again in subsequent builds, as long as method itself
+ * is not changed.</p>
+ */
+class MethodDependencySummary {
+    final int variableCount;
+    final boolean synchronizedMethod;
+    final List<Effect> effects;
+
+    MethodDependencySummary(int variableCount, boolean synchronizedMethod, List<Effect> effects) {
+        this.variableCount = variableCount;
+        this.synchronizedMethod = synchronizedMethod;
+        this.effects = effects;
+    }
+
+    interface Effect {
+        void apply(FastDependencyAnalyzer analyzer);
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ *  Copyright 2018 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.dependency;
+
+import static org.teavm.dependency.AbstractInstructionAnalyzer.CLONE_METHOD;
+import static org.teavm.dependency.AbstractInstructionAnalyzer.MONITOR_ENTER_METHOD;
+import static org.teavm.dependency.AbstractInstructionAnalyzer.MONITOR_ENTER_SYNC_METHOD;
+import static org.teavm.dependency.AbstractInstructionAnalyzer.MONITOR_EXIT_METHOD;
+import static org.teavm.dependency.AbstractInstructionAnalyzer.MONITOR_EXIT_SYNC_METHOD;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.teavm.model.BasicBlockReader;
+import org.teavm.model.CallLocation;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.FieldReference;
+import org.teavm.model.MethodReader;
+import org.teavm.model.MethodReference;
+import org.teavm.model.ProgramReader;
+import org.teavm.model.TextLocation;
+import org.teavm.model.TryCatchBlockReader;
+import org.teavm.model.ValueType;
+import org.teavm.model.VariableReader;
+import org.teavm.model.instructions.AbstractInstructionReader;
+import org.teavm.model.instructions.InvocationType;
+
+/**
+ * Reads method body and records effects it has on dependency graph of {@link FastDependencyAnalyzer}.
+ * Mirrors {@link AbstractInstructionAnalyzer}, taking into account that all variables, parameters, fields
+ * and array items share the single node of all instances, so connections between them are no-ops.
+ */
+class MethodDependencySummaryBuilder extends AbstractInstructionReader {
+    private static final MethodReference STRING_INIT_FROM_CHARS_METHOD = new MethodReference(String.class,
+            "<init>", char[].class, void.class);
+    private static final MethodReference NPE_INIT_METHOD = new MethodReference(NullPointerException.class,
+            "<init>", void.class);
+
+    private final DependencyAnalyzer dependencyAnalyzer;
+    private final List<MethodDependencySummary.Effect> effects = new ArrayList<>();
+    private MethodReference caller;
+    private CallLocation impreciseLocation;
+    private TextLocation location;
+    private CallLocation callLocation;
+    private boolean reusable = true;
+
+    MethodDependencySummaryBuilder(DependencyAnalyzer dependencyAnalyzer) {
+        this.dependencyAnalyzer = dependencyAnalyzer;
+    }
+
+    MethodDependencySummary build(MethodReader method) {
+        caller = method.getReference();
+        impreciseLocation = new CallLocation(caller);
+        ProgramReader program = method.getProgram();
+        int variableCount = -1;
+        if (program != null) {
+            for (BasicBlockReader block : program.getBasicBlocks()) {
+                block.readAllInstructions(this);
+
+                for (TryCatchBlockReader tryCatch : block.readTryCatchBlocks()) {
+                    if (tryCatch.getExceptionType() != null) {
+                        linkClass(tryCatch.getExceptionType());
+                    }
+                }
+            }
+            variableCount = program.variableCount();
+        }
+        return new MethodDependencySummary(variableCount, method.hasModifier(ElementModifier.SYNCHRONIZED),
+                effects);
+    }
+
+    /**
+     * Tells whether the summary mentions only classes that are not synthesized during analysis. Names of
+     * synthesized classes (e.g. lambdas) are not stable between builds, so such summary can't be reused.
+     */
+    boolean isReusable() {
+        return reusable;
+    }
+
+    @Override
+    public void location(TextLocation location) {
+        if (!Objects.equals(this.location, location)) {
+            this.location = location;
+            callLocation = null;
+        }
+    }
+
+    @Override
+    public void classConstant(VariableReader receiver, ValueType cst) {
+        propagate("java.lang.Class");
+        String typeName;
+        if (cst instanceof ValueType.Primitive) {
+            typeName = "~" + cst.toString();
+        } else if (cst instanceof ValueType.Object) {
+            typeName = ((ValueType.Object) cst).getClassName();
+        } else {
+            typeName = cst.toString();
+        }
+        checkType(cst);
+        effects.add(analyzer -> analyzer.classesNode.propagate(analyzer.getType(typeName)));
+        String className = extractClassName(cst);
+        if (className != null) {
+            linkClass(className);
+        }
+    }
+
+    @Override
+    public void stringConstant(VariableReader receiver, String cst) {
+        propagate("java.lang.String");
+        useMethod(STRING_INIT_FROM_CHARS_METHOD, getCallLocation());
+    }
+
+    @Override
+    public void createArray(VariableReader receiver, ValueType itemType, VariableReader size) {
+        checkType(itemType);
+        propagate("[" + itemType);
+        String className = extractClassName(itemType);
+        if (className != null) {
+            linkClass(className);
+        }
+    }
+
+    @Override
+    public void createArray(VariableReader receiver, ValueType itemType, List<? extends VariableReader> dimensions) {
+        checkType(itemType);
+        for (int i = 0; i < dimensions.size(); ++i) {
+            if (itemType instanceof ValueType.Object) {
+                propagate(((ValueType.Object) itemType).getClassName());
+            } else {
+                propagate(itemType.toString());
+            }
+            itemType = ((ValueType.Array) itemType).getItemType();
+        }
+        String className = extractClassName(itemType);
+        if (className != null) {
+            linkClass(className);
+        }
+    }
+
+    @Override
+    public void create(VariableReader receiver, String type) {
+        linkClass(type);
+        propagate(type);
+    }
+
+    @Override
+    public void getField(VariableReader receiver, VariableReader instance, FieldReference field,
+            ValueType fieldType) {
+        touchField(instance, field);
+    }
+
+    @Override
+    public void putField(VariableReader instance, FieldReference field, VariableReader value,
+            ValueType fieldType) {
+        touchField(instance, field);
+    }
+
+    private void touchField(VariableReader instance, FieldReference field) {
+        checkClass(field.getClassName());
+        CallLocation location = getCallLocation();
+        boolean isStatic = instance == null;
+        effects.add(analyzer -> {
+            FieldDependency fieldDep = analyzer.linkField(field);
+            fieldDep.addLocation(location);
+            if (isStatic) {
+                if (fieldDep.getField() != null) {
+                    analyzer.linkClass(fieldDep.getField().getOwnerName()).initClass(location);
+                }
+            } else {
+                analyzer.linkClass(field.getClassName());
+            }
+        });
+    }
+
+    @Override
+    public void invoke(VariableReader receiver, VariableReader instance, MethodReference method,
+            List<? extends VariableReader> arguments, InvocationType type) {
+        checkClass(method.getClassName());
+        if (instance != null) {
+            invokeGetClass(method);
+        }
+        CallLocation location = impreciseLocation;
+        if (instance == null || type == InvocationType.SPECIAL) {
+            boolean isStatic = instance == null;
+            effects.add(analyzer -> {
+                if (isStatic) {
+                    analyzer.linkClass(method.getClassName()).initClass(location);
+                }
+                MethodDependency methodDep = analyzer.linkMethod(method);
+                methodDep.addLocation(location);
+                methodDep.use(false);
+            });
+        } else {
+            effects.add(analyzer -> analyzer.getVirtualCallConsumer(method).addLocation(location));
+        }
+    }
+
+    private void invokeGetClass(MethodReference method) {
+        if (method.getName().equals("getClass") && method.parameterCount() == 0
+                && method.getReturnType().isObject(Class.class)) {
+            effects.add(analyzer -> analyzer.instancesNode.connect(analyzer.classesNode));
+        }
+    }
+
+    @Override
+    public void cloneArray(VariableReader receiver, VariableReader array) {
+        useMethod(CLONE_METHOD, impreciseLocation);
+    }
+
+    @Override
+    public void isInstance(VariableReader receiver, VariableReader value, ValueType type) {
+        checkType(type);
+        String className = extractClassName(type);
+        if (className != null) {
+            linkClass(className);
+        }
+    }
+
+    @Override
+    public void initClass(String className) {
+        checkClass(className);
+        CallLocation location = getCallLocation();
+        effects.add(analyzer -> analyzer.linkClass(className).initClass(location));
+    }
+
+    @Override
+    public void nullCheck(VariableReader receiver, VariableReader value) {
+        useMethod(NPE_INIT_METHOD, getCallLocation());
+    }
+
+    @Override
+    public void monitorEnter(VariableReader objectRef) {
+        useMonitorMethods(MONITOR_ENTER_METHOD, MONITOR_ENTER_SYNC_METHOD);
+    }
+
+    @Override
+    public void monitorExit(VariableReader objectRef) {
+        useMonitorMethods(MONITOR_EXIT_METHOD, MONITOR_EXIT_SYNC_METHOD);
+    }
+
+    private void useMonitorMethods(MethodReference asyncMethod, MethodReference syncMethod) {
+        CallLocation location = getCallLocation();
+        effects.add(analyzer -> {
+            if (analyzer.asyncSupported) {
+                MethodDependency methodDep = analyzer.linkMethod(asyncMethod);
+                methodDep.addLocation(location);
+                methodDep.use();
+            }
+            MethodDependency methodDep = analyzer.linkMethod(syncMethod);
+            methodDep.addLocation(location);
+            methodDep.use();
+        });
+    }
+
+    private void useMethod(MethodReference method, CallLocation location) {
+        effects.add(analyzer -> {
+            MethodDependency methodDep = analyzer.linkMethod(method);
+            methodDep.addLocation(location);
+            methodDep.use();
+        });
+    }
+
+    private void linkClass(String className) {
+        checkClass(className);
+        effects.add(analyzer -> analyzer.linkClass(className));
+    }
+
+    private void propagate(String typeName) {
+        effects.add(analyzer -> analyzer.instancesNode.propagate(analyzer.getType(typeName)));
+    }
+
+    private CallLocation getCallLocation() {
+        if (callLocation == null) {
+            callLocation = new CallLocation(caller, location);
+        }
+        return callLocation;
+    }
+
+    private void checkType(ValueType type) {
+        String className = extractClassName(type);
+        if (className != null) {
+            checkClass(className);
+        }
+    }
+
+    private void checkClass(String className) {
+        if (reusable && dependencyAnalyzer.isSynthesizedClass(className)) {
+            reusable = false;
+        }
+    }
+
+    private static String extractClassName(ValueType itemType) {
+        while (itemType instanceof ValueType.Array) {
+            itemType = ((ValueType.Array) itemType).getItemType();
+        }
+        return itemType instanceof ValueType.Object ? ((ValueType.Object) itemType).getClassName() : null;
+    }
+}
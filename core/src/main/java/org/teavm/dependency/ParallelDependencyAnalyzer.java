@@ -0,0 +1,146 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.dependency;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.teavm.common.ParallelExecutor;
+import org.teavm.common.ServiceRepository;
+import org.teavm.diagnostics.Diagnostics;
+import org.teavm.model.BasicBlock;
+import org.teavm.model.ClassReaderSource;
+import org.teavm.model.Instruction;
+import org.teavm.model.InvokeDynamicInstruction;
+import org.teavm.model.Program;
+import org.teavm.model.ReferenceCache;
+
+/**
+ * <p>Performs the same analysis as {@link PreciseDependencyAnalyzer}, but uses several threads
+ * both to build data flow graphs of reached methods and to propagate types along these graphs.</p>
+ *
+ * <p>Methods reached during one step of analysis are collected into a batch. When the first method of the batch
+ * is processed, variable mappings of all methods in the batch are computed concurrently. Nodes are still
+ * created and connected on the calling thread and in the original order, since this involves linking new
+ * classes and methods and notifying listeners and plugins.</p>
+ *
+ * <p>Types are propagated between nodes by {@link ParallelTypePropagation}. The result does not depend on
+ * the number of threads.</p>
+ */
+public class ParallelDependencyAnalyzer extends PreciseDependencyAnalyzer {
+    private final ParallelExecutor executor;
+    private List<MethodDependency> pendingMethods = new ArrayList<>();
+    private Map<MethodDependency, NodeMapping> nodeMappings = new IdentityHashMap<>();
+
+    public ParallelDependencyAnalyzer(ClassReaderSource classSource, ClassLoader classLoader,
+            ServiceRepository services, Diagnostics diagnostics, ReferenceCache referenceCache, int threads) {
+        super(classSource, classLoader, services, diagnostics, referenceCache);
+        executor = new ParallelExecutor(threads);
+        parallelPropagation = new ParallelTypePropagation(this, executor);
+    }
+
+    public int getThreads() {
+        return executor.getThreads();
+    }
+
+    @Override
+    void scheduleMethodAnalysis(MethodDependency dep) {
+        pendingMethods.add(dep);
+        super.scheduleMethodAnalysis(dep);
+    }
+
+    @Override
+    protected void processMethod(MethodDependency methodDep) {
+        if (!pendingMethods.isEmpty()) {
+            buildNodeMappings();
+        }
+
+        NodeMapping mapping = nodeMappings.remove(methodDep);
+        Program program = methodDep.method.getProgram();
+        int[] nodeMapping = mapping != null && mapping.program == program
+                && mapping.variableCount == program.variableCount() ? mapping.mapping : null;
+        new DependencyGraphBuilder(this).buildGraph(methodDep, nodeMapping);
+    }
+
+    private void buildNodeMappings() {
+        List<MethodDependency> methods = new ArrayList<>();
+        List<Program> programs = new ArrayList<>();
+        for (MethodDependency method : pendingMethods) {
+            Program program = method.method.getProgram();
+            if (program != null && program.basicBlockCount() > 0 && !nodeMappings.containsKey(method)) {
+                methods.add(method);
+                programs.add(program);
+            }
+        }
+        pendingMethods.clear();
+
+        NodeMapping[] results = new NodeMapping[methods.size()];
+        executor.forEach(methods.size(), index -> {
+            MethodDependency method = methods.get(index);
+            Program program = programs.get(index);
+            if (!hasInvokeDynamic(program)) {
+                int[] mapping = DependencyGraphBuilder.buildNodeMapping(method.method, program,
+                        method.getParameterCount());
+                results[index] = new NodeMapping(program, mapping);
+            }
+        });
+
+        for (int i = 0; i < results.length; ++i) {
+            if (results[i] != null) {
+                nodeMappings.put(methods.get(i), results[i]);
+            }
+        }
+    }
+
+    private static boolean hasInvokeDynamic(Program program) {
+        for (int i = 0; i < program.basicBlockCount(); ++i) {
+            BasicBlock block = program.basicBlockAt(i);
+            for (Instruction insn : block) {
+                if (insn instanceof InvokeDynamicInstruction) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    boolean domainOptimizationEnabled() {
+        return false;
+    }
+
+    @Override
+    public void processDependencies() {
+        try {
+            super.processDependencies();
+        } finally {
+            executor.close();
+        }
+    }
+
+    static class NodeMapping {
+        final Program program;
+        final int variableCount;
+        final int[] mapping;
+
+        NodeMapping(Program program, int[] mapping) {
+            this.program = program;
+            this.variableCount = program.variableCount();
+            this.mapping = mapping;
+        }
+    }
+}
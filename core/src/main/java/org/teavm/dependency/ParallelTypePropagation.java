@@ -0,0 +1,310 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.dependency;
+
+import com.carrotsearch.hppc.ObjectArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.teavm.common.ParallelExecutor;
+
+/**
+ * <p>Propagates types along node-to-node transitions on several threads.</p>
+ *
+ * <p>Every node gets its own {@link ConcurrentTypeSet}, domains are never merged. Propagation runs in phases.
+ * A phase starts from nodes that received new types on the calling thread and proceeds in rounds: nodes of
+ * the current round are split into shards, each shard is processed by a worker that pushes new types to
+ * destinations of node's transitions and collects destinations that changed into its own worklist.
+ * Worklists of all shards form the next round. The phase ends when no node has unprocessed types.</p>
+ *
+ * <p>Workers don't touch anything except type sets, since the rest of analyzer's state is not thread-safe.
+ * Particularly, they don't call type filters, but look up results computed earlier on the calling thread.
+ * When a result is not known yet, the type is put aside and checked after the phase. Consumers of nodes
+ * are notified after the phase as well. Both things happen in order of node creation and type index,
+ * and the set of types that reach each node within a phase does not depend on the order in which
+ * workers process nodes, therefore the analysis produces the same result for any number of threads.</p>
+ */
+class ParallelTypePropagation {
+    private static final int SHARDS_PER_THREAD = 4;
+    private static final int MATCH = 1;
+    private static final int MISMATCH = 2;
+    private static final int UNKNOWN = 0;
+    private DependencyAnalyzer analyzer;
+    private ParallelExecutor executor;
+    private Map<DependencyTypeFilter, FilterResults> filterResults = new IdentityHashMap<>();
+    private Shard pending = new Shard();
+
+    ParallelTypePropagation(DependencyAnalyzer analyzer, ParallelExecutor executor) {
+        this.analyzer = analyzer;
+        this.executor = executor;
+    }
+
+    void nodeCreated(DependencyNode node) {
+        node.typeSet = new ConcurrentTypeSet(analyzer, node);
+        if (node.typeFilter != null) {
+            node.getFilter();
+        }
+    }
+
+    void propagate(DependencyNode node, DependencyType type) {
+        if (node.filter(type)) {
+            addType(node, type.index, pending);
+            connectClassValueNodes(node);
+        }
+    }
+
+    void propagate(DependencyNode node, DependencyType[] types) {
+        boolean added = false;
+        for (DependencyType type : types) {
+            if (node.filter(type)) {
+                addType(node, type.index, pending);
+                added = true;
+            }
+        }
+        if (added) {
+            connectClassValueNodes(node);
+        }
+    }
+
+    private void connectClassValueNodes(DependencyNode node) {
+        if (!node.classNodeComplete && node.classNodeParent != null) {
+            node.connectClassValueNodes();
+        }
+    }
+
+    DependencyType[] getTypesForNewConsumer(DependencyNode node) {
+        ConcurrentTypeSet typeSet = (ConcurrentTypeSet) node.typeSet;
+        DependencyType[] types = node.getTypesInternal();
+        int j = 0;
+        for (DependencyType type : types) {
+            if (!typeSet.isPendingForConsumers(type.index)) {
+                types[j++] = type;
+            }
+        }
+        return j == types.length ? types : Arrays.copyOf(types, j);
+    }
+
+    boolean hasPendingWork() {
+        return !pending.isEmpty();
+    }
+
+    void run() {
+        while (hasPendingWork()) {
+            runPhase();
+            completePhase();
+        }
+    }
+
+    private void runPhase() {
+        List<ConcurrentTypeSet> round = pending.worklist;
+        pending.worklist = new ArrayList<>();
+        while (!round.isEmpty()) {
+            List<ConcurrentTypeSet> nodes = round;
+            int shardCount = Math.min(nodes.size(), executor.getThreads() * SHARDS_PER_THREAD);
+            Shard[] shards = new Shard[shardCount];
+            executor.forEach(shardCount, index -> {
+                Shard shard = new Shard();
+                int start = (int) ((long) nodes.size() * index / shardCount);
+                int end = (int) ((long) nodes.size() * (index + 1) / shardCount);
+                for (int i = start; i < end; ++i) {
+                    process(nodes.get(i), shard);
+                }
+                shards[index] = shard;
+            });
+
+            round = new ArrayList<>();
+            for (Shard shard : shards) {
+                round.addAll(shard.worklist);
+                pending.notifications.addAll(shard.notifications);
+                pending.classValueNodes.addAll(shard.classValueNodes);
+                pending.filterChecks.addAll(shard.filterChecks);
+            }
+        }
+    }
+
+    private void process(ConcurrentTypeSet typeSet, Shard shard) {
+        int[] delta = typeSet.takeDelta();
+        DependencyNode node = typeSet.origin;
+        ObjectArrayList<Transition> transitions = node.transitionList;
+        if (delta.length == 0 || transitions == null) {
+            return;
+        }
+
+        Object[] buffer = transitions.buffer;
+        int size = transitions.size();
+        for (int i = 0; i < size; ++i) {
+            Transition transition = (Transition) buffer[i];
+            DependencyNode destination = transition.destination;
+            if (destination.degree > DependencyNode.DEGREE_THRESHOLD) {
+                continue;
+            }
+            FilterResults transitionFilter = transition.filter != null ? filterResults.get(transition.filter) : null;
+            FilterResults destinationFilter = destination.typeFilter != null
+                    ? filterResults.get(destination.getFilter())
+                    : null;
+            boolean filtered = transition.filter != null || destination.typeFilter != null;
+            for (int type : delta) {
+                if (filtered) {
+                    int match = matchKnown(transition.filter, transitionFilter, type);
+                    if (match == MATCH) {
+                        match = matchKnown(destination.typeFilter != null ? destination.getFilter() : null,
+                                destinationFilter, type);
+                    }
+                    if (match == MISMATCH) {
+                        continue;
+                    }
+                    if (match == UNKNOWN) {
+                        shard.filterChecks.add(new FilterCheck(transition, type));
+                        continue;
+                    }
+                }
+                addType(destination, type, shard);
+            }
+        }
+    }
+
+    private static int matchKnown(DependencyTypeFilter filter, FilterResults results, int type) {
+        if (filter == null) {
+            return MATCH;
+        }
+        if (results == null || !results.known.get(type)) {
+            return UNKNOWN;
+        }
+        return results.matched.get(type) ? MATCH : MISMATCH;
+    }
+
+    private void addType(DependencyNode node, int type, Shard shard) {
+        ConcurrentTypeSet typeSet = (ConcurrentTypeSet) node.typeSet;
+        if (!typeSet.add(type)) {
+            return;
+        }
+        if (node.transitionList != null && !node.transitionList.isEmpty() && typeSet.addToDelta(type)) {
+            shard.worklist.add(typeSet);
+        }
+        if (node.followers != null && typeSet.addToConsumerDelta(type)) {
+            shard.notifications.add(typeSet);
+        }
+        if (shard != pending && !node.classNodeComplete && node.classNodeParent != null) {
+            shard.classValueNodes.add(node);
+        }
+    }
+
+    private void completePhase() {
+        List<FilterCheck> filterChecks = pending.filterChecks;
+        pending.filterChecks = new ArrayList<>();
+        filterChecks.sort(Comparator.comparingInt((FilterCheck check) -> check.transition.source.index)
+                .thenComparingInt(check -> check.transition.destination.index)
+                .thenComparingInt(check -> check.type));
+        FilterCheck lastCheck = null;
+        for (FilterCheck check : filterChecks) {
+            if (lastCheck != null && lastCheck.transition == check.transition && lastCheck.type == check.type) {
+                continue;
+            }
+            lastCheck = check;
+            DependencyType type = analyzer.types.get(check.type);
+            DependencyNode destination = check.transition.destination;
+            if (match(check.transition.filter, type)
+                    && (destination.typeFilter == null || match(destination.getFilter(), type))) {
+                addType(destination, check.type, pending);
+                connectClassValueNodes(destination);
+            }
+        }
+
+        List<DependencyNode> classValueNodes = pending.classValueNodes;
+        pending.classValueNodes = new ArrayList<>();
+        classValueNodes.sort(Comparator.comparingInt(node -> node.index));
+        for (DependencyNode node : classValueNodes) {
+            connectClassValueNodes(node);
+        }
+
+        List<ConcurrentTypeSet> notifications = pending.notifications;
+        pending.notifications = new ArrayList<>();
+        notifications.sort(Comparator.comparingInt(typeSet -> typeSet.origin.index));
+        List<Notification> notificationsToSend = new ArrayList<>(notifications.size());
+        for (ConcurrentTypeSet typeSet : notifications) {
+            int[] indexes = typeSet.takeConsumerDelta();
+            if (indexes.length == 0) {
+                continue;
+            }
+            DependencyType[] types = new DependencyType[indexes.length];
+            for (int i = 0; i < indexes.length; ++i) {
+                types[i] = analyzer.types.get(indexes[i]);
+            }
+            DependencyConsumer[] consumers = typeSet.origin.followers.toArray(new DependencyConsumer[0]);
+            notificationsToSend.add(new Notification(consumers, types));
+        }
+        for (Notification notification : notificationsToSend) {
+            for (DependencyConsumer consumer : notification.consumers) {
+                analyzer.schedulePropagation(consumer, notification.types);
+            }
+        }
+    }
+
+    private boolean match(DependencyTypeFilter filter, DependencyType type) {
+        if (filter == null) {
+            return true;
+        }
+        FilterResults results = filterResults.computeIfAbsent(filter, f -> new FilterResults());
+        if (results.known.get(type.index)) {
+            return results.matched.get(type.index);
+        }
+        boolean matched = filter.match(type);
+        results.known.set(type.index);
+        results.matched.set(type.index, matched);
+        return matched;
+    }
+
+    static class FilterResults {
+        final BitSet known = new BitSet();
+        final BitSet matched = new BitSet();
+    }
+
+    static class FilterCheck {
+        final Transition transition;
+        final int type;
+
+        FilterCheck(Transition transition, int type) {
+            this.transition = transition;
+            this.type = type;
+        }
+    }
+
+    static class Notification {
+        final DependencyConsumer[] consumers;
+        final DependencyType[] types;
+
+        Notification(DependencyConsumer[] consumers, DependencyType[] types) {
+            this.consumers = consumers;
+            this.types = types;
+        }
+    }
+
+    static class Shard {
+        List<ConcurrentTypeSet> worklist = new ArrayList<>();
+        List<ConcurrentTypeSet> notifications = new ArrayList<>();
+        List<DependencyNode> classValueNodes = new ArrayList<>();
+        List<FilterCheck> filterChecks = new ArrayList<>();
+
+        boolean isEmpty() {
+            return worklist.isEmpty() && notifications.isEmpty() && classValueNodes.isEmpty()
+                    && filterChecks.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.dependency;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.teavm.callgraph.CallGraph;
+import org.teavm.model.ClassReader;
+import org.teavm.model.ClassReaderSource;
+import org.teavm.model.FieldReference;
+import org.teavm.model.MethodReference;
+
+/**
+ * <p>Exposes results of dependency analysis to several threads at once.</p>
+ *
+ * <p>Even after analysis is complete, dependency nodes, class source and class hierarchy keep populating
+ * their caches lazily, so the first query of every item goes to the underlying analysis under a lock.
+ * Results are remembered in concurrent maps and in wrappers, so repeated queries of the same item, which are
+ * the vast majority, don't block each other.</p>
+ */
+public class SynchronizedDependencyInfo implements DependencyInfo {
+    private final DependencyInfo inner;
+    private final Object lock = new Object();
+    private final ClassReaderSource classSource;
+    private final ConcurrentMap<String, Optional<ClassReader>> classReaders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Optional<ClassDependencyInfo>> classes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<FieldReference, Optional<FieldDependencyInfo>> fields = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MethodReference, Optional<MethodDependencyInfo>> methods = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MethodReference, Optional<MethodDependencyInfo>> methodImplementations =
+            new ConcurrentHashMap<>();
+
+    public SynchronizedDependencyInfo(DependencyInfo inner) {
+        this.inner = inner;
+        ClassReaderSource innerClassSource = inner.getClassSource();
+        classSource = name -> query(classReaders, name, () -> innerClassSource.get(name));
+    }
+
+    @Override
+    public ClassReaderSource getClassSource() {
+        return classSource;
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return inner.getClassLoader();
+    }
+
+    @Override
+    public Collection<MethodReference> getReachableMethods() {
+        return inner.getReachableMethods();
+    }
+
+    @Override
+    public Collection<FieldReference> getReachableFields() {
+        return inner.getReachableFields();
+    }
+
+    @Override
+    public Collection<String> getReachableClasses() {
+        return inner.getReachableClasses();
+    }
+
+    @Override
+    public FieldDependencyInfo getField(FieldReference fieldRef) {
+        return query(fields, fieldRef, () -> wrap(inner.getField(fieldRef)));
+    }
+
+    @Override
+    public MethodDependencyInfo getMethod(MethodReference methodRef) {
+        return query(methods, methodRef, () -> wrap(inner.getMethod(methodRef)));
+    }
+
+    @Override
+    public MethodDependencyInfo getMethodImplementation(MethodReference methodRef) {
+        return query(methodImplementations, methodRef, () -> wrap(inner.getMethodImplementation(methodRef)));
+    }
+
+    @Override
+    public ClassDependencyInfo getClass(String className) {
+        return query(classes, className, () -> inner.getClass(className));
+    }
+
+    @Override
+    public CallGraph getCallGraph() {
+        return inner.getCallGraph();
+    }
+
+    private <K, V> V query(ConcurrentMap<K, Optional<V>> cache, K key, Supplier<V> supplier) {
+        Optional<V> result = cache.get(key);
+        if (result == null) {
+            synchronized (lock) {
+                result = cache.get(key);
+                if (result == null) {
+                    result = Optional.ofNullable(supplier.get());
+                    cache.put(key, result);
+                }
+            }
+        }
+        return result.orElse(null);
+    }
+
+    private MethodDependencyInfo wrap(MethodDependencyInfo method) {
+        return method != null ? new MethodWrapper(method) : null;
+    }
+
+    private FieldDependencyInfo wrap(FieldDependencyInfo field) {
+        return field != null ? new FieldWrapper(field) : null;
+    }
+
+    private ValueDependencyInfo wrap(ValueDependencyInfo value) {
+        return value != null ? new ValueWrapper(value) : null;
+    }
+
+    class Lazy<T> {
+        private final Supplier<T> supplier;
+        private volatile Optional<T> value;
+
+        Lazy(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        T get() {
+            Optional<T> result = value;
+            if (result == null) {
+                synchronized (lock) {
+                    result = value;
+                    if (result == null) {
+                        result = Optional.ofNullable(supplier.get());
+                        value = result;
+                    }
+                }
+            }
+            return result.orElse(null);
+        }
+    }
+
+    class MethodWrapper implements MethodDependencyInfo {
+        private final MethodDependencyInfo method;
+        private final Lazy<ValueDependencyInfo[]> variables;
+        private final Lazy<ValueDependencyInfo> result;
+        private final Lazy<ValueDependencyInfo> thrown;
+
+        MethodWrapper(MethodDependencyInfo method) {
+            this.method = method;
+            variables = new Lazy<>(() -> {
+                ValueDependencyInfo[] variables = method.getVariables().clone();
+                for (int i = 0; i < variables.length; ++i) {
+                    variables[i] = wrap(variables[i]);
+                }
+                return variables;
+            });
+            result = new Lazy<>(() -> wrap(method.getResult()));
+            thrown = new Lazy<>(() -> wrap(method.getThrown()));
+        }
+
+        @Override
+        public ValueDependencyInfo[] getVariables() {
+            return variables.get().clone();
+        }
+
+        @Override
+        public int getVariableCount() {
+            return method.getVariableCount();
+        }
+
+        @Override
+        public ValueDependencyInfo getVariable(int index) {
+            return variables.get()[index];
+        }
+
+        @Override
+        public int getParameterCount() {
+            return method.getParameterCount();
+        }
+
+        @Override
+        public ValueDependencyInfo getResult() {
+            return result.get();
+        }
+
+        @Override
+        public ValueDependencyInfo getThrown() {
+            return thrown.get();
+        }
+
+        @Override
+        public MethodReference getReference() {
+            return method.getReference();
+        }
+
+        @Override
+        public boolean isUsed() {
+            return method.isUsed();
+        }
+
+        @Override
+        public boolean isCalled() {
+            return method.isCalled();
+        }
+
+        @Override
+        public boolean isMissing() {
+            return method.isMissing();
+        }
+    }
+
+    class FieldWrapper implements FieldDependencyInfo {
+        private final FieldDependencyInfo field;
+        private final Lazy<ValueDependencyInfo> value;
+
+        FieldWrapper(FieldDependencyInfo field) {
+            this.field = field;
+            value = new Lazy<>(() -> wrap(field.getValue()));
+        }
+
+        @Override
+        public ValueDependencyInfo getValue() {
+            return value.get();
+        }
+
+        @Override
+        public FieldReference getReference() {
+            return field.getReference();
+        }
+
+        @Override
+        public boolean isMissing() {
+            return field.isMissing();
+        }
+    }
+
+    class ValueWrapper implements ValueDependencyInfo {
+        private final ValueDependencyInfo value;
+        private final Lazy<String[]> types;
+        private final ConcurrentMap<String, Optional<Boolean>> typePresence = new ConcurrentHashMap<>();
+        private final Lazy<Boolean> hasArrayType;
+        private final Lazy<ValueDependencyInfo> arrayItem;
+        private final Lazy<ValueDependencyInfo> classValueNode;
+
+        ValueWrapper(ValueDependencyInfo value) {
+            this.value = value;
+            types = new Lazy<>(value::getTypes);
+            hasArrayType = new Lazy<>(value::hasArrayType);
+            arrayItem = new Lazy<>(() -> wrap(value.getArrayItem()));
+            classValueNode = new Lazy<>(() -> wrap(value.getClassValueNode()));
+        }
+
+        @Override
+        public String[] getTypes() {
+            return types.get().clone();
+        }
+
+        @Override
+        public boolean hasType(String type) {
+            return query(typePresence, type, () -> value.hasType(type));
+        }
+
+        @Override
+        public boolean hasArrayType() {
+            return hasArrayType.get();
+        }
+
+        @Override
+        public ValueDependencyInfo getArrayItem() {
+            return arrayItem.get();
+        }
+
+        @Override
+        public ValueDependencyInfo getClassValueNode() {
+            return classValueNode.get();
+        }
+    }
+}
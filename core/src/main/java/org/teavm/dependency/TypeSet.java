@@ -27,7 +27,7 @@ import java.util.Set;
 class TypeSet {
     private static final int SMALL_TYPES_THRESHOLD = 3;
     static final DependencyType[] EMPTY_TYPES = new DependencyType[0];
-    private DependencyAnalyzer dependencyAnalyzer;
+    DependencyAnalyzer dependencyAnalyzer;
     DependencyNode origin;
     private int[] smallTypes;
     private BitSet types;
@@ -91,40 +91,11 @@ class TypeSet {
 
     DependencyType[] getTypesForNode(DependencyNode sourceNode, DependencyNode targetNode,
             DependencyTypeFilter filter) {
-        int j = 0;
-        DependencyType[] types;
         if (this.types != null) {
-            int[] filteredTypes = null;
-            if (typesCount > 15) {
-                filteredTypes = filter != null ? filter.tryExtract(this.types) : null;
-                if (filteredTypes == null) {
-                    filteredTypes = sourceNode.getFilter().tryExtract(this.types);
-                }
-                if (filteredTypes == null) {
-                    filteredTypes = targetNode.getFilter().tryExtract(this.types);
-                }
-            }
-            if (filteredTypes != null) {
-                types = new DependencyType[filteredTypes.length];
-                for (int index : filteredTypes) {
-                    DependencyType type = dependencyAnalyzer.types.get(index);
-                    if (sourceNode.filter(type) && !targetNode.hasType(type) && targetNode.filter(type)
-                            && (filter == null || filter.match(type))) {
-                        types[j++] = type;
-                    }
-                }
-            } else {
-                types = new DependencyType[typesCount];
-                for (int index = this.types.nextSetBit(0); index >= 0; index = this.types.nextSetBit(index + 1)) {
-                    DependencyType type = dependencyAnalyzer.types.get(index);
-                    if (sourceNode.filter(type) && !targetNode.hasType(type) && targetNode.filter(type)
-                            && (filter == null || filter.match(type))) {
-                        types[j++] = type;
-                    }
-                }
-            }
+            return getTypesForNode(this.types, typesCount, sourceNode, targetNode, filter);
         } else if (this.smallTypes != null) {
-            types = new DependencyType[smallTypes.length];
+            DependencyType[] types = new DependencyType[smallTypes.length];
+            int j = 0;
             for (int i = 0; i < types.length; ++i) {
                 DependencyType type = dependencyAnalyzer.types.get(smallTypes[i]);
                 if (sourceNode.filter(type) && !targetNode.hasType(type) && targetNode.filter(type)
@@ -132,15 +103,54 @@ class TypeSet {
                     types[j++] = type;
                 }
             }
+            return trim(types, j);
         } else {
             return EMPTY_TYPES;
         }
+    }
+
+    DependencyType[] getTypesForNode(BitSet typeBits, int typesCount, DependencyNode sourceNode,
+            DependencyNode targetNode, DependencyTypeFilter filter) {
+        int j = 0;
+        DependencyType[] types;
+        int[] filteredTypes = null;
+        if (typesCount > 15) {
+            filteredTypes = filter != null ? filter.tryExtract(typeBits) : null;
+            if (filteredTypes == null) {
+                filteredTypes = sourceNode.getFilter().tryExtract(typeBits);
+            }
+            if (filteredTypes == null) {
+                filteredTypes = targetNode.getFilter().tryExtract(typeBits);
+            }
+        }
+        if (filteredTypes != null) {
+            types = new DependencyType[filteredTypes.length];
+            for (int index : filteredTypes) {
+                DependencyType type = dependencyAnalyzer.types.get(index);
+                if (sourceNode.filter(type) && !targetNode.hasType(type) && targetNode.filter(type)
+                        && (filter == null || filter.match(type))) {
+                    types[j++] = type;
+                }
+            }
+        } else {
+            types = new DependencyType[typesCount];
+            for (int index = typeBits.nextSetBit(0); index >= 0; index = typeBits.nextSetBit(index + 1)) {
+                DependencyType type = dependencyAnalyzer.types.get(index);
+                if (sourceNode.filter(type) && !targetNode.hasType(type) && targetNode.filter(type)
+                        && (filter == null || filter.match(type))) {
+                    types[j++] = type;
+                }
+            }
+        }
+        return trim(types, j);
+    }
 
-        if (j == 0) {
+    private static DependencyType[] trim(DependencyType[] types, int count) {
+        if (count == 0) {
             return EMPTY_TYPES;
         }
-        if (j < types.length) {
-            types = Arrays.copyOf(types, j);
+        if (count < types.length) {
+            types = Arrays.copyOf(types, count);
         }
         return types;
     }
@@ -39,6 +39,11 @@ public class AccumulationDiagnostics implements Diagnostics, ProblemProvider {
         problems.add(problem);
     }
 
+    public void addAll(AccumulationDiagnostics other) {
+        problems.addAll(other.problems);
+        severeProblems.addAll(other.severeProblems);
+    }
+
     @Override
     public List<Problem> getProblems() {
         return readonlyProblems;
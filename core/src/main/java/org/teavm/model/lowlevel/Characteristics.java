@@ -38,7 +38,7 @@ public class Characteristics {
         this.classSource = classSource;
     }
 
-    public boolean isStructure(String className) {
+    public synchronized boolean isStructure(String className) {
         byte result = isStructure.getOrDefault(className, (byte) -1);
         if (result < 0) {
             if (className.equals(Structure.class.getName())) {
@@ -56,7 +56,7 @@ public class Characteristics {
         return result != 0;
     }
 
-    public boolean isStaticInit(String className) {
+    public synchronized boolean isStaticInit(String className) {
         byte result = isStaticInit.getOrDefault(className, (byte) -1);
         if (result < 0) {
             ClassReader cls = classSource.get(className);
@@ -66,7 +66,7 @@ public class Characteristics {
         return result != 0;
     }
 
-    public boolean isFunction(String className) {
+    public synchronized boolean isFunction(String className) {
         byte result = isFunction.getOrDefault(className, (byte) -1);
         if (result < 0) {
             if (className.equals(Function.class.getName())) {
@@ -84,11 +84,11 @@ public class Characteristics {
         return result != 0;
     }
 
-    public boolean isManaged(String className) {
+    public synchronized boolean isManaged(String className) {
         return !isStructure(className) && !isFunction(className) && !className.equals(Address.class.getName());
     }
 
-    public boolean isManaged(MethodReference methodReference) {
+    public synchronized boolean isManaged(MethodReference methodReference) {
         byte result = isManaged.getOrDefault(methodReference, (byte) -1);
         if (result < 0) {
             result = computeIsManaged(methodReference) ? (byte) 1 : 0;
@@ -45,6 +45,7 @@ public class AsyncMethodFinder {
     private CallGraph callGraph;
     private ListableClassReaderSource classSource;
     private boolean hasAsyncMethods;
+    private List<MethodReference> additionalAsyncMethods = new ArrayList<>();
 
     public AsyncMethodFinder(CallGraph callGraph) {
         this.callGraph = callGraph;
@@ -58,9 +59,20 @@ public class AsyncMethodFinder {
         return readonlyAsyncFamilyMethods;
     }
 
+    /**
+     * Makes finder treat given method as asynchronous, like methods marked with {@link Async}.
+     * Should be called before {@link #find(ListableClassReaderSource)}.
+     */
+    public void addAsyncMethod(MethodReference method) {
+        additionalAsyncMethods.add(method);
+    }
+
     public void find(ListableClassReaderSource classSource) {
         this.classSource = classSource;
         hasAsyncMethods = findAsyncMethods();
+        for (MethodReference method : additionalAsyncMethods) {
+            add(method, new CallStack(method, null));
+        }
         for (String clsName : classSource.getClassNames()) {
             ClassReader cls = classSource.get(clsName);
             for (MethodReader method : cls.getMethods()) {
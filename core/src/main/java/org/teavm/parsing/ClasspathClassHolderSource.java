@@ -23,7 +23,8 @@ import org.teavm.parsing.resource.ClasspathResourceReader;
 import org.teavm.parsing.resource.MapperClassHolderSource;
 import org.teavm.parsing.resource.ResourceClassHolderMapper;
 
-public class ClasspathClassHolderSource implements ClassHolderSource, ClassDateProvider {
+public class ClasspathClassHolderSource implements ClassHolderSource, ClassDateProvider,
+        ClassContentHashProvider {
     private MapperClassHolderSource innerClassSource;
     private ClasspathResourceMapper classPathMapper;
 
@@ -47,4 +48,9 @@ public class ClasspathClassHolderSource implements ClassHolderSource, ClassDateP
     public Date getModificationDate(String className) {
         return classPathMapper.getModificationDate(className);
     }
+
+    @Override
+    public String getContentHash(String className) {
+        return classPathMapper.getContentHash(className);
+    }
 }
@@ -20,6 +20,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.function.Function;
 import org.teavm.common.CachedFunction;
@@ -29,7 +31,8 @@ import org.teavm.model.MethodHolder;
 import org.teavm.model.ReferenceCache;
 import org.teavm.vm.spi.ElementFilter;
 
-public class ClasspathResourceMapper implements Function<String, ClassHolder>, ClassDateProvider {
+public class ClasspathResourceMapper implements Function<String, ClassHolder>, ClassDateProvider,
+        ClassContentHashProvider {
     private static final String PACKAGE_PREFIX = "packagePrefix.";
     private static final String CLASS_PREFIX = "classPrefix.";
     private Function<String, ClassHolder> innerMapper;
@@ -37,6 +40,7 @@ public class ClasspathResourceMapper implements Function<String, ClassHolder>, C
     private ClassRefsRenamer renamer;
     private ClassLoader classLoader;
     private Map<String, ModificationDate> modificationDates = new HashMap<>();
+    private Map<String, ContentHash> contentHashes = new HashMap<>();
     private ReferenceCache referenceCache;
     private List<ElementFilter> elementFilters = new ArrayList<>();
 
@@ -191,6 +195,21 @@ public class ClasspathResourceMapper implements Function<String, ClassHolder>, C
     }
 
     private Date calculateModificationDate(String className) {
+        return calculateForOriginalClass(className, this::getOriginalModificationDate);
+    }
+
+    @Override
+    public String getContentHash(String className) {
+        ContentHash hash = contentHashes.get(className);
+        if (hash == null) {
+            hash = new ContentHash();
+            contentHashes.put(className, hash);
+            hash.value = calculateForOriginalClass(className, this::getOriginalContentHash);
+        }
+        return hash.value;
+    }
+
+    private <T> T calculateForOriginalClass(String className, Function<String, T> calculator) {
         int dotIndex = className.lastIndexOf('.');
         String packageName;
         String simpleName;
@@ -204,13 +223,13 @@ public class ClasspathResourceMapper implements Function<String, ClassHolder>, C
         for (Transformation transformation : transformations) {
             if (packageName.startsWith(transformation.packageName)) {
                 String fullName = transformation.packagePrefix + packageName + transformation.classPrefix + simpleName;
-                Date date = getOriginalModificationDate(fullName);
-                if (date != null) {
-                    return date;
+                T value = calculator.apply(fullName);
+                if (value != null) {
+                    return value;
                 }
             }
         }
-        return getOriginalModificationDate(className);
+        return calculator.apply(className);
     }
 
     private Date getOriginalModificationDate(String className) {
@@ -239,7 +258,41 @@ public class ClasspathResourceMapper implements Function<String, ClassHolder>, C
         }
     }
 
+    private String getOriginalContentHash(String className) {
+        if (classLoader == null) {
+            return null;
+        }
+        try (InputStream input = classLoader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+            if (input == null) {
+                return null;
+            }
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] buffer = new byte[8192];
+            while (true) {
+                int bytesRead = input.read(buffer);
+                if (bytesRead < 0) {
+                    break;
+                }
+                digest.update(buffer, 0, bytesRead);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(Character.forDigit((b >>> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (IOException e) {
+            // If class file can't be read, we just report that class should be reparsed
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not supported by JVM", e);
+        }
+    }
+
     static class ModificationDate {
         Date date;
     }
+
+    static class ContentHash {
+        String value;
+    }
 }
@@ -56,6 +56,7 @@ public final class Allocator {
             for (int i = 0; i < size; ++i) {
                 RuntimeArray innerArray = allocateMultiArray(tag.itemType, dimensions.add(4), dimensionCount - 1);
                 arrayData.putAddress(innerArray.toAddress());
+                GC.writeBarrier(array);
                 arrayData = arrayData.add(Address.sizeOf());
             }
         }
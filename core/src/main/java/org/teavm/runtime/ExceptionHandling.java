@@ -70,6 +70,9 @@ public final class ExceptionHandling {
     @Export(name = "teavm_catchException")
     @Unmanaged
     public static Throwable catchException() {
+        if (Threads.isMultithreaded()) {
+            return Threads.takeException();
+        }
         Throwable exception = thrownException;
         thrownException = null;
         return exception;
@@ -77,7 +80,11 @@ public final class ExceptionHandling {
 
     @Unmanaged
     public static void throwException(Throwable exception) {
-        thrownException = exception;
+        if (Threads.isMultithreaded()) {
+            Threads.setException(exception);
+        } else {
+            thrownException = exception;
+        }
 
         RuntimeObject exceptionPtr = Address.ofObject(exception).toStructure();
         RuntimeClass exceptionClass = RuntimeClass.getClass(exceptionPtr);
@@ -106,6 +113,9 @@ public final class ExceptionHandling {
             printStack();
             abort();
         } else if (isJumpSupported()) {
+            if (Threads.isMultithreaded()) {
+                Threads.abortClassInit(stackFrame);
+            }
             jumpToFrame(stackFrame, handlerId);
         }
     }
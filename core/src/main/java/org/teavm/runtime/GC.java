@@ -32,11 +32,20 @@ public final class GC {
     static FreeChunk currentChunk;
     static FreeChunkHolder currentChunkPointer;
     static int freeChunks;
-    static int freeMemory = (int) availableBytes();
+    static long freeMemory = availableBytes();
     static RuntimeReference firstWeakReference;
 
     static RelocationBlock lastRelocationBlock;
 
+    private static boolean youngCollection;
+    private static int youngRangeCount;
+    private static int markQueueStart;
+    private static boolean markQueueOverflow;
+    private static boolean rescanning;
+    private static int lowUsageCollections;
+    private static final int SHRINK_DELAY = 3;
+    private static final int THREAD_BUFFER_SIZE = 32 * 1024;
+
     static native Address gcStorageAddress();
 
     static native int gcStorageSize();
@@ -49,12 +58,26 @@ public final class GC {
 
     public static native long availableBytes();
 
+    private static native long minAvailableBytes();
+
+    public static native long maxAvailableBytes();
+
+    private static native int minHeapFreeRatio();
+
+    private static native int maxHeapFreeRatio();
+
+    private static native boolean resizeHeap(long newSize);
+
     private static native int regionSize();
 
+    static native boolean isGenerational();
+
+    private static native Address cardTableAddress();
+
     @Import(name = "teavm_outOfMemory")
     private static native void outOfMemory();
 
-    public static int getFreeMemory() {
+    public static long getFreeMemory() {
         return freeMemory;
     }
 
@@ -69,6 +92,13 @@ public final class GC {
     }
 
     public static RuntimeObject alloc(int size) {
+        if (Threads.isMultithreaded()) {
+            return allocInThreadBuffer(size);
+        }
+        return allocShared(size);
+    }
+
+    private static RuntimeObject allocShared(int size) {
         FreeChunk current = currentChunk;
         Address next = current.toAddress().add(size);
         if (!next.add(Structure.sizeOf(FreeChunk.class)).isLessThan(currentChunkLimit)) {
@@ -82,12 +112,67 @@ public final class GC {
         return current.toAddress().toStructure();
     }
 
+    /**
+     * <p>In multithreaded runtime each thread allocates from its own buffer, which is carved from free chunks
+     * under heap lock. Buffer is always kept large enough to put a free chunk header after the last allocated
+     * object, so it can be turned back into a free chunk at any moment.</p>
+     */
+    private static RuntimeObject allocInThreadBuffer(int size) {
+        Address thread = Threads.currentThread();
+        Address current = Threads.bufferCurrent(thread);
+        Address next = current.add(size);
+        if (!next.add(Structure.sizeOf(FreeChunk.class)).isLessThan(Threads.bufferLimit(thread))) {
+            fillThreadBuffer(thread, size);
+            current = Threads.bufferCurrent(thread);
+            next = current.add(size);
+        }
+        Threads.setBufferCurrent(thread, next);
+        MemoryTrace.allocate(current, size);
+        return current.toStructure();
+    }
+
+    private static void fillThreadBuffer(Address thread, int size) {
+        Threads.lockHeap();
+        releaseThreadBuffer(thread);
+
+        int headerSize = Structure.sizeOf(FreeChunk.class);
+        int minSize = size + 2 * headerSize;
+        int bufferSize = Math.max(THREAD_BUFFER_SIZE, minSize);
+        int available = (int) (currentChunkLimit.toLong() - currentChunk.toAddress().toLong()) - 2 * headerSize;
+        if (available >= minSize && available < bufferSize) {
+            bufferSize = available;
+        }
+        Address buffer = allocShared(bufferSize).toAddress();
+        Threads.setBuffer(thread, buffer, buffer.add(bufferSize));
+
+        Threads.unlockHeap();
+    }
+
+    private static void releaseThreadBuffer(Address thread) {
+        Address current = Threads.bufferCurrent(thread);
+        if (current != null) {
+            FreeChunk rest = current.toStructure();
+            rest.classReference = 0;
+            rest.size = (int) (Threads.bufferLimit(thread).toLong() - current.toLong());
+            Threads.setBuffer(thread, null, null);
+        }
+    }
+
+    @Export(name = "teavm_gc_releaseThreadBuffer")
+    public static void releaseCurrentThreadBuffer() {
+        releaseThreadBuffer(Threads.currentThread());
+    }
+
     private static void getNextChunk(int size) {
         if (getNextChunkIfPossible(size)) {
             return;
         }
-        collectGarbage();
-        if (currentChunk.size < size && !getNextChunkIfPossible(size)) {
+        if (isGenerational() && collectYoungGeneration(size)) {
+            return;
+        }
+        collectGarbageImpl();
+        adjustHeapSize(size);
+        if (!fits(currentChunk, size) && !getNextChunkIfPossible(size)) {
             ExceptionHandling.printStack();
             outOfMemory();
         }
@@ -104,7 +189,7 @@ public final class GC {
             }
             currentChunkPointer = Structure.add(FreeChunkHolder.class, currentChunkPointer, 1);
             currentChunk = currentChunkPointer.value;
-            if (currentChunk.size >= size) {
+            if (fits(currentChunk, size)) {
                 currentChunkLimit = currentChunk.toAddress().add(currentChunk.size);
                 break;
             }
@@ -113,7 +198,34 @@ public final class GC {
         return true;
     }
 
+    private static boolean fits(FreeChunk chunk, int size) {
+        if (isGenerational()) {
+            // Keep room for a free chunk header after the last allocated object, so that young collection
+            // can find where objects allocated from this chunk end
+            size += Structure.sizeOf(FreeChunk.class);
+        }
+        return chunk.size >= size;
+    }
+
     public static void collectGarbage() {
+        if (Threads.isMultithreaded()) {
+            Threads.lockHeap();
+            collectGarbageImpl();
+            Threads.unlockHeap();
+        } else {
+            collectGarbageImpl();
+        }
+    }
+
+    private static void collectGarbageImpl() {
+        if (Threads.isMultithreaded()) {
+            Threads.stopTheWorld();
+            for (Address thread = Threads.firstThread(); thread != null; thread = Threads.nextThread(thread)) {
+                releaseThreadBuffer(thread);
+            }
+            fixHeap();
+        }
+
         MemoryTrace.gcStarted();
         mark();
         processReferences();
@@ -125,6 +237,357 @@ public final class GC {
         updateFreeMemory();
         currentChunk = currentChunkPointer.value;
         currentChunkLimit = currentChunk.toAddress().add(currentChunk.size);
+        if (isGenerational()) {
+            updateRegionStarts();
+            clearCardTable();
+        }
+
+        if (Threads.isMultithreaded()) {
+            Threads.resumeTheWorld();
+        }
+    }
+
+    /**
+     * <p>Grows heap when free memory after full collection falls below {@link #minHeapFreeRatio()} percent
+     * of heap size, or when no free chunk can hold object of requested size. Shrinks heap when free memory
+     * stays above {@link #maxHeapFreeRatio()} percent during {@link #SHRINK_DELAY} full collections in a row.</p>
+     *
+     * <p>Heap can only change at its end, so it's shrunk no more than the size of the last free chunk.
+     * Defragmentation that precedes this method moves most objects to the beginning of heap.</p>
+     */
+    private static void adjustHeapSize(int size) {
+        long heapSize = availableBytes();
+        if (minAvailableBytes() == maxAvailableBytes()) {
+            return;
+        }
+
+        long usedMemory = heapSize - freeMemory;
+        if (freeMemory < heapSize * minHeapFreeRatio() / 100 || !hasChunkFor(size)) {
+            lowUsageCollections = 0;
+            long newSize = Math.max(usedMemory * 100 / (100 - minHeapFreeRatio()),
+                    heapSize + size + 2 * Structure.sizeOf(FreeChunk.class));
+            growHeap(newSize);
+        } else if (freeMemory > heapSize * maxHeapFreeRatio() / 100 && heapSize > minAvailableBytes()) {
+            if (++lowUsageCollections >= SHRINK_DELAY) {
+                lowUsageCollections = 0;
+                int targetFreeRatio = (minHeapFreeRatio() + maxHeapFreeRatio()) / 2;
+                shrinkHeap(usedMemory * 100 / (100 - targetFreeRatio));
+            }
+        } else {
+            lowUsageCollections = 0;
+        }
+    }
+
+    private static boolean hasChunkFor(int size) {
+        FreeChunkHolder holder = currentChunkPointer;
+        for (int i = 0; i < freeChunks; ++i) {
+            if (fits(holder.value, size)) {
+                return true;
+            }
+            holder = Structure.add(FreeChunkHolder.class, holder, 1);
+        }
+        return false;
+    }
+
+    private static void growHeap(long newSize) {
+        long oldSize = availableBytes();
+        FreeChunkHolder lastHolder = Structure.add(FreeChunkHolder.class, currentChunkPointer, freeChunks - 1);
+        boolean extendLastChunk = freeChunks > 0 && isAtHeapEnd(lastHolder.value, oldSize);
+
+        // Free chunk size is an int, so the chunk that receives new space must stay below 2 GiB
+        long chunkStart = extendLastChunk
+                ? lastHolder.value.toAddress().toLong() - heapAddress().toLong()
+                : oldSize;
+        long chunkLimit = (chunkStart + Integer.MAX_VALUE) / regionSize() * regionSize();
+        newSize = Math.min(Math.min(alignToRegion(newSize), maxAvailableBytes()), chunkLimit);
+        if (newSize <= oldSize) {
+            return;
+        }
+
+        if (!extendLastChunk) {
+            if (currentChunkPointer.toAddress().add((freeChunks + 1) * Structure.sizeOf(FreeChunkHolder.class))
+                    .toLong() > gcStorageAddress().add(gcStorageSize()).toLong()) {
+                return;
+            }
+        }
+        if (!resizeHeap(newSize)) {
+            return;
+        }
+        int oldRegionCount = (int) ((oldSize - 1) / regionSize()) + 1;
+        resetRegions(oldRegionCount, regionCount());
+
+        FreeChunk newSpace = heapAddress().add(oldSize).toStructure();
+        newSpace.classReference = 0;
+        newSpace.size = (int) (newSize - oldSize);
+        MemoryTrace.free(newSpace.toAddress(), newSpace.size);
+        if (extendLastChunk) {
+            lastHolder.value.size += newSpace.size;
+        } else {
+            lastHolder = Structure.add(FreeChunkHolder.class, currentChunkPointer, freeChunks);
+            lastHolder.value = newSpace;
+            freeChunks++;
+        }
+        updateFreeMemory();
+        currentChunk = currentChunkPointer.value;
+        currentChunkLimit = currentChunk.toAddress().add(currentChunk.size);
+    }
+
+    private static void shrinkHeap(long newSize) {
+        long oldSize = availableBytes();
+        if (freeChunks == 0) {
+            return;
+        }
+        FreeChunk lastChunk = Structure.add(FreeChunkHolder.class, currentChunkPointer, freeChunks - 1).value;
+        if (!isAtHeapEnd(lastChunk, oldSize)) {
+            return;
+        }
+
+        long lastChunkOffset = lastChunk.toAddress().toLong() - heapAddress().toLong();
+        newSize = Math.max(alignToRegion(Math.max(newSize, lastChunkOffset)), minAvailableBytes());
+        if (freeChunks == 1 || newSize - lastChunkOffset < Structure.sizeOf(FreeChunk.class)) {
+            // Keep at least one free chunk and don't leave a tail that can't hold free chunk header
+            newSize = Math.max(newSize, alignToRegion(lastChunkOffset + Structure.sizeOf(FreeChunk.class)));
+        }
+        if (newSize >= oldSize || !resizeHeap(newSize)) {
+            return;
+        }
+
+        if (newSize == lastChunkOffset) {
+            freeChunks--;
+        } else {
+            lastChunk.size = (int) (newSize - lastChunkOffset);
+        }
+        updateFreeMemory();
+        currentChunk = currentChunkPointer.value;
+        currentChunkLimit = currentChunk.toAddress().add(currentChunk.size);
+    }
+
+    private static boolean isAtHeapEnd(FreeChunk chunk, long heapSize) {
+        return chunk.toAddress().add(chunk.size).toLong() == heapAddress().add(heapSize).toLong();
+    }
+
+    private static long alignToRegion(long size) {
+        return (size + regionSize() - 1) / regionSize() * regionSize();
+    }
+
+    private static void resetRegions(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        Allocator.fillZero(Structure.add(Region.class, regionsAddress(), from).toAddress(),
+                (to - from) * Structure.sizeOf(Region.class));
+        if (isGenerational()) {
+            Allocator.fillZero(cardTableAddress().add(from), to - from);
+        }
+    }
+
+    /**
+     * <p>Records that a reference was stored into the given object. Must be called after every store
+     * of a reference into a field or an array element of a heap object, unless this object is known
+     * to be allocated after the last garbage collection.</p>
+     *
+     * <p>Does nothing unless generational collection is enabled.</p>
+     */
+    public static void writeBarrier(RuntimeObject object) {
+        if (isGenerational()) {
+            long offset = object.toAddress().toLong() - heapAddress().toLong();
+            if (offset >= 0 && offset < availableBytes()) {
+                cardTableAddress().add((int) (offset / regionSize())).putByte((byte) 1);
+            }
+        }
+    }
+
+    /**
+     * <p>Collects objects allocated after the last collection, i.e. objects in free chunks consumed since then.
+     * Objects in the young generation are never moved, since they may be referenced from the stack;
+     * survivors are promoted in place by simply forgetting that their chunks were young.</p>
+     *
+     * <p>Old objects that may reference young ones are found through card table, which has one card per
+     * region. Card is dirtied by {@link #writeBarrier(RuntimeObject)}; {@link Region#start} always points to
+     * the first old object in region, so that objects of dirty region can be walked without scanning
+     * the entire heap.</p>
+     *
+     * <p>There's no separate nursery space objects are evacuated from. Allocation is already bump-pointer
+     * within the current free chunk, and chunks consumed since the last collection play the role of nursery.
+     * A copying nursery would have to move survivors, but objects referenced from shadow stack can't be moved,
+     * since generated C code keeps copies of these pointers in local variables that GC can't update
+     * (see how {@link #defragment()} pins them). Instead, survivors stay where they are and free space between
+     * them is returned to the allocator; fragmentation this leaves in old space is removed by full collections,
+     * which still compact the heap.</p>
+     *
+     * @return {@code false} if young collection did not free enough memory and full collection
+     * should be performed instead.
+     */
+    private static boolean collectYoungGeneration(int size) {
+        FreeChunkHolder firstHolder = gcStorageAddress().toStructure();
+        int rangeCount = (int) ((currentChunkPointer.toAddress().toLong() - firstHolder.toAddress().toLong())
+                / Structure.sizeOf(FreeChunkHolder.class)) + 1;
+        if (rangeCount > gcStorageSize() / Address.sizeOf() / 4) {
+            return false;
+        }
+
+        youngRangeCount = rangeCount;
+        Address rangeEnd = youngRangeEnds();
+        FreeChunkHolder holder = firstHolder;
+        for (int i = 0; i < rangeCount; ++i) {
+            FreeChunk object = holder.value;
+            while (object.classReference != 0) {
+                object = object.toAddress().add(objectSize(object)).toStructure();
+            }
+            rangeEnd.putAddress(object.toAddress());
+            rangeEnd = rangeEnd.add(Address.sizeOf());
+            holder = Structure.add(FreeChunkHolder.class, holder, 1);
+        }
+
+        youngCollection = true;
+        markQueueStart = 2 * rangeCount;
+        MemoryTrace.gcStarted();
+        mark();
+        processReferences();
+        sweepYoung();
+        MemoryTrace.sweepCompleted();
+        youngCollection = false;
+        markQueueStart = 0;
+        clearCardTable();
+
+        updateFreeMemory();
+        if (freeChunks == 0 || freeMemory < availableBytes() / 8) {
+            return false;
+        }
+        currentChunk = currentChunkPointer.value;
+        currentChunkLimit = currentChunk.toAddress().add(currentChunk.size);
+        return fits(currentChunk, size) || getNextChunkIfPossible(size);
+    }
+
+    private static Address youngRangeEnds() {
+        return gcStorageAddress().add(youngRangeCount * Address.sizeOf());
+    }
+
+    private static boolean isYoung(Address address) {
+        FreeChunkHolder firstHolder = gcStorageAddress().toStructure();
+        int lower = 0;
+        int upper = youngRangeCount - 1;
+        while (lower <= upper) {
+            int mid = (lower + upper) >>> 1;
+            FreeChunkHolder holder = Structure.add(FreeChunkHolder.class, firstHolder, mid);
+            if (address.isLessThan(holder.value.toAddress())) {
+                upper = mid - 1;
+            } else if (address.isLessThan(youngRangeEnds().add(mid * Address.sizeOf()).getAddress())) {
+                return true;
+            } else {
+                lower = mid + 1;
+            }
+        }
+        return false;
+    }
+
+    private static void markFromCards() {
+        Address cardTable = cardTableAddress();
+        Address heapLimit = heapAddress().add(availableBytes());
+        int regionsCount = regionCount();
+        for (int i = 0; i < regionsCount; ++i) {
+            if (cardTable.add(i).getByte() == 0) {
+                continue;
+            }
+            Region region = Structure.add(Region.class, regionsAddress(), i);
+            if (region.start == 0) {
+                continue;
+            }
+
+            Address regionStart = heapAddress().add((long) i * regionSize());
+            Address regionEnd = regionStart.add(regionSize());
+            FreeChunk object = regionStart.add(region.start - 1).toStructure();
+            while (object.toAddress().isLessThan(regionEnd) && object.toAddress().isLessThan(heapLimit)) {
+                int size = objectSize(object);
+                if (object.classReference != 0 && !isYoung(object.toAddress())) {
+                    RuntimeObject oldObject = object.toAddress().toStructure();
+                    MarkQueue.init(markQueueStart);
+                    markChildren(RuntimeClass.getClass(oldObject), oldObject);
+                    processMarkQueue();
+                }
+                object = object.toAddress().add(size).toStructure();
+            }
+        }
+    }
+
+    private static void sweepYoung() {
+        FreeChunkHolder holder = gcStorageAddress().toStructure();
+        Address rangeEnd = youngRangeEnds();
+        FreeChunkHolder firstNewHolder = Structure.add(FreeChunkHolder.class, holder, 2 * youngRangeCount);
+        FreeChunkHolder newHolder = firstNewHolder;
+        int capacity = gcStorageSize() / Structure.sizeOf(FreeChunkHolder.class) - 2 * youngRangeCount;
+        freeChunks = 0;
+
+        for (int i = 0; i < youngRangeCount; ++i) {
+            FreeChunk object = holder.value;
+            FreeChunk lastChunk = rangeEnd.getAddress().toStructure();
+            Address limit = lastChunk.toAddress().add(lastChunk.size);
+            FreeChunk lastFreeSpace = null;
+
+            while (object.toAddress().isLessThan(limit)) {
+                int size = objectSize(object);
+                if (object.classReference == 0 || (object.classReference & RuntimeObject.GC_MARKED) == 0) {
+                    if (lastFreeSpace == null) {
+                        lastFreeSpace = object;
+                    }
+                } else {
+                    object.classReference &= ~RuntimeObject.GC_MARKED;
+                    if (lastFreeSpace != null) {
+                        if (addYoungFreeChunk(lastFreeSpace, object.toAddress(), newHolder, capacity)) {
+                            newHolder = Structure.add(FreeChunkHolder.class, newHolder, 1);
+                        }
+                        lastFreeSpace = null;
+                    }
+                }
+                object = object.toAddress().add(size).toStructure();
+            }
+            if (lastFreeSpace != null) {
+                if (addYoungFreeChunk(lastFreeSpace, limit, newHolder, capacity)) {
+                    newHolder = Structure.add(FreeChunkHolder.class, newHolder, 1);
+                }
+            }
+
+            holder = Structure.add(FreeChunkHolder.class, holder, 1);
+            rangeEnd = rangeEnd.add(Address.sizeOf());
+        }
+
+        currentChunkPointer = gcStorageAddress().toStructure();
+        Allocator.moveMemoryBlock(firstNewHolder.toAddress(), currentChunkPointer.toAddress(),
+                freeChunks * Structure.sizeOf(FreeChunkHolder.class));
+    }
+
+    private static boolean addYoungFreeChunk(FreeChunk chunk, Address end, FreeChunkHolder holder, int capacity) {
+        chunk.classReference = 0;
+        chunk.size = (int) (end.toLong() - chunk.toAddress().toLong());
+        MemoryTrace.free(chunk.toAddress(), chunk.size);
+        if (freeChunks == capacity) {
+            // Chunk is lost until next full collection
+            return false;
+        }
+        holder.value = chunk;
+        freeChunks++;
+        return true;
+    }
+
+    private static void updateRegionStarts() {
+        Allocator.fillZero(regionsAddress().toAddress(), regionCount() * Structure.sizeOf(Region.class));
+        Address limit = heapAddress().add(availableBytes());
+        FreeChunk object = heapAddress().toStructure();
+        while (object.toAddress().isLessThan(limit)) {
+            int size = objectSize(object);
+            if (object.classReference != 0) {
+                updateRegionStart(object.toAddress());
+            }
+            object = object.toAddress().add(size).toStructure();
+        }
+    }
+
+    private static void clearCardTable() {
+        Allocator.fillZero(cardTableAddress(), regionCount());
+    }
+
+    private static int regionCount() {
+        return (int) ((availableBytes() - 1) / regionSize()) + 1;
     }
 
     @Export(name = "teavm_gc_fixHeap")
@@ -138,8 +601,9 @@ public final class GC {
     private static void mark() {
         MemoryTrace.initMark();
         firstWeakReference = null;
-        int regionsCount = (int) ((availableBytes() - 1) / regionSize()) + 1;
-        Allocator.fillZero(regionsAddress().toAddress(), regionsCount * Structure.sizeOf(Region.class));
+        if (!youngCollection) {
+            Allocator.fillZero(regionsAddress().toAddress(), regionCount() * Structure.sizeOf(Region.class));
+        }
 
         Address staticRoots = Mutator.getStaticGCRoots();
         int staticCount = staticRoots.getInt();
@@ -152,7 +616,29 @@ public final class GC {
             staticRoots = staticRoots.add(Address.sizeOf());
         }
 
-        for (Address stackRoots = ShadowStack.getStackTop(); stackRoots != null;
+        if (Threads.isMultithreaded()) {
+            for (Address thread = Threads.firstThread(); thread != null; thread = Threads.nextThread(thread)) {
+                markFromStack(Threads.stackTop(thread));
+            }
+        } else {
+            markFromStack(ShadowStack.getStackTop());
+        }
+
+        if (youngCollection) {
+            markFromCards();
+        }
+
+        while (markQueueOverflow) {
+            markQueueOverflow = false;
+            rescanMarkedObjects();
+            if (youngCollection) {
+                markFromCards();
+            }
+        }
+    }
+
+    private static void markFromStack(Address stackTop) {
+        for (Address stackRoots = stackTop; stackRoots != null;
              stackRoots = ShadowStack.getNextStackFrame(stackRoots)) {
             int count = ShadowStack.getStackRootCount(stackRoots);
             Address stackRootsPtr = ShadowStack.getStackRootPointer(stackRoots);
@@ -164,34 +650,65 @@ public final class GC {
         }
     }
 
+    /**
+     * <p>Mark queue is limited by GC storage. When it's full, objects are left unmarked, while their referrers are
+     * already marked. Such objects are found by walking through the heap and visiting children of every
+     * marked object once again.</p>
+     */
+    private static void rescanMarkedObjects() {
+        rescanning = true;
+        Address limit = heapAddress().add(availableBytes());
+        FreeChunk object = heapAddress().toStructure();
+        while (object.toAddress().isLessThan(limit)) {
+            int size = objectSize(object);
+            if ((object.classReference & RuntimeObject.GC_MARKED) != 0) {
+                RuntimeObject markedObject = object.toAddress().toStructure();
+                MarkQueue.init(markQueueStart);
+                markChildren(RuntimeClass.getClass(markedObject), markedObject);
+                processMarkQueue();
+            }
+            object = object.toAddress().add(size).toStructure();
+        }
+        rescanning = false;
+    }
+
     private static void mark(RuntimeObject object) {
-        if (object == null || isMarked(object)) {
+        if (!shouldMark(object)) {
             return;
         }
 
-        MarkQueue.init();
+        MarkQueue.init(markQueueStart);
         MarkQueue.enqueue(object);
+        processMarkQueue();
+    }
+
+    private static void processMarkQueue() {
         while (!MarkQueue.isEmpty()) {
-            object = MarkQueue.dequeue();
+            RuntimeObject object = MarkQueue.dequeue();
             if (isMarked(object)) {
                 continue;
             }
             object.classReference |= RuntimeObject.GC_MARKED;
             MemoryTrace.mark(object.toAddress());
+            updateRegionStart(object.toAddress());
+            markChildren(RuntimeClass.getClass(object), object);
+        }
+    }
 
-            long offset = object.toAddress().toLong() - heapAddress().toLong();
-            Region region = Structure.add(Region.class, regionsAddress(), (int) (offset /  regionSize()));
-            short relativeOffset = (short) (offset % regionSize() + 1);
-            if (region.start == 0 || region.start > relativeOffset) {
-                region.start = relativeOffset;
-            }
+    private static void updateRegionStart(Address address) {
+        long offset = address.toLong() - heapAddress().toLong();
+        Region region = Structure.add(Region.class, regionsAddress(), (int) (offset /  regionSize()));
+        short relativeOffset = (short) (offset % regionSize() + 1);
+        if (region.start == 0 || region.start > relativeOffset) {
+            region.start = relativeOffset;
+        }
+    }
 
-            RuntimeClass cls = RuntimeClass.getClass(object);
-            if (cls.itemType == null) {
-                markObject(cls, object);
-            } else {
-                markArray(cls, (RuntimeArray) object);
-            }
+    private static void markChildren(RuntimeClass cls, RuntimeObject object) {
+        if (cls.itemType == null) {
+            markObject(cls, object);
+        } else {
+            markArray(cls, (RuntimeArray) object);
         }
     }
 
@@ -222,7 +739,7 @@ public final class GC {
                 enqueueMark(object);
             }
         }
-        if (object.next == null && object.object != null) {
+        if (!rescanning && object.next == null && object.object != null) {
             object.next = firstWeakReference;
             firstWeakReference = object;
         }
@@ -262,17 +779,22 @@ public final class GC {
     }
 
     private static void enqueueMark(RuntimeObject object) {
-        if (object != null && !isMarked(object)) {
-            MarkQueue.enqueue(object);
+        if (shouldMark(object) && !MarkQueue.enqueue(object)) {
+            markQueueOverflow = true;
         }
     }
 
+    private static boolean shouldMark(RuntimeObject object) {
+        return object != null && !isMarked(object) && (!youngCollection || isYoung(object.toAddress()));
+    }
+
     private static void processReferences() {
         RuntimeReference reference = firstWeakReference;
         while (reference != null) {
             RuntimeReference next = reference.next;
             reference.next = null;
-            if ((reference.object.classReference & RuntimeObject.GC_MARKED) == 0) {
+            if ((reference.object.classReference & RuntimeObject.GC_MARKED) == 0
+                    && (!youngCollection || isYoung(reference.object.toAddress()))) {
                 reference.object = null;
                 RuntimeReferenceQueue queue = reference.queue;
                 if (queue != null) {
@@ -389,8 +911,17 @@ public final class GC {
 
     private static void markStackRoots() {
         Address relocationThreshold = currentChunkPointer.value.toAddress();
+        if (Threads.isMultithreaded()) {
+            for (Address thread = Threads.firstThread(); thread != null; thread = Threads.nextThread(thread)) {
+                pinStackRoots(Threads.stackTop(thread), relocationThreshold);
+            }
+        } else {
+            pinStackRoots(ShadowStack.getStackTop(), relocationThreshold);
+        }
+    }
 
-        for (Address stackRoots = ShadowStack.getStackTop(); stackRoots != null;
+    private static void pinStackRoots(Address stackTop, Address relocationThreshold) {
+        for (Address stackRoots = stackTop; stackRoots != null;
              stackRoots = ShadowStack.getNextStackFrame(stackRoots)) {
             int count = ShadowStack.getStackRootCount(stackRoots);
             Address stackRootsPtr = ShadowStack.getStackRootPointer(stackRoots);
@@ -25,27 +25,35 @@ final class MarkQueue {
     private MarkQueue() {
     }
 
+    private static int start;
     private static int head;
     private static int tail;
     private static int limit;
 
-    static void init() {
-        head = 0;
-        tail = 0;
+    static void init(int start) {
+        MarkQueue.start = start;
+        head = start;
+        tail = start;
         limit = GC.gcStorageSize() / Address.sizeOf();
     }
 
-    static void enqueue(RuntimeObject object) {
-        GC.gcStorageAddress().add(Address.sizeOf() * tail).putAddress(object.toAddress());
-        if (++tail >= limit) {
-            tail = 0;
+    static boolean enqueue(RuntimeObject object) {
+        int next = tail + 1;
+        if (next >= limit) {
+            next = start;
+        }
+        if (next == head) {
+            return false;
         }
+        GC.gcStorageAddress().add(Address.sizeOf() * tail).putAddress(object.toAddress());
+        tail = next;
+        return true;
     }
 
     static RuntimeObject dequeue() {
         Address result = GC.gcStorageAddress().add(Address.sizeOf() * head).getAddress();
         if (++head >= limit) {
-            head = 0;
+            head = start;
         }
         return result.toStructure();
     }
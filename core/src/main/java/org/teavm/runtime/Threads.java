@@ -0,0 +1,158 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.runtime;
+
+import org.teavm.interop.Address;
+import org.teavm.interop.Import;
+import org.teavm.interop.PlatformMarker;
+import org.teavm.interop.Platforms;
+import org.teavm.interop.StaticInit;
+import org.teavm.interop.Unmanaged;
+
+/**
+ * <p>Bindings to OS threads of multithreaded C runtime (see {@code threads.c}).</p>
+ *
+ * <p>Threads are only stopped for garbage collection at safepoints, i.e. at call sites of managed code
+ * and inside blocking methods of this class. Native thread descriptors are passed around as {@link Address}
+ * and must not be kept across safepoints; Java threads are identified by small integer ids
+ * assigned by class library.</p>
+ */
+@StaticInit
+public final class Threads {
+    private Threads() {
+    }
+
+    @PlatformMarker(Platforms.MULTITHREADED)
+    public static boolean isMultithreaded() {
+        return false;
+    }
+
+    @Import(name = "teavm_thread_current")
+    @Unmanaged
+    static native Address currentThread();
+
+    @Import(name = "teavm_thread_first")
+    @Unmanaged
+    static native Address firstThread();
+
+    @Import(name = "teavm_thread_next")
+    @Unmanaged
+    static native Address nextThread(Address thread);
+
+    @Import(name = "teavm_thread_stackTop")
+    @Unmanaged
+    static native Address stackTop(Address thread);
+
+    @Import(name = "teavm_thread_bufferCurrent")
+    @Unmanaged
+    static native Address bufferCurrent(Address thread);
+
+    @Import(name = "teavm_thread_bufferLimit")
+    @Unmanaged
+    static native Address bufferLimit(Address thread);
+
+    @Import(name = "teavm_thread_setBufferCurrent")
+    @Unmanaged
+    static native void setBufferCurrent(Address thread, Address current);
+
+    @Import(name = "teavm_thread_setBuffer")
+    @Unmanaged
+    static native void setBuffer(Address thread, Address current, Address limit);
+
+    @Import(name = "teavm_thread_lockHeap")
+    @Unmanaged
+    static native void lockHeap();
+
+    @Import(name = "teavm_thread_unlockHeap")
+    @Unmanaged
+    static native void unlockHeap();
+
+    @Import(name = "teavm_thread_stopTheWorld")
+    @Unmanaged
+    static native void stopTheWorld();
+
+    @Import(name = "teavm_thread_resumeTheWorld")
+    @Unmanaged
+    static native void resumeTheWorld();
+
+    /**
+     * Completes initialization of classes whose initializers are unwound by exception which is about
+     * to be passed to given frame.
+     */
+    @Import(name = "teavm_thread_abortClassInit")
+    @Unmanaged
+    static native void abortClassInit(Address targetFrame);
+
+    @Import(name = "teavm_thread_setException")
+    @Unmanaged
+    static native void setException(Throwable exception);
+
+    @Import(name = "teavm_thread_takeException")
+    @Unmanaged
+    static native Throwable takeException();
+
+    /**
+     * Starts new OS thread which calls {@code Thread.runStartedThread(id)}.
+     */
+    @Import(name = "teavm_thread_start")
+    public static native void start(int id, boolean daemon);
+
+    @Import(name = "teavm_thread_currentId")
+    public static native int currentId();
+
+    @Import(name = "teavm_thread_identity")
+    public static native int identity(Object object);
+
+    @Import(name = "teavm_thread_monitorEnter")
+    public static native void monitorEnter(int identity, int count);
+
+    /**
+     * @return {@code false} if current thread does not own the monitor.
+     */
+    @Import(name = "teavm_thread_monitorExit")
+    public static native boolean monitorExit(int identity, int count);
+
+    @Import(name = "teavm_thread_holdsLock")
+    public static native boolean holdsLock(int identity);
+
+    /**
+     * @return {@code 0} when notified or timed out, {@code 1} when interrupted,
+     * {@code -1} if current thread does not own the monitor.
+     */
+    @Import(name = "teavm_thread_wait")
+    public static native int waitMonitor(int identity, long timeout);
+
+    /**
+     * @return {@code false} if current thread does not own the monitor.
+     */
+    @Import(name = "teavm_thread_notify")
+    public static native boolean notifyMonitor(int identity, boolean all);
+
+    /**
+     * @return {@code true} if sleep was interrupted.
+     */
+    @Import(name = "teavm_thread_sleep")
+    public static native boolean sleep(long millis);
+
+    @Import(name = "teavm_thread_yield")
+    public static native void yield();
+
+    @Import(name = "teavm_thread_interrupt")
+    public static native void interrupt(int id);
+
+    @Import(name = "teavm_thread_isInterrupted")
+    public static native boolean isInterrupted(int id, boolean clear);
+}
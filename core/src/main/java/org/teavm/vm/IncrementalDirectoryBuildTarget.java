@@ -24,40 +24,103 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * <p>Writes files to a directory, leaving files with unchanged content untouched, so that their modification
+ * time is preserved and tools like make don't rebuild anything that depends on them.</p>
+ *
+ * <p>Content hash of every written file is remembered. When the same file is written again with the same hash
+ * and the file was not modified since, it's skipped without reading it from disk.</p>
+ */
 public class IncrementalDirectoryBuildTarget implements BuildTarget {
     private File directory;
     private Set<String> writtenFiles = new HashSet<>();
     private Set<String> formerWrittenFiles = new HashSet<>();
+    private Map<String, FileState> fileStates = new HashMap<>();
+    private Set<String> changedFiles = new LinkedHashSet<>();
 
     public IncrementalDirectoryBuildTarget(File directory) {
         this.directory = directory;
     }
 
-    public void reset() {
+    /**
+     * Deletes files that were written before previous reset, but were not written since, and starts tracking
+     * written and changed files anew.
+     *
+     * @return names of deleted files.
+     */
+    public synchronized Set<String> reset() {
+        Set<String> deletedFiles = new LinkedHashSet<>();
         for (String fileName : formerWrittenFiles) {
             if (!writtenFiles.contains(fileName)) {
-                new File(directory, fileName).delete();
+                if (new File(directory, fileName).delete()) {
+                    deletedFiles.add(fileName);
+                }
+                fileStates.remove(fileName);
             }
         }
         formerWrittenFiles.clear();
         formerWrittenFiles.addAll(writtenFiles);
         writtenFiles.clear();
+        changedFiles.clear();
+        return deletedFiles;
+    }
+
+    /**
+     * Gets files actually rewritten since last {@link #reset()}.
+     */
+    public synchronized Set<String> getChangedFiles() {
+        return new LinkedHashSet<>(changedFiles);
     }
 
     @Override
-    public OutputStream createResource(String fileName) {
+    public synchronized OutputStream createResource(String fileName) {
         writtenFiles.add(fileName);
-        return new OutputStreamImpl(new File(directory, fileName));
+        return new OutputStreamImpl(fileName, new File(directory, fileName));
+    }
+
+    private synchronized FileState getState(String fileName) {
+        return fileStates.get(fileName);
     }
 
-    static class OutputStreamImpl extends OutputStream {
+    private synchronized void fileWritten(String fileName, FileState state, boolean changed) {
+        fileStates.put(fileName, state);
+        if (changed) {
+            changedFiles.add(fileName);
+        }
+    }
+
+    static class FileState {
+        final byte[] hash;
+        final long length;
+        final long lastModified;
+
+        FileState(byte[] hash, long length, long lastModified) {
+            this.hash = hash;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        boolean matches(byte[] hash, File file) {
+            return Arrays.equals(this.hash, hash) && file.length() == length && file.lastModified() == lastModified;
+        }
+    }
+
+    class OutputStreamImpl extends OutputStream {
+        private String fileName;
         private File file;
         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
 
-        OutputStreamImpl(File file) {
+        OutputStreamImpl(String fileName, File file) {
+            this.fileName = fileName;
             this.file = file;
         }
 
@@ -78,39 +141,54 @@ public class IncrementalDirectoryBuildTarget implements BuildTarget {
             checkNotClosed();
             byte[] data = bytes.toByteArray();
             bytes = null;
-            if (isChanged(file, data)) {
+            byte[] hash = hash(data);
+            FileState state = getState(fileName);
+            if (state != null && file.exists() && state.matches(hash, file)) {
+                return;
+            }
+            boolean changed = isChanged(file, data);
+            if (changed) {
                 file.getParentFile().mkdirs();
                 try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
                     output.write(data);
                 }
             }
+            fileWritten(fileName, new FileState(hash, file.length(), file.lastModified()), changed);
         }
 
-        private static boolean isChanged(File file, byte[] data) throws IOException {
+        private byte[] hash(byte[] data) {
+            try {
+                return MessageDigest.getInstance("SHA-1").digest(data);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private boolean isChanged(File file, byte[] data) throws IOException {
             if (!file.exists()) {
                 return true;
             }
 
-            InputStream input = new BufferedInputStream(new FileInputStream(file));
-
-            byte[] buffer = new byte[4096];
-            int index = 0;
-            while (true) {
-                int bytesRead = input.read(buffer);
-                if (bytesRead < 0) {
-                    break;
-                }
-                if (bytesRead + index > data.length) {
-                    return true;
-                }
-                for (int i = 0; i < bytesRead; ++i) {
-                    if (buffer[i] != data[index++]) {
+            try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+                byte[] buffer = new byte[4096];
+                int index = 0;
+                while (true) {
+                    int bytesRead = input.read(buffer);
+                    if (bytesRead < 0) {
+                        break;
+                    }
+                    if (bytesRead + index > data.length) {
                         return true;
                     }
+                    for (int i = 0; i < bytesRead; ++i) {
+                        if (buffer[i] != data[index++]) {
+                            return true;
+                        }
+                    }
                 }
-            }
 
-            return index < data.length;
+                return index < data.length;
+            }
         }
 
         private void checkNotClosed() throws IOException {
@@ -38,6 +38,7 @@ import org.teavm.cache.AnnotationAwareCacheStatus;
 import org.teavm.cache.CacheStatus;
 import org.teavm.cache.EmptyProgramCache;
 import org.teavm.cache.ProgramDependencyExtractor;
+import org.teavm.common.ParallelExecutor;
 import org.teavm.common.ServiceRepository;
 import org.teavm.dependency.BootstrapMethodSubstitutor;
 import org.teavm.dependency.ClassSourcePacker;
@@ -48,6 +49,7 @@ import org.teavm.dependency.DependencyPlugin;
 import org.teavm.dependency.Linker;
 import org.teavm.dependency.MethodDependency;
 import org.teavm.dependency.MethodDependencyInfo;
+import org.teavm.dependency.SynchronizedDependencyInfo;
 import org.teavm.diagnostics.AccumulationDiagnostics;
 import org.teavm.diagnostics.Diagnostics;
 import org.teavm.diagnostics.ProblemProvider;
@@ -147,6 +149,7 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
     private ProgramCache programCache = EmptyProgramCache.INSTANCE;
     private CacheStatus rawCacheStatus = AlwaysStaleCacheStatus.INSTANCE;
     private TeaVMOptimizationLevel optimizationLevel = TeaVMOptimizationLevel.SIMPLE;
+    private int optimizationThreads = 1;
     private TeaVMProgressListener progressListener;
     private boolean cancelled;
     private ListableClassHolderSource writtenClasses;
@@ -261,6 +264,22 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
         this.optimizationLevel = optimizationLevel;
     }
 
+    public int getOptimizationThreads() {
+        return optimizationThreads;
+    }
+
+    /**
+     * Sets number of threads used to link, devirtualize and optimize methods. These phases run ahead of code
+     * generation only in {@link TeaVMOptimizationLevel#ADVANCED} and {@link TeaVMOptimizationLevel#FULL} modes,
+     * in {@link TeaVMOptimizationLevel#SIMPLE} mode methods are optimized lazily, one at a time, when the target
+     * requests them. Generated code does not depend on this value.
+     *
+     * @param optimizationThreads number of threads, 1 (default) means that methods are optimized sequentially.
+     */
+    public void setOptimizationThreads(int optimizationThreads) {
+        this.optimizationThreads = Math.max(1, optimizationThreads);
+    }
+
     public TeaVMProgressListener getProgressListener() {
         return progressListener;
     }
@@ -548,6 +567,10 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
     }
 
     public ListableClassHolderSource link(DependencyAnalyzer dependency) {
+        if (optimizationThreads > 1) {
+            return linkConcurrently(dependency);
+        }
+
         Linker linker = new Linker(dependency);
         MutableClassHolderSource cutClasses = new MutableClassHolderSource();
         MissingItemsProcessor missingItemsProcessor = new MissingItemsProcessor(dependency,
@@ -576,6 +599,71 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
         return cutClasses;
     }
 
+    private ListableClassHolderSource linkConcurrently(DependencyAnalyzer dependency) {
+        MutableClassHolderSource cutClasses = new MutableClassHolderSource();
+        DependencyInfo sharedDependency = new SynchronizedDependencyInfo(dependency);
+        List<String> classNames = new ArrayList<>(dependency.getReachableClasses());
+        try (ParallelExecutor executor = new ParallelExecutor(optimizationThreads)) {
+            for (List<List<String>> round : splitIntoRounds(classNames)) {
+                List<List<ClassHolder>> linkedClasses = new ArrayList<>();
+                List<AccumulationDiagnostics> partitionDiagnostics = new ArrayList<>();
+                for (int i = 0; i < round.size(); ++i) {
+                    linkedClasses.add(new ArrayList<>());
+                    partitionDiagnostics.add(new AccumulationDiagnostics());
+                }
+
+                executor.forEach(round.size(), i -> {
+                    Linker linker = new Linker(sharedDependency);
+                    MissingItemsProcessor missingItemsProcessor = new MissingItemsProcessor(sharedDependency,
+                            new ClassHierarchy(sharedDependency.getClassSource()), partitionDiagnostics.get(i),
+                            target.getPlatformTags());
+                    for (String className : round.get(i)) {
+                        ClassReader clsReader = sharedDependency.getClassSource().get(className);
+                        if (clsReader != null) {
+                            ClassHolder cls = ModelUtils.copyClass(clsReader);
+                            linkedClasses.get(i).add(cls);
+                            missingItemsProcessor.processClass(cls);
+                            linker.link(cls);
+                        }
+                    }
+                });
+
+                for (int i = 0; i < round.size(); ++i) {
+                    for (ClassHolder cls : linkedClasses.get(i)) {
+                        cutClasses.putClassHolder(cls);
+                    }
+                    diagnostics.addAll(partitionDiagnostics.get(i));
+                    compileProgressValue += round.get(i).size();
+                }
+                reportCompileProgress(compileProgressValue);
+                if (wasCancelled()) {
+                    break;
+                }
+            }
+        }
+        return cutClasses;
+    }
+
+    /*
+     * Splits classes into rounds, each round is split into a partition per thread. Rounds let us report progress
+     * and check for cancellation between them; partitions are processed independently and their results are
+     * merged back in the original class order.
+     */
+    private List<List<List<String>>> splitIntoRounds(List<String> classNames) {
+        int roundSize = optimizationThreads * 64;
+        List<List<List<String>>> rounds = new ArrayList<>();
+        for (int start = 0; start < classNames.size(); start += roundSize) {
+            List<String> roundClasses = classNames.subList(start, Math.min(classNames.size(), start + roundSize));
+            int partitionSize = (roundClasses.size() + optimizationThreads - 1) / optimizationThreads;
+            List<List<String>> partitions = new ArrayList<>();
+            for (int i = 0; i < roundClasses.size(); i += partitionSize) {
+                partitions.add(roundClasses.subList(i, Math.min(roundClasses.size(), i + partitionSize)));
+            }
+            rounds.add(partitions);
+        }
+        return rounds;
+    }
+
     private void reportPhase(TeaVMPhase phase, int progressLimit) {
         if (progressListener.phaseStarted(phase, progressLimit) == TeaVMProgressFeedback.CANCEL) {
             cancelled = true;
@@ -597,6 +685,10 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
         if (wasCancelled()) {
             return;
         }
+        if (optimizationThreads > 1) {
+            devirtualizeConcurrently(classes);
+            return;
+        }
         Devirtualization devirtualization = new Devirtualization(dependencyAnalyzer,
                 dependencyAnalyzer.getClassHierarchy());
         for (String className : classes.getClassNames()) {
@@ -614,6 +706,43 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
         virtualMethods = devirtualization.getVirtualMethods();
     }
 
+    private void devirtualizeConcurrently(ListableClassHolderSource classes) {
+        DependencyInfo sharedDependency = new SynchronizedDependencyInfo(dependencyAnalyzer);
+        Set<MethodReference> allVirtualMethods = new LinkedHashSet<>();
+        try (ParallelExecutor executor = new ParallelExecutor(optimizationThreads)) {
+            for (List<List<String>> round : splitIntoRounds(new ArrayList<>(classes.getClassNames()))) {
+                List<Set<? extends MethodReference>> partitionVirtualMethods = new ArrayList<>();
+                for (int i = 0; i < round.size(); ++i) {
+                    partitionVirtualMethods.add(null);
+                }
+
+                executor.forEach(round.size(), i -> {
+                    Devirtualization devirtualization = new Devirtualization(sharedDependency,
+                            new ClassHierarchy(sharedDependency.getClassSource()));
+                    for (String className : round.get(i)) {
+                        ClassHolder cls = classes.get(className);
+                        for (MethodHolder method : cls.getMethods()) {
+                            if (method.getProgram() != null) {
+                                devirtualization.apply(method);
+                            }
+                        }
+                    }
+                    partitionVirtualMethods.set(i, devirtualization.getVirtualMethods());
+                });
+
+                for (int i = 0; i < round.size(); ++i) {
+                    allVirtualMethods.addAll(partitionVirtualMethods.get(i));
+                    compileProgressValue += round.get(i).size();
+                }
+                reportCompileProgress(compileProgressValue);
+                if (wasCancelled()) {
+                    break;
+                }
+            }
+        }
+        virtualMethods = allVirtualMethods;
+    }
+
     private void inline(ListableClassHolderSource classes) {
         if (optimizationLevel == TeaVMOptimizationLevel.SIMPLE) {
             return;
@@ -666,6 +795,10 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
     }
 
     private void optimize(ListableClassHolderSource classSource) {
+        if (optimizationThreads > 1) {
+            optimizeConcurrently(classSource);
+            return;
+        }
         for (String className : classSource.getClassNames()) {
             ClassHolder cls = classSource.get(className);
             for (MethodHolder method : cls.getMethods()) {
@@ -678,6 +811,81 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
         }
     }
 
+    private void optimizeConcurrently(ListableClassHolderSource classSource) {
+        List<String> classNames = new ArrayList<>(classSource.getClassNames());
+        int batchSize = optimizationThreads * 16;
+        try (ParallelExecutor executor = new ParallelExecutor(optimizationThreads)) {
+            for (int start = 0; start < classNames.size(); start += batchSize) {
+                List<ClassHolder> batch = new ArrayList<>();
+                for (String className : classNames.subList(start, Math.min(classNames.size(), start + batchSize))) {
+                    batch.add(classSource.get(className));
+                }
+                optimizeBatch(batch, executor);
+                for (int i = 0; i < batch.size(); ++i) {
+                    reportCompileProgress(++compileProgressValue);
+                }
+                if (wasCancelled()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /*
+     * Cache lookups, cache stores and target callbacks may touch shared state, so they run on the calling thread,
+     * in the same order as in sequential mode. Only the optimization fixpoint and register allocation,
+     * which are confined to a single program, run on worker threads.
+     */
+    private void optimizeBatch(List<ClassHolder> classes, ParallelExecutor executor) {
+        List<MethodHolder> methods = new ArrayList<>();
+        List<Program> programs = new ArrayList<>();
+        for (ClassHolder cls : classes) {
+            for (MethodHolder method : cls.getMethods()) {
+                if (method.getProgram() == null) {
+                    continue;
+                }
+                Program cachedProgram = !cacheStatus.isStaleMethod(method.getReference())
+                        ? programCache.get(method.getReference(), cacheStatus)
+                        : null;
+                if (cachedProgram != null) {
+                    method.setProgram(cachedProgram);
+                    continue;
+                }
+                Program program = ProgramUtils.copy(method.getProgram());
+                target.beforeOptimizations(program, method);
+                methods.add(method);
+                programs.add(program);
+            }
+        }
+
+        executor.forEach(methods.size(), i -> {
+            if (programs.get(i).basicBlockCount() > 0) {
+                applyOptimizations(methods.get(i), programs.get(i));
+            }
+        });
+
+        for (int i = 0; i < methods.size(); ++i) {
+            if (programs.get(i).basicBlockCount() > 0) {
+                target.afterOptimizations(programs.get(i), methods.get(i));
+            }
+        }
+        if (target.requiresRegisterAllocation()) {
+            executor.forEach(methods.size(), i -> {
+                if (programs.get(i).basicBlockCount() > 0) {
+                    allocateRegisters(methods.get(i), programs.get(i));
+                }
+            });
+        }
+
+        for (int i = 0; i < methods.size(); ++i) {
+            MethodHolder method = methods.get(i);
+            Program finalProgram = programs.get(i);
+            programCache.store(method.getReference(), finalProgram,
+                    () -> programDependencyExtractor.extractDependencies(finalProgram));
+            method.setProgram(finalProgram);
+        }
+    }
+
     private void optimizeMethod(MethodHolder method) {
         if (method.getProgram() == null) {
             return;
@@ -699,39 +907,46 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
         target.beforeOptimizations(optimizedProgram, method);
 
         if (optimizedProgram.basicBlockCount() > 0) {
-            MethodOptimizationContextImpl context = new MethodOptimizationContextImpl(method);
-            boolean changed;
-            do {
-                changed = false;
-                for (MethodOptimization optimization : getOptimizations()) {
-                    try {
-                        changed |= optimization.optimize(context, optimizedProgram);
-                    } catch (Exception | AssertionError e) {
-                        ListingBuilder listingBuilder = new ListingBuilder();
-                        try {
-                            String listing = listingBuilder.buildListing(optimizedProgram, "");
-                            System.err.println("Error optimizing program for method " + method.getReference()
-                                    + ":\n" + listing);
-                        } catch (RuntimeException e2) {
-                            System.err.println("Error optimizing program for method " + method.getReference());
-                            // do nothing
-                        }
-                        throw new RuntimeException(e);
-                    }
-                }
-            } while (changed);
-
+            applyOptimizations(method, optimizedProgram);
             target.afterOptimizations(optimizedProgram, method);
             if (target.requiresRegisterAllocation()) {
-                RegisterAllocator allocator = new RegisterAllocator();
-                allocator.allocateRegisters(method.getReference(), optimizedProgram,
-                        optimizationLevel == TeaVMOptimizationLevel.SIMPLE);
+                allocateRegisters(method, optimizedProgram);
             }
         }
 
         return optimizedProgram;
     }
 
+    private void applyOptimizations(MethodHolder method, Program optimizedProgram) {
+        MethodOptimizationContextImpl context = new MethodOptimizationContextImpl(method);
+        boolean changed;
+        do {
+            changed = false;
+            for (MethodOptimization optimization : getOptimizations()) {
+                try {
+                    changed |= optimization.optimize(context, optimizedProgram);
+                } catch (Exception | AssertionError e) {
+                    ListingBuilder listingBuilder = new ListingBuilder();
+                    try {
+                        String listing = listingBuilder.buildListing(optimizedProgram, "");
+                        System.err.println("Error optimizing program for method " + method.getReference()
+                                + ":\n" + listing);
+                    } catch (RuntimeException e2) {
+                        System.err.println("Error optimizing program for method " + method.getReference());
+                        // do nothing
+                    }
+                    throw new RuntimeException(e);
+                }
+            }
+        } while (changed);
+    }
+
+    private void allocateRegisters(MethodHolder method, Program program) {
+        RegisterAllocator allocator = new RegisterAllocator();
+        allocator.allocateRegisters(method.getReference(), program,
+                optimizationLevel == TeaVMOptimizationLevel.SIMPLE);
+    }
+
     class MethodOptimizationContextImpl implements MethodOptimizationContext {
         private MethodReader method;
 
@@ -909,6 +1124,11 @@ public class TeaVM implements TeaVMHost, ServiceRepository {
             return classInitializerInfo;
         }
 
+        @Override
+        public int getOptimizationThreads() {
+            return optimizationThreads;
+        }
+
         @Override
         public TeaVMOptimizationLevel getOptimizationLevel() {
             return optimizationLevel;
@@ -59,4 +59,10 @@ public interface TeaVMTargetController {
     void addVirtualMethods(Predicate<MethodReference> methods);
 
     ClassInitializerInfo getClassInitializerInfo();
+
+    /**
+     * Gets number of threads the target may use for independent per-method work, such as encoding
+     * of function bodies. Matches {@link TeaVM#getOptimizationThreads()}.
+     */
+    int getOptimizationThreads();
 }
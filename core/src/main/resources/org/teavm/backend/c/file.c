@@ -1,3 +1,6 @@
+#ifndef _FILE_OFFSET_BITS
+#define _FILE_OFFSET_BITS 64
+#endif
 #include "runtime.h"
 #include <stdlib.h>
 #include <errno.h>
@@ -12,6 +15,7 @@
 #include <utime.h>
 #include <pwd.h>
 #include <string.h>
+#include <sys/mman.h>
 
 int32_t teavm_file_homeDirectory(char16_t** result) {
     struct passwd *pw = getpwuid(getuid());
@@ -224,26 +228,16 @@ int32_t teavm_file_setLastModified(char16_t* name, int32_t nameSize, int64_t las
     return utime(mbName, &newTime) == 0;
 }
 
-int32_t teavm_file_length(char16_t* name, int32_t nameSize) {
+int64_t teavm_file_length(char16_t* name, int32_t nameSize) {
+    struct stat fileStat;
     char* mbName = teavm_char16ToMb(name, nameSize);
-    FILE* file = fopen(mbName, "r");
+    int statResult = stat(mbName, &fileStat);
     free(mbName);
 
-    if (file == NULL) {
-        return 0;
-    }
-
-    if (fseek(file, 0, SEEK_END) != 0) {
-        fclose(file);
-        return 0;
-    }
-
-    long result = ftell(file);
-    fclose(file);
-    if (result < 0) {
+    if (statResult != 0) {
         return 0;
     }
-    return (int32_t) result;
+    return (int64_t) fileStat.st_size;
 }
 
 int64_t teavm_file_open(char16_t* name, int32_t nameSize, int32_t mode) {
@@ -287,7 +281,7 @@ int32_t teavm_file_flush(int64_t file) {
     return fflush(handle) == 0;
 }
 
-int32_t teavm_file_seek(int64_t file, int32_t where, int32_t offset) {
+int32_t teavm_file_seek(int64_t file, int32_t where, int64_t offset) {
     FILE* handle = (FILE*) file;
     int whence;
     switch (where) {
@@ -301,12 +295,12 @@ int32_t teavm_file_seek(int64_t file, int32_t where, int32_t offset) {
             whence = SEEK_END;
             break;
     }
-    return fseek(handle, offset, whence) == 0;
+    return fseeko(handle, (off_t) offset, whence) == 0;
 }
 
-int32_t teavm_file_tell(int64_t file) {
+int64_t teavm_file_tell(int64_t file) {
     FILE* handle = (FILE*) file;
-    return (int32_t) ftell(handle);
+    return (int64_t) ftello(handle);
 }
 
 int32_t teavm_file_read(int64_t file, int8_t* data, int32_t offset, int32_t size) {
@@ -319,6 +313,40 @@ int32_t teavm_file_write(int64_t file, int8_t* data, int32_t offset, int32_t siz
     return (int32_t) fwrite(data + offset, 1, size, handle);
 }
 
+// Offset passed to mmap must be aligned to page size, so we map slightly larger region
+// and return pointer into it. Start of the region is restored from the pointer, since mmap
+// returns page-aligned addresses.
+
+void* teavm_file_map(int64_t file, int32_t mode, int64_t position, int32_t size) {
+    int fd = fileno((FILE*) file);
+    int64_t pageSize = (int64_t) sysconf(_SC_PAGESIZE);
+    int64_t delta = position % pageSize;
+    int protection = mode == 0 ? PROT_READ : PROT_READ | PROT_WRITE;
+    int flags = mode == 2 ? MAP_PRIVATE : MAP_SHARED;
+    void* result = mmap(NULL, (size_t) (size + delta), protection, flags, fd, (off_t) (position - delta));
+    if (result == MAP_FAILED) {
+        return NULL;
+    }
+    return (char*) result + delta;
+}
+
+static void* teavm_file_mappedRegionStart(void* address, int32_t* size) {
+    uintptr_t pageSize = (uintptr_t) sysconf(_SC_PAGESIZE);
+    uintptr_t delta = (uintptr_t) address % pageSize;
+    *size += (int32_t) delta;
+    return (char*) address - delta;
+}
+
+int32_t teavm_file_unmap(void* address, int32_t size) {
+    void* start = teavm_file_mappedRegionStart(address, &size);
+    return munmap(start, (size_t) size) == 0;
+}
+
+int32_t teavm_file_forceMapped(void* address, int32_t size) {
+    void* start = teavm_file_mappedRegionStart(address, &size);
+    return msync(start, (size_t) size, MS_SYNC) == 0;
+}
+
 int32_t teavm_file_isWindows() {
     return 0;
 }
@@ -513,12 +541,15 @@ int32_t teavm_file_setLastModified(char16_t* name, int32_t nameSize, int64_t las
     return status;
 }
 
-int32_t teavm_file_length(char16_t* name, int32_t nameSize) {
+int64_t teavm_file_length(char16_t* name, int32_t nameSize) {
     WIN32_FILE_ATTRIBUTE_DATA fileAttributeData;
     WCHAR* nativeName = teavm_file_convertPath(name, nameSize);
     int attributes = GetFileAttributesExW(nativeName, GetFileExInfoStandard, &fileAttributeData);
     free(nativeName);
-    return fileAttributeData.nFileSizeLow;
+    if (!attributes) {
+        return 0;
+    }
+    return ((int64_t) fileAttributeData.nFileSizeHigh << 32) | fileAttributeData.nFileSizeLow;
 }
 
 int64_t teavm_file_open(char16_t* name, int32_t nameSize, int32_t mode) {
@@ -562,12 +593,20 @@ int32_t teavm_file_flush(int64_t file) {
     return FlushFileBuffers((HANDLE) file);
 }
 
-int32_t teavm_file_seek(int64_t file, int32_t where, int32_t offset) {
-  return SetFilePointer((HANDLE) file, offset, 0, where);
+int32_t teavm_file_seek(int64_t file, int32_t where, int64_t offset) {
+  LARGE_INTEGER distance;
+  distance.QuadPart = offset;
+  return SetFilePointerEx((HANDLE) file, distance, NULL, where);
 }
 
-int32_t teavm_file_tell(int64_t file) {
-  return SetFilePointer((HANDLE) file, 0, 0, 1);
+int64_t teavm_file_tell(int64_t file) {
+  LARGE_INTEGER distance;
+  LARGE_INTEGER result;
+  distance.QuadPart = 0;
+  if (!SetFilePointerEx((HANDLE) file, distance, &result, FILE_CURRENT)) {
+    return -1;
+  }
+  return result.QuadPart;
 }
 
 int32_t teavm_file_read(int64_t file, int8_t* data, int32_t offset, int32_t size) {
@@ -582,6 +621,39 @@ int32_t teavm_file_write(int64_t file, int8_t* data, int32_t offset, int32_t siz
   return result ? numWritten : 0;
 }
 
+static int64_t teavm_file_allocationGranularity() {
+    SYSTEM_INFO systemInfo;
+    GetSystemInfo(&systemInfo);
+    return systemInfo.dwAllocationGranularity;
+}
+
+void* teavm_file_map(int64_t file, int32_t mode, int64_t position, int32_t size) {
+    int64_t delta = position % teavm_file_allocationGranularity();
+    int64_t start = position - delta;
+    int64_t end = position + size;
+    DWORD protection = mode == 0 ? PAGE_READONLY : mode == 1 ? PAGE_READWRITE : PAGE_WRITECOPY;
+    DWORD access = mode == 0 ? FILE_MAP_READ : mode == 1 ? FILE_MAP_WRITE : FILE_MAP_COPY;
+    HANDLE mapping = CreateFileMappingW((HANDLE) file, NULL, protection, (DWORD) (end >> 32), (DWORD) end, NULL);
+    if (mapping == NULL) {
+        return NULL;
+    }
+    void* result = MapViewOfFile(mapping, access, (DWORD) (start >> 32), (DWORD) start, (SIZE_T) (size + delta));
+    CloseHandle(mapping);
+    if (result == NULL) {
+        return NULL;
+    }
+    return (char*) result + delta;
+}
+
+int32_t teavm_file_unmap(void* address, int32_t size) {
+    uintptr_t delta = (uintptr_t) address % (uintptr_t) teavm_file_allocationGranularity();
+    return UnmapViewOfFile((char*) address - delta);
+}
+
+int32_t teavm_file_forceMapped(void* address, int32_t size) {
+    return FlushViewOfFile(address, (SIZE_T) size);
+}
+
 int32_t teavm_file_isWindows() {
     return 1;
 }
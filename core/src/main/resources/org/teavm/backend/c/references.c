@@ -10,8 +10,10 @@ int32_t teavm_reference_enqueue(TeaVM_Reference* reference) {
         queue->first = reference;
     } else {
         queue->last->next = reference;
+        teavm_gc_writeBarrier(queue->last);
     }
     queue->last = reference;
+    teavm_gc_writeBarrier(queue);
 
     return INT32_C(1);
 }
@@ -38,10 +40,12 @@ TeaVM_Reference* teavm_reference_poll(TeaVM_ReferenceQueue* queue) {
     if (queue->first == NULL) {
         queue->last = NULL;
     }
+    teavm_gc_writeBarrier(queue);
     return reference;
 }
 
 void teavm_reference_init(TeaVM_Reference* reference, TeaVM_Object* object, TeaVM_ReferenceQueue* queue) {
     reference->object = object;
     reference->queue = queue;
+    teavm_gc_writeBarrier(reference);
 }
\ No newline at end of file
@@ -28,7 +28,7 @@ void* teavm_gc_heapAddress = NULL;
     uint8_t* teavm_gc_markMap = NULL;
 #endif
 
-TeaVM_StackFrame* teavm_stackTop = NULL;
+TEAVM_THREAD_LOCAL TeaVM_StackFrame* teavm_stackTop = NULL;
 
 void* teavm_gc_gcStorageAddress = NULL;
 int32_t teavm_gc_gcStorageSize = INT32_C(0);
@@ -36,6 +36,9 @@ void* teavm_gc_regionsAddress = NULL;
 int32_t teavm_gc_regionSize = INT32_C(32768);
 int32_t teavm_gc_regionMaxCount = INT32_C(0);
 int64_t teavm_gc_availableBytes = INT64_C(0);
+int64_t teavm_gc_minAvailableBytes = INT64_C(0);
+int64_t teavm_gc_maxAvailableBytes = INT64_C(0);
+uint8_t* teavm_gc_cardTableAddress = NULL;
 
 char *teavm_beforeClasses;
 
@@ -112,10 +115,24 @@ void teavm_beforeInit() {
 
 #ifdef __GNUC__
 
-static void* teavm_virtualAlloc(int size) {
+static void* teavm_virtualAlloc(size_t size) {
     return mmap(NULL, size, PROT_READ | PROT_WRITE, MAP_PRIVATE | MAP_ANONYMOUS, 0, 0);
 }
 
+static void* teavm_virtualReserve(size_t size) {
+    void* address = mmap(NULL, size, PROT_NONE, MAP_PRIVATE | MAP_ANONYMOUS | MAP_NORESERVE, -1, 0);
+    return address != MAP_FAILED ? address : NULL;
+}
+
+static int teavm_virtualCommit(void* address, size_t size) {
+    return mprotect(address, size, PROT_READ | PROT_WRITE) == 0;
+}
+
+static void teavm_virtualDecommit(void* address, size_t size) {
+    madvise(address, size, MADV_DONTNEED);
+    mprotect(address, size, PROT_NONE);
+}
+
 static long teavm_pageSize() {
     return sysconf(_SC_PAGE_SIZE);
 }
@@ -135,7 +152,7 @@ int64_t teavm_currentTimeNano() {
 #endif
 
 #ifdef _MSC_VER
-static void* teavm_virtualAlloc(int size) {
+static void* teavm_virtualAlloc(size_t size) {
     #ifdef _WINDOWS_UWP
         return VirtualAllocFromApp(
                 NULL,
@@ -153,6 +170,26 @@ static void* teavm_virtualAlloc(int size) {
     #endif
 }
 
+static void* teavm_virtualReserve(size_t size) {
+    #ifdef _WINDOWS_UWP
+        return VirtualAllocFromApp(NULL, size, MEM_RESERVE, PAGE_NOACCESS);
+    #else
+        return VirtualAlloc(NULL, size, MEM_RESERVE, PAGE_NOACCESS);
+    #endif
+}
+
+static int teavm_virtualCommit(void* address, size_t size) {
+    #ifdef _WINDOWS_UWP
+        return VirtualAllocFromApp(address, size, MEM_COMMIT, PAGE_READWRITE) != NULL;
+    #else
+        return VirtualAlloc(address, size, MEM_COMMIT, PAGE_READWRITE) != NULL;
+    #endif
+}
+
+static void teavm_virtualDecommit(void* address, size_t size) {
+    VirtualFree(address, size, MEM_DECOMMIT);
+}
+
 static long teavm_pageSize() {
     SYSTEM_INFO systemInfo;
     GetSystemInfo(&systemInfo);
@@ -176,29 +213,70 @@ int64_t teavm_currentTimeNano() {
 }
 #endif
 
-static int teavm_pageCount(int64_t size, int64_t pageSize) {
-    return (int) ((size + pageSize + 1) / pageSize * pageSize);
+static size_t teavm_alignToPage(int64_t size, int64_t pageSize) {
+    return (size_t) ((size + pageSize - 1) / pageSize * pageSize);
 }
 
-void teavm_initHeap(int64_t heapSize) {
-    long workSize = (long) (heapSize / 16);
-    long regionsSize = (long) (heapSize / teavm_gc_regionSize) + 1;
-    long pageSize = teavm_pageSize();
+void teavm_initHeap(int64_t heapSize, int64_t maxHeapSize) {
+    if (maxHeapSize < heapSize) {
+        maxHeapSize = heapSize;
+    }
+    int64_t workSize = maxHeapSize / 16;
+    if (workSize > INT32_MAX) {
+        workSize = INT32_MAX;
+    }
+    int64_t regionsSize = maxHeapSize / teavm_gc_regionSize + 1;
+    int64_t pageSize = teavm_pageSize();
 
-    teavm_gc_heapAddress = teavm_virtualAlloc(teavm_pageCount(heapSize, pageSize));
-    teavm_gc_gcStorageAddress = teavm_virtualAlloc(teavm_pageCount(workSize, pageSize));
-    teavm_gc_regionsAddress = teavm_virtualAlloc(teavm_pageCount(regionsSize * 2, pageSize));
+    teavm_gc_heapAddress = teavm_virtualReserve(teavm_alignToPage(maxHeapSize, pageSize));
+    if (teavm_gc_heapAddress == NULL) {
+        fprintf(stderr, "Could not reserve %" PRId64 " bytes of address space for heap\n", maxHeapSize);
+        abort();
+    }
+    if (!teavm_virtualCommit(teavm_gc_heapAddress, teavm_alignToPage(heapSize, pageSize))) {
+        fprintf(stderr, "Could not commit initial %" PRId64 " bytes of heap\n", heapSize);
+        abort();
+    }
+    teavm_gc_gcStorageAddress = teavm_virtualAlloc(teavm_alignToPage(workSize, pageSize));
+    teavm_gc_regionsAddress = teavm_virtualAlloc(teavm_alignToPage(regionsSize * 2, pageSize));
+    #if TEAVM_GC_GENERATIONAL
+        teavm_gc_cardTableAddress = teavm_virtualAlloc(teavm_alignToPage(regionsSize, pageSize));
+        memset(teavm_gc_cardTableAddress, 0, (size_t) regionsSize);
+    #endif
 
     #ifdef TEAVM_MEMORY_TRACE
-        int64_t heapMapSize = heapSize / sizeof(void*);
-        teavm_gc_heapMap = teavm_virtualAlloc(teavm_pageCount(heapMapSize, pageSize));
-        memset(teavm_gc_heapMap, 0, heapMapSize);
-        teavm_gc_markMap = teavm_virtualAlloc(teavm_pageCount(heapMapSize, pageSize));
+        int64_t heapMapSize = maxHeapSize / sizeof(void*);
+        teavm_gc_heapMap = teavm_virtualAlloc(teavm_alignToPage(heapMapSize, pageSize));
+        memset(teavm_gc_heapMap, 0, (size_t) heapMapSize);
+        teavm_gc_markMap = teavm_virtualAlloc(teavm_alignToPage(heapMapSize, pageSize));
     #endif
 
-    teavm_gc_gcStorageSize = (int) workSize;
-    teavm_gc_regionMaxCount = regionsSize;
+    teavm_gc_gcStorageSize = (int32_t) workSize;
+    teavm_gc_regionMaxCount = (int32_t) regionsSize;
     teavm_gc_availableBytes = heapSize;
+    teavm_gc_minAvailableBytes = heapSize;
+    teavm_gc_maxAvailableBytes = maxHeapSize;
+}
+
+int32_t teavm_gc_resizeHeap(int64_t newSize) {
+    if (newSize < teavm_gc_minAvailableBytes || newSize > teavm_gc_maxAvailableBytes) {
+        return 0;
+    }
+
+    int64_t pageSize = teavm_pageSize();
+    size_t oldCommitted = teavm_alignToPage(teavm_gc_availableBytes, pageSize);
+    size_t newCommitted = teavm_alignToPage(newSize, pageSize);
+    char* heap = (char*) teavm_gc_heapAddress;
+    if (newCommitted > oldCommitted) {
+        if (!teavm_virtualCommit(heap + oldCommitted, newCommitted - oldCommitted)) {
+            return 0;
+        }
+    } else if (newCommitted < oldCommitted) {
+        teavm_virtualDecommit(heap + newCommitted, oldCommitted - newCommitted);
+    }
+
+    teavm_gc_availableBytes = newSize;
+    return 1;
 }
 
 #ifdef _MSC_VER
@@ -499,6 +577,7 @@ TeaVM_Array* teavm_parseArguments(int argc, char** argv) {
     TeaVM_String** arrayData = TEAVM_ARRAY_DATA(array, TeaVM_String*);
     for (int i = 1; i < argc; ++i) {
         arrayData[i - 1] = teavm_cToString(argv[i]);
+        teavm_gc_writeBarrier(array);
     }
     return array;
 }
@@ -41,6 +41,28 @@
     #define TEAVM_HEAP_DUMP 0
 #endif
 
+#ifndef TEAVM_GC_GENERATIONAL
+    #define TEAVM_GC_GENERATIONAL 0
+#endif
+
+#ifndef TEAVM_MULTITHREADED
+    #define TEAVM_MULTITHREADED 0
+#endif
+
+#if TEAVM_MULTITHREADED
+    #define TEAVM_THREAD_LOCAL _Thread_local
+#else
+    #define TEAVM_THREAD_LOCAL
+#endif
+
+#ifndef TEAVM_GC_MIN_HEAP_FREE_RATIO
+    #define TEAVM_GC_MIN_HEAP_FREE_RATIO 30
+#endif
+
+#ifndef TEAVM_GC_MAX_HEAP_FREE_RATIO
+    #define TEAVM_GC_MAX_HEAP_FREE_RATIO 70
+#endif
+
 #define TEAVM_FIELD_TYPE_OBJECT 0
 #define TEAVM_FIELD_TYPE_ARRAY 1
 #define TEAVM_FIELD_TYPE_BOOLEAN 2
@@ -107,6 +129,8 @@ typedef struct TeaVM_Class {
     #endif
 } TeaVM_Class;
 
+#define TEAVM_CLASS_INITIALIZED INT32_C(1)
+
 typedef struct TeaVM_String {
     TeaVM_Object parent;
     TeaVM_Array* characters;
@@ -181,6 +205,9 @@ extern void* teavm_gc_regionsAddress;
 extern int32_t teavm_gc_regionSize;
 extern int32_t teavm_gc_regionMaxCount;
 extern int64_t teavm_gc_availableBytes;
+extern int64_t teavm_gc_minAvailableBytes;
+extern int64_t teavm_gc_maxAvailableBytes;
+extern uint8_t* teavm_gc_cardTableAddress;
 extern void*** teavm_gc_staticRoots;
 extern char* teavm_beforeClasses;
 
@@ -227,6 +254,19 @@ extern char* teavm_beforeClasses;
 #define TEAVM_TO_SHORT(i) ((((i) << 16) >> 16))
 #define TEAVM_TO_CHAR(i) ((char16_t) (i))
 
+#define teavm_gc_isGenerational TEAVM_GC_GENERATIONAL
+#define teavm_gc_minHeapFreeRatio TEAVM_GC_MIN_HEAP_FREE_RATIO
+#define teavm_gc_maxHeapFreeRatio TEAVM_GC_MAX_HEAP_FREE_RATIO
+
+static inline void teavm_gc_writeBarrier(void* object) {
+    #if TEAVM_GC_GENERATIONAL
+        uintptr_t offset = (uintptr_t) ((char*) object - (char*) teavm_gc_heapAddress);
+        if (offset < (uintptr_t) teavm_gc_availableBytes) {
+            teavm_gc_cardTableAddress[offset / (uintptr_t) teavm_gc_regionSize] = 1;
+        }
+    #endif
+}
+
 #define TEAVM_PACK_MONITOR(ref) (((int32_t) ((uintptr_t) (ref) - (uintptr_t) teavm_gc_heapAddress) / sizeof(int)) \
     | 0x80000000)
 #define TEAVM_UNPACK_MONITOR(ref) ((ref & 0x80000000) != 0 \
@@ -290,7 +330,11 @@ static inline void* teavm_checkcast(void* obj, int32_t (*cls)(TeaVM_Class*)) {
 #define TEAVM_GC_ROOT_RELEASE(index) teavm_shadowStack.data[index] = NULL
 #define TEAVM_GC_ROOTS_COUNT(ptr) (((TeaVM_StackFrame*) (ptr))->size);
 #define TEAVM_GET_GC_ROOTS(ptr) &((struct { TeaVM_StackFrame header; void* data[1]; }*) (ptr))->data;
-#define TEAVM_CALL_SITE(id) (teavm_shadowStack.header.callSiteId = (id))
+#if TEAVM_MULTITHREADED
+    #define TEAVM_CALL_SITE(id) (teavm_shadowStack.header.callSiteId = (id), TEAVM_SAFEPOINT)
+#else
+    #define TEAVM_CALL_SITE(id) (teavm_shadowStack.header.callSiteId = (id))
+#endif
 #define TEAVM_WITH_CALL_SITE_ID(id, expr) (TEAVM_CALL_SITE(id), (expr))
 #define TEAVM_EXCEPTION_HANDLER (teavm_shadowStack.header.callSiteId)
 #define TEAVM_SET_EXCEPTION_HANDLER(frame, id) (((TeaVM_StackFrame*) (frame))->callSiteId = (id))
@@ -316,7 +360,91 @@ static inline void* teavm_checkcast(void* obj, int32_t (*cls)(TeaVM_Class*)) {
     .hashCode = INT32_C(hash) \
 }
 
-extern TeaVM_StackFrame* teavm_stackTop;
+extern TEAVM_THREAD_LOCAL TeaVM_StackFrame* teavm_stackTop;
+
+#if TEAVM_MULTITHREADED
+    typedef struct TeaVM_Thread {
+        TeaVM_StackFrame** stackTop;
+        void* bufferCurrent;
+        void* bufferLimit;
+        int32_t id;
+        int32_t daemon;
+        int32_t safe;
+        volatile int32_t interrupted;
+        struct TeaVM_Thread* next;
+    } TeaVM_Thread;
+
+    extern TeaVM_Thread* teavm_firstThread;
+    extern TEAVM_THREAD_LOCAL TeaVM_Thread* teavm_currentThread;
+    extern TEAVM_THREAD_LOCAL void* teavm_thrownException;
+    extern volatile int32_t teavm_safepointRequested;
+
+    extern void teavm_safepoint();
+    #define TEAVM_SAFEPOINT (teavm_safepointRequested ? teavm_safepoint() : (void) 0)
+
+    extern void teavm_initThreads();
+    extern void teavm_thread_joinAll();
+    extern void teavm_thread_run(int32_t id);
+    extern void teavm_gc_releaseThreadBuffer();
+
+    static inline void* teavm_thread_current() {
+        return teavm_currentThread;
+    }
+    static inline void* teavm_thread_first() {
+        return teavm_firstThread;
+    }
+    static inline void* teavm_thread_next(void* thread) {
+        return ((TeaVM_Thread*) thread)->next;
+    }
+    static inline void* teavm_thread_stackTop(void* thread) {
+        TeaVM_StackFrame** stackTop = ((TeaVM_Thread*) thread)->stackTop;
+        return stackTop != NULL ? *stackTop : NULL;
+    }
+    static inline void* teavm_thread_bufferCurrent(void* thread) {
+        return ((TeaVM_Thread*) thread)->bufferCurrent;
+    }
+    static inline void* teavm_thread_bufferLimit(void* thread) {
+        return ((TeaVM_Thread*) thread)->bufferLimit;
+    }
+    static inline void teavm_thread_setBufferCurrent(void* thread, void* current) {
+        ((TeaVM_Thread*) thread)->bufferCurrent = current;
+    }
+    static inline void teavm_thread_setBuffer(void* thread, void* current, void* limit) {
+        ((TeaVM_Thread*) thread)->bufferCurrent = current;
+        ((TeaVM_Thread*) thread)->bufferLimit = limit;
+    }
+    static inline int32_t teavm_thread_currentId() {
+        return teavm_currentThread->id;
+    }
+    static inline void teavm_thread_setException(void* exception) {
+        teavm_thrownException = exception;
+    }
+    static inline void* teavm_thread_takeException() {
+        void* exception = teavm_thrownException;
+        teavm_thrownException = NULL;
+        return exception;
+    }
+
+    extern void teavm_thread_lockHeap();
+    extern void teavm_thread_unlockHeap();
+    extern void teavm_thread_stopTheWorld();
+    extern void teavm_thread_resumeTheWorld();
+    extern int32_t teavm_thread_beginClassInit(TeaVM_Class* cls);
+    extern void teavm_thread_endClassInit(TeaVM_Class* cls);
+    extern void teavm_thread_abortClassInit(void* targetFrame);
+
+    extern void teavm_thread_start(int32_t id, int32_t daemon);
+    extern int32_t teavm_thread_identity(void* object);
+    extern void teavm_thread_monitorEnter(int32_t identity, int32_t count);
+    extern int32_t teavm_thread_monitorExit(int32_t identity, int32_t count);
+    extern int32_t teavm_thread_holdsLock(int32_t identity);
+    extern int32_t teavm_thread_wait(int32_t identity, int64_t timeout);
+    extern int32_t teavm_thread_notify(int32_t identity, int32_t all);
+    extern int32_t teavm_thread_sleep(int64_t millis);
+    extern void teavm_thread_yield();
+    extern void teavm_thread_interrupt(int32_t id);
+    extern int32_t teavm_thread_isInterrupted(int32_t id, int32_t clear);
+#endif
 
 extern double teavm_rand();
 
@@ -355,7 +483,8 @@ static inline void* teavm_lookupResourceValue(TeaVM_ResourceMap *map, TeaVM_Stri
 extern TeaVM_Array* teavm_resourceMapKeys(TeaVM_ResourceMap *);
 
 extern void teavm_beforeInit();
-extern void teavm_initHeap(int64_t heapSize);
+extern void teavm_initHeap(int64_t minHeapSize, int64_t maxHeapSize);
+extern int32_t teavm_gc_resizeHeap(int64_t newSize);
 extern void teavm_afterInitClasses();
 
 extern int64_t teavm_currentTimeMillis();
@@ -492,14 +621,17 @@ extern int32_t teavm_file_delete(char16_t*, int32_t);
 extern int32_t teavm_file_rename(char16_t*, int32_t, char16_t*, int32_t);
 extern int64_t teavm_file_lastModified(char16_t*, int32_t);
 extern int32_t teavm_file_setLastModified(char16_t*, int32_t, int64_t);
-extern int32_t teavm_file_length(char16_t*, int32_t);
+extern int64_t teavm_file_length(char16_t*, int32_t);
 extern int64_t teavm_file_open(char16_t*, int32_t, int32_t);
 extern int32_t teavm_file_close(int64_t);
 extern int32_t teavm_file_flush(int64_t);
-extern int32_t teavm_file_seek(int64_t, int32_t, int32_t);
-extern int32_t teavm_file_tell(int64_t);
+extern int32_t teavm_file_seek(int64_t, int32_t, int64_t);
+extern int64_t teavm_file_tell(int64_t);
 extern int32_t teavm_file_read(int64_t, int8_t*, int32_t, int32_t);
 extern int32_t teavm_file_write(int64_t, int8_t*, int32_t, int32_t);
+extern void* teavm_file_map(int64_t, int32_t, int64_t, int32_t);
+extern int32_t teavm_file_unmap(void*, int32_t);
+extern int32_t teavm_file_forceMapped(void*, int32_t);
 extern int32_t teavm_file_isWindows();
 extern int32_t teavm_file_canonicalize(char16_t*, int32_t, char16_t**);
 
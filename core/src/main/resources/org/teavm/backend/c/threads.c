@@ -0,0 +1,581 @@
+#include "runtime.h"
+
+#if TEAVM_MULTITHREADED
+
+#ifdef _MSC_VER
+#error "Multithreaded runtime requires POSIX threads"
+#endif
+
+#include <pthread.h>
+#include <sched.h>
+#include <errno.h>
+#include <time.h>
+#include <stdio.h>
+
+#define TEAVM_MONITOR_STRIPES 64
+
+typedef struct TeaVM_Monitor {
+    int32_t identity;
+    TeaVM_Thread* owner;
+    int32_t count;
+    int32_t entering;
+    int32_t waiting;
+    int32_t permits;
+    struct TeaVM_Monitor* next;
+} TeaVM_Monitor;
+
+typedef struct {
+    pthread_mutex_t mutex;
+    pthread_cond_t cond;
+    TeaVM_Monitor* monitors;
+} TeaVM_MonitorStripe;
+
+// Class which is being initialized by some thread. Frame is the top of shadow stack when initialization
+// started, so that initialization can be abandoned when exception unwinds stack past this frame.
+typedef struct TeaVM_ClassInit {
+    TeaVM_Class* cls;
+    TeaVM_Thread* owner;
+    TeaVM_StackFrame* frame;
+    struct TeaVM_ClassInit* next;
+} TeaVM_ClassInit;
+
+TeaVM_Thread* teavm_firstThread = NULL;
+TEAVM_THREAD_LOCAL TeaVM_Thread* teavm_currentThread = NULL;
+TEAVM_THREAD_LOCAL void* teavm_thrownException = NULL;
+volatile int32_t teavm_safepointRequested = 0;
+
+static TeaVM_Thread teavm_mainThread;
+static int32_t teavm_nonDaemonThreads = 0;
+static pthread_mutex_t teavm_threadsMutex = PTHREAD_MUTEX_INITIALIZER;
+static pthread_cond_t teavm_threadStopped = PTHREAD_COND_INITIALIZER;
+static pthread_cond_t teavm_worldResumed = PTHREAD_COND_INITIALIZER;
+static pthread_cond_t teavm_threadFinished = PTHREAD_COND_INITIALIZER;
+static pthread_mutex_t teavm_heapMutex = PTHREAD_MUTEX_INITIALIZER;
+static pthread_mutex_t teavm_classInitMutex = PTHREAD_MUTEX_INITIALIZER;
+static pthread_cond_t teavm_classInitDone = PTHREAD_COND_INITIALIZER;
+static TeaVM_ClassInit* teavm_classInits = NULL;
+static TeaVM_MonitorStripe teavm_monitorStripes[TEAVM_MONITOR_STRIPES];
+static volatile int32_t teavm_nextIdentity = 1;
+
+void teavm_initThreads() {
+    for (int i = 0; i < TEAVM_MONITOR_STRIPES; ++i) {
+        pthread_mutex_init(&teavm_monitorStripes[i].mutex, NULL);
+        pthread_cond_init(&teavm_monitorStripes[i].cond, NULL);
+        teavm_monitorStripes[i].monitors = NULL;
+    }
+
+    teavm_mainThread.stackTop = &teavm_stackTop;
+    teavm_currentThread = &teavm_mainThread;
+    teavm_firstThread = &teavm_mainThread;
+}
+
+// Thread is safe when it does not touch heap and all its live references are registered in shadow stack.
+// Garbage collector only runs when all threads except for collecting one are safe.
+
+static void teavm_thread_waitForWorld() {
+    while (teavm_safepointRequested) {
+        pthread_cond_wait(&teavm_worldResumed, &teavm_threadsMutex);
+    }
+}
+
+static void teavm_thread_enterSafeRegion(TeaVM_Thread* thread) {
+    pthread_mutex_lock(&teavm_threadsMutex);
+    thread->safe = 1;
+    if (teavm_safepointRequested) {
+        pthread_cond_broadcast(&teavm_threadStopped);
+    }
+    pthread_mutex_unlock(&teavm_threadsMutex);
+}
+
+static void teavm_thread_leaveSafeRegion(TeaVM_Thread* thread) {
+    pthread_mutex_lock(&teavm_threadsMutex);
+    teavm_thread_waitForWorld();
+    thread->safe = 0;
+    pthread_mutex_unlock(&teavm_threadsMutex);
+}
+
+void teavm_safepoint() {
+    TeaVM_Thread* thread = teavm_currentThread;
+    pthread_mutex_lock(&teavm_threadsMutex);
+    thread->safe = 1;
+    pthread_cond_broadcast(&teavm_threadStopped);
+    teavm_thread_waitForWorld();
+    thread->safe = 0;
+    pthread_mutex_unlock(&teavm_threadsMutex);
+}
+
+static void teavm_thread_lockMutex(pthread_mutex_t* mutex) {
+    if (pthread_mutex_trylock(mutex) != 0) {
+        TeaVM_Thread* thread = teavm_currentThread;
+        teavm_thread_enterSafeRegion(thread);
+        pthread_mutex_lock(mutex);
+        teavm_thread_leaveSafeRegion(thread);
+    }
+}
+
+static int32_t teavm_thread_waitCondition(pthread_cond_t* cond, pthread_mutex_t* mutex, struct timespec* deadline) {
+    if (deadline == NULL) {
+        pthread_cond_wait(cond, mutex);
+        return 1;
+    }
+    return pthread_cond_timedwait(cond, mutex, deadline) != ETIMEDOUT;
+}
+
+static struct timespec* teavm_thread_deadline(int64_t millis, struct timespec* result) {
+    if (millis <= 0) {
+        return NULL;
+    }
+    clock_gettime(CLOCK_REALTIME, result);
+    result->tv_sec += millis / 1000;
+    result->tv_nsec += (millis % 1000) * 1000000L;
+    if (result->tv_nsec >= 1000000000L) {
+        result->tv_sec++;
+        result->tv_nsec -= 1000000000L;
+    }
+    return result;
+}
+
+void teavm_thread_lockHeap() {
+    teavm_thread_lockMutex(&teavm_heapMutex);
+}
+
+void teavm_thread_unlockHeap() {
+    pthread_mutex_unlock(&teavm_heapMutex);
+}
+
+void teavm_thread_stopTheWorld() {
+    TeaVM_Thread* current = teavm_currentThread;
+    pthread_mutex_lock(&teavm_threadsMutex);
+    teavm_safepointRequested = 1;
+    while (1) {
+        TeaVM_Thread* thread = teavm_firstThread;
+        while (thread != NULL && (thread == current || thread->safe)) {
+            thread = thread->next;
+        }
+        if (thread == NULL) {
+            break;
+        }
+        pthread_cond_wait(&teavm_threadStopped, &teavm_threadsMutex);
+    }
+    pthread_mutex_unlock(&teavm_threadsMutex);
+}
+
+void teavm_thread_resumeTheWorld() {
+    pthread_mutex_lock(&teavm_threadsMutex);
+    teavm_safepointRequested = 0;
+    pthread_cond_broadcast(&teavm_worldResumed);
+    pthread_mutex_unlock(&teavm_threadsMutex);
+}
+
+// Class initialization follows JLS 12.4.2: the first thread runs initializer, other threads wait until it
+// completes, recursive requests from the initializing thread return immediately. As in single-threaded
+// runtime, class is considered initialized even if its initializer throws exception.
+// Class init mutex is never held across safepoints, so it's taken without entering safe region.
+
+int32_t teavm_thread_beginClassInit(TeaVM_Class* cls) {
+    TeaVM_Thread* thread = teavm_currentThread;
+    int32_t result;
+    pthread_mutex_lock(&teavm_classInitMutex);
+    while (1) {
+        if (__atomic_load_n(&cls->flags, __ATOMIC_ACQUIRE) & TEAVM_CLASS_INITIALIZED) {
+            result = 0;
+            break;
+        }
+        TeaVM_ClassInit* init = teavm_classInits;
+        while (init != NULL && init->cls != cls) {
+            init = init->next;
+        }
+        if (init == NULL) {
+            init = malloc(sizeof(TeaVM_ClassInit));
+            init->cls = cls;
+            init->owner = thread;
+            init->frame = teavm_stackTop;
+            init->next = teavm_classInits;
+            teavm_classInits = init;
+            result = 1;
+            break;
+        }
+        if (init->owner == thread) {
+            result = 0;
+            break;
+        }
+
+        teavm_thread_enterSafeRegion(thread);
+        pthread_cond_wait(&teavm_classInitDone, &teavm_classInitMutex);
+        pthread_mutex_unlock(&teavm_classInitMutex);
+        teavm_thread_leaveSafeRegion(thread);
+        pthread_mutex_lock(&teavm_classInitMutex);
+    }
+    pthread_mutex_unlock(&teavm_classInitMutex);
+    return result;
+}
+
+static void teavm_thread_completeClassInit(TeaVM_ClassInit** link) {
+    TeaVM_ClassInit* init = *link;
+    __atomic_fetch_or(&init->cls->flags, TEAVM_CLASS_INITIALIZED, __ATOMIC_RELEASE);
+    *link = init->next;
+    free(init);
+    pthread_cond_broadcast(&teavm_classInitDone);
+}
+
+void teavm_thread_endClassInit(TeaVM_Class* cls) {
+    pthread_mutex_lock(&teavm_classInitMutex);
+    TeaVM_ClassInit** link = &teavm_classInits;
+    while (*link != NULL) {
+        if ((*link)->cls == cls) {
+            teavm_thread_completeClassInit(link);
+            break;
+        }
+        link = &(*link)->next;
+    }
+    pthread_mutex_unlock(&teavm_classInitMutex);
+}
+
+static int32_t teavm_thread_isUnwound(TeaVM_StackFrame* initFrame, TeaVM_StackFrame* targetFrame) {
+    TeaVM_StackFrame* frame = teavm_stackTop;
+    while (frame != NULL) {
+        if (frame == initFrame) {
+            return 1;
+        }
+        if (frame == targetFrame) {
+            return 0;
+        }
+        frame = frame->next;
+    }
+    return 1;
+}
+
+// With longjmp exception handling, exception thrown by initializer jumps over the code that completes
+// initialization. Complete initializations of current thread that started below target frame.
+void teavm_thread_abortClassInit(void* targetFrame) {
+    TeaVM_Thread* thread = teavm_currentThread;
+    pthread_mutex_lock(&teavm_classInitMutex);
+    TeaVM_ClassInit** link = &teavm_classInits;
+    while (*link != NULL) {
+        TeaVM_ClassInit* init = *link;
+        if (init->owner == thread && teavm_thread_isUnwound(init->frame, targetFrame)) {
+            teavm_thread_completeClassInit(link);
+        } else {
+            link = &init->next;
+        }
+    }
+    pthread_mutex_unlock(&teavm_classInitMutex);
+}
+
+static void* teavm_thread_main(void* data) {
+    TeaVM_Thread* thread = data;
+    teavm_currentThread = thread;
+    pthread_mutex_lock(&teavm_threadsMutex);
+    thread->stackTop = &teavm_stackTop;
+    teavm_thread_waitForWorld();
+    thread->safe = 0;
+    pthread_mutex_unlock(&teavm_threadsMutex);
+
+    teavm_thread_run(thread->id);
+    teavm_gc_releaseThreadBuffer();
+
+    pthread_mutex_lock(&teavm_threadsMutex);
+    thread->safe = 1;
+    pthread_cond_broadcast(&teavm_threadStopped);
+    teavm_thread_waitForWorld();
+    TeaVM_Thread** link = &teavm_firstThread;
+    while (*link != thread) {
+        link = &(*link)->next;
+    }
+    *link = thread->next;
+    if (!thread->daemon) {
+        teavm_nonDaemonThreads--;
+        pthread_cond_broadcast(&teavm_threadFinished);
+    }
+    pthread_mutex_unlock(&teavm_threadsMutex);
+
+    free(thread);
+    return NULL;
+}
+
+void teavm_thread_start(int32_t id, int32_t daemon) {
+    TeaVM_Thread* thread = calloc(1, sizeof(TeaVM_Thread));
+    thread->id = id;
+    thread->daemon = daemon;
+    thread->safe = 1;
+
+    pthread_mutex_lock(&teavm_threadsMutex);
+    thread->next = teavm_firstThread;
+    teavm_firstThread = thread;
+    if (!daemon) {
+        teavm_nonDaemonThreads++;
+    }
+    pthread_mutex_unlock(&teavm_threadsMutex);
+
+    pthread_t handle;
+    pthread_attr_t attr;
+    pthread_attr_init(&attr);
+    pthread_attr_setdetachstate(&attr, PTHREAD_CREATE_DETACHED);
+    if (pthread_create(&handle, &attr, teavm_thread_main, thread) != 0) {
+        fprintf(stderr, "Could not start thread\n");
+        abort();
+    }
+    pthread_attr_destroy(&attr);
+}
+
+void teavm_thread_joinAll() {
+    TeaVM_Thread* current = teavm_currentThread;
+    pthread_mutex_lock(&teavm_threadsMutex);
+    current->safe = 1;
+    pthread_cond_broadcast(&teavm_threadStopped);
+    while (teavm_nonDaemonThreads > 0) {
+        pthread_cond_wait(&teavm_threadFinished, &teavm_threadsMutex);
+    }
+    teavm_thread_waitForWorld();
+    current->safe = 0;
+    pthread_mutex_unlock(&teavm_threadsMutex);
+}
+
+static TeaVM_Thread* teavm_thread_find(int32_t id) {
+    TeaVM_Thread* thread = teavm_firstThread;
+    while (thread != NULL && thread->id != id) {
+        thread = thread->next;
+    }
+    return thread;
+}
+
+void teavm_thread_interrupt(int32_t id) {
+    pthread_mutex_lock(&teavm_threadsMutex);
+    TeaVM_Thread* thread = teavm_thread_find(id);
+    if (thread != NULL) {
+        thread->interrupted = 1;
+    }
+    pthread_mutex_unlock(&teavm_threadsMutex);
+    if (thread == NULL) {
+        return;
+    }
+
+    // Interrupted thread may wait on any stripe, so wake up all of them. Waiting threads check
+    // interruption flag under stripe mutex, so wake up can't be lost.
+    for (int i = 0; i < TEAVM_MONITOR_STRIPES; ++i) {
+        TeaVM_MonitorStripe* stripe = &teavm_monitorStripes[i];
+        teavm_thread_lockMutex(&stripe->mutex);
+        pthread_cond_broadcast(&stripe->cond);
+        pthread_mutex_unlock(&stripe->mutex);
+    }
+}
+
+int32_t teavm_thread_isInterrupted(int32_t id, int32_t clear) {
+    pthread_mutex_lock(&teavm_threadsMutex);
+    TeaVM_Thread* thread = teavm_thread_find(id);
+    int32_t result = 0;
+    if (thread != NULL) {
+        result = thread->interrupted;
+        if (clear) {
+            thread->interrupted = 0;
+        }
+    }
+    pthread_mutex_unlock(&teavm_threadsMutex);
+    return result;
+}
+
+static int32_t teavm_thread_takeInterrupted(TeaVM_Thread* thread) {
+    if (!thread->interrupted) {
+        return 0;
+    }
+    pthread_mutex_lock(&teavm_threadsMutex);
+    thread->interrupted = 0;
+    pthread_mutex_unlock(&teavm_threadsMutex);
+    return 1;
+}
+
+int32_t teavm_thread_sleep(int64_t millis) {
+    TeaVM_Thread* thread = teavm_currentThread;
+    TeaVM_MonitorStripe* stripe = &teavm_monitorStripes[(uint32_t) thread->id % TEAVM_MONITOR_STRIPES];
+    struct timespec deadlineStorage;
+    struct timespec* deadline = teavm_thread_deadline(millis, &deadlineStorage);
+    if (deadline == NULL) {
+        return teavm_thread_takeInterrupted(thread);
+    }
+
+    teavm_thread_lockMutex(&stripe->mutex);
+    teavm_thread_enterSafeRegion(thread);
+    int32_t result = 0;
+    while (1) {
+        if (teavm_thread_takeInterrupted(thread)) {
+            result = 1;
+            break;
+        }
+        if (!teavm_thread_waitCondition(&stripe->cond, &stripe->mutex, deadline)) {
+            break;
+        }
+    }
+    pthread_mutex_unlock(&stripe->mutex);
+    teavm_thread_leaveSafeRegion(thread);
+    return result;
+}
+
+void teavm_thread_yield() {
+    sched_yield();
+}
+
+int32_t teavm_thread_identity(void* object) {
+    int32_t* hash = &((TeaVM_Object*) object)->hash;
+    int32_t result = __atomic_load_n(hash, __ATOMIC_ACQUIRE);
+    if (result != 0) {
+        return result;
+    }
+    int32_t newValue;
+    do {
+        newValue = __atomic_fetch_add(&teavm_nextIdentity, 1, __ATOMIC_RELAXED) & 0x7FFFFFFF;
+    } while (newValue == 0);
+    if (__atomic_compare_exchange_n(hash, &result, newValue, 0, __ATOMIC_ACQ_REL, __ATOMIC_ACQUIRE)) {
+        return newValue;
+    }
+    return result;
+}
+
+static TeaVM_MonitorStripe* teavm_thread_stripe(int32_t identity) {
+    return &teavm_monitorStripes[(uint32_t) identity % TEAVM_MONITOR_STRIPES];
+}
+
+static TeaVM_Monitor* teavm_thread_findMonitor(TeaVM_MonitorStripe* stripe, int32_t identity, int32_t create) {
+    TeaVM_Monitor* monitor = stripe->monitors;
+    while (monitor != NULL && monitor->identity != identity) {
+        monitor = monitor->next;
+    }
+    if (monitor == NULL && create) {
+        monitor = calloc(1, sizeof(TeaVM_Monitor));
+        monitor->identity = identity;
+        monitor->next = stripe->monitors;
+        stripe->monitors = monitor;
+    }
+    return monitor;
+}
+
+static void teavm_thread_releaseMonitor(TeaVM_MonitorStripe* stripe, TeaVM_Monitor* monitor) {
+    if (monitor->count > 0 || monitor->entering > 0 || monitor->waiting > 0) {
+        return;
+    }
+    TeaVM_Monitor** link = &stripe->monitors;
+    while (*link != monitor) {
+        link = &(*link)->next;
+    }
+    *link = monitor->next;
+    free(monitor);
+}
+
+static void teavm_thread_acquireMonitor(TeaVM_MonitorStripe* stripe, TeaVM_Monitor* monitor,
+        TeaVM_Thread* thread, int32_t count) {
+    if (monitor->owner != NULL && monitor->owner != thread) {
+        monitor->entering++;
+        teavm_thread_enterSafeRegion(thread);
+        while (monitor->owner != NULL) {
+            pthread_cond_wait(&stripe->cond, &stripe->mutex);
+        }
+        teavm_thread_leaveSafeRegion(thread);
+        monitor->entering--;
+    }
+    monitor->owner = thread;
+    monitor->count += count;
+}
+
+void teavm_thread_monitorEnter(int32_t identity, int32_t count) {
+    TeaVM_MonitorStripe* stripe = teavm_thread_stripe(identity);
+    teavm_thread_lockMutex(&stripe->mutex);
+    TeaVM_Monitor* monitor = teavm_thread_findMonitor(stripe, identity, 1);
+    teavm_thread_acquireMonitor(stripe, monitor, teavm_currentThread, count);
+    pthread_mutex_unlock(&stripe->mutex);
+}
+
+int32_t teavm_thread_monitorExit(int32_t identity, int32_t count) {
+    TeaVM_MonitorStripe* stripe = teavm_thread_stripe(identity);
+    teavm_thread_lockMutex(&stripe->mutex);
+    TeaVM_Monitor* monitor = teavm_thread_findMonitor(stripe, identity, 0);
+    if (monitor == NULL || monitor->owner != teavm_currentThread) {
+        pthread_mutex_unlock(&stripe->mutex);
+        return 0;
+    }
+    monitor->count -= count;
+    if (monitor->count <= 0) {
+        monitor->count = 0;
+        monitor->owner = NULL;
+        if (monitor->entering > 0 || monitor->waiting > 0) {
+            pthread_cond_broadcast(&stripe->cond);
+        } else {
+            teavm_thread_releaseMonitor(stripe, monitor);
+        }
+    }
+    pthread_mutex_unlock(&stripe->mutex);
+    return 1;
+}
+
+int32_t teavm_thread_holdsLock(int32_t identity) {
+    TeaVM_MonitorStripe* stripe = teavm_thread_stripe(identity);
+    teavm_thread_lockMutex(&stripe->mutex);
+    TeaVM_Monitor* monitor = teavm_thread_findMonitor(stripe, identity, 0);
+    int32_t result = monitor != NULL && monitor->owner == teavm_currentThread;
+    pthread_mutex_unlock(&stripe->mutex);
+    return result;
+}
+
+int32_t teavm_thread_wait(int32_t identity, int64_t timeout) {
+    TeaVM_Thread* thread = teavm_currentThread;
+    TeaVM_MonitorStripe* stripe = teavm_thread_stripe(identity);
+    teavm_thread_lockMutex(&stripe->mutex);
+    TeaVM_Monitor* monitor = teavm_thread_findMonitor(stripe, identity, 0);
+    if (monitor == NULL || monitor->owner != thread) {
+        pthread_mutex_unlock(&stripe->mutex);
+        return -1;
+    }
+    if (teavm_thread_takeInterrupted(thread)) {
+        pthread_mutex_unlock(&stripe->mutex);
+        return 1;
+    }
+
+    struct timespec deadlineStorage;
+    struct timespec* deadline = teavm_thread_deadline(timeout, &deadlineStorage);
+    int32_t count = monitor->count;
+    monitor->owner = NULL;
+    monitor->count = 0;
+    monitor->waiting++;
+    pthread_cond_broadcast(&stripe->cond);
+
+    teavm_thread_enterSafeRegion(thread);
+    int32_t result = 0;
+    while (1) {
+        if (monitor->permits > 0) {
+            monitor->permits--;
+            break;
+        }
+        if (teavm_thread_takeInterrupted(thread)) {
+            result = 1;
+            break;
+        }
+        if (!teavm_thread_waitCondition(&stripe->cond, &stripe->mutex, deadline)) {
+            break;
+        }
+    }
+    monitor->waiting--;
+    if (monitor->permits > monitor->waiting) {
+        monitor->permits = monitor->waiting;
+    }
+    teavm_thread_leaveSafeRegion(thread);
+
+    teavm_thread_acquireMonitor(stripe, monitor, thread, count);
+    pthread_mutex_unlock(&stripe->mutex);
+    return result;
+}
+
+int32_t teavm_thread_notify(int32_t identity, int32_t all) {
+    TeaVM_MonitorStripe* stripe = teavm_thread_stripe(identity);
+    teavm_thread_lockMutex(&stripe->mutex);
+    TeaVM_Monitor* monitor = teavm_thread_findMonitor(stripe, identity, 0);
+    if (monitor == NULL || monitor->owner != teavm_currentThread) {
+        pthread_mutex_unlock(&stripe->mutex);
+        return 0;
+    }
+    if (monitor->permits < monitor->waiting) {
+        monitor->permits = all ? monitor->waiting : monitor->permits + 1;
+        pthread_cond_broadcast(&stripe->cond);
+    }
+    pthread_mutex_unlock(&stripe->mutex);
+    return 1;
+}
+
+#endif
@@ -16,7 +16,7 @@
 
 function $rt_array(cls, data) {
     $rt_initMonitorField(this);
-    this.$id$ = 0;
+    $rt_initIdField(this);
     this.type = cls;
     this.data = data;
     this.constructor = $rt_arraycls(cls);
@@ -0,0 +1,149 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+"use strict";
+
+// Chunk file registers a factory in global TeaVMChunks object under its file name. The factory takes
+// names of the main file it refers to and returns array of functions, which stubs in the main file call by index.
+var $rt_chunks = Object.create(null);
+var $rt_chunkBaseUrl = (function() {
+    if (typeof document !== 'undefined' && document.currentScript && document.currentScript.src) {
+        var src = document.currentScript.src;
+        return src.substring(0, src.lastIndexOf('/') + 1);
+    }
+    return null;
+})();
+function $rt_chunkRegistry() {
+    var scope = typeof globalThis !== 'undefined' ? globalThis
+        : typeof self !== 'undefined' ? self
+        : typeof window !== 'undefined' ? window
+        : global;
+    if (!scope.TeaVMChunks) {
+        scope.TeaVMChunks = {};
+    }
+    return scope.TeaVMChunks;
+}
+function $rt_declareChunk(name, linker) {
+    $rt_chunks[name] = { name: name, linker: linker, methods: null, callbacks: null };
+}
+function $rt_linkChunk(chunk) {
+    if (chunk.methods !== null) {
+        return true;
+    }
+    var registry = $rt_chunkRegistry();
+    var factory = registry[chunk.name];
+    if (typeof factory !== 'function') {
+        return false;
+    }
+    delete registry[chunk.name];
+    chunk.methods = chunk.linker(factory);
+    return true;
+}
+function $rt_chunkUrl(name) {
+    var registry = $rt_chunkRegistry();
+    if (typeof registry.baseUrl === 'string') {
+        return registry.baseUrl + name;
+    }
+    return $rt_chunkBaseUrl !== null ? $rt_chunkBaseUrl + name : "./" + name;
+}
+function $rt_loadChunk(chunk, callback) {
+    if ($rt_linkChunk(chunk)) {
+        callback(null);
+        return;
+    }
+    if (chunk.callbacks !== null) {
+        chunk.callbacks.push(callback);
+        return;
+    }
+    chunk.callbacks = [callback];
+    var complete = function(error) {
+        if (error === null && !$rt_linkChunk(chunk)) {
+            error = new Error("Chunk " + chunk.name + " was loaded, but did not register itself");
+        }
+        var callbacks = chunk.callbacks;
+        chunk.callbacks = null;
+        for (var i = 0; i < callbacks.length; ++i) {
+            callbacks[i](error);
+        }
+    };
+    var url = $rt_chunkUrl(chunk.name);
+    if (typeof document !== 'undefined' && typeof document.createElement === 'function') {
+        var script = document.createElement("script");
+        script.onload = function() {
+            complete(null);
+        };
+        script.onerror = function() {
+            complete(new Error("Could not load chunk " + url));
+        };
+        script.src = url;
+        (document.head || document.documentElement).appendChild(script);
+    } else {
+        var error = null;
+        try {
+            $rt_loadChunkSync(chunk);
+        } catch (e) {
+            error = e;
+        }
+        complete(error);
+    }
+}
+function $rt_loadChunkSync(chunk) {
+    var url = $rt_chunkUrl(chunk.name);
+    if (typeof importScripts === 'function') {
+        importScripts(url);
+    } else if (typeof require === 'function') {
+        require(url);
+    }
+    if (!$rt_linkChunk(chunk)) {
+        throw new Error("Chunk " + chunk.name + " is not loaded. Load it with <script> tag in advance "
+            + "when calling its methods outside of a thread");
+    }
+}
+// Stub of a method moved to a chunk. Behaves like an async method: when chunk is not loaded yet,
+// suspends current thread and resumes it when chunk is linked.
+function $rt_chunkCall(name, index, self, args) {
+    var chunk = $rt_chunks[name];
+    var thread = $rt_nativeThread();
+    if ($rt_resuming()) {
+        if (thread.pop() === 0) {
+            thread.status = 0;
+            var error = thread.attribute;
+            thread.attribute = null;
+            if (error instanceof Error) {
+                throw error;
+            }
+        }
+    } else if (!$rt_linkChunk(chunk)) {
+        if (thread === null) {
+            $rt_loadChunkSync(chunk);
+        } else {
+            var javaThread = $rt_getThread();
+            thread.push(0);
+            thread.suspend(function(resume) {
+                $rt_loadChunk(chunk, function(error) {
+                    thread.attribute = error;
+                    $rt_setThread(javaThread);
+                    resume();
+                });
+            });
+            return;
+        }
+    }
+    var result = chunk.methods[index].apply(self, args);
+    if ($rt_suspending()) {
+        thread.push(1);
+    }
+    return result;
+}
@@ -0,0 +1,41 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+"use strict";
+
+var $rt_objectIds = new WeakMap();
+var $rt_monitors = new WeakMap();
+function $rt_objectId(obj) {
+    var id = $rt_objectIds.get(obj);
+    if (id === void 0) {
+        id = $rt_nextId();
+        $rt_objectIds.set(obj, id);
+    }
+    return id;
+}
+function $rt_resetObjectId(obj) {
+    $rt_objectIds["delete"](obj);
+}
+function $rt_getMonitor(obj) {
+    var monitor = $rt_monitors.get(obj);
+    return monitor === void 0 ? null : monitor;
+}
+function $rt_setMonitor(obj, monitor) {
+    if (monitor === null) {
+        $rt_monitors["delete"](obj);
+    } else {
+        $rt_monitors.set(obj, monitor);
+    }
+}
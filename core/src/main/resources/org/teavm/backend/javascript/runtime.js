@@ -486,14 +486,24 @@ function $rt_mainStarter(f) {
     }
 }
 var $rt_stringPool_instance;
+var $rt_stringPool_raw;
 function $rt_stringPool(strings) {
     $rt_stringPool_instance = new Array(strings.length);
     for (var i = 0; i < strings.length; ++i) {
         $rt_stringPool_instance[i] = $rt_intern($rt_str(strings[i]));
     }
 }
+function $rt_lazyStringPool(strings) {
+    $rt_stringPool_raw = strings;
+    $rt_stringPool_instance = new Array(strings.length);
+}
 function $rt_s(index) {
-    return $rt_stringPool_instance[index];
+    var result = $rt_stringPool_instance[index];
+    if (result === undefined) {
+        result = $rt_intern($rt_str($rt_stringPool_raw[index]));
+        $rt_stringPool_instance[index] = result;
+    }
+    return result;
 }
 function $rt_eraseClinit(target) {
     return target.$clinit = function() {};
@@ -501,15 +511,6 @@ function $rt_eraseClinit(target) {
 
 var $rt_numberConversionView = new DataView(new ArrayBuffer(8));
 
-function $rt_doubleToLongBits(n) {
-    $rt_numberConversionView.setFloat64(0, n, true);
-    return new Long($rt_numberConversionView.getInt32(0, true), $rt_numberConversionView.getInt32(4, true));
-}
-function $rt_longBitsToDouble(n) {
-    $rt_numberConversionView.setInt32(0, n.lo, true);
-    $rt_numberConversionView.setInt32(4, n.hi, true);
-    return $rt_numberConversionView.getFloat64(0, true);
-}
 function $rt_floatToIntBits(n) {
     $rt_numberConversionView.setFloat32(0, n);
     return $rt_numberConversionView.getInt32(0);
@@ -569,53 +570,6 @@ function $dbg_class(obj) {
     return clsName;
 }
 
-function Long(lo, hi) {
-    this.lo = lo | 0;
-    this.hi = hi | 0;
-}
-Long.prototype.__teavm_class__ = function() {
-    return "long";
-};
-Long.prototype.toString = function() {
-    var result = [];
-    var n = this;
-    var positive = Long_isPositive(n);
-    if (!positive) {
-        n = Long_neg(n);
-    }
-    var radix = new Long(10, 0);
-    do {
-        var divRem = Long_divRem(n, radix);
-        result.push(String.fromCharCode(48 + divRem[1].lo));
-        n = divRem[0];
-    } while (n.lo !== 0 || n.hi !== 0);
-    result = result.reverse().join('');
-    return positive ? result : "-" + result;
-};
-Long.prototype.valueOf = function() {
-    return Long_toNumber(this);
-};
-var Long_ZERO = new Long(0, 0);
-var Long_MAX_NORMAL = 1 << 18;
-function Long_fromInt(val) {
-    return val >= 0 ? new Long(val, 0) : new Long(val, -1);
-}
-function Long_fromNumber(val) {
-    if (val >= 0) {
-        return new Long(val | 0, (val / 0x100000000) | 0);
-    } else {
-        return Long_neg(new Long(-val | 0, (-val / 0x100000000) | 0));
-    }
-}
-function Long_toNumber(val) {
-    var lo = val.lo;
-    var hi = val.hi;
-    if (lo < 0) {
-        lo += 0x100000000;
-    }
-    return 0x100000000 * hi + lo;
-}
-
 var $rt_imul = Math.imul || function(a, b) {
     var ah = (a >>> 16) & 0xFFFF;
     var al = a & 0xFFFF;
@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.javascript;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ScriptableObject;
+
+public class HotSwapSnapshotTest {
+    private static final String HASH = "0123";
+
+    @Test
+    public void unchangedSnapshotProducesEmptyPatch() {
+        HotSwapSnapshot previous = snapshot(HASH, "A", "function A_get(){return 1;}\n");
+        HotSwapSnapshot current = snapshot(HASH, "A", "function A_get(){return 1;}\n");
+
+        assertEquals("", current.createPatch(previous));
+    }
+
+    @Test
+    public void changedMethodBodyProducesPatch() {
+        HotSwapSnapshot previous = snapshot(HASH, "A", "function A_get(){return 1;}\n");
+        HotSwapSnapshot current = snapshot(HASH, "A", "function A_get(){return 2;}\n");
+
+        String patch = current.createPatch(previous);
+        assertNotNull(patch);
+        assertTrue(patch.contains("return 2;"));
+
+        Context context = Context.enter();
+        try {
+            ScriptableObject scope = context.initStandardObjects();
+            context.evaluateString(scope, "function A_get(){return 1;}", "old.js", 1, null);
+            context.evaluateString(scope, patch, "patch.js", 1, null);
+            Object result = context.evaluateString(scope, "A_get()", "check.js", 1, null);
+            assertEquals(2, Context.toNumber(result), 0);
+        } finally {
+            Context.exit();
+        }
+    }
+
+    @Test
+    public void changedGlobalCodeRequiresReload() {
+        HotSwapSnapshot previous = snapshot(HASH, "A", "function A_get(){return 1;}\n");
+        HotSwapSnapshot current = snapshot("4567", "A", "function A_get(){return 2;}\n");
+
+        assertNull(current.createPatch(previous));
+    }
+
+    @Test
+    public void changedClassSetRequiresReload() {
+        HotSwapSnapshot previous = snapshot(HASH, "A", "function A_get(){return 1;}\n");
+        Map<String, HotSwapSnapshot.ClassCode> classes = new LinkedHashMap<>();
+        classes.put("A", classCode("A", "function A_get(){return 1;}\n"));
+        classes.put("B", classCode("B", "function B_get(){return 1;}\n"));
+        HotSwapSnapshot current = new HotSwapSnapshot(HASH, classes);
+
+        assertNull(current.createPatch(previous));
+    }
+
+    @Test
+    public void missingPreviousSnapshotRequiresReload() {
+        HotSwapSnapshot current = snapshot(HASH, "A", "function A_get(){return 1;}\n");
+
+        assertNull(current.createPatch(null));
+    }
+
+    private static HotSwapSnapshot snapshot(String globalHash, String className, String code) {
+        return new HotSwapSnapshot(globalHash, Collections.singletonMap(className, classCode(className, code)));
+    }
+
+    private static HotSwapSnapshot.ClassCode classCode(String className, String code) {
+        return new HotSwapSnapshot.ClassCode(code, Arrays.asList(className + "_get"));
+    }
+}
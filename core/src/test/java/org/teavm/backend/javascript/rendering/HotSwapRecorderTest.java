@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.javascript.rendering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Test;
+import org.teavm.backend.javascript.HotSwapSnapshot;
+
+public class HotSwapRecorderTest {
+    private static final String STRING_POOL = "$rt_stringPool([\"foo\",\"bar\"]);\n";
+    private static final String METADATA = "$rt_metadata([A,\"A\",0,$rt_objcls()]);\n";
+
+    @Test
+    public void passesCodeThrough() throws IOException {
+        StringBuilder output = new StringBuilder();
+        snapshot(output, STRING_POOL, METADATA, "function A_get(){return 1;}\n");
+
+        assertEquals(STRING_POOL + "function A_get(){return 1;}\n" + METADATA, output.toString());
+    }
+
+    @Test
+    public void recordsClassCode() throws IOException {
+        HotSwapSnapshot snapshot = snapshot(STRING_POOL, METADATA, "function A_get(){return 1;}\n");
+
+        HotSwapSnapshot.ClassCode classCode = snapshot.getClasses().get("A");
+        assertEquals("function A_get(){return 1;}\n", classCode.getCode());
+        assertEquals(Arrays.asList("A_get"), classCode.getFunctions());
+    }
+
+    @Test
+    public void methodBodiesDontAffectGlobalHash() throws IOException {
+        HotSwapSnapshot previous = snapshot(STRING_POOL, METADATA, "function A_get(){return 1;}\n");
+        HotSwapSnapshot current = snapshot(STRING_POOL, METADATA, "function A_get(){return 2;}\n");
+
+        assertEquals(previous.getGlobalHash(), current.getGlobalHash());
+    }
+
+    @Test
+    public void changedStringPoolChangesGlobalHash() throws IOException {
+        HotSwapSnapshot previous = snapshot(STRING_POOL, METADATA, "function A_get(){return $rt_s(0);}\n");
+        HotSwapSnapshot current = snapshot("$rt_stringPool([\"foo\",\"bar\",\"baz\"]);\n", METADATA,
+                "function A_get(){return $rt_s(2);}\n");
+
+        assertNotEquals(previous.getGlobalHash(), current.getGlobalHash());
+    }
+
+    @Test
+    public void changedMetadataChangesGlobalHash() throws IOException {
+        HotSwapSnapshot previous = snapshot(STRING_POOL, METADATA, "function A_get(){return 1;}\n");
+        HotSwapSnapshot current = snapshot(STRING_POOL, "$rt_metadata([A,\"A\",0,B]);\n",
+                "function A_get(){return 1;}\n");
+
+        assertNotEquals(previous.getGlobalHash(), current.getGlobalHash());
+    }
+
+    private static HotSwapSnapshot snapshot(String stringPool, String metadata, String classCode)
+            throws IOException {
+        return snapshot(new StringBuilder(), stringPool, metadata, classCode);
+    }
+
+    private static HotSwapSnapshot snapshot(StringBuilder output, String stringPool, String metadata,
+            String classCode) throws IOException {
+        HotSwapRecorder recorder = new HotSwapRecorder(output);
+        recorder.append(stringPool);
+        recorder.beginClass("A");
+        recorder.addFunction("A_get");
+        recorder.append(classCode);
+        recorder.endClass();
+        recorder.append(metadata);
+        return recorder.createSnapshot();
+    }
+}
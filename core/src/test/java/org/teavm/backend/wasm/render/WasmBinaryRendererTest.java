@@ -0,0 +1,125 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.wasm.render;
+
+import static org.junit.Assert.assertArrayEquals;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+import org.teavm.backend.wasm.model.WasmFunction;
+import org.teavm.backend.wasm.model.WasmLocal;
+import org.teavm.backend.wasm.model.WasmMemorySegment;
+import org.teavm.backend.wasm.model.WasmModule;
+import org.teavm.backend.wasm.model.WasmType;
+import org.teavm.backend.wasm.model.expression.WasmBlock;
+import org.teavm.backend.wasm.model.expression.WasmBranch;
+import org.teavm.backend.wasm.model.expression.WasmCall;
+import org.teavm.backend.wasm.model.expression.WasmConditional;
+import org.teavm.backend.wasm.model.expression.WasmGetLocal;
+import org.teavm.backend.wasm.model.expression.WasmInt32Constant;
+import org.teavm.backend.wasm.model.expression.WasmIntBinary;
+import org.teavm.backend.wasm.model.expression.WasmIntBinaryOperation;
+import org.teavm.backend.wasm.model.expression.WasmIntType;
+import org.teavm.backend.wasm.model.expression.WasmReturn;
+import org.teavm.backend.wasm.model.expression.WasmSetLocal;
+
+public class WasmBinaryRendererTest {
+    private static final int FUNCTION_COUNT = 500;
+
+    @Test
+    public void parallelOutputMatchesSequential() throws IOException {
+        byte[] sequential = render(1);
+        assertArrayEquals(sequential, render(4));
+        assertArrayEquals(sequential, render(FUNCTION_COUNT * 2));
+    }
+
+    @Test
+    public void parallelOutputIsStable() throws IOException {
+        byte[] first = render(4);
+        for (int i = 0; i < 5; ++i) {
+            assertArrayEquals(first, render(4));
+        }
+    }
+
+    private static byte[] render(int threads) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        WasmBinaryRenderer renderer = new WasmBinaryRenderer(output, WasmBinaryVersion.V_0x1);
+        renderer.setThreads(threads);
+        renderer.render(createModule());
+        return output.toByteArray();
+    }
+
+    private static WasmModule createModule() {
+        WasmModule module = new WasmModule();
+        module.setMemorySize(2);
+
+        WasmFunction imported = new WasmFunction("log");
+        imported.setImportModule("env");
+        imported.setImportName("log");
+        imported.getParameters().add(WasmType.INT32);
+        module.add(imported);
+
+        for (int i = 0; i < FUNCTION_COUNT; ++i) {
+            module.add(createFunction(i));
+        }
+        module.getFunctionTable().add(module.getFunctions().get("f0"));
+        module.getFunctions().get("f0").setExportName("main");
+
+        WasmMemorySegment segment = new WasmMemorySegment();
+        segment.setOffset(256);
+        byte[] data = new byte[100000];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (byte) (i * 31);
+        }
+        segment.setData(data);
+        module.getSegments().add(segment);
+
+        return module;
+    }
+
+    private static WasmFunction createFunction(int index) {
+        WasmFunction function = new WasmFunction("f" + index);
+        function.getParameters().add(WasmType.INT32);
+        function.setResult(WasmType.INT32);
+        WasmLocal parameter = new WasmLocal(WasmType.INT32, "p");
+        WasmLocal accumulator = new WasmLocal(WasmType.INT32, "acc");
+        function.add(parameter);
+        function.add(accumulator);
+
+        WasmBlock loop = new WasmBlock(true);
+        for (int i = 0; i <= index % 7; ++i) {
+            loop.getBody().add(new WasmSetLocal(accumulator, new WasmIntBinary(WasmIntType.INT32,
+                    WasmIntBinaryOperation.ADD, new WasmGetLocal(accumulator), new WasmInt32Constant(index * i))));
+        }
+        loop.getBody().add(new WasmBranch(new WasmIntBinary(WasmIntType.INT32, WasmIntBinaryOperation.LT_SIGNED,
+                new WasmGetLocal(accumulator), new WasmGetLocal(parameter)), loop));
+        function.getBody().add(loop);
+
+        WasmConditional conditional = new WasmConditional(new WasmGetLocal(parameter));
+        WasmCall call = new WasmCall("log", true);
+        call.getArguments().add(new WasmGetLocal(accumulator));
+        conditional.getThenBlock().getBody().add(call);
+        if (index > 0) {
+            WasmCall previous = new WasmCall("f" + (index - 1));
+            previous.getArguments().add(new WasmInt32Constant(index));
+            conditional.getElseBlock().getBody().add(new WasmSetLocal(accumulator, previous));
+        }
+        function.getBody().add(conditional);
+
+        function.getBody().add(new WasmReturn(new WasmGetLocal(accumulator)));
+        return function;
+    }
+}
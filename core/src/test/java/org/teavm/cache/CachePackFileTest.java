@@ -0,0 +1,150 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CachePackFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void entriesSurviveReopen() throws IOException {
+        File dir = folder.getRoot();
+        CachePackFile pack = new CachePackFile(dir, "test");
+        pack.put("a", bytes("first"));
+        pack.put("b", bytes("second"));
+        assertEquals("first", string(pack.get("a")));
+        pack.flush();
+
+        pack = new CachePackFile(dir, "test");
+        assertEquals("first", string(pack.get("a")));
+        assertEquals("second", string(pack.get("b")));
+        assertNull(pack.get("c"));
+    }
+
+    @Test
+    public void newerEntryWins() throws IOException {
+        File dir = folder.getRoot();
+        CachePackFile pack = new CachePackFile(dir, "test");
+        pack.put("a", bytes("first"));
+        pack.flush();
+        pack.put("a", bytes("updated"));
+        pack.flush();
+
+        pack = new CachePackFile(dir, "test");
+        assertEquals("updated", string(pack.get("a")));
+    }
+
+    @Test
+    public void staleEntriesCompacted() throws IOException {
+        File dir = folder.getRoot();
+        byte[] data = new byte[64 * 1024];
+        CachePackFile pack = new CachePackFile(dir, "test");
+        for (int i = 0; i < 40; ++i) {
+            Arrays.fill(data, (byte) i);
+            pack.put("a", data.clone());
+            pack.put("b" + i, bytes("entry" + i));
+            pack.flush();
+        }
+
+        assertFalse(new File(dir, "test-0.pack").exists());
+        assertTrue(new File(dir, "test.index").exists());
+        File[] packs = dir.listFiles((d, name) -> name.endsWith(".pack"));
+        assertEquals(1, packs.length);
+        assertTrue(packs[0].length() < 40 * data.length / 2);
+
+        pack = new CachePackFile(dir, "test");
+        ByteBuffer buffer = pack.get("a");
+        assertEquals(data.length, buffer.remaining());
+        assertEquals(39, buffer.get(0));
+        for (int i = 0; i < 40; ++i) {
+            assertEquals("entry" + i, string(pack.get("b" + i)));
+        }
+    }
+
+    @Test
+    public void damagedIndexIgnored() throws IOException {
+        File dir = folder.getRoot();
+        CachePackFile pack = new CachePackFile(dir, "test");
+        pack.put("a", bytes("first"));
+        pack.flush();
+        new File(dir, "test-0.pack").delete();
+
+        pack = new CachePackFile(dir, "test");
+        assertNull(pack.get("a"));
+    }
+
+    @Test
+    public void removedEntriesDropped() throws IOException {
+        File dir = folder.getRoot();
+        CachePackFile pack = new CachePackFile(dir, "test");
+        pack.put("a", bytes("first"));
+        pack.put("b", bytes("second"));
+        pack.flush();
+
+        pack = new CachePackFile(dir, "test");
+        pack.remove("a");
+        assertEquals(Arrays.asList("b"), new ArrayList<>(pack.getKeys()));
+        pack.flush();
+
+        pack = new CachePackFile(dir, "test");
+        assertNull(pack.get("a"));
+        assertEquals("second", string(pack.get("b")));
+        assertEquals(Arrays.asList("b"), new ArrayList<>(pack.getKeys()));
+    }
+
+    @Test
+    public void staleGenerationsDeletedOnOpen() throws IOException {
+        File dir = folder.getRoot();
+        CachePackFile pack = new CachePackFile(dir, "test");
+        pack.put("a", bytes("first"));
+        pack.flush();
+        Files.write(new File(dir, "test-1.pack").toPath(), bytes("orphaned generation"));
+        Files.write(new File(dir, "test.index.tmp").toPath(), bytes("unfinished index"));
+        Files.write(new File(dir, "other-1.pack").toPath(), bytes("another cache"));
+
+        pack = new CachePackFile(dir, "test");
+        assertEquals("first", string(pack.get("a")));
+        assertTrue(new File(dir, "test-0.pack").exists());
+        assertFalse(new File(dir, "test-1.pack").exists());
+        assertFalse(new File(dir, "test.index.tmp").exists());
+        assertTrue(new File(dir, "other-1.pack").exists());
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] result = new byte[buffer.remaining()];
+        buffer.get(result);
+        return new String(result, StandardCharsets.UTF_8);
+    }
+}
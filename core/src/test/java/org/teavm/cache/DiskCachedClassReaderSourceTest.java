@@ -0,0 +1,103 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.teavm.model.ClassHolder;
+import org.teavm.model.ReferenceCache;
+
+public class DiskCachedClassReaderSourceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Map<String, String> hashes = new HashMap<>();
+    private InMemorySymbolTable symbolTable = new InMemorySymbolTable();
+    private InMemorySymbolTable fileTable = new InMemorySymbolTable();
+    private InMemorySymbolTable variableTable = new InMemorySymbolTable();
+
+    @Test
+    public void unchangedClassStaysFresh() throws IOException {
+        hashes.put("foo.A", "1");
+        DiskCachedClassReaderSource source = createSource();
+        assertTrue(source.isStaleClass("foo.A"));
+        source.flush();
+
+        touchCacheFiles(folder.getRoot());
+        source = createSource();
+        assertFalse(source.isStaleClass("foo.A"));
+        assertEquals("foo.A", source.get("foo.A").getName());
+        assertEquals("java.lang.Object", source.get("foo.A").getParent());
+    }
+
+    @Test
+    public void changedClassIsStale() throws IOException {
+        hashes.put("foo.A", "1");
+        hashes.put("foo.B", "2");
+        DiskCachedClassReaderSource source = createSource();
+        source.get("foo.A");
+        source.get("foo.B");
+        source.flush();
+
+        hashes.put("foo.B", "3");
+        source = createSource();
+        assertFalse(source.isStaleClass("foo.A"));
+        assertTrue(source.isStaleClass("foo.B"));
+        source.flush();
+
+        source = createSource();
+        assertFalse(source.isStaleClass("foo.A"));
+        assertFalse(source.isStaleClass("foo.B"));
+    }
+
+    @Test
+    public void classWithoutHashIsStale() throws IOException {
+        DiskCachedClassReaderSource source = createSource();
+        source.get("foo.A");
+        source.flush();
+
+        source = createSource();
+        assertTrue(source.isStaleClass("foo.A"));
+    }
+
+    private DiskCachedClassReaderSource createSource() {
+        return new DiskCachedClassReaderSource(folder.getRoot(), new ReferenceCache(), symbolTable, fileTable,
+                variableTable, this::createClass, hashes::get);
+    }
+
+    private ClassHolder createClass(String name) {
+        ClassHolder cls = new ClassHolder(name);
+        cls.setParent("java.lang.Object");
+        return cls;
+    }
+
+    private static void touchCacheFiles(File directory) {
+        for (File file : directory.listFiles()) {
+            if (file.isDirectory()) {
+                touchCacheFiles(file);
+            } else {
+                file.setLastModified(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class SharedCacheStorageTest {
+    @Test
+    public void evictsLeastRecentlyUsedEntries() {
+        SharedCacheStorage storage = new SharedCacheStorage(10);
+        SharedCacheStorage.Generation generation = storage.getGeneration();
+        generation.put("a", new byte[4]);
+        generation.put("b", new byte[4]);
+        generation.get("a");
+        generation.put("c", new byte[4]);
+
+        assertEquals(4, generation.get("a").length);
+        assertNull(generation.get("b"));
+        assertEquals(4, generation.get("c").length);
+        assertEquals(8, storage.getSize());
+    }
+
+    @Test
+    public void retiresGenerationWhenSymbolTableGrows() {
+        SharedCacheStorage storage = new SharedCacheStorage(1000, 2);
+        SharedCacheStorage.Generation first = storage.getGeneration();
+        first.put("a", new byte[4]);
+        first.getSymbolTable().lookup("x");
+        first.getSymbolTable().lookup("y");
+        assertSame(first, storage.getGeneration());
+
+        first.getSymbolTable().lookup("z");
+        SharedCacheStorage.Generation second = storage.getGeneration();
+        assertNotSame(first, second);
+        assertEquals(2, storage.getGenerationCount());
+        assertEquals(0, storage.getSize());
+        assertNull(second.get("a"));
+        assertEquals(0, second.getSymbolTable().lookup("z"));
+    }
+
+    @Test
+    public void retiredGenerationDoesNotStoreEntries() {
+        SharedCacheStorage storage = new SharedCacheStorage(1000, 0);
+        SharedCacheStorage.Generation first = storage.getGeneration();
+        int index = first.getFileTable().lookup("Foo.java");
+        SharedCacheStorage.Generation second = storage.getGeneration();
+
+        first.put("a", new byte[4]);
+        assertNull(first.get("a"));
+        assertNull(second.get("a"));
+        assertEquals(0, storage.getSize());
+        assertEquals("Foo.java", first.getFileTable().at(index));
+    }
+
+    @Test
+    public void concurrentBuildsShareEntries() throws Exception {
+        int threadCount = 8;
+        int entryCount = 200;
+        SharedCacheStorage storage = new SharedCacheStorage(1 << 20);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int i = 0; i < threadCount; ++i) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    SharedCacheStorage.Generation generation = storage.getGeneration();
+                    int[] indexes = new int[entryCount];
+                    for (int j = 0; j < entryCount; ++j) {
+                        String symbol = "symbol" + j;
+                        indexes[j] = generation.getSymbolTable().lookup(symbol);
+                        byte[] data = generation.get(symbol);
+                        if (data == null) {
+                            generation.put(symbol, encode(indexes[j], symbol));
+                        } else {
+                            assertArrayEquals(encode(indexes[j], symbol), data);
+                        }
+                    }
+                    return indexes;
+                }));
+            }
+            start.countDown();
+
+            int[] expected = results.get(0).get();
+            for (Future<int[]> result : results) {
+                assertArrayEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        SharedCacheStorage.Generation generation = storage.getGeneration();
+        assertEquals(1, storage.getGenerationCount());
+        for (int j = 0; j < entryCount; ++j) {
+            String symbol = "symbol" + j;
+            int index = generation.getSymbolTable().lookup(symbol);
+            assertEquals(symbol, generation.getSymbolTable().at(index));
+            assertArrayEquals(encode(index, symbol), generation.get(symbol));
+        }
+    }
+
+    private static byte[] encode(int index, String symbol) {
+        return (index + ":" + symbol).getBytes(StandardCharsets.UTF_8);
+    }
+}
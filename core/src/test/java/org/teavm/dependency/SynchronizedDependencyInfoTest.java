@@ -0,0 +1,314 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.dependency;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.teavm.callgraph.CallGraph;
+import org.teavm.model.ClassReaderSource;
+import org.teavm.model.FieldReference;
+import org.teavm.model.MethodReference;
+import org.teavm.model.ValueType;
+
+public class SynchronizedDependencyInfoTest {
+    private static final int METHOD_COUNT = 100;
+
+    @Test
+    public void concurrentQueries() throws Exception {
+        UnsafeDependencyInfo inner = new UnsafeDependencyInfo();
+        SynchronizedDependencyInfo info = new SynchronizedDependencyInfo(inner);
+        int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < threadCount; ++i) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    List<String> result = new ArrayList<>();
+                    for (int j = 0; j < METHOD_COUNT; ++j) {
+                        MethodDependencyInfo method = info.getMethod(method(j));
+                        ValueDependencyInfo variable = method.getVariable(0);
+                        result.add(String.join(",", variable.getTypes()) + ":" + variable.hasType("T" + j)
+                                + ":" + variable.hasType("U"));
+                        FieldDependencyInfo field = info.getField(new FieldReference("A", "f" + j));
+                        result.add(String.join(",", field.getValue().getTypes()));
+                        assertNull(info.getMethod(new MethodReference("Missing", "m" + j, ValueType.VOID)));
+                    }
+                    return result;
+                }));
+            }
+            start.countDown();
+
+            List<String> expected = results.get(0).get();
+            for (Future<List<String>> result : results) {
+                assertEquals(expected, result.get());
+            }
+            assertEquals("T0:true:false", expected.get(0));
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        assertFalse("Inner dependency info was accessed concurrently", inner.concurrentAccess.get());
+        assertEquals(METHOD_COUNT * 2, inner.methodQueries.get());
+        assertEquals(METHOD_COUNT, inner.fieldQueries.get());
+    }
+
+    @Test
+    public void repeatedQueriesReturnSameResult() {
+        SynchronizedDependencyInfo info = new SynchronizedDependencyInfo(new UnsafeDependencyInfo());
+        MethodDependencyInfo method = info.getMethod(method(1));
+        assertSame(method, info.getMethod(method(1)));
+        assertSame(method.getVariable(0), method.getVariables()[0]);
+
+        String[] types = method.getVariable(0).getTypes();
+        types[0] = "changed";
+        assertArrayEquals(new String[] { "T1" }, method.getVariable(0).getTypes());
+        assertTrue(method.getVariable(0).hasType("T1"));
+    }
+
+    private static MethodReference method(int index) {
+        return new MethodReference("A", "m" + index, ValueType.VOID);
+    }
+
+    /*
+     * Populates its caches lazily, like dependency analyzer does, and records whether it was ever entered
+     * by two threads at once.
+     */
+    static class UnsafeDependencyInfo implements DependencyInfo {
+        final AtomicInteger methodQueries = new AtomicInteger();
+        final AtomicInteger fieldQueries = new AtomicInteger();
+        final AtomicBoolean concurrentAccess = new AtomicBoolean();
+        private final AtomicInteger activeThreads = new AtomicInteger();
+        private final Map<String, Value> values = new HashMap<>();
+
+        private void enter() {
+            if (activeThreads.incrementAndGet() > 1) {
+                concurrentAccess.set(true);
+            }
+            Thread.yield();
+        }
+
+        private void exit() {
+            activeThreads.decrementAndGet();
+        }
+
+        Value value(String type) {
+            return values.computeIfAbsent(type, t -> new Value(this, t));
+        }
+
+        @Override
+        public ClassReaderSource getClassSource() {
+            return name -> null;
+        }
+
+        @Override
+        public ClassLoader getClassLoader() {
+            return SynchronizedDependencyInfoTest.class.getClassLoader();
+        }
+
+        @Override
+        public Collection<MethodReference> getReachableMethods() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<FieldReference> getReachableFields() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<String> getReachableClasses() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public FieldDependencyInfo getField(FieldReference fieldRef) {
+            enter();
+            try {
+                fieldQueries.incrementAndGet();
+                Value value = value("F" + fieldRef.getFieldName().substring(1));
+                return new FieldDependencyInfo() {
+                    @Override
+                    public ValueDependencyInfo getValue() {
+                        return value;
+                    }
+
+                    @Override
+                    public FieldReference getReference() {
+                        return fieldRef;
+                    }
+
+                    @Override
+                    public boolean isMissing() {
+                        return false;
+                    }
+                };
+            } finally {
+                exit();
+            }
+        }
+
+        @Override
+        public MethodDependencyInfo getMethod(MethodReference methodRef) {
+            enter();
+            try {
+                methodQueries.incrementAndGet();
+                if (!methodRef.getClassName().equals("A")) {
+                    return null;
+                }
+                Value variable = value("T" + methodRef.getName().substring(1));
+                return new MethodDependencyInfo() {
+                    @Override
+                    public ValueDependencyInfo[] getVariables() {
+                        enter();
+                        try {
+                            return new ValueDependencyInfo[] { variable };
+                        } finally {
+                            exit();
+                        }
+                    }
+
+                    @Override
+                    public int getVariableCount() {
+                        return 1;
+                    }
+
+                    @Override
+                    public ValueDependencyInfo getVariable(int index) {
+                        return getVariables()[index];
+                    }
+
+                    @Override
+                    public int getParameterCount() {
+                        return 0;
+                    }
+
+                    @Override
+                    public ValueDependencyInfo getResult() {
+                        return null;
+                    }
+
+                    @Override
+                    public ValueDependencyInfo getThrown() {
+                        return null;
+                    }
+
+                    @Override
+                    public MethodReference getReference() {
+                        return methodRef;
+                    }
+
+                    @Override
+                    public boolean isUsed() {
+                        return true;
+                    }
+
+                    @Override
+                    public boolean isCalled() {
+                        return true;
+                    }
+
+                    @Override
+                    public boolean isMissing() {
+                        return false;
+                    }
+                };
+            } finally {
+                exit();
+            }
+        }
+
+        @Override
+        public MethodDependencyInfo getMethodImplementation(MethodReference methodRef) {
+            return getMethod(methodRef);
+        }
+
+        @Override
+        public ClassDependencyInfo getClass(String className) {
+            return null;
+        }
+
+        @Override
+        public CallGraph getCallGraph() {
+            return null;
+        }
+    }
+
+    static class Value implements ValueDependencyInfo {
+        private final UnsafeDependencyInfo owner;
+        private final String type;
+
+        Value(UnsafeDependencyInfo owner, String type) {
+            this.owner = owner;
+            this.type = type;
+        }
+
+        @Override
+        public String[] getTypes() {
+            owner.enter();
+            try {
+                return new String[] { type };
+            } finally {
+                owner.exit();
+            }
+        }
+
+        @Override
+        public boolean hasType(String type) {
+            owner.enter();
+            try {
+                return this.type.equals(type);
+            } finally {
+                owner.exit();
+            }
+        }
+
+        @Override
+        public boolean hasArrayType() {
+            return false;
+        }
+
+        @Override
+        public ValueDependencyInfo getArrayItem() {
+            return null;
+        }
+
+        @Override
+        public ValueDependencyInfo getClassValueNode() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IncrementalDirectoryBuildTargetTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void unchangedFilesAreNotRewritten() throws IOException {
+        IncrementalDirectoryBuildTarget target = new IncrementalDirectoryBuildTarget(folder.getRoot());
+        write(target, "a.c", "first");
+        write(target, "b.c", "second");
+        assertEquals(2, target.getChangedFiles().size());
+        target.reset();
+
+        File file = new File(folder.getRoot(), "a.c");
+        assertTrue(file.setLastModified(1000));
+        write(target, "a.c", "first");
+        write(target, "b.c", "second");
+        assertTrue(target.getChangedFiles().isEmpty());
+        assertEquals(1000, file.lastModified());
+        assertTrue(target.reset().isEmpty());
+    }
+
+    @Test
+    public void changedFileIsRewritten() throws IOException {
+        IncrementalDirectoryBuildTarget target = new IncrementalDirectoryBuildTarget(folder.getRoot());
+        write(target, "a.c", "first");
+        write(target, "b.c", "second");
+        target.reset();
+
+        write(target, "a.c", "updated");
+        write(target, "b.c", "second");
+        assertEquals(Collections.singleton("a.c"), target.getChangedFiles());
+        assertEquals("updated", read("a.c"));
+    }
+
+    @Test
+    public void fileModifiedOutsideIsRestored() throws IOException {
+        IncrementalDirectoryBuildTarget target = new IncrementalDirectoryBuildTarget(folder.getRoot());
+        write(target, "a.c", "first");
+        target.reset();
+
+        Files.write(new File(folder.getRoot(), "a.c").toPath(), "broken".getBytes(StandardCharsets.UTF_8));
+        write(target, "a.c", "first");
+        assertEquals(Collections.singleton("a.c"), target.getChangedFiles());
+        assertEquals("first", read("a.c"));
+    }
+
+    @Test
+    public void staleFilesAreDeletedOnReset() throws IOException {
+        IncrementalDirectoryBuildTarget target = new IncrementalDirectoryBuildTarget(folder.getRoot());
+        write(target, "a.c", "first");
+        write(target, "b.c", "second");
+        target.reset();
+
+        write(target, "a.c", "first");
+        assertTrue(target.getChangedFiles().isEmpty());
+        assertEquals(Collections.singleton("b.c"), target.reset());
+        assertFalse(new File(folder.getRoot(), "b.c").exists());
+        assertTrue(new File(folder.getRoot(), "a.c").exists());
+    }
+
+    private static void write(BuildTarget target, String fileName, String content) throws IOException {
+        try (OutputStream output = target.createResource(fileName)) {
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private String read(String fileName) throws IOException {
+        return new String(Files.readAllBytes(new File(folder.getRoot(), fileName).toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -23,4 +23,6 @@ public final class Platforms {
     public static final String WEBASSEMBLY = "webassembly";
     public static final String C = "c";
     public static final String LOW_LEVEL = "low_level";
+    public static final String MULTITHREADED = "multithreaded";
+    public static final String NATIVE_STRINGS = "native_strings";
 }
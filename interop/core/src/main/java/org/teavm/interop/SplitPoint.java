@@ -0,0 +1,48 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.interop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Marks a method as an entry point of a separate chunk of code. The method itself, as well as methods
+ * that are only called from it, directly or indirectly, are moved to a separate file, which is loaded
+ * on first call of any of these methods. Several split points may share a chunk by specifying the same name.</p>
+ *
+ * <p>Chunk is a separate JavaScript file, named after main output file and chunk name. On first call
+ * the calling thread is suspended until the chunk is loaded by a {@code <script>} tag, so split points are
+ * treated as asynchronous methods. Chunk files are looked up next to the main script, which can be overridden
+ * by setting {@code TeaVMChunks.baseUrl} global property. Chunks can also be loaded in advance by page,
+ * in this case no suspension happens. When a split point is called outside of a thread, e.g. from a native
+ * JavaScript callback, chunk must be already loaded, unless it can be loaded synchronously, which is
+ * the case for web workers and Node.js.</p>
+ *
+ * <p>When chunks are present, all top-level names of the main file are put to a scope object, and
+ * methods moved to chunks don't get debug information.</p>
+ *
+ * <p>Only supported by JavaScript backend, other backends ignore this annotation.</p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.CONSTRUCTOR, ElementType.METHOD })
+public @interface SplitPoint {
+    /**
+     * Name of chunk. When omitted, simple name of declaring class is used.
+     */
+    String value() default "";
+}
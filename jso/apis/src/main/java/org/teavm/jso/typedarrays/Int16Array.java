@@ -16,6 +16,7 @@
 package org.teavm.jso.typedarrays;
 
 import org.teavm.jso.JSBody;
+import org.teavm.jso.JSByRef;
 import org.teavm.jso.JSIndexer;
 
 public abstract class Int16Array extends ArrayBufferView {
@@ -39,4 +40,11 @@ public abstract class Int16Array extends ArrayBufferView {
 
     @JSBody(params = { "buffer", "offset" }, script = "return new Int16Array(buffer, offset);")
     public static native Int16Array create(ArrayBuffer buffer, int offset);
+
+    @JSBody(params = "array", script = "return array;")
+    public static native Int16Array fromJavaArray(@JSByRef short[] array);
+
+    @JSByRef
+    @JSBody(script = "return this;")
+    public final native short[] toJavaArray();
 }
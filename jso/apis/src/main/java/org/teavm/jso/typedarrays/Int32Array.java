@@ -44,4 +44,11 @@ public abstract class Int32Array extends ArrayBufferView {
 
     @JSBody(params = { "buffer", "offset" }, script = "return new Int32Array(buffer, offset);")
     public static native Int32Array create(ArrayBuffer buffer, int offset);
+
+    @JSBody(params = "array", script = "return array;")
+    public static native Int32Array fromJavaArray(@JSByRef int[] array);
+
+    @JSByRef
+    @JSBody(script = "return this;")
+    public final native int[] toJavaArray();
 }
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.jso.workers;
+
+import org.teavm.jso.JSBody;
+import org.teavm.jso.JSObject;
+import org.teavm.jso.JSProperty;
+import org.teavm.jso.dom.events.EventListener;
+import org.teavm.jso.dom.events.EventTarget;
+import org.teavm.jso.dom.events.MessageEvent;
+
+/**
+ * Global scope of code running inside a dedicated {@link Worker}. An application can load the same
+ * compiled script both in a page and in a worker, check {@link #isWorker()} in its {@code main} method
+ * and offload heavy computations to the worker by exchanging messages. Note that each worker has its
+ * own Java heap, so only data passed in messages is shared.
+ */
+public abstract class DedicatedWorkerGlobalScope implements JSObject, EventTarget {
+    @JSBody(script = "return self;")
+    public static native DedicatedWorkerGlobalScope current();
+
+    @JSBody(script = "return typeof DedicatedWorkerGlobalScope !== 'undefined' "
+            + "&& self instanceof DedicatedWorkerGlobalScope;")
+    public static native boolean isWorker();
+
+    @JSProperty("onmessage")
+    public abstract void onMessage(EventListener<MessageEvent> listener);
+
+    @JSProperty("onmessageerror")
+    public abstract void onMessageError(EventListener<MessageEvent> listener);
+
+    public abstract void postMessage(JSObject message);
+
+    /**
+     * Posts message, moving ownership of given transferable objects, for example, {@code ArrayBuffer}s,
+     * to the page instead of copying them.
+     */
+    public abstract void postMessage(JSObject message, JSObject[] transfer);
+
+    public abstract void importScripts(String url);
+
+    public abstract void close();
+}
@@ -25,10 +25,19 @@ public abstract class Worker implements AbstractWorker {
     @JSBody(params = "url", script = "return new Worker(url);")
     public static native Worker create(String url);
 
+    @JSBody(script = "return typeof Worker !== 'undefined';")
+    public static native boolean isSupported();
+
     @JSProperty("onmessage")
     public abstract void onMessage(EventListener<MessageEvent> listener);
 
     public abstract void postMessage(JSObject message);
 
+    /**
+     * Posts message, moving ownership of given transferable objects, for example, {@code ArrayBuffer}s,
+     * to the worker instead of copying them.
+     */
+    public abstract void postMessage(JSObject message, JSObject[] transfer);
+
     public abstract void terminate();
 }
@@ -0,0 +1,101 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.jso.workers;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import org.teavm.interop.Async;
+import org.teavm.interop.AsyncCallback;
+import org.teavm.jso.JSObject;
+
+/**
+ * One end of the message channel between a {@link WorkerThread} and the task that runs in its worker.
+ * Messages are copied with structured clone unless passed in a transfer list, so both ends only
+ * share what they explicitly send.
+ */
+public final class WorkerChannel {
+    private WorkerMessageTarget target;
+    private Queue<JSObject> messages = new ArrayDeque<>();
+    private Queue<AsyncCallback<JSObject>> receivers = new ArrayDeque<>();
+    private boolean closed;
+
+    WorkerChannel() {
+    }
+
+    void connect(JSObject target) {
+        this.target = target.cast();
+    }
+
+    public void send(JSObject message) {
+        checkConnected();
+        target.postMessage(WorkerThread.envelope(WorkerThread.MESSAGE, message));
+    }
+
+    /**
+     * Sends message, moving ownership of given transferable objects, for example, {@code ArrayBuffer}s,
+     * to the other end of the channel instead of copying them.
+     */
+    public void send(JSObject message, JSObject[] transfer) {
+        checkConnected();
+        target.postMessage(WorkerThread.envelope(WorkerThread.MESSAGE, message), transfer);
+    }
+
+    /**
+     * Waits until the other end sends a message and returns it.
+     *
+     * @throws IllegalStateException if the worker terminated and no more messages are left.
+     */
+    @Async
+    public native JSObject receive();
+
+    private void receive(AsyncCallback<JSObject> callback) {
+        if (!messages.isEmpty()) {
+            callback.complete(messages.remove());
+        } else if (closed) {
+            callback.error(new IllegalStateException("Worker channel is closed"));
+        } else {
+            receivers.add(callback);
+        }
+    }
+
+    void deliver(JSObject message) {
+        if (!receivers.isEmpty()) {
+            receivers.remove().complete(message);
+        } else {
+            messages.add(message);
+        }
+    }
+
+    void post(int kind, JSObject data) {
+        target.postMessage(WorkerThread.envelope(kind, data));
+    }
+
+    void close() {
+        closed = true;
+        while (!receivers.isEmpty()) {
+            receivers.remove().error(new IllegalStateException("Worker channel is closed"));
+        }
+    }
+
+    private void checkConnected() {
+        if (target == null) {
+            throw new IllegalStateException("Worker thread is not started");
+        }
+        if (closed) {
+            throw new IllegalStateException("Worker channel is closed");
+        }
+    }
+}
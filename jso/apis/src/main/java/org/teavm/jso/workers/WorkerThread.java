@@ -0,0 +1,222 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.jso.workers;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.teavm.interop.Async;
+import org.teavm.interop.AsyncCallback;
+import org.teavm.jso.JSBody;
+import org.teavm.jso.JSObject;
+import org.teavm.jso.core.JSString;
+
+/**
+ * Thread that runs a {@link WorkerTask} in a dedicated {@link Worker} instead of multiplexing it on
+ * the page's event loop. The worker loads the same compiled script, so the task must be registered
+ * under the same name on both sides, and the script's {@code main} method must call
+ * {@link #enterWorker()} before doing anything else:
+ *
+ * <pre>
+ * public static void main(String[] args) {
+ *     WorkerThread.register("parser", channel -&gt; ...);
+ *     if (WorkerThread.enterWorker()) {
+ *         return;
+ *     }
+ *     WorkerThread thread = new WorkerThread("worker.js", "parser");
+ *     thread.start();
+ *     thread.getChannel().send(...);
+ * }
+ * </pre>
+ *
+ * <p>Here {@code worker.js} loads the compiled script with {@code importScripts} and calls {@code main}.
+ * The worker has its own Java heap, so the task and the thread only share data sent through the
+ * {@link WorkerChannel}. The thread terminates when the task returns or throws; in the latter case
+ * {@link #getFailure()} describes the exception.</p>
+ */
+public class WorkerThread extends Thread {
+    static final int START = 0;
+    static final int MESSAGE = 1;
+    static final int DONE = 2;
+    static final int FAILED = 3;
+
+    private static Map<String, WorkerTask> tasks = new HashMap<>();
+    private final String scriptUrl;
+    private final String taskName;
+    private final WorkerChannel channel = new WorkerChannel();
+    private Worker worker;
+    private boolean terminated;
+    private String error;
+    private AsyncCallback<Void> terminationCallback;
+
+    public WorkerThread(String scriptUrl, String taskName) {
+        super("worker:" + taskName);
+        this.scriptUrl = scriptUrl;
+        this.taskName = taskName;
+    }
+
+    public static void register(String taskName, WorkerTask task) {
+        tasks.put(taskName, task);
+    }
+
+    /**
+     * When called inside a worker, waits for the task name sent by {@link WorkerThread#start()}, runs the
+     * registered task and closes the worker.
+     *
+     * @return {@code true} if the code runs in a worker and the task completed, {@code false} if it runs
+     * elsewhere and the caller should continue as usual.
+     */
+    public static boolean enterWorker() {
+        if (!DedicatedWorkerGlobalScope.isWorker()) {
+            return false;
+        }
+        DedicatedWorkerGlobalScope scope = DedicatedWorkerGlobalScope.current();
+        WorkerChannel channel = new WorkerChannel();
+        channel.connect(scope);
+        StartListener startListener = new StartListener();
+        scope.onMessage(event -> {
+            JSObject message = event.getData();
+            if (kindOf(message) == START) {
+                startListener.start(((JSString) dataOf(message)).stringValue());
+            } else {
+                channel.deliver(dataOf(message));
+            }
+        });
+
+        String name = startListener.await();
+        WorkerTask task = tasks.get(name);
+        String failure = null;
+        try {
+            if (task == null) {
+                throw new IllegalStateException("Worker task not registered: " + name);
+            }
+            task.run(channel);
+        } catch (Throwable e) {
+            failure = String.valueOf(e);
+        }
+        if (failure == null) {
+            channel.post(DONE, null);
+        } else {
+            channel.post(FAILED, JSString.valueOf(failure));
+        }
+        channel.close();
+        scope.close();
+        return true;
+    }
+
+    public WorkerChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Returns description of exception the task failed with, or {@code null} if the task completed normally
+     * or is still running.
+     */
+    public String getFailure() {
+        return error;
+    }
+
+    @Override
+    public void start() {
+        if (worker != null) {
+            throw new IllegalStateException("Worker thread is already started");
+        }
+        worker = Worker.create(scriptUrl);
+        channel.connect(worker);
+        worker.onMessage(event -> {
+            JSObject message = event.getData();
+            switch (kindOf(message)) {
+                case MESSAGE:
+                    channel.deliver(dataOf(message));
+                    break;
+                case DONE:
+                    terminate(null);
+                    break;
+                case FAILED:
+                    terminate(((JSString) dataOf(message)).stringValue());
+                    break;
+            }
+        });
+        worker.onError(event -> terminate(event.getMessage()));
+        channel.post(START, JSString.valueOf(taskName));
+        super.start();
+    }
+
+    @Override
+    public void run() {
+        awaitTermination();
+        worker.terminate();
+    }
+
+    private void terminate(String error) {
+        if (terminated) {
+            return;
+        }
+        terminated = true;
+        this.error = error;
+        channel.close();
+        if (terminationCallback != null) {
+            AsyncCallback<Void> callback = terminationCallback;
+            terminationCallback = null;
+            callback.complete(null);
+        }
+    }
+
+    @Async
+    private native void awaitTermination();
+
+    private void awaitTermination(AsyncCallback<Void> callback) {
+        if (terminated) {
+            callback.complete(null);
+        } else {
+            terminationCallback = callback;
+        }
+    }
+
+    static class StartListener {
+        private String name;
+        private AsyncCallback<String> callback;
+
+        void start(String name) {
+            if (callback != null) {
+                AsyncCallback<String> callback = this.callback;
+                this.callback = null;
+                callback.complete(name);
+            } else {
+                this.name = name;
+            }
+        }
+
+        @Async
+        native String await();
+
+        private void await(AsyncCallback<String> callback) {
+            if (name != null) {
+                callback.complete(name);
+            } else {
+                this.callback = callback;
+            }
+        }
+    }
+
+    @JSBody(params = { "kind", "data" }, script = "return { kind: kind, data: data };")
+    static native JSObject envelope(int kind, JSObject data);
+
+    @JSBody(params = "envelope", script = "return envelope.kind;")
+    private static native int kindOf(JSObject envelope);
+
+    @JSBody(params = "envelope", script = "return envelope.data;")
+    private static native JSObject dataOf(JSObject envelope);
+}
@@ -21,9 +21,14 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
- * <p>Marks parameters of JavaScript methods that should be passed by reference.
- * This annotation is only applicable to parameters of array type. More specifically:
- * to: byte[], short[], char[], int[], float[], double[] or T[], where T is JSObject.</p>
+ * <p>Marks parameters of JavaScript methods that should be passed by reference, or JavaScript methods
+ * which return value should be returned by reference. This annotation is only applicable to array types.
+ * More specifically: to: byte[], short[], char[], int[], float[], double[] or T[], where T is JSObject.</p>
+ *
+ * <p>Java primitive arrays are backed by typed arrays of corresponding types (i.e. {@code Int8Array} for byte[],
+ * {@code Uint16Array} for char[], and so on), so passing by reference does not copy data: JavaScript receives
+ * the typed array itself, and a returned typed array becomes storage of the Java array.
+ * Applicable to {@link JSBody} methods, methods of JavaScript interfaces, properties and indexers.</p>
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ ElementType.PARAMETER, ElementType.METHOD })
@@ -368,7 +368,8 @@ class JSClassProcessor {
             Variable result = invoke.getReceiver() != null ? program.createVariable() : null;
             addPropertyGet(propertyName, invoke.getInstance(), result, invoke.getLocation());
             if (result != null) {
-                result = marshaller.unwrapReturnValue(callLocation, result, method.getResultType(), false);
+                result = marshaller.unwrapReturnValue(callLocation, result, method.getResultType(),
+                        isResultByRef(method, callLocation));
                 copyVar(result, invoke.getReceiver(), invoke.getLocation());
             }
             return true;
@@ -379,7 +380,7 @@ class JSClassProcessor {
                 propertyName = cutPrefix(method.getName(), 3);
             }
             Variable wrapped = marshaller.wrapArgument(callLocation, invoke.getArguments().get(0),
-                    method.parameterType(0), false);
+                    method.parameterType(0), isParameterByRef(method, 0, callLocation));
             addPropertySet(propertyName, invoke.getInstance(), wrapped, invoke.getLocation());
             return true;
         }
@@ -400,7 +401,8 @@ class JSClassProcessor {
             addIndexerGet(invoke.getInstance(), marshaller.wrapArgument(callLocation, invoke.getArguments().get(0),
                     method.parameterType(0), false), result, invoke.getLocation());
             if (result != null) {
-                result = marshaller.unwrapReturnValue(callLocation, result, method.getResultType(), false);
+                result = marshaller.unwrapReturnValue(callLocation, result, method.getResultType(),
+                        isResultByRef(method, callLocation));
                 copyVar(result, invoke.getReceiver(), invoke.getLocation());
             }
             return true;
@@ -409,7 +411,7 @@ class JSClassProcessor {
             Variable index = marshaller.wrapArgument(callLocation, invoke.getArguments().get(0),
                     method.parameterType(0), false);
             Variable value = marshaller.wrapArgument(callLocation, invoke.getArguments().get(1),
-                    method.parameterType(1), false);
+                    method.parameterType(1), isParameterByRef(method, 1, callLocation));
             addIndexerSet(invoke.getInstance(), index, value, invoke.getLocation());
             return true;
         }
@@ -448,6 +450,31 @@ class JSClassProcessor {
         return true;
     }
 
+    private boolean isParameterByRef(MethodReader method, int index, CallLocation callLocation) {
+        if (method.getParameterAnnotations()[index].get(JSByRef.class.getName()) == null) {
+            return false;
+        }
+        if (!typeHelper.isSupportedByRefType(method.parameterType(index))) {
+            diagnostics.error(callLocation, "Method {{m0}} is not a proper native JavaScript method "
+                    + "declaration: its " + (index + 1) + "th parameter is declared as JSByRef, "
+                    + "which has incompatible type", method.getReference());
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isResultByRef(MethodReader method, CallLocation callLocation) {
+        if (method.getAnnotations().get(JSByRef.class.getName()) == null) {
+            return false;
+        }
+        if (!typeHelper.isSupportedByRefType(method.getResultType())) {
+            diagnostics.error(callLocation, "Method {{m0}} is marked with @JSByRef, but does not return valid "
+                    + "array type", method.getReference());
+            return false;
+        }
+        return true;
+    }
+
     private boolean processMethod(MethodReader method, CallLocation callLocation, InvokeInstruction invoke) {
         String name = method.getName();
 
@@ -482,7 +509,8 @@ class JSClassProcessor {
         newInvoke.setArguments(newArguments.toArray(new Variable[0]));
         replacement.add(newInvoke);
         if (result != null) {
-            result = marshaller.unwrapReturnValue(callLocation, result, method.getResultType(), false);
+            result = marshaller.unwrapReturnValue(callLocation, result, method.getResultType(),
+                    isResultByRef(method, callLocation));
             copyVar(result, invoke.getReceiver(), invoke.getLocation());
         }
 
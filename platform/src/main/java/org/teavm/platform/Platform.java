@@ -96,6 +96,12 @@ public final class Platform {
     @NoSideEffects
     public static native int nextObjectId();
 
+    @JSBody(params = "object", script = "return $rt_objectId(object);")
+    public static native int getObjectId(PlatformObject object);
+
+    @JSBody(params = "object", script = "$rt_resetObjectId(object);")
+    public static native void resetObjectId(PlatformObject object);
+
     public static <T> T newInstance(PlatformClass cls) {
         if (!newInstancePrepared) {
             prepareNewInstance();
@@ -0,0 +1,61 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.samples.benchmark.shared;
+
+/**
+ * CPU-bound workloads dominated by {@code long} arithmetic: hashing, random number generation and
+ * timestamp calculations. Each workload returns a checksum, so that results can be compared across platforms.
+ */
+public final class LongArithmetic {
+    private LongArithmetic() {
+    }
+
+    public static long hash(int iterations) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < iterations; ++i) {
+            hash ^= i;
+            hash *= 0x100000001b3L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+
+    public static long random(int iterations) {
+        long state = 0x9E3779B97F4A7C15L;
+        long sum = 0;
+        for (int i = 0; i < iterations; ++i) {
+            state ^= state << 13;
+            state ^= state >>> 7;
+            state ^= state << 17;
+            sum += state * 0x2545F4914F6CDD1DL;
+        }
+        return sum;
+    }
+
+    public static long timestamps(int iterations) {
+        long time = 1546300800000L;
+        long checksum = 0;
+        for (int i = 0; i < iterations; ++i) {
+            time += 86399937L;
+            long days = time / 86400000L;
+            long millisOfDay = time % 86400000L;
+            long hours = millisOfDay / 3600000L;
+            long minutes = millisOfDay / 60000L % 60;
+            checksum = checksum * 31 + days + hours + minutes;
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.samples.benchmark.teavm;
+
+import org.teavm.samples.benchmark.shared.LongArithmetic;
+
+/**
+ * Measures performance of {@code long} arithmetic. Compiled twice, with the default representation of long
+ * and with BigInt representation, see <code>teavm-long.html</code> and <code>teavm-long-bigint.html</code>.
+ * Can run on JVM, in browser or in node.js.
+ */
+public final class LongBenchmarkStarter {
+    private static final int ITERATIONS = 1000000;
+    private static final int ROUNDS = 10;
+
+    private LongBenchmarkStarter() {
+    }
+
+    public static void main(String[] args) {
+        measure("hash", () -> LongArithmetic.hash(ITERATIONS));
+        measure("random", () -> LongArithmetic.random(ITERATIONS));
+        measure("timestamps", () -> LongArithmetic.timestamps(ITERATIONS));
+    }
+
+    private static void measure(String name, Workload workload) {
+        long checksum = workload.run();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < ROUNDS; ++i) {
+            checksum ^= workload.run();
+        }
+        long time = System.currentTimeMillis() - start;
+        System.out.println(name + ": " + time / ROUNDS + " ms per " + ITERATIONS + " iterations, checksum "
+                + checksum);
+    }
+
+    interface Workload {
+        long run();
+    }
+}
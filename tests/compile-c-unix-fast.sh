@@ -1,3 +1,3 @@
 export LC_ALL=C
 SOURCE_DIR=$(pwd)
-gcc -g -O0 -lrt -lm all.c -o run_test
\ No newline at end of file
+gcc -g -O0 -pthread -lrt -lm all.c -o run_test
\ No newline at end of file
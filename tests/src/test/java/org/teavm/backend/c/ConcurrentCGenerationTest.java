@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.backend.c;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.Test;
+import org.teavm.vm.TeaVM;
+import org.teavm.vm.TeaVMBuilder;
+
+public class ConcurrentCGenerationTest {
+    @Test
+    public void sameOutputForAnyNumberOfThreads() {
+        Map<String, String> sequential = generate(1);
+        Map<String, String> parallel = generate(4);
+
+        assertTrue("Sample program must produce class files", sequential.size() > 10);
+        assertEquals(sequential.keySet(), parallel.keySet());
+        for (String fileName : sequential.keySet()) {
+            assertEquals("File " + fileName + " differs", sequential.get(fileName), parallel.get(fileName));
+        }
+    }
+
+    private Map<String, String> generate(int threads) {
+        CTarget target = new CTarget();
+        target.setIncremental(true);
+        TeaVM vm = new TeaVMBuilder(target)
+                .setClassLoader(ConcurrentCGenerationTest.class.getClassLoader())
+                .build();
+        vm.setOptimizationThreads(threads);
+        vm.installPlugins();
+        vm.entryPoint(Sample.class.getName());
+
+        Map<String, ByteArrayOutputStream> files = new HashMap<>();
+        vm.build(fileName -> {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            synchronized (files) {
+                files.put(fileName, output);
+            }
+            return output;
+        }, "");
+        assertTrue("Sample program compiled with errors", vm.getProblemProvider().getSevereProblems().isEmpty());
+
+        Map<String, String> result = new TreeMap<>();
+        for (Map.Entry<String, ByteArrayOutputStream> entry : files.entrySet()) {
+            result.put(entry.getKey(), new String(entry.getValue().toByteArray(), StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    public static class Sample {
+        public static void main(String[] args) {
+            List<Object> values = new ArrayList<>();
+            values.add(23);
+            values.add("foo");
+            values.add(new StringBuilder("bar"));
+            Map<String, Integer> lengths = new HashMap<>();
+            for (Object value : values) {
+                lengths.put(value.toString(), value.toString().length());
+            }
+            System.out.println(lengths);
+        }
+    }
+}
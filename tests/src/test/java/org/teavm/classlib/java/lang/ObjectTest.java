@@ -71,6 +71,19 @@ public class ObjectTest {
         assertTrue(new byte[3].toString().startsWith("[B@"));
     }
 
+    @Test
+    public void identityHashCodeIsStable() {
+        Object a = new Object();
+        Object b = new Object();
+        int hash = a.hashCode();
+        synchronized (a) {
+            assertEquals(hash, a.hashCode());
+        }
+        assertEquals(hash, System.identityHashCode(a));
+        assertEquals(System.identityHashCode(b), b.hashCode());
+        assertEquals(hash, a.hashCode());
+    }
+
     @Test
     public void waitWorks() throws InterruptedException {
         long start = System.currentTimeMillis();
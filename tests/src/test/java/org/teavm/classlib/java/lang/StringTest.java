@@ -290,4 +290,15 @@ public class StringTest {
     public void internsConstants() {
         assertSame("abc", ("a" + "bc").intern());
     }
+
+    @Test
+    public void sameConstantsAreIdentical() {
+        assertSame(constant(), constant());
+        assertSame("constant", constant());
+        assertSame(constant(), new StringBuilder("const").append("ant").toString().intern());
+    }
+
+    private static String constant() {
+        return "constant";
+    }
 }
@@ -57,6 +57,78 @@ public class ThreadTest {
         }
     }
 
+    @Test
+    public void notAliveUntilStarted() throws InterruptedException {
+        int[] result = new int[1];
+        Thread thread = new Thread(() -> result[0] = 23);
+        assertFalse(thread.isAlive());
+        thread.join();
+
+        thread.start();
+        thread.join();
+        assertFalse(thread.isAlive());
+        assertEquals(23, result[0]);
+    }
+
+    @Test
+    public void joinsStartedThreads() throws InterruptedException {
+        Object lock = new Object();
+        int[] counter = new int[1];
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; ++j) {
+                    synchronized (lock) {
+                        counter[0]++;
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4000, counter[0]);
+    }
+
+    @Test
+    public void waitsForNotification() throws InterruptedException {
+        List<Integer> queue = new ArrayList<>();
+        List<Integer> received = new ArrayList<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                synchronized (queue) {
+                    while (received.size() < 10) {
+                        while (queue.isEmpty()) {
+                            queue.wait();
+                        }
+                        received.add(queue.remove(0));
+                        queue.notifyAll();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // test will fail on missing items
+            }
+        });
+        consumer.start();
+
+        for (int i = 0; i < 10; ++i) {
+            synchronized (queue) {
+                while (!queue.isEmpty()) {
+                    queue.wait();
+                }
+                queue.add(i);
+                queue.notifyAll();
+            }
+        }
+        consumer.join();
+
+        assertEquals(10, received.size());
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(i, received.get(i).intValue());
+        }
+    }
+
     @Test
     public void catchesAsyncException() {
         try {
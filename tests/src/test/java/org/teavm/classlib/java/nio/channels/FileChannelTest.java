@@ -0,0 +1,262 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.classlib.java.nio.channels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.ShortBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.SkipPlatform;
+import org.teavm.junit.TeaVMTestRunner;
+import org.teavm.junit.TestPlatform;
+
+@RunWith(TeaVMTestRunner.class)
+public class FileChannelTest {
+    private static final byte[] CONTENT = "0123456789abcdef".getBytes();
+
+    private File createFile() throws IOException {
+        File file = File.createTempFile("tmp", "tmp");
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(CONTENT);
+        }
+        return file;
+    }
+
+    @Test
+    public void readsAndMovesPosition() throws IOException {
+        try (FileInputStream input = new FileInputStream(createFile())) {
+            FileChannel channel = input.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            assertEquals(4, channel.read(buffer));
+            assertArrayEquals("0123".getBytes(), buffer.array());
+            assertEquals(4, channel.position());
+            assertEquals('4', input.read());
+            assertEquals(5, channel.position());
+            assertEquals(16, channel.size());
+        }
+    }
+
+    @Test
+    public void positionalReadKeepsPosition() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(createFile(), "r")) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(3);
+            assertEquals(3, channel.read(buffer, 10));
+            assertArrayEquals("abc".getBytes(), buffer.array());
+            assertEquals(0, channel.position());
+            assertEquals(-1, channel.read(ByteBuffer.allocate(1), 16));
+        }
+    }
+
+    @Test
+    public void writes() throws IOException {
+        File f = createFile();
+        try (RandomAccessFile file = new RandomAccessFile(f, "rw")) {
+            FileChannel channel = file.getChannel();
+            channel.position(2);
+            assertEquals(2, channel.write(ByteBuffer.wrap("xy".getBytes())));
+            assertEquals(4, file.getFilePointer());
+            assertEquals(1, channel.write(ByteBuffer.wrap("z".getBytes()), 15));
+            assertEquals(4, channel.position());
+            assertEquals(2, channel.write(ByteBuffer.wrap("++".getBytes()), 16));
+            assertEquals(18, channel.size());
+        }
+
+        byte[] data = new byte[18];
+        try (FileInputStream input = new FileInputStream(f)) {
+            assertEquals(18, input.read(data));
+        }
+        assertArrayEquals("01xy456789abcdez++".getBytes(), data);
+    }
+
+    @Test
+    public void truncates() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(createFile(), "rw")) {
+            FileChannel channel = file.getChannel();
+            channel.position(12);
+            channel.truncate(10);
+            assertEquals(10, channel.size());
+            assertEquals(10, channel.position());
+        }
+    }
+
+    @Test
+    public void transfersBetweenFiles() throws IOException {
+        File target = File.createTempFile("tmp", "tmp");
+        try (FileInputStream input = new FileInputStream(createFile());
+                FileOutputStream output = new FileOutputStream(target)) {
+            assertEquals(6, input.getChannel().transferTo(10, 6, output.getChannel()));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(target, "r")) {
+            byte[] data = new byte[6];
+            file.readFully(data);
+            assertArrayEquals("abcdef".getBytes(), data);
+        }
+    }
+
+    @Test
+    public void readOnlyChannelRejectsWrites() throws IOException {
+        try (FileInputStream input = new FileInputStream(createFile())) {
+            input.getChannel().write(ByteBuffer.allocate(1));
+            fail("Write should not be permitted");
+        } catch (NonWritableChannelException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void closingChannelClosesStream() throws IOException {
+        FileInputStream input = new FileInputStream(createFile());
+        FileChannel channel = input.getChannel();
+        channel.close();
+        assertFalse(channel.isOpen());
+        try {
+            input.read();
+            fail("Stream should be closed");
+        } catch (IOException e) {
+            // Expected
+        }
+        try {
+            channel.read(ByteBuffer.allocate(1));
+            fail("Channel should be closed");
+        } catch (ClosedChannelException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    @SkipPlatform({ TestPlatform.JAVASCRIPT, TestPlatform.WEBASSEMBLY })
+    public void mapsForReading() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(createFile(), "r")) {
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 4, 8);
+            assertTrue(buffer.isReadOnly());
+            assertEquals(8, buffer.capacity());
+            assertEquals('4', buffer.get());
+            assertEquals('b', buffer.get(7));
+            assertEquals(ByteBuffer.wrap("5678".getBytes()).getInt(), buffer.getInt());
+
+            byte[] rest = new byte[3];
+            buffer.get(rest);
+            assertArrayEquals("9ab".getBytes(), rest);
+            assertEquals(0, buffer.remaining());
+        }
+    }
+
+    @Test
+    @SkipPlatform({ TestPlatform.JAVASCRIPT, TestPlatform.WEBASSEMBLY })
+    public void mapsViews() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(createFile(), "r")) {
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, 16);
+            buffer.position(4);
+            IntBuffer ints = buffer.asIntBuffer();
+            assertEquals(3, ints.capacity());
+            assertTrue(ints.isDirect());
+            assertTrue(ints.isReadOnly());
+            IntBuffer expectedInts = ByteBuffer.wrap(CONTENT, 4, 12).slice().asIntBuffer();
+            for (int i = 0; i < 3; ++i) {
+                assertEquals(expectedInts.get(i), ints.get(i));
+            }
+
+            buffer.position(0);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            ShortBuffer shorts = buffer.asShortBuffer();
+            assertEquals(ByteOrder.LITTLE_ENDIAN, shorts.order());
+            assertEquals((short) ('0' | ('1' << 8)), shorts.get());
+            assertEquals((short) ('e' | ('f' << 8)), shorts.get(7));
+
+            ShortBuffer slice = shorts.slice();
+            assertEquals(7, slice.capacity());
+            assertEquals((short) ('2' | ('3' << 8)), slice.get(0));
+        }
+    }
+
+    @Test
+    @SkipPlatform({ TestPlatform.JAVASCRIPT, TestPlatform.WEBASSEMBLY })
+    public void readOnlyMappingRejectsWrites() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(createFile(), "r")) {
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, 16);
+            try {
+                buffer.put(0, (byte) 1);
+                fail("Write to read-only mapping should not be permitted");
+            } catch (ReadOnlyBufferException e) {
+                // Expected
+            }
+            try {
+                buffer.asIntBuffer().put(0, 1);
+                fail("Write to view of read-only mapping should not be permitted");
+            } catch (ReadOnlyBufferException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    @SkipPlatform({ TestPlatform.JAVASCRIPT, TestPlatform.WEBASSEMBLY })
+    public void writesThroughMapping() throws IOException {
+        File f = createFile();
+        try (RandomAccessFile file = new RandomAccessFile(f, "rw")) {
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 2, 12);
+            buffer.put((byte) 'x');
+            buffer.put(3, (byte) 'y');
+            buffer.position(4);
+            buffer.asIntBuffer().put(ByteBuffer.wrap("ABCD".getBytes()).getInt());
+            buffer.position(8);
+            buffer.put("EFGH".getBytes());
+            buffer.force();
+        }
+
+        byte[] data = new byte[16];
+        try (FileInputStream input = new FileInputStream(f)) {
+            assertEquals(16, input.read(data));
+        }
+        assertArrayEquals("01x34yABCDEFGHef".getBytes(), data);
+    }
+
+    @Test
+    @SkipPlatform({ TestPlatform.JAVASCRIPT, TestPlatform.WEBASSEMBLY })
+    public void privateMappingDoesNotWriteFile() throws IOException {
+        File f = createFile();
+        try (RandomAccessFile file = new RandomAccessFile(f, "rw")) {
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.PRIVATE, 0, 16);
+            buffer.put(0, (byte) 'x');
+            assertEquals('x', buffer.get(0));
+            buffer.force();
+        }
+
+        byte[] data = new byte[16];
+        try (FileInputStream input = new FileInputStream(f)) {
+            assertEquals(16, input.read(data));
+        }
+        assertArrayEquals(CONTENT, data);
+    }
+}
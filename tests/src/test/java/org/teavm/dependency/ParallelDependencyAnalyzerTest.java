@@ -0,0 +1,155 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.dependency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.teavm.backend.javascript.JavaScriptTarget;
+import org.teavm.model.FieldReference;
+import org.teavm.model.MethodReference;
+import org.teavm.vm.TeaVM;
+import org.teavm.vm.TeaVMBuilder;
+import org.teavm.vm.TeaVMPhase;
+import org.teavm.vm.TeaVMProgressFeedback;
+import org.teavm.vm.TeaVMProgressListener;
+
+public class ParallelDependencyAnalyzerTest {
+    @Test
+    public void sameResultAsPreciseAnalyzer() {
+        // Precise analyzer runs with its default setting, i.e. merges domains of strongly connected nodes,
+        // while parallel analyzer never does
+        Result precise = analyze(PreciseDependencyAnalyzer::new);
+        Result parallel = analyze(parallel(4));
+
+        assertTrue("Sample program must reach classlib", precise.classes.contains("java.util.HashMap"));
+        assertEquals(precise.classes, parallel.classes);
+        assertEquals(precise.methods, parallel.methods);
+        assertEquals(precise.fields, parallel.fields);
+        assertEquals(precise.types, parallel.types);
+    }
+
+    @Test
+    public void sameResultForAnyNumberOfThreads() {
+        Result sequential = analyze(parallel(1));
+        Result parallel = analyze(parallel(4));
+
+        assertEquals(sequential.classes, parallel.classes);
+        assertEquals(sequential.methods, parallel.methods);
+        assertEquals(sequential.fields, parallel.fields);
+        assertEquals(sequential.types, parallel.types);
+    }
+
+    private static DependencyAnalyzerFactory parallel(int threads) {
+        return (classSource, classLoader, services, diagnostics, referenceCache) ->
+                new ParallelDependencyAnalyzer(classSource, classLoader, services, diagnostics,
+                        referenceCache, threads);
+    }
+
+    private Result analyze(DependencyAnalyzerFactory analyzerFactory) {
+        TeaVM vm = new TeaVMBuilder(new JavaScriptTarget())
+                .setClassLoader(ParallelDependencyAnalyzerTest.class.getClassLoader())
+                .setDependencyAnalyzerFactory(analyzerFactory)
+                .build();
+        vm.setProgressListener(new TeaVMProgressListener() {
+            @Override
+            public TeaVMProgressFeedback phaseStarted(TeaVMPhase phase, int count) {
+                return phase == TeaVMPhase.DEPENDENCY_ANALYSIS
+                        ? TeaVMProgressFeedback.CONTINUE
+                        : TeaVMProgressFeedback.CANCEL;
+            }
+
+            @Override
+            public TeaVMProgressFeedback progressReached(int progress) {
+                return TeaVMProgressFeedback.CONTINUE;
+            }
+        });
+        vm.installPlugins();
+        vm.entryPoint(Sample.class.getName());
+        vm.build(fileName -> new ByteArrayOutputStream(), "out");
+        assertTrue("Sample program compiled with errors", vm.getProblemProvider().getSevereProblems().isEmpty());
+
+        DependencyInfo info = vm.getDependencyInfo();
+        Result result = new Result();
+        result.classes.addAll(info.getReachableClasses());
+        for (MethodReference method : info.getReachableMethods()) {
+            result.methods.add(method.toString());
+            MethodDependencyInfo methodDep = info.getMethod(method);
+            List<String> variableTypes = new ArrayList<>();
+            for (int i = 0; i < methodDep.getVariableCount(); ++i) {
+                ValueDependencyInfo variable = methodDep.getVariable(i);
+                variableTypes.add(variable != null ? sortedTypes(variable) : "");
+            }
+            if (methodDep.getResult() != null) {
+                variableTypes.add(sortedTypes(methodDep.getResult()));
+            }
+            result.types.put(method.toString(), variableTypes.toString());
+        }
+        for (FieldReference field : info.getReachableFields()) {
+            result.fields.add(field.toString());
+            FieldDependencyInfo fieldDep = info.getField(field);
+            result.types.put(field.toString(), sortedTypes(fieldDep.getValue()));
+        }
+        return result;
+    }
+
+    private static String sortedTypes(ValueDependencyInfo value) {
+        String[] types = value.getTypes();
+        Arrays.sort(types);
+        return Arrays.toString(types);
+    }
+
+    static class Result {
+        Set<String> classes = new TreeSet<>();
+        Set<String> methods = new TreeSet<>();
+        Set<String> fields = new TreeSet<>();
+        Map<String, String> types = new TreeMap<>();
+    }
+
+    public static class Sample {
+        public static void main(String[] args) {
+            List<Object> values = new ArrayList<>();
+            values.add(23);
+            values.add("foo");
+            values.add(new StringBuilder("bar"));
+            values.add(4.5);
+            Map<String, Integer> lengths = new HashMap<>();
+            for (Object value : values) {
+                lengths.put(value.toString(), value.toString().length());
+            }
+            String joined = values.stream().map(String::valueOf).sorted().collect(Collectors.joining(","));
+            System.out.println(String.format("%s: %d", joined, lengths.size()));
+            System.out.println(new BigDecimal("1.5").multiply(BigDecimal.TEN));
+            System.out.println(Arrays.toString("a,b,c".split(",")));
+            try {
+                System.out.println(Integer.parseInt(args[0]));
+            } catch (NumberFormatException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -16,17 +16,20 @@
 package org.teavm.incremental;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Rule;
@@ -50,6 +53,8 @@ import org.teavm.cache.InMemoryMethodNodeCache;
 import org.teavm.cache.InMemoryProgramCache;
 import org.teavm.cache.InMemorySymbolTable;
 import org.teavm.callgraph.CallGraph;
+import org.teavm.dependency.DependencyGraphCache;
+import org.teavm.dependency.DependencySummaryCache;
 import org.teavm.dependency.FastDependencyAnalyzer;
 import org.teavm.diagnostics.DefaultProblemTextConsumer;
 import org.teavm.diagnostics.Problem;
@@ -71,6 +76,7 @@ public class IncrementalTest {
     private static final String OLD_FILE = "classes-old.js";
     private static final String NEW_FILE = "classes-new.js";
     private static final String REFRESHED_FILE = "classes-refreshed.js";
+    private static final String UNCHANGED_FILE = "classes-unchanged.js";
     private static ClassHolderSource oldClassSource = new ClasspathClassHolderSource(
             IncrementalTest.class.getClassLoader(), new ReferenceCache());
     private static Context rhinoContext;
@@ -145,12 +151,28 @@ public class IncrementalTest {
 
         builder.build(oldClassSource, AlwaysStaleCacheStatus.INSTANCE, OLD_FILE);
         builder.build(refreshedClassSource, refreshedClassSource, REFRESHED_FILE);
-        builder.enableCapturing();
-        builder.build(newClassSource, newClassSource, NEW_FILE);
 
         assertEquals("Script must be the same after refreshing", builder.buildTarget.get(OLD_FILE),
                 builder.buildTarget.get(REFRESHED_FILE));
 
+        builder.useGraphCache = true;
+        builder.build(oldClassSource, FreshCacheStatus.INSTANCE, UNCHANGED_FILE);
+        assertTrue("Unchanged build must reuse dependency summaries",
+                builder.dependencySummaryCache.getHitCount() > 0);
+        assertEquals("Unchanged build must not reanalyze methods", Collections.emptySet(),
+                builder.dependencySummaryCache.getMissedMethods());
+
+        Set<String> staleClasses = builder.reachableClasses.stream()
+                .filter(newClassSource::isStaleClass)
+                .collect(Collectors.toSet());
+        builder.dependencyGraphCache.evict(staleClasses);
+        builder.enableCapturing();
+        builder.build(newClassSource, newClassSource, NEW_FILE);
+        for (MethodReference method : builder.dependencySummaryCache.getMissedMethods()) {
+            assertTrue("Method " + method + " must be taken from cache",
+                    staleClasses.contains(method.getClassName()));
+        }
+
         updatedMethods = builder.programCache.updatedMethods
                 .stream()
                 .map(m -> getSimpleName(m.getClassName()) + "." + m.getName())
@@ -158,6 +180,8 @@ public class IncrementalTest {
                 .toArray(String[]::new);
 
         oldResult = runScript(builder.buildTarget.get(OLD_FILE), OLD_FILE);
+        assertEquals("Unchanged build must produce same result", oldResult,
+                runScript(builder.buildTarget.get(UNCHANGED_FILE), UNCHANGED_FILE));
         newResult = runScript(builder.buildTarget.get(NEW_FILE), NEW_FILE);
     }
 
@@ -184,6 +208,10 @@ public class IncrementalTest {
         String entryPoint;
         CapturingMethodNodeCache astCache = new CapturingMethodNodeCache();
         CapturingProgramCache programCache = new CapturingProgramCache();
+        DependencySummaryCache dependencySummaryCache = new DependencySummaryCache();
+        DependencyGraphCache dependencyGraphCache = new DependencyGraphCache();
+        boolean useGraphCache;
+        Set<String> reachableClasses;
         BuildTargetImpl buildTarget = new BuildTargetImpl();
 
         Builder(String entryPoint) {
@@ -200,7 +228,15 @@ public class IncrementalTest {
             TeaVM vm = new TeaVMBuilder(target)
                     .setClassLoader(IncrementalTest.class.getClassLoader())
                     .setClassSource(classSource)
-                    .setDependencyAnalyzerFactory(FastDependencyAnalyzer::new)
+                    .setDependencyAnalyzerFactory((classes, classLoader, services, diagnostics, referenceCache) -> {
+                        FastDependencyAnalyzer analyzer = new FastDependencyAnalyzer(classes, classLoader, services,
+                                diagnostics, referenceCache);
+                        analyzer.setSummaryCache(dependencySummaryCache, cacheStatus);
+                        if (useGraphCache) {
+                            analyzer.setGraphCache(dependencyGraphCache);
+                        }
+                        return analyzer;
+                    })
                     .build();
             vm.setCacheStatus(cacheStatus);
             vm.setOptimizationLevel(TeaVMOptimizationLevel.SIMPLE);
@@ -210,6 +246,7 @@ public class IncrementalTest {
             vm.add(new EntryPointTransformer(entryPoint));
             vm.entryPoint(EntryPoint.class.getName());
             vm.installPlugins();
+            dependencySummaryCache.resetStatistics();
             vm.build(buildTarget, name);
             List<Problem> problems = vm.getProblemProvider().getSevereProblems();
             if (!problems.isEmpty()) {
@@ -217,6 +254,9 @@ public class IncrementalTest {
             }
             astCache.commit();
             programCache.commit();
+            dependencySummaryCache.commit();
+            dependencyGraphCache.commit();
+            reachableClasses = new HashSet<>(vm.getDependencyInfo().getReachableClasses());
         }
 
         private String buildErrorMessage(TeaVM vm) {
@@ -278,6 +318,20 @@ public class IncrementalTest {
         }
     }
 
+    static class FreshCacheStatus implements CacheStatus {
+        static final FreshCacheStatus INSTANCE = new FreshCacheStatus();
+
+        @Override
+        public boolean isStaleClass(String className) {
+            return false;
+        }
+
+        @Override
+        public boolean isStaleMethod(MethodReference method) {
+            return false;
+        }
+    }
+
     static class ClassHolderSourceImpl implements ClassHolderSource, CacheStatus {
         private ClassHolderSource underlying;
         private Map<String, ClassHolder> cache = new HashMap<>();
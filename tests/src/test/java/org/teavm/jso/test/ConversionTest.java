@@ -26,6 +26,8 @@ import org.teavm.jso.JSByRef;
 import org.teavm.jso.JSObject;
 import org.teavm.jso.JSProperty;
 import org.teavm.jso.core.JSString;
+import org.teavm.jso.typedarrays.Float32Array;
+import org.teavm.jso.typedarrays.Int32Array;
 import org.teavm.junit.SkipJVM;
 import org.teavm.junit.TeaVMTestRunner;
 
@@ -168,6 +170,62 @@ public class ConversionTest {
         assertEquals(99, first[0]);
     }
 
+    @Test
+    public void returnsArrayByRefFromMethodAndProperty() {
+        int[] array = { 23, 42 };
+        ByRefHolder holder = createByRefHolder();
+
+        holder.setData(array);
+        holder.getData()[0] = 99;
+        assertEquals(99, array[0]);
+
+        holder.getDataMethod()[1] = 100;
+        assertEquals(100, array[1]);
+    }
+
+    @Test
+    public void sharesTypedArrayWithJavaArray() {
+        float[] array = { 1, 2 };
+        Float32Array typedArray = Float32Array.fromJavaArray(array);
+        typedArray.set(0, 3);
+        assertEquals(3, array[0], 0.01);
+
+        Int32Array source = Int32Array.create(2);
+        int[] wrapped = source.toJavaArray();
+        wrapped[1] = 42;
+        assertEquals(42, source.get(1));
+        assertEquals(2, wrapped.length);
+    }
+
+    @Test
+    public void stringRoundTripReusesJavaScriptString() {
+        String str = new String(new char[] { 'f', 'o', 'o' });
+        assertEquals("foo", identity(str));
+        assertEquals("foo", getCachedJavaScriptString((JSObject) (Object) str));
+
+        setCachedJavaScriptString((JSObject) (Object) str, "bar");
+        assertEquals("bar", identity(str));
+
+        String fromJavaScript = createString();
+        assertEquals("baz", fromJavaScript);
+        assertEquals("baz", getCachedJavaScriptString((JSObject) (Object) fromJavaScript));
+    }
+
+    @Test
+    public void convertsLongStringToJavaScript() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; ++i) {
+            sb.append((char) (32 + i * 7 % 0xD000));
+        }
+        String str = sb.toString();
+
+        assertEquals(str.length(), length(str));
+        for (int i : new int[] { 0, 4095, 4096, 4097, 8191, 8192, 9999 }) {
+            assertEquals(str.charAt(i), charAt(str, i));
+        }
+        assertEquals(str, identity(str));
+    }
+
     @JSBody(params = { "a", "b", "c", "d", "e", "f", "g", "h" }, script = ""
             + "return '' + a + ':' + b + ':' + c + ':' + d + ':' + e + ':' + f.toFixed(1) + ':'"
                     + "+ g.toFixed(1) + ':' + h;")
@@ -208,6 +266,24 @@ public class ConversionTest {
             + "e : [[[[4]]]], f : [[[[5.5]]]], g : [[[[6.5]]]], h : [[[['foo']]]] };")
     private static native PrimitiveArrays4 getPrimitiveArrays4();
 
+    @JSBody(params = "str", script = "return str;")
+    private static native String identity(String str);
+
+    @JSBody(params = "str", script = "return str.length;")
+    private static native int length(String str);
+
+    @JSBody(params = { "str", "index" }, script = "return str.charCodeAt(index);")
+    private static native char charAt(String str, int index);
+
+    @JSBody(script = "return 'baz';")
+    private static native String createString();
+
+    @JSBody(params = "javaString", script = "return javaString.$jsString$;")
+    private static native String getCachedJavaScriptString(JSObject javaString);
+
+    @JSBody(params = { "javaString", "value" }, script = "javaString.$jsString$ = value;")
+    private static native void setCachedJavaScriptString(JSObject javaString, String value);
+
     interface Primitives extends JSObject {
         @JSProperty
         boolean getA();
@@ -350,4 +426,19 @@ public class ConversionTest {
     @JSByRef
     @JSBody(params = "array", script = "return array;")
     private static native int[] rewrap(@JSByRef int[] array);
+
+    private interface ByRefHolder extends JSObject {
+        @JSByRef
+        @JSProperty
+        int[] getData();
+
+        @JSProperty
+        void setData(@JSByRef int[] data);
+
+        @JSByRef
+        int[] getDataMethod();
+    }
+
+    @JSBody(script = "return { data : null, getDataMethod : function() { return this.data; } };")
+    private static native ByRefHolder createByRefHolder();
 }
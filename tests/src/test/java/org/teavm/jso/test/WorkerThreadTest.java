@@ -0,0 +1,99 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.jso.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.jso.JSBody;
+import org.teavm.jso.core.JSString;
+import org.teavm.jso.workers.WorkerChannel;
+import org.teavm.jso.workers.WorkerThread;
+import org.teavm.junit.SkipJVM;
+import org.teavm.junit.SkipPlatform;
+import org.teavm.junit.TeaVMTestRunner;
+import org.teavm.junit.TestPlatform;
+
+/**
+ * Each test starts a worker that loads the same test script and runs the same test method, which enters
+ * the worker instead of starting another one.
+ */
+@RunWith(TeaVMTestRunner.class)
+@SkipJVM
+@SkipPlatform({ TestPlatform.WEBASSEMBLY, TestPlatform.C })
+public class WorkerThreadTest {
+    @Test
+    public void exchangesMessagesWithWorker() throws InterruptedException {
+        if (enterWorker()) {
+            return;
+        }
+        WorkerThread thread = new WorkerThread(getWorkerUrl(), "echo");
+        thread.start();
+        WorkerChannel channel = thread.getChannel();
+        channel.send(JSString.valueOf("first"));
+        channel.send(JSString.valueOf("second"));
+        assertEquals("first:1", receiveString(channel));
+        assertEquals("second:2", receiveString(channel));
+        thread.join();
+        assertNull(thread.getFailure());
+    }
+
+    @Test
+    public void reportsFailedTask() throws InterruptedException {
+        if (enterWorker()) {
+            return;
+        }
+        WorkerThread thread = new WorkerThread(getWorkerUrl(), "fail");
+        thread.start();
+        thread.join();
+        assertNotNull(thread.getFailure());
+        assertTrue(thread.getFailure(), thread.getFailure().contains("task failed"));
+    }
+
+    @Test
+    public void reportsUnknownTask() throws InterruptedException {
+        if (enterWorker()) {
+            return;
+        }
+        WorkerThread thread = new WorkerThread(getWorkerUrl(), "missing");
+        thread.start();
+        thread.join();
+        assertNotNull(thread.getFailure());
+        assertTrue(thread.getFailure(), thread.getFailure().contains("missing"));
+    }
+
+    private static boolean enterWorker() {
+        WorkerThread.register("echo", channel -> {
+            for (int i = 1; i <= 2; ++i) {
+                channel.send(JSString.valueOf(receiveString(channel) + ":" + i));
+            }
+        });
+        WorkerThread.register("fail", channel -> {
+            throw new AssertionError("task failed");
+        });
+        return WorkerThread.enterWorker();
+    }
+
+    private static String receiveString(WorkerChannel channel) {
+        return ((JSString) channel.receive()).stringValue();
+    }
+
+    @JSBody(script = "return TeaVMTestWorker;")
+    private static native String getWorkerUrl();
+}
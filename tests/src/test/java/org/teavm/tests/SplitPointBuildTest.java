@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.teavm.backend.javascript.JavaScriptTarget;
+import org.teavm.debugging.information.DebugInformationBuilder;
+import org.teavm.dependency.DependencyTestPatcher;
+import org.teavm.diagnostics.Problem;
+import org.teavm.diagnostics.ProblemSeverity;
+import org.teavm.interop.SplitPoint;
+import org.teavm.model.ReferenceCache;
+import org.teavm.vm.TeaVM;
+import org.teavm.vm.TeaVMBuilder;
+
+public class SplitPointBuildTest {
+    private Map<String, ByteArrayOutputStream> files = new HashMap<>();
+    private List<Problem> problems;
+
+    @Test
+    public void chunkIsSeparateScript() {
+        build(false);
+
+        String main = getFile("classes.js");
+        String chunk = getFile("classes-admin.js");
+        assertTrue(main.contains("$rt_chunkCall(\"classes-admin.js\""));
+        assertTrue(chunk.contains("TeaVMChunks"));
+        assertTrue(chunk.contains("admin screen"));
+        assertFalse(main.contains("admin screen"));
+        assertFalse(chunk.contains("eval("));
+        assertFalse(chunk.contains("__dirname"));
+        assertEquals(0, countChunkWarnings());
+    }
+
+    @Test
+    public void chunksGeneratedWithDebugInformation() {
+        build(true);
+
+        assertNotNull(files.get("classes-admin.js"));
+        assertFalse(getFile("classes.js").contains("admin screen"));
+        assertEquals(1, countChunkWarnings());
+    }
+
+    private long countChunkWarnings() {
+        return problems.stream()
+                .filter(problem -> problem.getSeverity() == ProblemSeverity.WARNING)
+                .filter(problem -> problem.getText().contains("@SplitPoint"))
+                .count();
+    }
+
+    private String getFile(String name) {
+        ByteArrayOutputStream output = files.get(name);
+        assertNotNull("File not generated: " + name, output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void build(boolean debugInformation) {
+        JavaScriptTarget target = new JavaScriptTarget();
+        if (debugInformation) {
+            target.setDebugEmitter(new DebugInformationBuilder(new ReferenceCache()));
+        }
+        TeaVM vm = new TeaVMBuilder(target).build();
+        vm.add(new DependencyTestPatcher(SplitPointBuildTest.class.getName(), "runApplication"));
+        vm.installPlugins();
+        vm.entryPoint(SplitPointBuildTest.class.getName());
+        vm.build(name -> files.computeIfAbsent(name, k -> new ByteArrayOutputStream()), "classes.js");
+        problems = vm.getProblemProvider().getProblems();
+    }
+
+    private static void runApplication() {
+        System.out.println(showAdminScreen());
+    }
+
+    @SplitPoint("admin")
+    private static String showAdminScreen() {
+        return "admin screen";
+    }
+}
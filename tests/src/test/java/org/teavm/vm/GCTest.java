@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.TeaVMTestRunner;
+
+/**
+ * Allocates more memory than the default heap of C target has, so that objects created by tests
+ * survive several collections. Meaningful mostly with generational GC, when old objects must keep
+ * young ones alive through card table.
+ */
+@RunWith(TeaVMTestRunner.class)
+public class GCTest {
+    private static final int HEAP_OVERFLOW_MEGABYTES = 48;
+    private static Object sink;
+
+    @Test
+    public void youngObjectsReferencedFromOldArraySurvive() {
+        Node[] holder = new Node[64];
+        churn(HEAP_OVERFLOW_MEGABYTES);
+        for (int i = 0; i < holder.length; ++i) {
+            holder[i] = new Node(i);
+            churn(1);
+        }
+        churn(HEAP_OVERFLOW_MEGABYTES);
+
+        for (int i = 0; i < holder.length; ++i) {
+            assertEquals(i, holder[i].value);
+        }
+    }
+
+    @Test
+    public void youngObjectsReferencedFromOldFieldSurvive() {
+        Node holder = new Node(-1);
+        churn(HEAP_OVERFLOW_MEGABYTES);
+        for (int i = 0; i < 64; ++i) {
+            Node node = new Node(i);
+            node.next = holder.next;
+            holder.next = node;
+            churn(1);
+        }
+        churn(HEAP_OVERFLOW_MEGABYTES);
+
+        Node node = holder.next;
+        for (int i = 63; i >= 0; --i) {
+            assertNotNull(node);
+            assertEquals(i, node.value);
+            node = node.next;
+        }
+        assertNull(node);
+    }
+
+    @Test
+    public void survivorsArePromoted() {
+        List<int[]> survivors = new ArrayList<>();
+        for (int i = 0; i < 32; ++i) {
+            int[] data = new int[256];
+            for (int j = 0; j < data.length; ++j) {
+                data[j] = i * 1000 + j;
+            }
+            survivors.add(data);
+            churn(4);
+        }
+        System.gc();
+        churn(HEAP_OVERFLOW_MEGABYTES);
+
+        assertEquals(32, survivors.size());
+        for (int i = 0; i < survivors.size(); ++i) {
+            int[] data = survivors.get(i);
+            for (int j = 0; j < data.length; ++j) {
+                assertEquals(i * 1000 + j, data[j]);
+            }
+        }
+    }
+
+    private static void churn(int megabytes) {
+        Object[] recent = new Object[16];
+        for (int i = 0; i < megabytes * 1024; ++i) {
+            recent[i % recent.length] = new byte[1024];
+        }
+        sink = recent;
+    }
+
+    static class Node {
+        int value;
+        Node next;
+
+        Node(int value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.SkipJVM;
+import org.teavm.junit.TeaVMTestRunner;
+
+/**
+ * Retains more data than initial heap size. Only does something when heap is allowed to grow,
+ * i.e. in C configuration with maximum heap size greater than minimum, see
+ * {@code teavm.junit.c.heapGrowth} property.
+ */
+@RunWith(TeaVMTestRunner.class)
+@SkipJVM
+public class HeapGrowthTest {
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final long EXTRA_BYTES = 16 * 1024 * 1024;
+    private static final long MAX_INITIAL_HEAP = 1024L * 1024 * 1024;
+
+    @Test
+    public void heapGrowsPastInitialSize() {
+        Runtime runtime = Runtime.getRuntime();
+        long initialSize = runtime.totalMemory();
+        long target = initialSize + EXTRA_BYTES;
+        if (initialSize >= MAX_INITIAL_HEAP || runtime.maxMemory() < target + EXTRA_BYTES) {
+            return;
+        }
+
+        List<int[]> retained = new ArrayList<>();
+        long allocated = 0;
+        while (allocated < target) {
+            int[] chunk = new int[CHUNK_SIZE / 4];
+            chunk[0] = retained.size();
+            chunk[chunk.length - 1] = ~retained.size();
+            retained.add(chunk);
+            allocated += CHUNK_SIZE;
+        }
+
+        assertTrue("Heap did not grow: " + runtime.totalMemory() + " <= " + initialSize,
+                runtime.totalMemory() > initialSize);
+        for (int i = 0; i < retained.size(); ++i) {
+            int[] chunk = retained.get(i);
+            assertEquals(i, chunk[0]);
+            assertEquals(~i, chunk[chunk.length - 1]);
+        }
+    }
+}
@@ -56,6 +56,49 @@ public class LongTest {
         assertEquals(0, a / b);
     }
 
+    @Test
+    public void divisionAndRemainderByNegatives() {
+        long a = id(-7);
+        long b = id(2);
+        assertEquals(-3, a / b);
+        assertEquals(-1, a % b);
+        assertEquals(3, a / -b);
+        assertEquals(-1, a % -b);
+        assertEquals(-3, -a / -b);
+        assertEquals(1, -a % -b);
+        assertEquals(Long.MIN_VALUE, id(Long.MIN_VALUE) / id(-1));
+        assertEquals(0, id(Long.MIN_VALUE) % id(-1));
+        assertEquals(-1000000000000L, id(-3000000000001L) / id(3));
+        assertEquals(-1, id(-3000000000001L) % id(3));
+    }
+
+    @Test
+    public void shifts() {
+        long a = id(0x8000000000000001L);
+        assertEquals(2, a << 1);
+        assertEquals(0xC000000000000000L, a >> 1);
+        assertEquals(0x4000000000000000L, a >>> 1);
+        assertEquals(0x100000000L, id(1) << 32);
+        assertEquals(-1, a >> 63);
+        assertEquals(1, a >>> 63);
+        assertEquals(a, a << id(64));
+        assertEquals(a << 1, a << id(65));
+        assertEquals(a >> 1, a >> id(-63));
+        assertEquals(0xFFFFFFFF80000000L, id(0x8000000000000000L) >> 32);
+    }
+
+    @Test
+    public void overflowWraps() {
+        assertEquals(Long.MIN_VALUE, id(Long.MAX_VALUE) + id(1));
+        assertEquals(Long.MAX_VALUE, id(Long.MIN_VALUE) - id(1));
+        assertEquals(Long.MIN_VALUE, -id(Long.MIN_VALUE));
+        assertEquals(-2, id(Long.MAX_VALUE) * id(2));
+        assertEquals(0, id(0x100000000L) * id(0x100000000L));
+        assertEquals(-1, (int) id(0xFFFFFFFFL));
+        assertEquals(0x12345678, (int) id(0xAB12345678L));
+        assertEquals(-1L, ~id(0));
+    }
+
     private static long id(long value) {
         return value;
     }
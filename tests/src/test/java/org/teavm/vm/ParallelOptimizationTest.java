@@ -0,0 +1,87 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.vm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.teavm.backend.javascript.JavaScriptTarget;
+
+public class ParallelOptimizationTest {
+    @Test
+    public void simpleOptimizationIsSameAsSequential() {
+        checkSameOutput(TeaVMOptimizationLevel.SIMPLE);
+    }
+
+    @Test
+    public void advancedOptimizationIsSameAsSequential() {
+        checkSameOutput(TeaVMOptimizationLevel.ADVANCED);
+    }
+
+    @Test
+    public void fullOptimizationIsSameAsSequential() {
+        checkSameOutput(TeaVMOptimizationLevel.FULL);
+    }
+
+    private void checkSameOutput(TeaVMOptimizationLevel level) {
+        byte[] sequential = build(level, 1);
+        byte[] parallel = build(level, 4);
+
+        assertTrue("Sample program must produce code", sequential.length > 0);
+        assertArrayEquals(sequential, parallel);
+    }
+
+    private byte[] build(TeaVMOptimizationLevel level, int threads) {
+        TeaVM vm = new TeaVMBuilder(new JavaScriptTarget())
+                .setClassLoader(ParallelOptimizationTest.class.getClassLoader())
+                .build();
+        vm.setOptimizationLevel(level);
+        vm.setOptimizationThreads(threads);
+        vm.installPlugins();
+        vm.entryPoint(Sample.class.getName());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        vm.build(fileName -> output, "classes.js");
+        assertTrue("Sample program compiled with errors", vm.getProblemProvider().getSevereProblems().isEmpty());
+        return output.toByteArray();
+    }
+
+    public static class Sample {
+        public static void main(String[] args) {
+            List<Object> values = new ArrayList<>();
+            values.add(23);
+            values.add("foo");
+            values.add(new StringBuilder("bar"));
+            values.add(4.5);
+            Map<String, Integer> lengths = new HashMap<>();
+            for (Object value : values) {
+                lengths.put(value.toString(), value.toString().length());
+            }
+            String joined = values.stream().map(String::valueOf).sorted().collect(Collectors.joining(","));
+            System.out.println(String.format("%s: %d", joined, lengths.size()));
+            System.out.println(new BigDecimal("1.5").multiply(BigDecimal.TEN));
+            System.out.println(Arrays.toString("a,b,c".split(",")));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.interop.SplitPoint;
+import org.teavm.junit.TeaVMTestRunner;
+
+@RunWith(TeaVMTestRunner.class)
+public class SplitPointTest {
+    @Test
+    public void callsMethodFromChunk() {
+        assertEquals("report:3", Reports.render(3));
+        assertEquals("report:4", Reports.render(4));
+    }
+
+    @Test
+    public void chunkSharesStaticState() {
+        Counter.value = 10;
+        Reports.increment(5);
+        assertEquals(15, Counter.value);
+        Counter.value++;
+        assertEquals(16, Reports.counterValue());
+    }
+
+    @Test
+    public void exceptionPropagatesFromChunk() {
+        try {
+            Reports.fail("expected");
+            fail("Exception expected");
+        } catch (IllegalStateException e) {
+            assertEquals("expected", e.getMessage());
+        }
+    }
+
+    @Test
+    public void chunkCanSuspend() throws InterruptedException {
+        assertEquals(42, Reports.sleepAndReturn(42));
+    }
+
+    @Test
+    public void threadsWaitForSameChunk() throws InterruptedException {
+        String[] results = new String[3];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; ++i) {
+            int index = i;
+            threads[i] = new Thread(() -> results[index] = Exporters.export(index));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < results.length; ++i) {
+            assertEquals("export:" + i, results[i]);
+        }
+    }
+
+    static class Counter {
+        static int value;
+    }
+
+    static class Reports {
+        @SplitPoint("reports")
+        static String render(int id) {
+            return format("report", id);
+        }
+
+        static String format(String prefix, int id) {
+            return prefix + ":" + id;
+        }
+
+        @SplitPoint("reports")
+        static void increment(int amount) {
+            Counter.value += amount;
+        }
+
+        @SplitPoint("reports")
+        static int counterValue() {
+            return Counter.value;
+        }
+
+        @SplitPoint("reports")
+        static void fail(String message) {
+            throw new IllegalStateException(message);
+        }
+
+        @SplitPoint("reports")
+        static int sleepAndReturn(int value) throws InterruptedException {
+            Thread.sleep(1);
+            return value;
+        }
+    }
+
+    static class Exporters {
+        @SplitPoint
+        static String export(int id) {
+            return "export:" + id;
+        }
+    }
+}
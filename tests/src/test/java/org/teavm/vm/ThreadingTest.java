@@ -0,0 +1,157 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.teavm.junit.TeaVMTestRunner;
+
+/**
+ * Checks runtime guarantees that only matter when threads actually run in parallel, i.e. in multithreaded
+ * C configuration. On other platforms threads are cooperative and these tests pass trivially.
+ */
+@RunWith(TeaVMTestRunner.class)
+public class ThreadingTest {
+    private static final int THREAD_COUNT = 4;
+
+    @Test
+    public void classInitializedOnceWhenRacing() throws InterruptedException {
+        int[] results = new int[THREAD_COUNT];
+        Thread[] threads = new Thread[THREAD_COUNT];
+        for (int i = 0; i < THREAD_COUNT; ++i) {
+            int index = i;
+            threads[i] = new Thread(() -> results[index] = SlowInit.value);
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, InitCounter.count);
+        for (int result : results) {
+            assertEquals(SlowInit.EXPECTED, result);
+        }
+    }
+
+    @Test
+    public void failedClassInitializationDoesNotBlockOtherThreads() throws InterruptedException {
+        int[] failures = new int[1];
+        Thread[] threads = new Thread[THREAD_COUNT];
+        for (int i = 0; i < THREAD_COUNT; ++i) {
+            threads[i] = new Thread(() -> {
+                try {
+                    FailingInit.touch();
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures[0]++;
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures[0] > 0);
+    }
+
+    @Test
+    public void gcWhileThreadsAllocate() throws InterruptedException {
+        Node[] lists = new Node[THREAD_COUNT];
+        Thread[] threads = new Thread[THREAD_COUNT];
+        for (int i = 0; i < THREAD_COUNT; ++i) {
+            int index = i;
+            threads[i] = new Thread(() -> {
+                Node head = null;
+                for (int j = 0; j < 20000; ++j) {
+                    Node node = new Node(j);
+                    if (j % 100 == 0) {
+                        node.next = head;
+                        head = node;
+                    }
+                    node.payload = new int[64];
+                }
+                lists[index] = head;
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (Node list : lists) {
+            Node node = list;
+            for (int j = 19900; j >= 0; j -= 100) {
+                assertNotNull(node);
+                assertEquals(j, node.value);
+                assertEquals(64, node.payload.length);
+                node = node.next;
+            }
+            assertNull(node);
+        }
+    }
+
+    static class InitCounter {
+        static int count;
+    }
+
+    static class SlowInit {
+        static final int EXPECTED = 499500;
+        static int value;
+
+        static {
+            InitCounter.count++;
+            int sum = 0;
+            for (int i = 0; i < 1000; ++i) {
+                sum += i;
+                value = -1;
+            }
+            value = sum;
+        }
+    }
+
+    static class FailingInit {
+        static {
+            if (InitCounter.count >= 0) {
+                throw new IllegalStateException();
+            }
+        }
+
+        static void touch() {
+        }
+    }
+
+    static class Node {
+        int value;
+        int[] payload;
+        Node next;
+
+        Node(int value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.teavm.vm.TeaVMOptimizationLevel;
+
+/**
+ * Measures code generation of a backend, from optimized program to output files. Output is discarded,
+ * so that disk IO is not measured. Backends may modify classes while emitting, therefore each invocation
+ * gets its own compiled program.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BackendBenchmark {
+    @Param({ "benchmark-javascript", "benchmark-webassembly", "benchmark-c" })
+    public String workload;
+
+    private CapturingTarget target;
+
+    @Setup(Level.Invocation)
+    public void compile() {
+        Workload currentWorkload = Workload.byName(workload);
+        target = new CapturingTarget(currentWorkload.createTarget(), false);
+        Compilation.run(currentWorkload, currentWorkload.createClassLoader(), target, TeaVMOptimizationLevel.FULL);
+    }
+
+    @Benchmark
+    public void emit() throws IOException {
+        target.emitCaptured(CapturingTarget.DISCARDING_BUILD_TARGET);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.teavm.dependency.DependencyAnalyzer;
+import org.teavm.dependency.DependencyListener;
+import org.teavm.model.ClassHolderTransformer;
+import org.teavm.model.ListableClassHolderSource;
+import org.teavm.model.ListableClassReaderSource;
+import org.teavm.model.MethodReader;
+import org.teavm.model.Program;
+import org.teavm.model.util.ProgramUtils;
+import org.teavm.vm.BuildTarget;
+import org.teavm.vm.TeaVMTarget;
+import org.teavm.vm.TeaVMTargetController;
+import org.teavm.vm.spi.TeaVMHostExtension;
+
+/**
+ * Wraps a target and records intermediate results of compilation, so that benchmarks can measure
+ * a single phase in isolation. Emitting is postponed until {@link #emitCaptured(BuildTarget)} is called.
+ */
+class CapturingTarget implements TeaVMTarget {
+    static final BuildTarget DISCARDING_BUILD_TARGET = fileName -> new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private final TeaVMTarget innerTarget;
+    private final boolean capturePrograms;
+    private TeaVMTargetController controller;
+    private final List<CapturedProgram> programsBeforeOptimizations = new ArrayList<>();
+    private ListableClassHolderSource emittedClasses;
+    private String outputName;
+
+    CapturingTarget(TeaVMTarget innerTarget, boolean capturePrograms) {
+        this.innerTarget = innerTarget;
+        this.capturePrograms = capturePrograms;
+    }
+
+    TeaVMTargetController getController() {
+        return controller;
+    }
+
+    List<CapturedProgram> getProgramsBeforeOptimizations() {
+        return programsBeforeOptimizations;
+    }
+
+    ListableClassHolderSource getEmittedClasses() {
+        return emittedClasses;
+    }
+
+    void emitCaptured(BuildTarget buildTarget) throws IOException {
+        innerTarget.emit(emittedClasses, buildTarget, outputName);
+    }
+
+    @Override
+    public List<ClassHolderTransformer> getTransformers() {
+        return innerTarget.getTransformers();
+    }
+
+    @Override
+    public List<DependencyListener> getDependencyListeners() {
+        return innerTarget.getDependencyListeners();
+    }
+
+    @Override
+    public void setController(TeaVMTargetController controller) {
+        this.controller = controller;
+        innerTarget.setController(controller);
+    }
+
+    @Override
+    public List<TeaVMHostExtension> getHostExtensions() {
+        return innerTarget.getHostExtensions();
+    }
+
+    @Override
+    public boolean requiresRegisterAllocation() {
+        return innerTarget.requiresRegisterAllocation();
+    }
+
+    @Override
+    public void contributeDependencies(DependencyAnalyzer dependencyAnalyzer) {
+        innerTarget.contributeDependencies(dependencyAnalyzer);
+    }
+
+    @Override
+    public void analyzeBeforeOptimizations(ListableClassReaderSource classSource) {
+        innerTarget.analyzeBeforeOptimizations(classSource);
+    }
+
+    @Override
+    public void beforeOptimizations(Program program, MethodReader method) {
+        innerTarget.beforeOptimizations(program, method);
+        if (capturePrograms) {
+            programsBeforeOptimizations.add(new CapturedProgram(method, ProgramUtils.copy(program)));
+        }
+    }
+
+    @Override
+    public void afterOptimizations(Program program, MethodReader method) {
+        innerTarget.afterOptimizations(program, method);
+    }
+
+    @Override
+    public void emit(ListableClassHolderSource classes, BuildTarget buildTarget, String outputName) {
+        emittedClasses = classes;
+        this.outputName = outputName;
+    }
+
+    @Override
+    public String[] getPlatformTags() {
+        return innerTarget.getPlatformTags();
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return innerTarget.isAsyncSupported();
+    }
+
+    static class CapturedProgram {
+        final MethodReader method;
+        final Program program;
+
+        CapturedProgram(MethodReader method, Program program) {
+            this.method = method;
+            this.program = program;
+        }
+    }
+}
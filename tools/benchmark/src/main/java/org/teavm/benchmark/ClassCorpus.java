@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import org.teavm.classlib.impl.JCLPlugin;
+
+/**
+ * <p>Set of class files used to measure parsing and serialization. Consists of class library, classlib tests and
+ * all built samples. Class files are loaded into memory once, so that benchmarks don't measure disk IO.</p>
+ *
+ * <p>Classlib tests have no entry points, so they are only used as a corpus here, they are never compiled
+ * as a whole program.</p>
+ */
+final class ClassCorpus {
+    private static final String CLASS_SUFFIX = ".class";
+    private final Map<String, byte[]> resources = new LinkedHashMap<>();
+    private final Map<String, URL> locations = new HashMap<>();
+    private final List<String> classNames = new ArrayList<>();
+
+    private ClassCorpus() {
+    }
+
+    static ClassCorpus load() throws IOException {
+        ClassCorpus corpus = new ClassCorpus();
+        File classlib = new File(JCLPlugin.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+        corpus.add(classlib);
+
+        File root = Workload.getRootDirectory();
+        corpus.add(new File(root, "tests/target/test-classes"));
+        File[] samples = new File(root, "samples").listFiles();
+        if (samples != null) {
+            for (File sample : samples) {
+                corpus.add(new File(sample, "target/classes"));
+            }
+        }
+        return corpus;
+    }
+
+    Map<String, byte[]> getResources() {
+        return resources;
+    }
+
+    List<String> getClassNames() {
+        return classNames;
+    }
+
+    ClassLoader createClassLoader() {
+        return new ClassLoader(ClassCorpus.class.getClassLoader()) {
+            @Override
+            public URL getResource(String name) {
+                URL location = locations.get(name);
+                return location != null ? location : super.getResource(name);
+            }
+
+            @Override
+            public InputStream getResourceAsStream(String name) {
+                byte[] data = resources.get(name);
+                return data != null ? new ByteArrayInputStream(data) : super.getResourceAsStream(name);
+            }
+        };
+    }
+
+    private void add(File file) throws IOException {
+        if (file.isDirectory()) {
+            addDirectory(file, "");
+        } else if (file.isFile() && file.getName().endsWith(".jar")) {
+            addJar(file);
+        }
+    }
+
+    private void addDirectory(File directory, String prefix) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = prefix + file.getName();
+            if (file.isDirectory()) {
+                addDirectory(file, name + "/");
+            } else if (name.endsWith(CLASS_SUFFIX)) {
+                addClass(name, Files.readAllBytes(file.toPath()), file.toURI().toURL());
+            }
+        }
+    }
+
+    private void addJar(File file) throws IOException {
+        try (JarFile jar = new JarFile(file)) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().endsWith(CLASS_SUFFIX)) {
+                    continue;
+                }
+                try (InputStream input = jar.getInputStream(entry)) {
+                    ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[4096];
+                    while (true) {
+                        int bytesRead = input.read(buffer);
+                        if (bytesRead < 0) {
+                            break;
+                        }
+                        output.write(buffer, 0, bytesRead);
+                    }
+                    URL location = new URL("jar:" + file.toURI() + "!/" + entry.getName());
+                    addClass(entry.getName(), output.toByteArray(), location);
+                }
+            }
+        }
+    }
+
+    private void addClass(String path, byte[] data, URL location) {
+        if (path.endsWith("module-info.class") || path.endsWith("package-info.class")
+                || resources.containsKey(path)) {
+            return;
+        }
+        resources.put(path, data);
+        locations.put(path, location);
+        classNames.add(path.substring(0, path.length() - CLASS_SUFFIX.length()).replace('/', '.'));
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.benchmark;
+
+import org.teavm.dependency.PreciseDependencyAnalyzer;
+import org.teavm.model.PreOptimizingClassHolderSource;
+import org.teavm.model.ReferenceCache;
+import org.teavm.parsing.ClasspathClassHolderSource;
+import org.teavm.vm.TeaVM;
+import org.teavm.vm.TeaVMBuilder;
+import org.teavm.vm.TeaVMOptimizationLevel;
+
+/**
+ * Runs compilation of a workload up to the point where {@link CapturingTarget} takes over.
+ */
+final class Compilation {
+    private Compilation() {
+    }
+
+    static TeaVM run(Workload workload, ClassLoader classLoader, CapturingTarget target,
+            TeaVMOptimizationLevel optimizationLevel) {
+        ReferenceCache referenceCache = new ReferenceCache();
+        TeaVM vm = new TeaVMBuilder(target)
+                .setClassLoader(classLoader)
+                .setClassSource(new PreOptimizingClassHolderSource(
+                        new ClasspathClassHolderSource(classLoader, referenceCache)))
+                .setReferenceCache(referenceCache)
+                .setDependencyAnalyzerFactory(PreciseDependencyAnalyzer::new)
+                .build();
+        vm.setOptimizationLevel(optimizationLevel);
+        vm.installPlugins();
+        vm.entryPoint(workload.getMainClass(), "main");
+        vm.build(CapturingTarget.DISCARDING_BUILD_TARGET, "classes");
+        if (!vm.getProblemProvider().getSevereProblems().isEmpty()) {
+            throw new IllegalStateException("Workload " + workload.getWorkloadName() + " failed to compile: "
+                    + vm.getProblemProvider().getSevereProblems().size() + " severe problem(s)");
+        }
+        return vm;
+    }
+}
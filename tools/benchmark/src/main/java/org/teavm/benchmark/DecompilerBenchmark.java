@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.teavm.ast.decompilation.Decompiler;
+import org.teavm.model.ClassHolder;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.ListableClassHolderSource;
+import org.teavm.model.MethodHolder;
+import org.teavm.vm.TeaVMOptimizationLevel;
+
+/**
+ * Measures decompilation of optimized programs into AST, which is the first step of JavaScript backend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DecompilerBenchmark {
+    @Param({ "hello-javascript", "benchmark-javascript" })
+    public String workload;
+
+    private ListableClassHolderSource classes;
+
+    @Setup
+    public void compile() {
+        Workload currentWorkload = Workload.byName(workload);
+        CapturingTarget target = new CapturingTarget(currentWorkload.createTarget(), false);
+        Compilation.run(currentWorkload, currentWorkload.createClassLoader(), target, TeaVMOptimizationLevel.FULL);
+        classes = target.getEmittedClasses();
+    }
+
+    @Benchmark
+    public void decompile(Blackhole blackhole) {
+        Decompiler decompiler = new Decompiler(classes, Collections.emptySet(), false);
+        for (String className : classes.getClassNames()) {
+            ClassHolder cls = classes.get(className);
+            for (MethodHolder method : cls.getMethods()) {
+                if (method.getProgram() == null || method.hasModifier(ElementModifier.NATIVE)
+                        || method.hasModifier(ElementModifier.ABSTRACT)) {
+                    continue;
+                }
+                blackhole.consume(decompiler.decompileRegular(method));
+            }
+        }
+    }
+}
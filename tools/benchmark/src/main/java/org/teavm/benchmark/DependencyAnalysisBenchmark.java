@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.teavm.vm.TeaVM;
+import org.teavm.vm.TeaVMOptimizationLevel;
+
+/**
+ * Measures dependency analysis of a whole program. Since <code>SIMPLE</code> optimization level compiles methods
+ * lazily during emitting and emitting is not performed here, the result is dominated by dependency analysis,
+ * with class parsing included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DependencyAnalysisBenchmark {
+    @Param({ "hello-javascript", "benchmark-javascript", "benchmark-webassembly", "benchmark-c" })
+    public String workload;
+
+    private Workload currentWorkload;
+
+    @Setup
+    public void setup() {
+        currentWorkload = Workload.byName(workload);
+    }
+
+    @Benchmark
+    public TeaVM analyze() {
+        CapturingTarget target = new CapturingTarget(currentWorkload.createTarget(), false);
+        return Compilation.run(currentWorkload, currentWorkload.createClassLoader(), target,
+                TeaVMOptimizationLevel.SIMPLE);
+    }
+}
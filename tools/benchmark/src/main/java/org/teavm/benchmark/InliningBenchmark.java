@@ -0,0 +1,124 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.teavm.dependency.DependencyAnalyzer;
+import org.teavm.dependency.DependencyInfo;
+import org.teavm.dependency.MethodDependencyInfo;
+import org.teavm.model.ClassHierarchy;
+import org.teavm.model.ClassHolder;
+import org.teavm.model.ListableClassHolderSource;
+import org.teavm.model.MethodHolder;
+import org.teavm.model.MethodReader;
+import org.teavm.model.MethodReference;
+import org.teavm.model.Program;
+import org.teavm.model.optimization.DefaultInliningStrategy;
+import org.teavm.model.optimization.Inlining;
+import org.teavm.model.optimization.MethodOptimizationContext;
+import org.teavm.model.optimization.UnusedVariableElimination;
+import org.teavm.vm.TeaVM;
+import org.teavm.vm.TeaVMOptimizationLevel;
+
+/**
+ * Measures inlining of a linked program the same way as <code>FULL</code> optimization level does it.
+ * Each invocation works on classes freshly linked against dependency information of a complete build,
+ * since inlining modifies programs in place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InliningBenchmark {
+    @Param({ "hello-javascript", "benchmark-javascript" })
+    public String workload;
+
+    private TeaVM vm;
+    private DependencyInfo dependencyInfo;
+    private ListableClassHolderSource classes;
+
+    @Setup(Level.Trial)
+    public void compile() {
+        Workload currentWorkload = Workload.byName(workload);
+        CapturingTarget target = new CapturingTarget(currentWorkload.createTarget(), false);
+        vm = Compilation.run(currentWorkload, currentWorkload.createClassLoader(), target,
+                TeaVMOptimizationLevel.FULL);
+        dependencyInfo = vm.getDependencyInfo();
+    }
+
+    @Setup(Level.Invocation)
+    public void link() {
+        classes = vm.link((DependencyAnalyzer) dependencyInfo);
+    }
+
+    @Benchmark
+    public ListableClassHolderSource inline() {
+        Inlining inlining = new Inlining(new ClassHierarchy(classes), dependencyInfo,
+                new DefaultInliningStrategy(14, 7, 300, false), classes, this::isCalled, true);
+        List<MethodReference> order = inlining.getOrder();
+        for (MethodReference methodReference : order) {
+            ClassHolder cls = classes.get(methodReference.getClassName());
+            if (cls == null) {
+                continue;
+            }
+            MethodHolder method = cls.getMethod(methodReference.getDescriptor());
+            if (method == null || method.getProgram() == null) {
+                continue;
+            }
+            if (!inlining.hasUsages(methodReference)) {
+                inlining.removeUsages(method.getProgram());
+                method.setProgram(null);
+            } else {
+                Program program = method.getProgram();
+                inlining.apply(program, methodReference);
+                new UnusedVariableElimination().optimize(new Context(method), program);
+            }
+        }
+        return classes;
+    }
+
+    private boolean isCalled(MethodReference method) {
+        MethodDependencyInfo dependency = dependencyInfo.getMethod(method);
+        return dependency != null && dependency.isCalled();
+    }
+
+    private class Context implements MethodOptimizationContext {
+        private final MethodReader method;
+
+        Context(MethodReader method) {
+            this.method = method;
+        }
+
+        @Override
+        public MethodReader getMethod() {
+            return method;
+        }
+
+        @Override
+        public DependencyInfo getDependencyInfo() {
+            return dependencyInfo;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.teavm.dependency.DependencyInfo;
+import org.teavm.model.MethodReader;
+import org.teavm.model.Program;
+import org.teavm.model.optimization.ArrayUnwrapMotion;
+import org.teavm.model.optimization.ClassInitElimination;
+import org.teavm.model.optimization.ConstantConditionElimination;
+import org.teavm.model.optimization.GlobalValueNumbering;
+import org.teavm.model.optimization.LoopInvariantMotion;
+import org.teavm.model.optimization.MethodOptimization;
+import org.teavm.model.optimization.MethodOptimizationContext;
+import org.teavm.model.optimization.RedundantJumpElimination;
+import org.teavm.model.optimization.RedundantNullCheckElimination;
+import org.teavm.model.optimization.ScalarReplacement;
+import org.teavm.model.optimization.UnreachableBasicBlockElimination;
+import org.teavm.model.optimization.UnusedVariableElimination;
+import org.teavm.model.util.ProgramUtils;
+import org.teavm.vm.TeaVM;
+import org.teavm.vm.TeaVMOptimizationLevel;
+
+/**
+ * Measures a single method optimization applied once to every method of a program. Programs are taken
+ * as they come to the optimizer in <code>FULL</code> optimization level, i.e. after linking and inlining.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OptimizationBenchmark {
+    @Param({ "benchmark-javascript" })
+    public String workload;
+
+    @Param({ "RedundantJumpElimination", "ArrayUnwrapMotion", "ScalarReplacement", "LoopInvariantMotion",
+            "GlobalValueNumbering", "RedundantNullCheckElimination", "ConstantConditionElimination",
+            "UnusedVariableElimination", "ClassInitElimination", "UnreachableBasicBlockElimination" })
+    public String optimization;
+
+    private DependencyInfo dependencyInfo;
+    private List<CapturingTarget.CapturedProgram> capturedPrograms;
+    private Supplier<MethodOptimization> optimizationFactory;
+    private List<Program> programs = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void compile() {
+        Workload currentWorkload = Workload.byName(workload);
+        CapturingTarget target = new CapturingTarget(currentWorkload.createTarget(), true);
+        TeaVM vm = Compilation.run(currentWorkload, currentWorkload.createClassLoader(), target,
+                TeaVMOptimizationLevel.FULL);
+        dependencyInfo = vm.getDependencyInfo();
+        capturedPrograms = target.getProgramsBeforeOptimizations();
+        optimizationFactory = getOptimizationFactory(optimization);
+    }
+
+    @Setup(Level.Invocation)
+    public void copyPrograms() {
+        programs.clear();
+        for (CapturingTarget.CapturedProgram captured : capturedPrograms) {
+            programs.add(ProgramUtils.copy(captured.program));
+        }
+    }
+
+    @Benchmark
+    public int optimize() {
+        int changed = 0;
+        for (int i = 0; i < programs.size(); ++i) {
+            Program program = programs.get(i);
+            if (program.basicBlockCount() == 0) {
+                continue;
+            }
+            MethodReader method = capturedPrograms.get(i).method;
+            if (optimizationFactory.get().optimize(new Context(method), program)) {
+                ++changed;
+            }
+        }
+        return changed;
+    }
+
+    private static Supplier<MethodOptimization> getOptimizationFactory(String name) {
+        switch (name) {
+            case "RedundantJumpElimination":
+                return RedundantJumpElimination::new;
+            case "ArrayUnwrapMotion":
+                return ArrayUnwrapMotion::new;
+            case "ScalarReplacement":
+                return ScalarReplacement::new;
+            case "LoopInvariantMotion":
+                return LoopInvariantMotion::new;
+            case "GlobalValueNumbering":
+                return () -> new GlobalValueNumbering(false);
+            case "RedundantNullCheckElimination":
+                return RedundantNullCheckElimination::new;
+            case "ConstantConditionElimination":
+                return ConstantConditionElimination::new;
+            case "UnusedVariableElimination":
+                return UnusedVariableElimination::new;
+            case "ClassInitElimination":
+                return ClassInitElimination::new;
+            case "UnreachableBasicBlockElimination":
+                return UnreachableBasicBlockElimination::new;
+            default:
+                throw new IllegalArgumentException("Unknown optimization: " + name);
+        }
+    }
+
+    private class Context implements MethodOptimizationContext {
+        private final MethodReader method;
+
+        Context(MethodReader method) {
+            this.method = method;
+        }
+
+        @Override
+        public MethodReader getMethod() {
+            return method;
+        }
+
+        @Override
+        public DependencyInfo getDependencyInfo() {
+            return dependencyInfo;
+        }
+    }
+}
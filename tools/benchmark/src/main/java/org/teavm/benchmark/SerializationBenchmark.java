@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.teavm.ast.RegularMethodNode;
+import org.teavm.ast.decompilation.Decompiler;
+import org.teavm.cache.AstIO;
+import org.teavm.cache.InMemorySymbolTable;
+import org.teavm.cache.ProgramIO;
+import org.teavm.cache.VarDataInput;
+import org.teavm.cache.VarDataOutput;
+import org.teavm.model.ClassHolder;
+import org.teavm.model.ElementModifier;
+import org.teavm.model.ListableClassHolderSource;
+import org.teavm.model.MethodHolder;
+import org.teavm.model.Program;
+import org.teavm.model.ReferenceCache;
+import org.teavm.vm.TeaVMOptimizationLevel;
+
+/**
+ * Measures round trip of programs and ASTs through binary format of incremental compilation cache.
+ * Data is written to and read from memory, so that disk IO is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializationBenchmark {
+    @Param({ "benchmark-javascript" })
+    public String workload;
+
+    private List<Program> programs = new ArrayList<>();
+    private List<RegularMethodNode> methodNodes = new ArrayList<>();
+
+    @Setup
+    public void compile() {
+        Workload currentWorkload = Workload.byName(workload);
+        CapturingTarget target = new CapturingTarget(currentWorkload.createTarget(), true);
+        Compilation.run(currentWorkload, currentWorkload.createClassLoader(), target, TeaVMOptimizationLevel.FULL);
+        for (CapturingTarget.CapturedProgram captured : target.getProgramsBeforeOptimizations()) {
+            programs.add(captured.program);
+        }
+
+        ListableClassHolderSource classes = target.getEmittedClasses();
+        Decompiler decompiler = new Decompiler(classes, Collections.emptySet(), false);
+        for (String className : classes.getClassNames()) {
+            ClassHolder cls = classes.get(className);
+            for (MethodHolder method : cls.getMethods()) {
+                if (method.getProgram() != null && !method.hasModifier(ElementModifier.NATIVE)
+                        && !method.hasModifier(ElementModifier.ABSTRACT)) {
+                    methodNodes.add(decompiler.decompileRegular(method));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void programs(Blackhole blackhole) throws IOException {
+        ProgramIO programIO = new ProgramIO(new ReferenceCache(), new InMemorySymbolTable(),
+                new InMemorySymbolTable(), new InMemorySymbolTable());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        VarDataOutput data = new VarDataOutput(output);
+        for (Program program : programs) {
+            programIO.write(program, data);
+        }
+
+        VarDataInput input = new VarDataInput(new ByteArrayInputStream(output.toByteArray()));
+        for (int i = 0; i < programs.size(); ++i) {
+            blackhole.consume(programIO.read(input));
+        }
+    }
+
+    @Benchmark
+    public void ast(Blackhole blackhole) throws IOException {
+        AstIO astIO = new AstIO(new ReferenceCache(), new InMemorySymbolTable(), new InMemorySymbolTable(),
+                new InMemorySymbolTable());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        VarDataOutput data = new VarDataOutput(output);
+        for (RegularMethodNode methodNode : methodNodes) {
+            astIO.write(data, methodNode);
+        }
+
+        VarDataInput input = new VarDataInput(new ByteArrayInputStream(output.toByteArray()));
+        for (RegularMethodNode methodNode : methodNodes) {
+            blackhole.consume(astIO.read(input, methodNode.getReference()));
+        }
+    }
+}
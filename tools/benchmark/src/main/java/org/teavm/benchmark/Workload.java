@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2019 Alexey Andreev.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.teavm.benchmark;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.function.Supplier;
+import org.teavm.backend.c.CTarget;
+import org.teavm.backend.javascript.JavaScriptTarget;
+import org.teavm.backend.wasm.WasmTarget;
+import org.teavm.vm.TeaVMTarget;
+
+/**
+ * <p>Real-world programs the benchmarks compile. Each workload is a compiled sample application together with
+ * the backend it targets.</p>
+ *
+ * <p>Samples must be built beforehand. Benchmarks look for them relative to <code>teavm.benchmark.root</code>
+ * system property, which defaults to the root of TeaVM source tree when running from <code>tools/benchmark</code>.
+ * Class directory of a workload can be overridden by <code>teavm.benchmark.&lt;name&gt;.classes</code>
+ * property.</p>
+ */
+public enum Workload {
+    HELLO_JAVASCRIPT("hello-javascript", "samples/hello", "org.teavm.samples.hello.Client", JavaScriptTarget::new),
+    BENCHMARK_JAVASCRIPT("benchmark-javascript", "samples/benchmark",
+            "org.teavm.samples.benchmark.teavm.BenchmarkStarter", JavaScriptTarget::new),
+    BENCHMARK_WEBASSEMBLY("benchmark-webassembly", "samples/benchmark",
+            "org.teavm.samples.benchmark.teavm.WasmBenchmarkStarter", WasmTarget::new),
+    BENCHMARK_C("benchmark-c", "samples/benchmark",
+            "org.teavm.samples.benchmark.teavm.Gtk3BenchmarkStarter", CTarget::new);
+
+    private final String workloadName;
+    private final String project;
+    private final String mainClass;
+    private final Supplier<TeaVMTarget> targetFactory;
+
+    Workload(String workloadName, String project, String mainClass, Supplier<TeaVMTarget> targetFactory) {
+        this.workloadName = workloadName;
+        this.project = project;
+        this.mainClass = mainClass;
+        this.targetFactory = targetFactory;
+    }
+
+    public String getWorkloadName() {
+        return workloadName;
+    }
+
+    public String getMainClass() {
+        return mainClass;
+    }
+
+    public TeaVMTarget createTarget() {
+        return targetFactory.get();
+    }
+
+    public File getClassesDirectory() {
+        String override = System.getProperty("teavm.benchmark." + workloadName + ".classes");
+        if (override != null) {
+            return new File(override);
+        }
+        return new File(getRootDirectory(), project + "/target/classes");
+    }
+
+    public ClassLoader createClassLoader() {
+        File classes = getClassesDirectory();
+        if (!classes.isDirectory()) {
+            throw new IllegalStateException("Classes of workload " + workloadName + " not found at "
+                    + classes.getAbsolutePath() + ". Build samples first or set teavm.benchmark."
+                    + workloadName + ".classes property");
+        }
+        try {
+            return new URLClassLoader(new URL[] { classes.toURI().toURL() }, Workload.class.getClassLoader());
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static Workload byName(String name) {
+        for (Workload workload : values()) {
+            if (workload.workloadName.equals(name)) {
+                return workload;
+            }
+        }
+        throw new IllegalArgumentException("Unknown workload: " + name);
+    }
+
+    static File getRootDirectory() {
+        return new File(System.getProperty("teavm.benchmark.root", "../.."));
+    }
+}
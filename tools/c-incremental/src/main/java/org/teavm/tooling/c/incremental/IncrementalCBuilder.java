@@ -63,12 +63,14 @@ public class IncrementalCBuilder {
     private String mainClass;
     private String[] classPath;
     private int minHeapSize = 32;
+    private int maxHeapSize;
     private boolean longjmpSupported = true;
     private boolean lineNumbersGenerated;
     private String targetPath;
     private String externalTool;
     private String externalToolWorkingDir;
     private String mainFunctionName;
+    private int threads = 1;
 
     private IncrementalDirectoryBuildTarget buildTarget;
     private FileSystemWatcher watcher;
@@ -108,6 +110,10 @@ public class IncrementalCBuilder {
         this.minHeapSize = minHeapSize;
     }
 
+    public void setMaxHeapSize(int maxHeapSize) {
+        this.maxHeapSize = maxHeapSize;
+    }
+
     public void setLineNumbersGenerated(boolean lineNumbersGenerated) {
         this.lineNumbersGenerated = lineNumbersGenerated;
     }
@@ -132,6 +138,13 @@ public class IncrementalCBuilder {
         this.mainFunctionName = mainFunctionName;
     }
 
+    /**
+     * Sets number of threads used to optimize methods and to generate C files.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
     public void setLongjmpSupported(boolean longjmpSupported) {
         this.longjmpSupported = longjmpSupported;
     }
@@ -330,11 +343,13 @@ public class IncrementalCBuilder {
                 .build();
 
         cTarget.setIncremental(true);
-        cTarget.setMinHeapSize(minHeapSize * 1024 * 1024);
+        cTarget.setMinHeapSize(minHeapSize * 1024L * 1024);
+        cTarget.setMaxHeapSize(maxHeapSize * 1024L * 1024);
         cTarget.setLineNumbersGenerated(lineNumbersGenerated);
         cTarget.setLongjmpUsed(longjmpSupported);
         cTarget.setHeapDump(true);
         vm.setOptimizationLevel(TeaVMOptimizationLevel.SIMPLE);
+        vm.setOptimizationThreads(threads);
         vm.setCacheStatus(classSource);
         vm.addVirtualMethods(m -> true);
         vm.setProgressListener(progressListener);
@@ -356,6 +371,7 @@ public class IncrementalCBuilder {
 
     private void postBuild(TeaVM vm, long startTime) {
         needsExternalTool = false;
+        boolean succeeded = false;
         if (!vm.wasCancelled()) {
             log.info("Recompiled stale methods: " + programCache.getPendingItemsCount());
             fireBuildComplete(vm);
@@ -366,7 +382,7 @@ public class IncrementalCBuilder {
                 programCache.commit();
                 astCache.commit();
                 reportCompilationComplete(true);
-                needsExternalTool = true;
+                succeeded = true;
             } else {
                 log.info("Build complete with errors");
                 reportCompilationComplete(false);
@@ -380,7 +396,16 @@ public class IncrementalCBuilder {
 
         astCache.discard();
         programCache.discard();
-        buildTarget.reset();
+
+        // Stale files are deleted by reset(), and deleting a file must re-run external tool as well.
+        // Failed and cancelled builds don't write all files, so they keep the target as is and files
+        // they changed are reported after the next successful build.
+        if (succeeded) {
+            int changedFiles = buildTarget.getChangedFiles().size();
+            int deletedFiles = buildTarget.reset().size();
+            log.info("C files changed: " + changedFiles + ", deleted: " + deletedFiles);
+            needsExternalTool = changedFiles + deletedFiles > 0;
+        }
         cancelRequested = false;
     }
 
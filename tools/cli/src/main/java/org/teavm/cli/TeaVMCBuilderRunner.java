@@ -62,10 +62,22 @@ public class TeaVMCBuilderRunner {
                 .hasArg()
                 .withDescription("Minimum heap size in bytes")
                 .create());
+        options.addOption(OptionBuilder
+                .withLongOpt("max-heap")
+                .withArgName("size")
+                .hasArg()
+                .withDescription("Maximum heap size in bytes, heap grows on demand up to this size")
+                .create());
         options.addOption(OptionBuilder
                 .withLongOpt("no-longjmp")
                 .withDescription("Don't use setjmp/longjmp functions to emulate exception handling")
                 .create());
+        options.addOption(OptionBuilder
+                .withLongOpt("threads")
+                .withArgName("number")
+                .hasArg()
+                .withDescription("Number of threads used to optimize methods and generate C files (1 by default)")
+                .create());
         options.addOption(OptionBuilder
                 .withLongOpt("entry-point")
                 .withArgName("name")
@@ -124,6 +136,14 @@ public class TeaVMCBuilderRunner {
         if (commandLine.hasOption("no-longjmp")) {
             builder.setLongjmpSupported(false);
         }
+        if (commandLine.hasOption("threads")) {
+            try {
+                builder.setThreads(Integer.parseInt(commandLine.getOptionValue("threads")));
+            } catch (NumberFormatException e) {
+                System.err.println("'--threads' must be integer number");
+                printUsage();
+            }
+        }
 
         String[] args = commandLine.getArgs();
         if (args.length != 1) {
@@ -174,6 +194,17 @@ public class TeaVMCBuilderRunner {
             }
             builder.setMinHeapSize(size);
         }
+        if (commandLine.hasOption("max-heap")) {
+            int size;
+            try {
+                size = Integer.parseInt(commandLine.getOptionValue("max-heap"));
+            } catch (NumberFormatException e) {
+                System.err.print("Wrong heap size");
+                printUsage();
+                return;
+            }
+            builder.setMaxHeapSize(size);
+        }
     }
 
     private void runAll() {
@@ -79,6 +79,10 @@ public final class TeaVMDevServerRunner {
                 .withDescription("automatically reload page when compilation completes")
                 .withLongOpt("auto-reload")
                 .create());
+        options.addOption(OptionBuilder
+                .withDescription("replace changed methods in running page instead of reloading it, when possible")
+                .withLongOpt("hot-swap")
+                .create());
         options.addOption(OptionBuilder
                 .withDescription("display more messages on server log")
                 .withLongOpt("verbose")
@@ -129,6 +133,7 @@ public final class TeaVMDevServerRunner {
         devServer.setIndicator(commandLine.hasOption("indicator"));
         devServer.setDeobfuscateStack(commandLine.hasOption("deobfuscate-stack"));
         devServer.setReloadedAutomatically(commandLine.hasOption("auto-reload"));
+        devServer.setHotSwap(commandLine.hasOption("hot-swap"));
         devServer.setLog(new ConsoleTeaVMToolLog(commandLine.hasOption('v')));
         if (commandLine.hasOption("port")) {
             try {
@@ -77,6 +77,22 @@ public final class TeaVMRunner {
                 .withDescription("causes TeaVM to generate minimized JavaScript file")
                 .withLongOpt("minify")
                 .create("m"));
+        options.addOption(OptionBuilder
+                .withDescription("convert string constants to Java strings on first access instead of on startup")
+                .withLongOpt("lazy-string-pool")
+                .create());
+        options.addOption(OptionBuilder
+                .withDescription("represent long values as JavaScript BigInt")
+                .withLongOpt("long-as-bigint")
+                .create());
+        options.addOption(OptionBuilder
+                .withDescription("keep monitors and identity hash codes in side tables instead of object fields")
+                .withLongOpt("object-side-tables")
+                .create());
+        options.addOption(OptionBuilder
+                .withDescription("back java.lang.String by JavaScript strings")
+                .withLongOpt("native-strings")
+                .create());
         options.addOption(OptionBuilder
                 .withDescription("optimization level (1-3)")
                 .hasArg()
@@ -100,6 +116,10 @@ public final class TeaVMRunner {
                 .withDescription("Incremental build cache directory")
                 .withLongOpt("cachedir")
                 .create('c'));
+        options.addOption(OptionBuilder
+                .withDescription("Store incremental build cache in pack files instead of a file per method")
+                .withLongOpt("packed-cache")
+                .create());
         options.addOption(OptionBuilder
                 .withDescription("Wait for command after compilation, in order to enable hot recompilation")
                 .withLongOpt("wait")
@@ -134,6 +154,36 @@ public final class TeaVMRunner {
                 .hasArg()
                 .withDescription("Minimum heap size in megabytes (for C and WebAssembly)")
                 .create());
+        options.addOption(OptionBuilder
+                .withLongOpt("max-heap")
+                .withArgName("size")
+                .hasArg()
+                .withDescription("Maximum heap size in megabytes, heap grows on demand up to this size (for C)")
+                .create());
+        options.addOption(OptionBuilder
+                .withLongOpt("min-heap-free-ratio")
+                .withArgName("percent")
+                .hasArg()
+                .withDescription("Heap grows when less memory is free after GC (for C, 30 by default)")
+                .create());
+        options.addOption(OptionBuilder
+                .withLongOpt("max-heap-free-ratio")
+                .withArgName("percent")
+                .hasArg()
+                .withDescription("Heap shrinks when more memory is free after GC (for C, 70 by default)")
+                .create());
+        options.addOption(OptionBuilder
+                .withLongOpt("optimization-threads")
+                .withArgName("number")
+                .hasArg()
+                .withDescription("Number of threads used to optimize methods (1 by default)")
+                .create());
+        options.addOption(OptionBuilder
+                .withLongOpt("dependency-analysis-threads")
+                .withArgName("number")
+                .hasArg()
+                .withDescription("Number of threads used by dependency analysis (1 by default)")
+                .create());
         options.addOption(OptionBuilder
                 .withLongOpt("max-toplevel-names")
                 .withArgName("number")
@@ -145,6 +195,15 @@ public final class TeaVMRunner {
                 .withLongOpt("no-longjmp")
                 .withDescription("Don't use setjmp/longjmp functions to emulate exceptions (C target)")
                 .create());
+        options.addOption(OptionBuilder
+                .withLongOpt("generational-gc")
+                .withDescription("Collect recently allocated objects separately from old ones "
+                        + "(for C and WebAssembly)")
+                .create());
+        options.addOption(OptionBuilder
+                .withLongOpt("multithreaded")
+                .withDescription("Run threads on OS threads, requires POSIX threads (C target)")
+                .create());
     }
 
     private TeaVMRunner(CommandLine commandLine) {
@@ -228,6 +287,10 @@ public final class TeaVMRunner {
 
     private void parseJavaScriptOptions() {
         tool.setMinifying(commandLine.hasOption("m"));
+        tool.setLazyStringPool(commandLine.hasOption("lazy-string-pool"));
+        tool.setLongAsBigInt(commandLine.hasOption("long-as-bigint"));
+        tool.setObjectSideTables(commandLine.hasOption("object-side-tables"));
+        tool.setNativeStrings(commandLine.hasOption("native-strings"));
 
         if (commandLine.hasOption("max-toplevel-names")) {
             try {
@@ -279,6 +342,23 @@ public final class TeaVMRunner {
                     printUsage();
             }
         }
+        if (commandLine.hasOption("optimization-threads")) {
+            try {
+                tool.setOptimizationThreads(Integer.parseInt(commandLine.getOptionValue("optimization-threads")));
+            } catch (NumberFormatException e) {
+                System.err.println("'--optimization-threads' must be integer number");
+                printUsage();
+            }
+        }
+        if (commandLine.hasOption("dependency-analysis-threads")) {
+            try {
+                tool.setDependencyAnalysisThreads(Integer.parseInt(
+                        commandLine.getOptionValue("dependency-analysis-threads")));
+            } catch (NumberFormatException e) {
+                System.err.println("'--dependency-analysis-threads' must be integer number");
+                printUsage();
+            }
+        }
     }
 
     private void parseIncrementalOptions() {
@@ -290,6 +370,7 @@ public final class TeaVMRunner {
         } else {
             tool.setCacheDirectory(new File(tool.getTargetDirectory(), "teavm-cache"));
         }
+        tool.setPackedCache(commandLine.hasOption("packed-cache"));
     }
 
     private void parseClassPathOptions() {
@@ -328,6 +409,12 @@ public final class TeaVMRunner {
     }
 
     private void parseHeap() {
+        if (commandLine.hasOption("generational-gc")) {
+            tool.setGenerationalGC(true);
+        }
+        if (commandLine.hasOption("multithreaded")) {
+            tool.setMultithreaded(true);
+        }
         if (commandLine.hasOption("min-heap")) {
             int size;
             try {
@@ -337,8 +424,39 @@ public final class TeaVMRunner {
                 printUsage();
                 return;
             }
-            tool.setMinHeapSize(size * 1024 * 1024);
+            tool.setMinHeapSize(size * 1024L * 1024);
+        }
+        if (commandLine.hasOption("max-heap")) {
+            int size;
+            try {
+                size = Integer.parseInt(commandLine.getOptionValue("max-heap"));
+            } catch (NumberFormatException e) {
+                System.err.print("Wrong heap size");
+                printUsage();
+                return;
+            }
+            tool.setMaxHeapSize(size * 1024L * 1024);
+        }
+        if (commandLine.hasOption("min-heap-free-ratio")) {
+            tool.setMinHeapFreeRatio(parseHeapFreeRatio(commandLine.getOptionValue("min-heap-free-ratio")));
+        }
+        if (commandLine.hasOption("max-heap-free-ratio")) {
+            tool.setMaxHeapFreeRatio(parseHeapFreeRatio(commandLine.getOptionValue("max-heap-free-ratio")));
+        }
+    }
+
+    private int parseHeapFreeRatio(String value) {
+        int ratio;
+        try {
+            ratio = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            ratio = -1;
+        }
+        if (ratio <= 0 || ratio >= 100) {
+            System.err.print("Heap free ratio must be a number between 1 and 99");
+            printUsage();
         }
+        return ratio;
     }
 
     private void setUp() {
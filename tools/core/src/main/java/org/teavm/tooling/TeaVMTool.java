@@ -18,6 +18,7 @@ package org.teavm.tooling;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
@@ -32,6 +33,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 import org.teavm.backend.c.CTarget;
 import org.teavm.backend.javascript.JavaScriptTarget;
 import org.teavm.backend.wasm.WasmTarget;
@@ -43,17 +45,27 @@ import org.teavm.cache.DiskMethodNodeCache;
 import org.teavm.cache.DiskProgramCache;
 import org.teavm.cache.EmptyProgramCache;
 import org.teavm.cache.FileSymbolTable;
+import org.teavm.cache.MethodNodeCache;
+import org.teavm.cache.PackedMethodNodeCache;
+import org.teavm.cache.PackedProgramCache;
+import org.teavm.cache.SharedCacheStorage;
+import org.teavm.cache.SharedCachedClassReaderSource;
+import org.teavm.cache.SharedMethodNodeCache;
+import org.teavm.cache.SharedProgramCache;
 import org.teavm.debugging.information.DebugInformation;
 import org.teavm.debugging.information.DebugInformationBuilder;
 import org.teavm.dependency.DependencyInfo;
 import org.teavm.dependency.FastDependencyAnalyzer;
+import org.teavm.dependency.ParallelDependencyAnalyzer;
 import org.teavm.dependency.PreciseDependencyAnalyzer;
 import org.teavm.diagnostics.ProblemProvider;
 import org.teavm.model.ClassHolderSource;
 import org.teavm.model.ClassHolderTransformer;
 import org.teavm.model.ClassReader;
 import org.teavm.model.PreOptimizingClassHolderSource;
+import org.teavm.model.ProgramCache;
 import org.teavm.model.ReferenceCache;
+import org.teavm.parsing.ClassContentHashProvider;
 import org.teavm.parsing.ClasspathClassHolderSource;
 import org.teavm.tooling.sources.SourceFileProvider;
 import org.teavm.tooling.sources.SourceFilesCopier;
@@ -70,6 +82,10 @@ public class TeaVMTool {
     private TeaVMTargetType targetType = TeaVMTargetType.JAVASCRIPT;
     private String targetFileName = "";
     private boolean minifying = true;
+    private boolean lazyStringPool;
+    private boolean longAsBigInt;
+    private boolean objectSideTables;
+    private boolean nativeStrings;
     private int maxTopLevelNames = 10000;
     private String mainClass;
     private String entryPointName = "main";
@@ -84,8 +100,11 @@ public class TeaVMTool {
     private TeaVMToolLog log = new EmptyTeaVMToolLog();
     private ClassLoader classLoader = TeaVMTool.class.getClassLoader();
     private DiskCachedClassReaderSource cachedClassSource;
-    private DiskProgramCache programCache;
-    private DiskMethodNodeCache astCache;
+    private boolean packedCache;
+    private ProgramCache programCache;
+    private MethodNodeCache astCache;
+    private SharedCacheStorage sharedCache;
+    private List<Flushable> caches = new ArrayList<>();
     private FileSymbolTable symbolTable;
     private FileSymbolTable fileTable;
     private FileSymbolTable variableTable;
@@ -94,6 +113,8 @@ public class TeaVMTool {
     private TeaVM vm;
     private boolean fastDependencyAnalysis;
     private TeaVMOptimizationLevel optimizationLevel = TeaVMOptimizationLevel.SIMPLE;
+    private int optimizationThreads = 1;
+    private int dependencyAnalysisThreads = 1;
     private List<SourceFileProvider> sourceFileProviders = new ArrayList<>();
     private DebugInformationBuilder debugEmitter;
     private JavaScriptTarget javaScriptTarget;
@@ -101,10 +122,15 @@ public class TeaVMTool {
     private WasmBinaryVersion wasmVersion = WasmBinaryVersion.V_0x1;
     private CTarget cTarget;
     private Set<File> generatedFiles = new HashSet<>();
-    private int minHeapSize = 32 * (1 << 20);
+    private long minHeapSize = 32 * (1 << 20);
+    private long maxHeapSize;
+    private int minHeapFreeRatio;
+    private int maxHeapFreeRatio;
     private ReferenceCache referenceCache;
     private boolean longjmpSupported = true;
     private boolean heapDump;
+    private boolean generationalGC;
+    private boolean multithreaded;
 
     public File getTargetDirectory() {
         return targetDirectory;
@@ -130,6 +156,38 @@ public class TeaVMTool {
         this.minifying = minifying;
     }
 
+    public boolean isLazyStringPool() {
+        return lazyStringPool;
+    }
+
+    public void setLazyStringPool(boolean lazyStringPool) {
+        this.lazyStringPool = lazyStringPool;
+    }
+
+    public boolean isLongAsBigInt() {
+        return longAsBigInt;
+    }
+
+    public void setLongAsBigInt(boolean longAsBigInt) {
+        this.longAsBigInt = longAsBigInt;
+    }
+
+    public boolean isObjectSideTables() {
+        return objectSideTables;
+    }
+
+    public void setObjectSideTables(boolean objectSideTables) {
+        this.objectSideTables = objectSideTables;
+    }
+
+    public boolean isNativeStrings() {
+        return nativeStrings;
+    }
+
+    public void setNativeStrings(boolean nativeStrings) {
+        this.nativeStrings = nativeStrings;
+    }
+
     public void setMaxTopLevelNames(int maxTopLevelNames) {
         this.maxTopLevelNames = maxTopLevelNames;
     }
@@ -170,6 +228,34 @@ public class TeaVMTool {
         this.cacheDirectory = cacheDirectory;
     }
 
+    public boolean isPackedCache() {
+        return packedCache;
+    }
+
+    /**
+     * Chooses how incremental cache stores optimized programs and ASTs. Packed cache keeps them in
+     * a single pack file per kind, otherwise a separate file per method is written.
+     *
+     * @param packedCache whether to store cache in pack files, {@code false} by default.
+     */
+    public void setPackedCache(boolean packedCache) {
+        this.packedCache = packedCache;
+    }
+
+    public SharedCacheStorage getSharedCache() {
+        return sharedCache;
+    }
+
+    /**
+     * Makes incremental build keep its caches in memory instead of {@link #getCacheDirectory() cache directory}.
+     * Storage may be shared between several tools, which is useful for long-running processes like build daemon.
+     *
+     * @param sharedCache storage for caches, {@code null} (default) to use disk cache.
+     */
+    public void setSharedCache(SharedCacheStorage sharedCache) {
+        this.sharedCache = sharedCache;
+    }
+
     public boolean isSourceMapsFileGenerated() {
         return sourceMapsFileGenerated;
     }
@@ -222,6 +308,22 @@ public class TeaVMTool {
         this.optimizationLevel = optimizationLevel;
     }
 
+    public int getOptimizationThreads() {
+        return optimizationThreads;
+    }
+
+    public void setOptimizationThreads(int optimizationThreads) {
+        this.optimizationThreads = optimizationThreads;
+    }
+
+    public int getDependencyAnalysisThreads() {
+        return dependencyAnalysisThreads;
+    }
+
+    public void setDependencyAnalysisThreads(int dependencyAnalysisThreads) {
+        this.dependencyAnalysisThreads = dependencyAnalysisThreads;
+    }
+
     public boolean isFastDependencyAnalysis() {
         return fastDependencyAnalysis;
     }
@@ -230,10 +332,22 @@ public class TeaVMTool {
         this.fastDependencyAnalysis = fastDependencyAnalysis;
     }
 
-    public void setMinHeapSize(int minHeapSize) {
+    public void setMinHeapSize(long minHeapSize) {
         this.minHeapSize = minHeapSize;
     }
 
+    public void setMaxHeapSize(long maxHeapSize) {
+        this.maxHeapSize = maxHeapSize;
+    }
+
+    public void setMinHeapFreeRatio(int minHeapFreeRatio) {
+        this.minHeapFreeRatio = minHeapFreeRatio;
+    }
+
+    public void setMaxHeapFreeRatio(int maxHeapFreeRatio) {
+        this.maxHeapFreeRatio = maxHeapFreeRatio;
+    }
+
     public ClassLoader getClassLoader() {
         return classLoader;
     }
@@ -258,6 +372,22 @@ public class TeaVMTool {
         this.heapDump = heapDump;
     }
 
+    public boolean isGenerationalGC() {
+        return generationalGC;
+    }
+
+    public void setGenerationalGC(boolean generationalGC) {
+        this.generationalGC = generationalGC;
+    }
+
+    public boolean isMultithreaded() {
+        return multithreaded;
+    }
+
+    public void setMultithreaded(boolean multithreaded) {
+        this.multithreaded = multithreaded;
+    }
+
     public void setProgressListener(TeaVMProgressListener progressListener) {
         this.progressListener = progressListener;
     }
@@ -309,6 +439,10 @@ public class TeaVMTool {
     private TeaVMTarget prepareJavaScriptTarget() {
         javaScriptTarget = new JavaScriptTarget();
         javaScriptTarget.setMinifying(minifying);
+        javaScriptTarget.setLazyStringPool(lazyStringPool);
+        javaScriptTarget.setLongAsBigInt(longAsBigInt);
+        javaScriptTarget.setObjectSideTables(objectSideTables);
+        javaScriptTarget.setNativeStrings(nativeStrings);
         javaScriptTarget.setTopLevelNameLimit(maxTopLevelNames);
 
         debugEmitter = debugInformationGenerated || sourceMapsFileGenerated
@@ -324,16 +458,25 @@ public class TeaVMTool {
         webAssemblyTarget.setCEmitted(debugInformationGenerated);
         webAssemblyTarget.setWastEmitted(debugInformationGenerated);
         webAssemblyTarget.setVersion(wasmVersion);
-        webAssemblyTarget.setMinHeapSize(minHeapSize);
+        if (minHeapSize > Integer.MAX_VALUE) {
+            log.warning("WebAssembly heap size is limited to 2 GiB, minimum heap size is reduced");
+        }
+        webAssemblyTarget.setMinHeapSize((int) Math.min(minHeapSize, Integer.MAX_VALUE));
+        webAssemblyTarget.setGenerationalGC(generationalGC);
         return webAssemblyTarget;
     }
 
     private CTarget prepareCTarget() {
         cTarget = new CTarget();
         cTarget.setMinHeapSize(minHeapSize);
+        cTarget.setMaxHeapSize(maxHeapSize);
+        cTarget.setMinHeapFreeRatio(minHeapFreeRatio);
+        cTarget.setMaxHeapFreeRatio(maxHeapFreeRatio);
         cTarget.setLineNumbersGenerated(debugInformationGenerated);
         cTarget.setLongjmpUsed(longjmpSupported);
         cTarget.setHeapDump(heapDump);
+        cTarget.setGenerationalGC(generationalGC);
+        cTarget.setMultithreaded(multithreaded);
         return cTarget;
     }
 
@@ -345,7 +488,10 @@ public class TeaVMTool {
             TeaVMBuilder vmBuilder = new TeaVMBuilder(prepareTarget());
             CacheStatus cacheStatus;
             vmBuilder.setReferenceCache(referenceCache);
-            if (incremental) {
+            caches.clear();
+            if (incremental && sharedCache != null) {
+                cacheStatus = prepareSharedCaches(vmBuilder);
+            } else if (incremental) {
                 cacheDirectory.mkdirs();
                 symbolTable = new FileSymbolTable(new File(cacheDirectory, "symbols"));
                 fileTable = new FileSymbolTable(new File(cacheDirectory, "files"));
@@ -354,12 +500,30 @@ public class TeaVMTool {
                         referenceCache);
                 ClassHolderSource classSource = new PreOptimizingClassHolderSource(innerClassSource);
                 cachedClassSource = new DiskCachedClassReaderSource(cacheDirectory, referenceCache, symbolTable,
-                        fileTable, variableTable, classSource, innerClassSource);
-                programCache = new DiskProgramCache(cacheDirectory, referenceCache, symbolTable, fileTable,
-                        variableTable);
+                        fileTable, variableTable, classSource, (ClassContentHashProvider) innerClassSource);
+                if (packedCache) {
+                    PackedProgramCache packedProgramCache = new PackedProgramCache(cacheDirectory, referenceCache,
+                            symbolTable, fileTable, variableTable);
+                    caches.add(packedProgramCache::flush);
+                    programCache = packedProgramCache;
+                } else {
+                    DiskProgramCache diskProgramCache = new DiskProgramCache(cacheDirectory, referenceCache,
+                            symbolTable, fileTable, variableTable);
+                    caches.add(diskProgramCache::flush);
+                    programCache = diskProgramCache;
+                }
                 if (incremental && targetType == TeaVMTargetType.JAVASCRIPT) {
-                    astCache = new DiskMethodNodeCache(cacheDirectory, referenceCache, symbolTable, fileTable,
-                            variableTable);
+                    if (packedCache) {
+                        PackedMethodNodeCache packedAstCache = new PackedMethodNodeCache(cacheDirectory,
+                                referenceCache, symbolTable, fileTable, variableTable);
+                        caches.add(packedAstCache::flush);
+                        astCache = packedAstCache;
+                    } else {
+                        DiskMethodNodeCache diskAstCache = new DiskMethodNodeCache(cacheDirectory, referenceCache,
+                                symbolTable, fileTable, variableTable);
+                        caches.add(diskAstCache::flush);
+                        astCache = diskAstCache;
+                    }
                     javaScriptTarget.setAstCache(astCache);
                 }
                 try {
@@ -369,6 +533,10 @@ public class TeaVMTool {
                 } catch (IOException e) {
                     log.info("Cache is missing");
                 }
+                caches.add(cachedClassSource::flush);
+                caches.add(symbolTable::flush);
+                caches.add(fileTable::flush);
+                caches.add(variableTable::flush);
                 vmBuilder.setClassLoader(classLoader).setClassSource(cachedClassSource);
                 cacheStatus = cachedClassSource;
             } else {
@@ -377,9 +545,16 @@ public class TeaVMTool {
                 cacheStatus = AlwaysStaleCacheStatus.INSTANCE;
             }
 
-            vmBuilder.setDependencyAnalyzerFactory(fastDependencyAnalysis
-                    ? FastDependencyAnalyzer::new
-                    : PreciseDependencyAnalyzer::new);
+            if (fastDependencyAnalysis) {
+                vmBuilder.setDependencyAnalyzerFactory(FastDependencyAnalyzer::new);
+            } else if (dependencyAnalysisThreads > 1) {
+                int threads = dependencyAnalysisThreads;
+                vmBuilder.setDependencyAnalyzerFactory((classSource, classLoader, services, diagnostics,
+                        referenceCache) -> new ParallelDependencyAnalyzer(classSource, classLoader, services,
+                        diagnostics, referenceCache, threads));
+            } else {
+                vmBuilder.setDependencyAnalyzerFactory(PreciseDependencyAnalyzer::new);
+            }
 
             vm = vmBuilder.build();
             if (progressListener != null) {
@@ -392,6 +567,7 @@ public class TeaVMTool {
             vm.setOptimizationLevel(!fastDependencyAnalysis && !incremental
                     ? optimizationLevel
                     : TeaVMOptimizationLevel.SIMPLE);
+            vm.setOptimizationThreads(optimizationThreads);
             if (incremental) {
                 vm.addVirtualMethods(m -> true);
             }
@@ -438,14 +614,9 @@ public class TeaVMTool {
             }
 
             if (incremental) {
-                programCache.flush();
-                if (astCache != null) {
-                    astCache.flush();
+                for (Flushable cache : caches) {
+                    cache.flush();
                 }
-                cachedClassSource.flush();
-                symbolTable.flush();
-                fileTable.flush();
-                variableTable.flush();
                 log.info("Cache updated");
             }
 
@@ -455,6 +626,42 @@ public class TeaVMTool {
         }
     }
 
+    private CacheStatus prepareSharedCaches(TeaVMBuilder vmBuilder) {
+        ClasspathClassHolderSource innerClassSource = new ClasspathClassHolderSource(classLoader, referenceCache);
+        SharedCachedClassReaderSource classSource = new SharedCachedClassReaderSource(sharedCache, referenceCache,
+                new PreOptimizingClassHolderSource(innerClassSource), innerClassSource);
+        String namespace = sharedCache.getNamespace(getCacheNamespaceDescriptor());
+
+        SharedProgramCache sharedProgramCache = new SharedProgramCache(sharedCache, classSource, namespace,
+                referenceCache);
+        caches.add(sharedProgramCache::flush);
+        programCache = sharedProgramCache;
+        if (targetType == TeaVMTargetType.JAVASCRIPT) {
+            SharedMethodNodeCache sharedAstCache = new SharedMethodNodeCache(sharedCache, classSource, namespace,
+                    referenceCache);
+            caches.add(sharedAstCache::flush);
+            astCache = sharedAstCache;
+            javaScriptTarget.setAstCache(astCache);
+        }
+        caches.add(classSource::flush);
+
+        vmBuilder.setClassLoader(classLoader).setClassSource(classSource);
+        return classSource;
+    }
+
+    /*
+     * Optimized programs and ASTs depend on target and on plugins, so builds with different settings
+     * should not see each other's entries in shared cache. Classes are stored before any transformation,
+     * so they are shared regardless of settings.
+     */
+    private String getCacheNamespaceDescriptor() {
+        return targetType + ";multithreaded=" + multithreaded + ";minifying=" + minifying
+                + ";longAsBigInt=" + longAsBigInt + ";objectSideTables=" + objectSideTables
+                + ";nativeStrings=" + nativeStrings
+                + ";transformers=" + transformers
+                + ";properties=" + new TreeMap<>(properties);
+    }
+
     private String getResolvedTargetFileName() {
         if (targetFileName.isEmpty()) {
             switch (targetType) {
@@ -54,6 +54,14 @@ public interface BuildStrategy {
 
     void setMinifying(boolean minifying);
 
+    void setLazyStringPool(boolean lazyStringPool);
+
+    void setLongAsBigInt(boolean longAsBigInt);
+
+    void setObjectSideTables(boolean objectSideTables);
+
+    void setNativeStrings(boolean nativeStrings);
+
     void setMaxTopLevelNames(int maxTopLevelNames);
 
     void setProperties(Properties properties);
@@ -62,6 +70,10 @@ public interface BuildStrategy {
 
     void setOptimizationLevel(TeaVMOptimizationLevel level);
 
+    void setOptimizationThreads(int threads);
+
+    void setDependencyAnalysisThreads(int threads);
+
     void setFastDependencyAnalysis(boolean value);
 
     void setTargetFileName(String targetFileName);
@@ -70,13 +82,25 @@ public interface BuildStrategy {
 
     void setCacheDirectory(String cacheDirectory);
 
+    void setPackedCache(boolean packedCache);
+
     void setWasmVersion(WasmBinaryVersion wasmVersion);
 
-    void setHeapSize(int heapSize);
+    void setHeapSize(long heapSize);
+
+    void setMaxHeapSize(long maxHeapSize);
+
+    void setMinHeapFreeRatio(int minHeapFreeRatio);
+
+    void setMaxHeapFreeRatio(int maxHeapFreeRatio);
 
     void setLongjmpSupported(boolean value);
 
     void setHeapDump(boolean heapDump);
 
+    void setGenerationalGC(boolean generationalGC);
+
+    void setMultithreaded(boolean multithreaded);
+
     BuildResult build() throws BuildException;
 }
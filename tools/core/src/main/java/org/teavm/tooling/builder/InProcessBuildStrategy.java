@@ -49,9 +49,16 @@ public class InProcessBuildStrategy implements BuildStrategy {
     private String targetFileName = "";
     private boolean incremental;
     private String cacheDirectory;
+    private boolean packedCache;
     private TeaVMOptimizationLevel optimizationLevel = TeaVMOptimizationLevel.ADVANCED;
+    private int optimizationThreads = 1;
+    private int dependencyAnalysisThreads = 1;
     private boolean fastDependencyAnalysis;
     private boolean minifying;
+    private boolean lazyStringPool;
+    private boolean longAsBigInt;
+    private boolean objectSideTables;
+    private boolean nativeStrings;
     private int maxTopLevelNames;
     private boolean sourceMapsFileGenerated;
     private boolean debugInformationGenerated;
@@ -59,10 +66,15 @@ public class InProcessBuildStrategy implements BuildStrategy {
     private String[] transformers = new String[0];
     private String[] classesToPreserve = new String[0];
     private WasmBinaryVersion wasmVersion = WasmBinaryVersion.V_0x1;
-    private int heapSize = 32;
+    private long heapSize = 32 * (1 << 20);
+    private long maxHeapSize;
+    private int minHeapFreeRatio;
+    private int maxHeapFreeRatio;
     private final List<SourceFileProvider> sourceFileProviders = new ArrayList<>();
     private boolean longjmpSupported = true;
     private boolean heapDump;
+    private boolean generationalGC;
+    private boolean multithreaded;
     private TeaVMProgressListener progressListener;
     private Properties properties = new Properties();
     private TeaVMToolLog log = new EmptyTeaVMToolLog();
@@ -153,6 +165,26 @@ public class InProcessBuildStrategy implements BuildStrategy {
         this.minifying = minifying;
     }
 
+    @Override
+    public void setLazyStringPool(boolean lazyStringPool) {
+        this.lazyStringPool = lazyStringPool;
+    }
+
+    @Override
+    public void setLongAsBigInt(boolean longAsBigInt) {
+        this.longAsBigInt = longAsBigInt;
+    }
+
+    @Override
+    public void setObjectSideTables(boolean objectSideTables) {
+        this.objectSideTables = objectSideTables;
+    }
+
+    @Override
+    public void setNativeStrings(boolean nativeStrings) {
+        this.nativeStrings = nativeStrings;
+    }
+
     @Override
     public void setMaxTopLevelNames(int maxTopLevelNames) {
         this.maxTopLevelNames = maxTopLevelNames;
@@ -168,6 +200,16 @@ public class InProcessBuildStrategy implements BuildStrategy {
         this.optimizationLevel = level;
     }
 
+    @Override
+    public void setOptimizationThreads(int threads) {
+        this.optimizationThreads = threads;
+    }
+
+    @Override
+    public void setDependencyAnalysisThreads(int threads) {
+        this.dependencyAnalysisThreads = threads;
+    }
+
     @Override
     public void setFastDependencyAnalysis(boolean fastDependencyAnalysis) {
         this.fastDependencyAnalysis = fastDependencyAnalysis;
@@ -188,16 +230,36 @@ public class InProcessBuildStrategy implements BuildStrategy {
         this.cacheDirectory = cacheDirectory;
     }
 
+    @Override
+    public void setPackedCache(boolean packedCache) {
+        this.packedCache = packedCache;
+    }
+
     @Override
     public void setWasmVersion(WasmBinaryVersion wasmVersion) {
         this.wasmVersion = wasmVersion;
     }
 
     @Override
-    public void setHeapSize(int heapSize) {
+    public void setHeapSize(long heapSize) {
         this.heapSize = heapSize;
     }
 
+    @Override
+    public void setMaxHeapSize(long maxHeapSize) {
+        this.maxHeapSize = maxHeapSize;
+    }
+
+    @Override
+    public void setMinHeapFreeRatio(int minHeapFreeRatio) {
+        this.minHeapFreeRatio = minHeapFreeRatio;
+    }
+
+    @Override
+    public void setMaxHeapFreeRatio(int maxHeapFreeRatio) {
+        this.maxHeapFreeRatio = maxHeapFreeRatio;
+    }
+
     @Override
     public void setLongjmpSupported(boolean longjmpSupported) {
         this.longjmpSupported = longjmpSupported;
@@ -208,6 +270,16 @@ public class InProcessBuildStrategy implements BuildStrategy {
         this.heapDump = heapDump;
     }
 
+    @Override
+    public void setGenerationalGC(boolean generationalGC) {
+        this.generationalGC = generationalGC;
+    }
+
+    @Override
+    public void setMultithreaded(boolean multithreaded) {
+        this.multithreaded = multithreaded;
+    }
+
     @Override
     public BuildResult build() throws BuildException {
         TeaVMTool tool = new TeaVMTool();
@@ -220,6 +292,8 @@ public class InProcessBuildStrategy implements BuildStrategy {
         tool.setTargetFileName(targetFileName);
         tool.setClassLoader(buildClassLoader());
         tool.setOptimizationLevel(optimizationLevel);
+        tool.setOptimizationThreads(optimizationThreads);
+        tool.setDependencyAnalysisThreads(dependencyAnalysisThreads);
         tool.setFastDependencyAnalysis(fastDependencyAnalysis);
 
         tool.setSourceMapsFileGenerated(sourceMapsFileGenerated);
@@ -227,15 +301,25 @@ public class InProcessBuildStrategy implements BuildStrategy {
         tool.setSourceFilesCopied(sourceFilesCopied);
 
         tool.setMinifying(minifying);
+        tool.setLazyStringPool(lazyStringPool);
+        tool.setLongAsBigInt(longAsBigInt);
+        tool.setObjectSideTables(objectSideTables);
+        tool.setNativeStrings(nativeStrings);
         tool.setMaxTopLevelNames(maxTopLevelNames);
         tool.setIncremental(incremental);
         tool.getTransformers().addAll(Arrays.asList(transformers));
         tool.getClassesToPreserve().addAll(Arrays.asList(classesToPreserve));
         tool.setCacheDirectory(cacheDirectory != null ? new File(cacheDirectory) : null);
+        tool.setPackedCache(packedCache);
         tool.setWasmVersion(wasmVersion);
         tool.setMinHeapSize(heapSize);
+        tool.setMaxHeapSize(maxHeapSize);
+        tool.setMinHeapFreeRatio(minHeapFreeRatio);
+        tool.setMaxHeapFreeRatio(maxHeapFreeRatio);
         tool.setLongjmpSupported(longjmpSupported);
         tool.setHeapDump(heapDump);
+        tool.setGenerationalGC(generationalGC);
+        tool.setMultithreaded(multithreaded);
 
         tool.getProperties().putAll(properties);
 
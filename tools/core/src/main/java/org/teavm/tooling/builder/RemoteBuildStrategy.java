@@ -130,6 +130,26 @@ public class RemoteBuildStrategy implements BuildStrategy {
         request.minifying = minifying;
     }
 
+    @Override
+    public void setLazyStringPool(boolean lazyStringPool) {
+        request.lazyStringPool = lazyStringPool;
+    }
+
+    @Override
+    public void setLongAsBigInt(boolean longAsBigInt) {
+        request.longAsBigInt = longAsBigInt;
+    }
+
+    @Override
+    public void setObjectSideTables(boolean objectSideTables) {
+        request.objectSideTables = objectSideTables;
+    }
+
+    @Override
+    public void setNativeStrings(boolean nativeStrings) {
+        request.nativeStrings = nativeStrings;
+    }
+
     @Override
     public void setMaxTopLevelNames(int maxTopLevelNames) {
         request.maxTopLevelNames = maxTopLevelNames;
@@ -145,6 +165,16 @@ public class RemoteBuildStrategy implements BuildStrategy {
         request.optimizationLevel = level;
     }
 
+    @Override
+    public void setOptimizationThreads(int threads) {
+        request.optimizationThreads = threads;
+    }
+
+    @Override
+    public void setDependencyAnalysisThreads(int threads) {
+        request.dependencyAnalysisThreads = threads;
+    }
+
     @Override
     public void setFastDependencyAnalysis(boolean value) {
         request.fastDependencyAnalysis = value;
@@ -165,16 +195,36 @@ public class RemoteBuildStrategy implements BuildStrategy {
         request.cacheDirectory = cacheDirectory;
     }
 
+    @Override
+    public void setPackedCache(boolean packedCache) {
+        request.packedCache = packedCache;
+    }
+
     @Override
     public void setWasmVersion(WasmBinaryVersion wasmVersion) {
         request.wasmVersion = wasmVersion;
     }
 
     @Override
-    public void setHeapSize(int heapSize) {
+    public void setHeapSize(long heapSize) {
         request.heapSize = heapSize;
     }
 
+    @Override
+    public void setMaxHeapSize(long maxHeapSize) {
+        request.maxHeapSize = maxHeapSize;
+    }
+
+    @Override
+    public void setMinHeapFreeRatio(int minHeapFreeRatio) {
+        request.minHeapFreeRatio = minHeapFreeRatio;
+    }
+
+    @Override
+    public void setMaxHeapFreeRatio(int maxHeapFreeRatio) {
+        request.maxHeapFreeRatio = maxHeapFreeRatio;
+    }
+
     @Override
     public void setLongjmpSupported(boolean value) {
         request.longjmpSupported = value;
@@ -185,6 +235,16 @@ public class RemoteBuildStrategy implements BuildStrategy {
         request.heapDump = heapDump;
     }
 
+    @Override
+    public void setGenerationalGC(boolean generationalGC) {
+        request.generationalGC = generationalGC;
+    }
+
+    @Override
+    public void setMultithreaded(boolean multithreaded) {
+        request.multithreaded = multithreaded;
+    }
+
     @Override
     public BuildResult build() throws BuildException {
         RemoteBuildResponse response;
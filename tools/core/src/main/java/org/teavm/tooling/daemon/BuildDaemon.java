@@ -23,7 +23,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.rmi.AlreadyBoundException;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
@@ -31,12 +30,19 @@ import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.teavm.cache.SharedCacheStorage;
 import org.teavm.tooling.TeaVMTool;
 import org.teavm.tooling.TeaVMToolException;
 import org.teavm.tooling.sources.DirectorySourceFileProvider;
@@ -51,16 +57,36 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
     private static final String DAEMON_MESSAGE_PREFIX = "TeaVM daemon port: ";
     private static final String INCREMENTAL_PROPERTY = "teavm.daemon.incremental";
     private static final String DEBUG_PORT_PROPERTY = "teavm.daemon.debug.port";
+    private static final String WORKERS_PROPERTY = "teavm.daemon.workers";
+    private static final String CACHE_SIZE_PROPERTY = "teavm.daemon.cacheSize";
+    private static final int MAX_JAR_CLASS_LOADERS = 16;
     private boolean incremental;
     private int port;
     private Registry registry;
-    private File incrementalCache;
-    private ClassLoader lastJarClassLoader;
-    private List<String> lastJarClassPath;
+    private SharedCacheStorage cacheStorage;
+    private ExecutorService workers;
+    private ConcurrentMap<String, Object> projectLocks = new ConcurrentHashMap<>();
+    private Map<List<String>, JarClassLoader> jarClassLoaders = new LinkedHashMap<List<String>, JarClassLoader>(
+            16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, JarClassLoader> eldest) {
+            if (size() > MAX_JAR_CLASS_LOADERS) {
+                eldest.getValue().evict();
+                return true;
+            }
+            return false;
+        }
+    };
 
-    BuildDaemon(boolean incremental) throws RemoteException {
+    BuildDaemon(boolean incremental, int workerCount, long cacheSize) throws RemoteException {
         super();
         this.incremental = incremental;
+        cacheStorage = new SharedCacheStorage(cacheSize);
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "TeaVM build worker");
+            thread.setDaemon(true);
+            return thread;
+        });
         Random random = new Random();
         for (int i = 0; i < 20; ++i) {
             port = random.nextInt(MAX_PORT - MIN_PORT) + MIN_PORT;
@@ -75,61 +101,57 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
                 throw new IllegalStateException("Could not bind remote build assistant service", e);
             }
 
-            setupIncrementalCache();
-
             return;
         }
         throw new IllegalStateException("Could not create RMI registry");
     }
 
-    private void setupIncrementalCache() {
-        if (!incremental) {
-            return;
-        }
-
-        Thread mainThread = Thread.currentThread();
-        try {
-            incrementalCache = Files.createTempDirectory("teavm-cache").toFile();
-            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                try {
-                    if (incrementalCache != null) {
-                        FileUtils.deleteDirectory(incrementalCache);
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-                try {
-                    mainThread.join();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }));
-        } catch (IOException e) {
-            System.err.println("Could not setup incremental cache");
-            e.printStackTrace(System.err);
-            incremental = false;
-        }
-    }
-
     public static void main(String[] args) throws RemoteException {
         boolean incremental = Boolean.parseBoolean(System.getProperty(INCREMENTAL_PROPERTY, "false"));
-        BuildDaemon daemon = new BuildDaemon(incremental);
+        int workerCount = Math.max(1, Integer.getInteger(WORKERS_PROPERTY,
+                Runtime.getRuntime().availableProcessors() / 2));
+        long cacheSize = Long.getLong(CACHE_SIZE_PROPERTY, Runtime.getRuntime().maxMemory() / (4 << 20)) << 20;
+        BuildDaemon daemon = new BuildDaemon(incremental, workerCount, cacheSize);
         System.out.println(DAEMON_MESSAGE_PREFIX + daemon.port);
-        if (daemon.incrementalCache != null) {
-            System.out.println("Incremental cache set up in " + daemon.incrementalCache);
-        }
+        System.out.println("Build workers: " + workerCount + ", in-memory cache size: " + (cacheSize >> 20) + "M");
     }
 
+    /*
+     * RMI may dispatch concurrent calls on its own threads. Builds of different projects run in parallel
+     * on worker threads, while builds of the same project wait for each other, since they write to the same
+     * target directory.
+     */
     @Override
     public RemoteBuildResponse build(RemoteBuildRequest request, RemoteBuildCallback callback) {
-        System.out.println("Build started");
+        String projectKey = new File(request.targetDirectory).getAbsolutePath();
+        Object projectLock = projectLocks.computeIfAbsent(projectKey, key -> new Object());
+        synchronized (projectLock) {
+            Future<RemoteBuildResponse> future = workers.submit(() -> doBuild(request, callback));
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                RemoteBuildResponse response = new RemoteBuildResponse();
+                response.exception = e;
+                return response;
+            } catch (ExecutionException e) {
+                RemoteBuildResponse response = new RemoteBuildResponse();
+                response.exception = e.getCause();
+                return response;
+            }
+        }
+    }
+
+    private RemoteBuildResponse doBuild(RemoteBuildRequest request, RemoteBuildCallback callback) {
+        System.out.println("Build started: " + request.targetDirectory);
 
         TeaVMTool tool = new TeaVMTool();
         tool.setIncremental(incremental || request.incremental);
-        if (tool.isIncremental()) {
-            tool.setCacheDirectory(request.cacheDirectory != null
-                    ? new File(request.cacheDirectory)
-                    : incrementalCache);
+        if (request.cacheDirectory != null) {
+            tool.setCacheDirectory(new File(request.cacheDirectory));
+        } else if (tool.isIncremental()) {
+            tool.setSharedCache(cacheStorage);
         }
         tool.setProgressListener(createProgressListener(callback));
         tool.setLog(new RemoteBuildLog(callback));
@@ -144,8 +166,22 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
         tool.setEntryPointName(request.entryPointName);
         tool.setTargetDirectory(new File(request.targetDirectory));
         tool.setTargetFileName(request.tagetFileName);
-        tool.setClassLoader(buildClassLoader(request.classPath, incremental && request.incremental));
+        JarClassLoader jarClassLoader = acquireJarClassLoader(request.classPath, incremental && request.incremental);
+        URLClassLoader classLoader = buildClassLoader(request.classPath, jarClassLoader.loader);
+        try {
+            tool.setClassLoader(classLoader);
+            return runBuild(request, tool);
+        } finally {
+            try {
+                classLoader.close();
+            } catch (IOException e) {
+                // Nothing to do, class loader is not used anymore
+            }
+            jarClassLoader.release();
+        }
+    }
 
+    private RemoteBuildResponse runBuild(RemoteBuildRequest request, TeaVMTool tool) {
         tool.setSourceMapsFileGenerated(request.sourceMapsFileGenerated);
         tool.setDebugInformationGenerated(request.debugInformationGenerated);
         tool.setSourceFilesCopied(request.sourceFilesCopied);
@@ -154,13 +190,25 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
         }
 
         tool.setOptimizationLevel(request.optimizationLevel);
+        tool.setOptimizationThreads(request.optimizationThreads);
+        tool.setDependencyAnalysisThreads(request.dependencyAnalysisThreads);
+        tool.setPackedCache(request.packedCache);
         tool.setFastDependencyAnalysis(request.fastDependencyAnalysis);
         tool.setMinifying(request.minifying);
+        tool.setLazyStringPool(request.lazyStringPool);
+        tool.setLongAsBigInt(request.longAsBigInt);
+        tool.setObjectSideTables(request.objectSideTables);
+        tool.setNativeStrings(request.nativeStrings);
         tool.setMaxTopLevelNames(request.maxTopLevelNames);
         tool.setWasmVersion(request.wasmVersion);
         tool.setMinHeapSize(request.heapSize);
+        tool.setMaxHeapSize(request.maxHeapSize);
+        tool.setMinHeapFreeRatio(request.minHeapFreeRatio);
+        tool.setMaxHeapFreeRatio(request.maxHeapFreeRatio);
         tool.setLongjmpSupported(request.longjmpSupported);
         tool.setHeapDump(request.heapDump);
+        tool.setGenerationalGC(request.generationalGC);
+        tool.setMultithreaded(request.multithreaded);
 
         for (String sourceDirectory : request.sourceDirectories) {
             tool.addSourceFileProvider(new DirectorySourceFileProvider(new File(sourceDirectory)));
@@ -172,7 +220,7 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
         RemoteBuildResponse response = new RemoteBuildResponse();
         try {
             tool.generate();
-            System.out.println("Build complete");
+            System.out.println("Build complete: " + request.targetDirectory);
         } catch (TeaVMToolException | RuntimeException | Error e) {
             response.exception = e;
         }
@@ -191,49 +239,98 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
         return response;
     }
 
-    private ClassLoader buildClassLoader(List<String> classPathEntries, boolean incremental) {
+    private JarClassLoader acquireJarClassLoader(List<String> classPathEntries, boolean incremental) {
         System.out.println("Classpath: " + classPathEntries);
-        Function<String, URL> mapper = entry -> {
-            try {
-                return new File(entry).toURI().toURL();
-            } catch (MalformedURLException e) {
-                throw new RuntimeException(entry);
-            }
-        };
         List<String> jarEntries = classPathEntries.stream()
                 .filter(entry -> entry.endsWith(".jar"))
                 .collect(Collectors.toList());
 
-        ClassLoader jarClassLoader = null;
-
+        // Jars are distinguished by modification date, so that rebuilt snapshot dependencies get reloaded
+        List<String> jarKey = jarEntries.stream()
+                .map(entry -> entry + "@" + new File(entry).lastModified())
+                .collect(Collectors.toList());
         if (incremental) {
-            if (jarEntries.equals(lastJarClassPath) && lastJarClassLoader != null) {
-                jarClassLoader = lastJarClassLoader;
-                System.out.println("Reusing previous class path");
+            synchronized (jarClassLoaders) {
+                JarClassLoader jarClassLoader = jarClassLoaders.get(jarKey);
+                if (jarClassLoader != null) {
+                    System.out.println("Reusing previous class path");
+                    jarClassLoader.acquire();
+                    return jarClassLoader;
+                }
             }
-        } else {
-            lastJarClassLoader = null;
-            lastJarClassPath = null;
-        }
-        if (jarClassLoader == null) {
-            URL[] jarUrls = jarEntries.stream()
-                    .map(mapper)
-                    .toArray(URL[]::new);
-            jarClassLoader = new URLClassLoader(jarUrls);
         }
+
+        URL[] jarUrls = jarEntries.stream()
+                .map(BuildDaemon::toUrl)
+                .toArray(URL[]::new);
+        JarClassLoader jarClassLoader = new JarClassLoader(new URLClassLoader(jarUrls));
+        jarClassLoader.acquire();
         if (incremental) {
-            lastJarClassPath = jarEntries;
-            lastJarClassLoader = jarClassLoader;
+            synchronized (jarClassLoaders) {
+                jarClassLoaders.put(jarKey, jarClassLoader);
+            }
+        } else {
+            jarClassLoader.evict();
         }
+        return jarClassLoader;
+    }
 
+    private URLClassLoader buildClassLoader(List<String> classPathEntries, ClassLoader jarClassLoader) {
         URL[] urls = classPathEntries.stream()
                 .filter(entry -> !entry.endsWith(".jar"))
-                .map(mapper)
+                .map(BuildDaemon::toUrl)
                 .toArray(URL[]::new);
 
         return new URLClassLoader(urls, jarClassLoader);
     }
 
+    private static URL toUrl(String entry) {
+        try {
+            return new File(entry).toURI().toURL();
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(entry);
+        }
+    }
+
+    /*
+     * A build may still use class loader of jars when it's evicted, so it's closed only after all builds
+     * that use it are complete.
+     */
+    static class JarClassLoader {
+        final URLClassLoader loader;
+        private int users;
+        private boolean evicted;
+
+        JarClassLoader(URLClassLoader loader) {
+            this.loader = loader;
+        }
+
+        synchronized void acquire() {
+            users++;
+        }
+
+        synchronized void release() {
+            if (--users == 0 && evicted) {
+                close();
+            }
+        }
+
+        synchronized void evict() {
+            evicted = true;
+            if (users == 0) {
+                close();
+            }
+        }
+
+        private void close() {
+            try {
+                loader.close();
+            } catch (IOException e) {
+                // Nothing to do, class loader is not used anymore
+            }
+        }
+    }
+
     private TeaVMProgressListener createProgressListener(RemoteBuildCallback callback) {
         return new TeaVMProgressListener() {
             private long lastReportedTime;
@@ -274,6 +371,13 @@ public class BuildDaemon extends UnicastRemoteObject implements RemoteBuildServi
                 "-D" + INCREMENTAL_PROPERTY + "=" + incremental,
                 "-Xmx" + daemonMemory + "m"));
 
+        for (String property : new String[] { WORKERS_PROPERTY, CACHE_SIZE_PROPERTY }) {
+            String value = System.getProperty(property);
+            if (value != null) {
+                arguments.add("-D" + property + "=" + value);
+            }
+        }
+
         String debugPort = System.getProperty(DEBUG_PORT_PROPERTY);
         if (debugPort != null) {
             arguments.add("-agentlib:jdwp=transport=dt_socket,quiet=y,server=y,address=" + debugPort + ",suspend=y");
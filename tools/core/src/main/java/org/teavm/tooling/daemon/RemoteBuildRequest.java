@@ -39,13 +39,25 @@ public class RemoteBuildRequest implements Serializable {
     public boolean sourceFilesCopied;
     public boolean incremental;
     public String cacheDirectory;
+    public boolean packedCache;
     public boolean minifying;
+    public boolean lazyStringPool;
+    public boolean longAsBigInt;
+    public boolean objectSideTables;
+    public boolean nativeStrings;
     public int maxTopLevelNames;
     public Properties properties;
     public TeaVMOptimizationLevel optimizationLevel;
+    public int optimizationThreads = 1;
+    public int dependencyAnalysisThreads = 1;
     public boolean fastDependencyAnalysis;
     public WasmBinaryVersion wasmVersion;
-    public int heapSize;
+    public long heapSize;
+    public long maxHeapSize;
+    public int minHeapFreeRatio;
+    public int maxHeapFreeRatio;
     public boolean longjmpSupported;
     public boolean heapDump;
+    public boolean generationalGC;
+    public boolean multithreaded;
 }
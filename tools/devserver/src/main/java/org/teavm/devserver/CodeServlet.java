@@ -67,14 +67,20 @@ import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
 import org.eclipse.jetty.websocket.client.WebSocketClient;
 import org.eclipse.jetty.websocket.client.io.UpgradeListener;
 import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+import org.teavm.backend.javascript.HotSwapSnapshot;
 import org.teavm.backend.javascript.JavaScriptTarget;
 import org.teavm.cache.InMemoryMethodNodeCache;
 import org.teavm.cache.InMemoryProgramCache;
 import org.teavm.cache.InMemorySymbolTable;
 import org.teavm.cache.MemoryCachedClassReaderSource;
+import org.teavm.common.ServiceRepository;
 import org.teavm.debugging.information.DebugInformation;
 import org.teavm.debugging.information.DebugInformationBuilder;
+import org.teavm.dependency.DependencyAnalyzer;
+import org.teavm.dependency.DependencyGraphCache;
+import org.teavm.dependency.DependencySummaryCache;
 import org.teavm.dependency.FastDependencyAnalyzer;
+import org.teavm.diagnostics.Diagnostics;
 import org.teavm.model.ClassHolder;
 import org.teavm.model.ClassReader;
 import org.teavm.model.ClassReaderSource;
@@ -111,6 +117,7 @@ public class CodeServlet extends HttpServlet {
     private boolean indicator;
     private boolean deobfuscateStack;
     private boolean automaticallyReloaded;
+    private boolean hotSwap;
     private int port;
     private int debugPort;
     private String proxyUrl;
@@ -127,7 +134,12 @@ public class CodeServlet extends HttpServlet {
     private MemoryCachedClassReaderSource classSource;
     private InMemoryProgramCache programCache;
     private InMemoryMethodNodeCache astCache;
+    private DependencySummaryCache dependencySummaryCache;
+    private DependencyGraphCache dependencyGraphCache;
     private int lastReachedClasses;
+    private int buildNumber;
+    private HotSwapSnapshot lastSnapshot;
+    private int lastSnapshotBuildNumber;
     private boolean firstTime = true;
 
     private final Object contentLock = new Object();
@@ -193,6 +205,10 @@ public class CodeServlet extends HttpServlet {
         this.automaticallyReloaded = automaticallyReloaded;
     }
 
+    public void setHotSwap(boolean hotSwap) {
+        this.hotSwap = hotSwap;
+    }
+
     public void setProxyUrl(String proxyUrl) {
         this.proxyUrl = proxyUrl;
     }
@@ -234,6 +250,8 @@ public class CodeServlet extends HttpServlet {
             }
             astCache.invalidate();
             programCache.invalidate();
+            dependencySummaryCache.invalidate();
+            dependencyGraphCache.invalidate();
             classSource.invalidate();
             symbolTable.invalidate();
             fileSymbolTable.invalidate();
@@ -703,6 +721,8 @@ public class CodeServlet extends HttpServlet {
                 }
 
                 classSource.evict(staleClasses);
+                dependencySummaryCache.evict(staleClasses);
+                dependencyGraphCache.evict(staleClasses);
             }
             log.info("Build process stopped");
         } catch (Throwable e) {
@@ -718,6 +738,8 @@ public class CodeServlet extends HttpServlet {
         classSource = createCachedSource();
         astCache = new InMemoryMethodNodeCache(referenceCache, symbolTable, fileSymbolTable, variableSymbolTable);
         programCache = new InMemoryProgramCache(referenceCache, symbolTable, fileSymbolTable, variableSymbolTable);
+        dependencySummaryCache = new DependencySummaryCache();
+        dependencyGraphCache = new DependencyGraphCache();
     }
 
     private MemoryCachedClassReaderSource createCachedSource() {
@@ -734,7 +756,10 @@ public class CodeServlet extends HttpServlet {
         classSource = null;
         watcher = null;
         astCache = null;
+        dependencySummaryCache = null;
+        dependencyGraphCache = null;
         programCache = null;
+        lastSnapshot = null;
         synchronized (content) {
             content.clear();
         }
@@ -744,8 +769,10 @@ public class CodeServlet extends HttpServlet {
     }
 
     private void buildOnce() {
+        ++buildNumber;
         fireBuildStarted();
         reportProgress(0);
+        dependencySummaryCache.resetStatistics();
 
         DebugInformationBuilder debugInformationBuilder = new DebugInformationBuilder(referenceCache);
         ClassLoader classLoader = initClassLoader();
@@ -762,7 +789,7 @@ public class CodeServlet extends HttpServlet {
                 .setReferenceCache(referenceCache)
                 .setClassLoader(classLoader)
                 .setClassSource(classSource)
-                .setDependencyAnalyzerFactory(FastDependencyAnalyzer::new)
+                .setDependencyAnalyzerFactory(this::createDependencyAnalyzer)
                 .setClassSourcePacker(this::packClasses)
                 .build();
 
@@ -771,6 +798,7 @@ public class CodeServlet extends HttpServlet {
         jsTarget.setAstCache(astCache);
         jsTarget.setDebugEmitter(debugInformationBuilder);
         jsTarget.setTopLevelNameLimit(500);
+        jsTarget.setHotSwapSupported(hotSwap);
         vm.setOptimizationLevel(TeaVMOptimizationLevel.SIMPLE);
         vm.setCacheStatus(classSource);
         vm.addVirtualMethods(m -> true);
@@ -788,7 +816,16 @@ public class CodeServlet extends HttpServlet {
         addIndicator();
         generateDebug(debugInformationBuilder);
 
-        postBuild(vm, startTime);
+        postBuild(vm, jsTarget, startTime);
+    }
+
+    private DependencyAnalyzer createDependencyAnalyzer(ClassReaderSource classSource, ClassLoader classLoader,
+            ServiceRepository services, Diagnostics diagnostics, ReferenceCache referenceCache) {
+        FastDependencyAnalyzer dependencyAnalyzer = new FastDependencyAnalyzer(classSource, classLoader, services,
+                diagnostics, referenceCache);
+        dependencyAnalyzer.setSummaryCache(dependencySummaryCache, this.classSource);
+        dependencyAnalyzer.setGraphCache(dependencyGraphCache);
+        return dependencyAnalyzer;
     }
 
     private ClassReaderSource packClasses(ClassReaderSource source, Collection<? extends String> classNames) {
@@ -819,6 +856,7 @@ public class CodeServlet extends HttpServlet {
             script = script.replace("WS_PATH", "localhost:" + port + pathToFile + fileName + ".ws");
             script = script.replace("BOOT_FLAG", Boolean.toString(boot));
             script = script.replace("RELOAD_FLAG", Boolean.toString(automaticallyReloaded));
+            script = script.replace("HOT_SWAP_VERSION", Integer.toString(boot ? -1 : buildNumber));
             script = script.replace("INDICATOR_FLAG", Boolean.toString(indicator));
             script = script.replace("DEBUG_PORT", Integer.toString(debugPort));
             script = script.replace("FILE_NAME", "\"" + fileName + "\"");
@@ -850,9 +888,10 @@ public class CodeServlet extends HttpServlet {
         }
     }
 
-    private void postBuild(TeaVM vm, long startTime) {
+    private void postBuild(TeaVM vm, JavaScriptTarget jsTarget, long startTime) {
         if (!vm.wasCancelled()) {
             log.info("Recompiled stale methods: " + programCache.getPendingItemsCount());
+            log.info("Reanalyzed stale methods: " + dependencySummaryCache.getMissCount());
             fireBuildComplete(vm);
             if (vm.getProblemProvider().getSevereProblems().isEmpty()) {
                 log.info("Build complete successfully");
@@ -860,7 +899,12 @@ public class CodeServlet extends HttpServlet {
                 lastReachedClasses = vm.getDependencyInfo().getReachableClasses().size();
                 classSource.commit();
                 programCache.commit();
+                dependencySummaryCache.commit();
+                dependencyGraphCache.commit();
                 astCache.commit();
+                if (hotSwap) {
+                    updateHotSwapSnapshot(jsTarget.getHotSwapSnapshot());
+                }
                 reportCompilationComplete(true);
             } else {
                 log.info("Build complete with errors");
@@ -874,11 +918,36 @@ public class CodeServlet extends HttpServlet {
         }
 
         astCache.discard();
+        dependencySummaryCache.discard();
+        dependencyGraphCache.discard();
         programCache.discard();
         buildTarget.clear();
         cancelRequested = false;
     }
 
+    private void updateHotSwapSnapshot(HotSwapSnapshot snapshot) {
+        HotSwapSnapshot previousSnapshot = lastSnapshot;
+        int previousBuildNumber = lastSnapshotBuildNumber;
+        lastSnapshot = snapshot;
+        lastSnapshotBuildNumber = buildNumber;
+        if (previousSnapshot == null) {
+            return;
+        }
+        String patch = snapshot.createPatch(previousSnapshot);
+        if (patch == null) {
+            log.info("Changes affect more than method bodies, hot swap is not possible");
+            return;
+        }
+
+        ProgressHandler[] handlers;
+        synchronized (progressHandlers) {
+            handlers = progressHandlers.toArray(new ProgressHandler[0]);
+        }
+        for (ProgressHandler handler : handlers) {
+            handler.hotSwap(previousBuildNumber, buildNumber, patch);
+        }
+    }
+
     private void printStats(TeaVM vm, long startTime) {
         if (vm.getWrittenClasses() != null) {
             int classCount = vm.getWrittenClasses().getClassNames().size();
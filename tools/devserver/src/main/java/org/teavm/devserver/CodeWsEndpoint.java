@@ -60,5 +60,37 @@ public class CodeWsEndpoint {
         public void complete(boolean success) {
             session.getRemote().sendStringByFuture("{ \"command\": \"complete\", \"success\": " + success + " }");
         }
+
+        @Override
+        public void hotSwap(int fromVersion, int toVersion, String patch) {
+            session.getRemote().sendStringByFuture("{ \"command\": \"hotSwap\", \"from\": " + fromVersion
+                    + ", \"to\": " + toVersion + ", \"code\": \"" + escapeJson(patch) + "\" }");
+        }
+    }
+
+    private static String escapeJson(String str) {
+        StringBuilder sb = new StringBuilder(str.length());
+        for (int i = 0; i < str.length(); ++i) {
+            char c = str.charAt(i);
+            switch (c) {
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                default:
+                    if (c < ' ' || c == '\u2028' || c == '\u2029') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        return sb.toString();
     }
 }
@@ -32,6 +32,7 @@ public class DevServer {
     private boolean indicator;
     private boolean deobfuscateStack;
     private boolean reloadedAutomatically;
+    private boolean hotSwap;
     private TeaVMToolLog log;
     private CodeServlet servlet;
     private List<DevServerListener> listeners = new ArrayList<>();
@@ -88,6 +89,10 @@ public class DevServer {
         this.reloadedAutomatically = reloadedAutomatically;
     }
 
+    public void setHotSwap(boolean hotSwap) {
+        this.hotSwap = hotSwap;
+    }
+
     public void setProxyUrl(String proxyUrl) {
         this.proxyUrl = proxyUrl;
     }
@@ -133,6 +138,7 @@ public class DevServer {
         servlet.setIndicator(indicator);
         servlet.setDeobfuscateStack(deobfuscateStack);
         servlet.setAutomaticallyReloaded(reloadedAutomatically);
+        servlet.setHotSwap(hotSwap);
         servlet.setPort(port);
         servlet.setDebugPort(debugPort);
         servlet.setProxyUrl(proxyUrl);
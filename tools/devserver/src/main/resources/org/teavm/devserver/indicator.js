@@ -16,6 +16,8 @@
 (function (window) {
     var boot = BOOT_FLAG;
     var reload = RELOAD_FLAG;
+    var hotSwapVersion = HOT_SWAP_VERSION;
+    var hotSwapped = false;
     var indicatorVisible = INDICATOR_FLAG;
     var debugPort = DEBUG_PORT;
     var deobfuscate = DEOBFUSCATE_FLAG;
@@ -165,6 +167,20 @@
         main();
     }
 
+    function applyHotSwap(message) {
+        if (boot || message.from !== hotSwapVersion || typeof $teavm_hotSwap !== "function") {
+            return false;
+        }
+        try {
+            $teavm_hotSwap(message.code);
+        } catch (e) {
+            console.error("Could not replace changed code", e);
+            return false;
+        }
+        hotSwapVersion = message.to;
+        return true;
+    }
+
     var ws = createWebSocket();
     ws.onmessage = function(event) {
         var message = JSON.parse(event.data);
@@ -173,8 +189,14 @@
                 indicator.show("Compiling...");
                 indicator.showProgress(message.progress || 0);
                 break;
+            case "hotSwap":
+                hotSwapped = applyHotSwap(message);
+                break;
             case "complete":
-                if (message.success) {
+                if (message.success && hotSwapped) {
+                    hotSwapped = false;
+                    indicator.show("Changed code replaced", 10);
+                } else if (message.success) {
                     indicator.show("Compilation complete", 10);
                     if (reload) {
                         window.location.reload(true);
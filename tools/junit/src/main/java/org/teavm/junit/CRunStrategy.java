@@ -21,10 +21,13 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 class CRunStrategy implements TestRunStrategy {
     private String compilerCommand;
+    private ConcurrentMap<File, BundleCompilation> bundleCompilations = new ConcurrentHashMap<>();
 
     CRunStrategy(String compilerCommand) {
         this.compilerCommand = compilerCommand;
@@ -48,7 +51,10 @@ class CRunStrategy implements TestRunStrategy {
 
             File outputFile = new File(run.getBaseDirectory(), exeName);
             List<String> compilerOutput = new ArrayList<>();
-            boolean compilerSuccess = runCompiler(run.getBaseDirectory(), compilerOutput);
+            boolean compilerSuccess = run.getArgument() != null
+                    ? bundleCompilations.computeIfAbsent(run.getBaseDirectory(), BundleCompilation::new)
+                            .compile(compilerOutput)
+                    : runCompiler(run.getBaseDirectory(), compilerOutput);
             if (!compilerSuccess) {
                 run.getCallback().error(new RuntimeException("C compiler error:\n" + mergeLines(compilerOutput)));
                 return;
@@ -58,7 +64,10 @@ class CRunStrategy implements TestRunStrategy {
             List<String> runtimeOutput = new ArrayList<>();
             List<String> stdout = new ArrayList<>();
             outputFile.setExecutable(true);
-            runProcess(new ProcessBuilder(outputFile.getPath()).start(), runtimeOutput, stdout);
+            ProcessBuilder processBuilder = run.getArgument() != null
+                    ? new ProcessBuilder(outputFile.getPath(), run.getArgument())
+                    : new ProcessBuilder(outputFile.getPath());
+            runProcess(processBuilder.start(), runtimeOutput, stdout);
             if (!stdout.isEmpty() && stdout.get(stdout.size() - 1).equals("SUCCESS")) {
                 writeLines(runtimeOutput);
                 run.getCallback().complete();
@@ -133,4 +142,27 @@ class CRunStrategy implements TestRunStrategy {
         output.addAll(lines);
         return result;
     }
+
+    /*
+     * All tests of a bundle share one directory, so it's compiled once, by whichever test runs first.
+     */
+    class BundleCompilation {
+        private File directory;
+        private List<String> output;
+        private boolean success;
+
+        BundleCompilation(File directory) {
+            this.directory = directory;
+        }
+
+        synchronized boolean compile(List<String> output) throws IOException, InterruptedException {
+            if (this.output == null) {
+                List<String> compilerOutput = new ArrayList<>();
+                success = runCompiler(directory, compilerOutput);
+                this.output = compilerOutput;
+            }
+            output.addAll(this.output);
+            return success;
+        }
+    }
 }
@@ -65,6 +65,13 @@ class HtmlUnitRunStrategy implements TestRunStrategy {
         }
         HtmlPage pageRef = page.get();
 
+        // Page is about:blank, so tell where to load chunks from
+        pageRef.executeJavaScript("var TeaVMChunks = { baseUrl: \""
+                + run.getBaseDirectory().getAbsoluteFile().toURI() + "\" };");
+        // Lets tests start workers that load the same script, see run-test-worker.js
+        String workerUrl = run.getBaseDirectory().getAbsoluteFile().toURI() + "run-test-worker.js?script="
+                + run.getFileName() + (run.getArgument() != null ? "&test=" + run.getArgument() : "");
+        pageRef.executeJavaScript("var TeaVMTestWorker = \"" + workerUrl + "\";");
         pageRef.executeJavaScript(readFile(new File(run.getBaseDirectory(), run.getFileName())));
         boolean decodeStack = Boolean.parseBoolean(System.getProperty(TeaVMTestRunner.JS_DECODE_STACK, "true"));
         File debugFile = decodeStack ? new File(run.getBaseDirectory(), run.getFileName() + ".teavmdbg") : null;
@@ -75,7 +82,8 @@ class HtmlUnitRunStrategy implements TestRunStrategy {
                 .getJavaScriptResult();
         Object[] args = new Object[] {
                 decodeStack ? createStackDecoderFunction(resultParser) : null,
-                new NativeJavaObject(function, asyncResult, AsyncResult.class)
+                new NativeJavaObject(function, asyncResult, AsyncResult.class),
+                run.getArgument()
         };
         pageRef.executeJavaScriptFunction(function, function, args, page.get());
 
@@ -16,7 +16,13 @@
 package org.teavm.junit;
 
 enum RunKind {
-    JAVASCRIPT,
-    C,
-    WASM
+    JAVASCRIPT(TestPlatform.JAVASCRIPT),
+    C(TestPlatform.C),
+    WASM(TestPlatform.WEBASSEMBLY);
+
+    final TestPlatform platform;
+
+    RunKind(TestPlatform platform) {
+        this.platform = platform;
+    }
 }
@@ -80,6 +80,78 @@ interface TeaVMTestConfiguration<T extends TeaVMTarget> {
         }
     };
 
+    TeaVMTestConfiguration<JavaScriptTarget> JS_LAZY_STRING_POOL = new TeaVMTestConfiguration<JavaScriptTarget>() {
+        @Override
+        public String getSuffix() {
+            return "lazyStringPool";
+        }
+
+        @Override
+        public void apply(TeaVM vm) {
+            vm.setOptimizationLevel(TeaVMOptimizationLevel.SIMPLE);
+        }
+
+        @Override
+        public void apply(JavaScriptTarget target) {
+            target.setMinifying(false);
+            target.setLazyStringPool(true);
+        }
+    };
+
+    TeaVMTestConfiguration<JavaScriptTarget> JS_BIG_INT_LONG = new TeaVMTestConfiguration<JavaScriptTarget>() {
+        @Override
+        public String getSuffix() {
+            return "bigIntLong";
+        }
+
+        @Override
+        public void apply(TeaVM vm) {
+            vm.setOptimizationLevel(TeaVMOptimizationLevel.SIMPLE);
+        }
+
+        @Override
+        public void apply(JavaScriptTarget target) {
+            target.setMinifying(false);
+            target.setLongAsBigInt(true);
+        }
+    };
+
+    TeaVMTestConfiguration<JavaScriptTarget> JS_NATIVE_STRINGS = new TeaVMTestConfiguration<JavaScriptTarget>() {
+        @Override
+        public String getSuffix() {
+            return "nativeStrings";
+        }
+
+        @Override
+        public void apply(TeaVM vm) {
+            vm.setOptimizationLevel(TeaVMOptimizationLevel.SIMPLE);
+        }
+
+        @Override
+        public void apply(JavaScriptTarget target) {
+            target.setMinifying(false);
+            target.setNativeStrings(true);
+        }
+    };
+
+    TeaVMTestConfiguration<JavaScriptTarget> JS_OBJECT_SIDE_TABLES = new TeaVMTestConfiguration<JavaScriptTarget>() {
+        @Override
+        public String getSuffix() {
+            return "objectSideTables";
+        }
+
+        @Override
+        public void apply(TeaVM vm) {
+            vm.setOptimizationLevel(TeaVMOptimizationLevel.SIMPLE);
+        }
+
+        @Override
+        public void apply(JavaScriptTarget target) {
+            target.setMinifying(false);
+            target.setObjectSideTables(true);
+        }
+    };
+
     TeaVMTestConfiguration<WasmTarget> WASM_DEFAULT = new TeaVMTestConfiguration<WasmTarget>() {
         @Override
         public String getSuffix() {
@@ -147,4 +219,56 @@ interface TeaVMTestConfiguration<T extends TeaVMTarget> {
         public void apply(CTarget target) {
         }
     };
+
+    TeaVMTestConfiguration<CTarget> C_GENERATIONAL_GC = new TeaVMTestConfiguration<CTarget>() {
+        @Override
+        public String getSuffix() {
+            return "generational";
+        }
+
+        @Override
+        public void apply(TeaVM vm) {
+            vm.setOptimizationLevel(TeaVMOptimizationLevel.SIMPLE);
+        }
+
+        @Override
+        public void apply(CTarget target) {
+            target.setGenerationalGC(true);
+        }
+    };
+
+    TeaVMTestConfiguration<CTarget> C_HEAP_GROWTH = new TeaVMTestConfiguration<CTarget>() {
+        @Override
+        public String getSuffix() {
+            return "heapGrowth";
+        }
+
+        @Override
+        public void apply(TeaVM vm) {
+            vm.setOptimizationLevel(TeaVMOptimizationLevel.SIMPLE);
+        }
+
+        @Override
+        public void apply(CTarget target) {
+            target.setMinHeapSize(8 * 1024 * 1024);
+            target.setMaxHeapSize(256 * 1024 * 1024);
+        }
+    };
+
+    TeaVMTestConfiguration<CTarget> C_MULTITHREADED = new TeaVMTestConfiguration<CTarget>() {
+        @Override
+        public String getSuffix() {
+            return "multithreaded";
+        }
+
+        @Override
+        public void apply(TeaVM vm) {
+            vm.setOptimizationLevel(TeaVMOptimizationLevel.SIMPLE);
+        }
+
+        @Override
+        public void apply(CTarget target) {
+            target.setMultithreaded(true);
+        }
+    };
 }
@@ -37,9 +37,14 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -98,13 +103,21 @@ public class TeaVMTestRunner extends Runner implements Filterable {
     private static final String THREAD_COUNT = "teavm.junit.threads";
     private static final String JS_ENABLED = "teavm.junit.js";
     static final String JS_DECODE_STACK = "teavm.junit.js.decodeStack";
+    private static final String JS_LAZY_STRING_POOL = "teavm.junit.js.lazyStringPool";
+    private static final String JS_BIG_INT_LONG = "teavm.junit.js.bigIntLong";
+    private static final String JS_NATIVE_STRINGS = "teavm.junit.js.nativeStrings";
+    private static final String JS_OBJECT_SIDE_TABLES = "teavm.junit.js.objectSideTables";
     private static final String C_ENABLED = "teavm.junit.c";
     private static final String WASM_ENABLED = "teavm.junit.wasm";
     private static final String C_COMPILER = "teavm.junit.c.compiler";
     private static final String C_LINE_NUMBERS = "teavm.junit.c.lineNumbers";
+    private static final String C_GENERATIONAL_GC = "teavm.junit.c.generationalGC";
+    private static final String C_HEAP_GROWTH = "teavm.junit.c.heapGrowth";
+    private static final String C_MULTITHREADED = "teavm.junit.c.multithreaded";
     private static final String MINIFIED = "teavm.junit.minified";
     private static final String OPTIMIZED = "teavm.junit.optimized";
     private static final String FAST_ANALYSIS = "teavm.junit.fastAnalysis";
+    private static final String BUNDLE = "teavm.junit.bundle";
 
     private static final int stopTimeout = 15000;
     private Class<?> testClass;
@@ -116,9 +129,10 @@ public class TeaVMTestRunner extends Runner implements Filterable {
     private Map<Method, Description> descriptions = new HashMap<>();
     private static Map<RunKind, RunnerKindInfo> runners = new HashMap<>();
     private static ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    private static ExecutorService compileExecutor;
     private CountDownLatch latch;
     private List<Method> filteredChildren;
-    private ReferenceCache referenceCache = new ReferenceCache();
+    private boolean bundled;
 
     static class RunnerKindInfo {
         volatile TestRunner runner;
@@ -174,6 +188,18 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         if (cCommand != null) {
             runners.get(RunKind.C).strategy = new CRunStrategy(cCommand);
         }
+
+        String bundleMode = System.getProperty(BUNDLE, "method");
+        switch (bundleMode) {
+            case "method":
+                bundled = false;
+                break;
+            case "class":
+                bundled = true;
+                break;
+            default:
+                throw new InitializationError("Unknown bundle mode: " + bundleMode);
+        }
     }
 
     @Override
@@ -193,8 +219,12 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         latch = new CountDownLatch(children.size());
 
         notifier.fireTestStarted(getDescription());
-        for (Method child : children) {
-            runChild(child, notifier);
+        if (bundled && outputDir != null) {
+            runBundle(children, notifier);
+        } else {
+            for (Method child : children) {
+                runChild(child, notifier);
+            }
         }
 
         while (true) {
@@ -247,13 +277,161 @@ public class TeaVMTestRunner extends Runner implements Filterable {
     }
 
     private void runChild(Method child, RunNotifier notifier) {
+        if (!runChildInJvm(child, notifier)) {
+            return;
+        }
+
+        Description description = describeChild(child);
+        getCompileExecutor().execute(() -> {
+            TestRunChain chain = new TestRunChain(description, notifier);
+            try {
+                File outputPath = getOutputPath(child);
+                copyJsFilesTo(outputPath);
+
+                for (ConfigurationBuild build : getConfigurationBuilds(outputPath)) {
+                    if (isSkipped(child, build.kind)) {
+                        continue;
+                    }
+                    CompileResult compileResult = compile(build, Collections.singletonList(child));
+                    TestRun run = createRun(child, notifier, build.kind, compileResult, null, chain);
+                    if (run != null) {
+                        chain.runs.add(run);
+                    }
+                }
+            } catch (Throwable e) {
+                notifier.fireTestFailure(new Failure(description, e));
+                notifier.fireTestFinished(description);
+                latch.countDown();
+                return;
+            }
+
+            chain.accept(true);
+        });
+    }
+
+    /*
+     * Compiles all tests that passed in JVM into a single bundle per configuration, with entry point
+     * that chooses test by name. Configurations are compiled concurrently, then each test is run
+     * against each bundle. WebAssembly has no run strategy that passes test name, so its tests are still
+     * compiled per method.
+     */
+    private void runBundle(List<Method> children, RunNotifier notifier) {
+        List<Method> bundleChildren = new ArrayList<>();
+        for (Method child : children) {
+            if (runChildInJvm(child, notifier)) {
+                bundleChildren.add(child);
+            }
+        }
+        if (bundleChildren.isEmpty()) {
+            return;
+        }
+
+        File outputPath = getClassOutputPath();
+        List<ConfigurationBuild> builds;
+        try {
+            copyJsFilesTo(outputPath);
+            builds = getConfigurationBuilds(outputPath);
+            builds.removeIf(build -> build.kind == RunKind.WASM);
+        } catch (Throwable e) {
+            for (Method child : bundleChildren) {
+                Description description = describeChild(child);
+                notifier.fireTestFailure(new Failure(description, e));
+                notifier.fireTestFinished(description);
+                latch.countDown();
+            }
+            return;
+        }
+
+        List<Future<CompileResult>> futures = new ArrayList<>();
+        for (ConfigurationBuild build : builds) {
+            List<Method> buildChildren = new ArrayList<>();
+            for (Method child : bundleChildren) {
+                if (!isSkipped(child, build.kind)) {
+                    buildChildren.add(child);
+                }
+            }
+            futures.add(!buildChildren.isEmpty()
+                    ? getCompileExecutor().submit(() -> compile(build, buildChildren))
+                    : null);
+        }
+        List<CompileResult> compileResults = new ArrayList<>();
+        for (Future<CompileResult> future : futures) {
+            if (future == null) {
+                compileResults.add(null);
+                continue;
+            }
+            CompileResult compileResult;
+            try {
+                compileResult = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                compileResult = new CompileResult();
+                compileResult.success = false;
+                compileResult.exception = e;
+            } catch (ExecutionException e) {
+                compileResult = new CompileResult();
+                compileResult.success = false;
+                compileResult.exception = e.getCause();
+            }
+            compileResults.add(compileResult);
+        }
+
+        for (Method child : bundleChildren) {
+            TestRunChain chain = new TestRunChain(describeChild(child), notifier);
+            for (int i = 0; i < builds.size(); ++i) {
+                if (isSkipped(child, builds.get(i).kind)) {
+                    continue;
+                }
+                TestRun run = createRun(child, notifier, builds.get(i).kind, compileResults.get(i),
+                        child.getName(), chain);
+                if (run != null) {
+                    chain.runs.add(run);
+                }
+            }
+            if (getWasmConfigurations().isEmpty() || isSkipped(child, RunKind.WASM)) {
+                chain.accept(true);
+            } else {
+                getCompileExecutor().execute(() -> runWasmPerMethod(child, notifier, chain));
+            }
+        }
+    }
+
+    private void runWasmPerMethod(Method child, RunNotifier notifier, TestRunChain chain) {
+        try {
+            File outputPath = getOutputPath(child);
+            copyJsFilesTo(outputPath);
+            for (TeaVMTestConfiguration<WasmTarget> configuration : getWasmConfigurations()) {
+                CompileResult compileResult = compileToWasm(Collections.singletonList(child), configuration,
+                        outputPath);
+                TestRun run = createRun(child, notifier, RunKind.WASM, compileResult, null, chain);
+                if (run != null) {
+                    chain.runs.add(run);
+                }
+            }
+        } catch (Throwable e) {
+            Description description = describeChild(child);
+            notifier.fireTestFailure(new Failure(description, e));
+            notifier.fireTestFinished(description);
+            latch.countDown();
+            return;
+        }
+        chain.accept(true);
+    }
+
+    /**
+     * Reports test start and runs it in JVM, if necessary.
+     *
+     * @return {@code true} if test should also run in TeaVM. If {@code false}, test is reported
+     * as finished.
+     */
+    private boolean runChildInJvm(Method child, RunNotifier notifier) {
         Description description = describeChild(child);
         notifier.fireTestStarted(description);
 
         if (child.isAnnotationPresent(Ignore.class)) {
             notifier.fireTestIgnored(description);
             latch.countDown();
-            return;
+            return false;
         }
 
         boolean ran = false;
@@ -269,7 +447,7 @@ public class TeaVMTestRunner extends Runner implements Filterable {
                 notifier.fireTestFailure(new Failure(description, e));
                 notifier.fireTestFinished(description);
                 latch.countDown();
-                return;
+                return false;
             }
         }
 
@@ -280,64 +458,77 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         }
 
         if (success && outputDir != null) {
-            int[] configurationIndex = new int[] { 0 };
-            List<Consumer<Boolean>> onSuccess = new ArrayList<>();
-
-            List<TestRun> runs = new ArrayList<>();
-            onSuccess.add(runSuccess -> {
-                if (runSuccess && configurationIndex[0] < runs.size()) {
-                    submitRun(runs.get(configurationIndex[0]++));
-                } else {
-                    notifier.fireTestFinished(description);
-                    latch.countDown();
-                }
-            });
+            return true;
+        }
 
-            try {
-                File outputPath = getOutputPath(child);
-                copyJsFilesTo(outputPath);
+        if (!ran) {
+            notifier.fireTestIgnored(description);
+        }
+        notifier.fireTestFinished(description);
+        latch.countDown();
+        return false;
+    }
 
-                for (TeaVMTestConfiguration<JavaScriptTarget> configuration : getJavaScriptConfigurations()) {
-                    TestRun run = compile(child, notifier, RunKind.JAVASCRIPT,
-                            m -> compileToJs(m, configuration, outputPath), onSuccess.get(0));
-                    if (run != null) {
-                        runs.add(run);
-                    }
-                }
+    private boolean isSkipped(Method child, RunKind kind) {
+        return isSkipped(child.getAnnotation(SkipPlatform.class), kind)
+                || isSkipped(testClass.getAnnotation(SkipPlatform.class), kind);
+    }
 
-                for (TeaVMTestConfiguration<CTarget> configuration : getCConfigurations()) {
-                    TestRun run = compile(child, notifier, RunKind.C,
-                            m -> compileToC(m, configuration, outputPath), onSuccess.get(0));
-                    if (run != null) {
-                        runs.add(run);
-                    }
-                }
+    private static boolean isSkipped(SkipPlatform annotation, RunKind kind) {
+        return annotation != null && Arrays.asList(annotation.value()).contains(kind.platform);
+    }
 
-                for (TeaVMTestConfiguration<WasmTarget> configuration : getWasmConfigurations()) {
-                    TestRun run = compile(child, notifier, RunKind.WASM,
-                            m -> compileToWasm(m, configuration, outputPath), onSuccess.get(0));
-                    if (run != null) {
-                        runs.add(run);
-                    }
-                }
+    /*
+     * Runs test against each configuration in turn, stopping at the first failure.
+     */
+    class TestRunChain implements Consumer<Boolean> {
+        final List<TestRun> runs = new ArrayList<>();
+        private Description description;
+        private RunNotifier notifier;
+        private int index;
+
+        TestRunChain(Description description, RunNotifier notifier) {
+            this.description = description;
+            this.notifier = notifier;
+        }
 
-            } catch (Throwable e) {
-                notifier.fireTestFailure(new Failure(description, e));
+        @Override
+        public void accept(Boolean success) {
+            if (success && index < runs.size()) {
+                submitRun(runs.get(index++));
+            } else {
                 notifier.fireTestFinished(description);
                 latch.countDown();
-                return;
             }
+        }
+    }
 
-            onSuccess.get(0).accept(true);
-        } else {
-            if (!ran) {
-                notifier.fireTestIgnored(description);
-            }
-            notifier.fireTestFinished(description);
-            latch.countDown();
+    static class ConfigurationBuild {
+        final RunKind kind;
+        final CompileFunction compiler;
+
+        ConfigurationBuild(RunKind kind, CompileFunction compiler) {
+            this.kind = kind;
+            this.compiler = compiler;
         }
     }
 
+    private List<ConfigurationBuild> getConfigurationBuilds(File outputPath) {
+        List<ConfigurationBuild> builds = new ArrayList<>();
+        for (TeaVMTestConfiguration<JavaScriptTarget> configuration : getJavaScriptConfigurations()) {
+            builds.add(new ConfigurationBuild(RunKind.JAVASCRIPT,
+                    methods -> compileToJs(methods, configuration, outputPath)));
+        }
+        for (TeaVMTestConfiguration<CTarget> configuration : getCConfigurations()) {
+            builds.add(new ConfigurationBuild(RunKind.C, methods -> compileToC(methods, configuration, outputPath)));
+        }
+        for (TeaVMTestConfiguration<WasmTarget> configuration : getWasmConfigurations()) {
+            builds.add(new ConfigurationBuild(RunKind.WASM,
+                    methods -> compileToWasm(methods, configuration, outputPath)));
+        }
+        return builds;
+    }
+
     private String[] getExpectedExceptions(MethodHolder method) {
         AnnotationHolder annot = method.getAnnotations().get(JUNIT4_TEST);
         if (annot == null) {
@@ -470,22 +661,26 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         }
     }
 
-    private TestRun compile(Method child, RunNotifier notifier, RunKind kind,
-            CompileFunction compiler, Consumer<Boolean> onComplete) {
-        Description description = describeChild(child);
-
-        CompileResult compileResult;
+    private CompileResult compile(ConfigurationBuild build, List<Method> methods) {
         try {
-            compileResult = compiler.compile(child);
+            return build.compiler.compile(methods);
         } catch (Exception e) {
-            notifier.fireTestFailure(new Failure(description, e));
-            notifier.fireTestFinished(description);
-            latch.countDown();
-            return null;
+            CompileResult result = new CompileResult();
+            result.success = false;
+            result.exception = e;
+            return result;
         }
+    }
+
+    private TestRun createRun(Method child, RunNotifier notifier, RunKind kind, CompileResult compileResult,
+            String argument, Consumer<Boolean> onComplete) {
+        Description description = describeChild(child);
 
         if (!compileResult.success) {
-            notifier.fireTestFailure(new Failure(description, new AssertionError(compileResult.errorMessage)));
+            Throwable failure = compileResult.exception != null
+                    ? compileResult.exception
+                    : new AssertionError(compileResult.errorMessage);
+            notifier.fireTestFailure(new Failure(description, failure));
             return null;
         }
 
@@ -503,7 +698,7 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         };
 
         return new TestRun(compileResult.file.getParentFile(), child, description, compileResult.file.getName(),
-                kind, callback);
+                kind, callback, argument);
     }
 
     private void submitRun(TestRun run) {
@@ -517,11 +712,7 @@ public class TeaVMTestRunner extends Runner implements Filterable {
 
             if (info.runner == null) {
                 info.runner = new TestRunner(info.strategy);
-                try {
-                    info.runner.setNumThreads(Integer.parseInt(System.getProperty(THREAD_COUNT, "1")));
-                } catch (NumberFormatException e) {
-                    info.runner.setNumThreads(1);
-                }
+                info.runner.setNumThreads(getThreadCount());
                 info.runner.init();
             }
             info.runner.run(run);
@@ -535,6 +726,27 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         }
     }
 
+    private static int getThreadCount() {
+        try {
+            return Math.max(1, Integer.parseInt(System.getProperty(THREAD_COUNT, "1")));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    private static synchronized ExecutorService getCompileExecutor() {
+        if (compileExecutor == null) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            compileExecutor = Executors.newFixedThreadPool(getThreadCount(), runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                thread.setName("teavm-test-compiler-" + threadIndex.getAndIncrement());
+                return thread;
+            });
+        }
+        return compileExecutor;
+    }
+
     private static void cleanupRunner(RunKind kind) {
         synchronized (TeaVMTestRunner.class) {
             RunnerKindInfo info = runners.get(kind);
@@ -544,10 +756,14 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         }
     }
 
+    private File getClassOutputPath() {
+        File path = new File(outputDir, testClass.getName().replace('.', '/'));
+        path.mkdirs();
+        return path;
+    }
+
     private File getOutputPath(Method method) {
-        File path = outputDir;
-        path = new File(path, testClass.getName().replace('.', '/'));
-        path = new File(path, method.getName());
+        File path = new File(getClassOutputPath(), method.getName());
         path.mkdirs();
         return path;
     }
@@ -556,9 +772,10 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         resourceToFile("org/teavm/backend/wasm/wasm-runtime.js", new File(path, "test.wasm-runtime.js"));
         resourceToFile("teavm-run-test.html", new File(path, "run-test.html"));
         resourceToFile("teavm-run-test-wasm.html", new File(path, "run-test-wasm.html"));
+        resourceToFile("teavm-run-test-worker.js", new File(path, "run-test-worker.js"));
     }
 
-    private CompileResult compileToJs(Method method, TeaVMTestConfiguration<JavaScriptTarget> configuration,
+    private CompileResult compileToJs(List<Method> methods, TeaVMTestConfiguration<JavaScriptTarget> configuration,
             File path) {
         boolean decodeStack = Boolean.parseBoolean(System.getProperty(JS_DECODE_STACK, "true"));
         DebugInformationBuilder debugEmitter = new DebugInformationBuilder(new ReferenceCache());
@@ -594,11 +811,11 @@ public class TeaVMTestRunner extends Runner implements Filterable {
                 }
             };
         }
-        return compileTest(method, configuration, targetSupplier, TestEntryPoint.class.getName(), path, ".js",
+        return compileTest(methods, configuration, targetSupplier, TestEntryPoint.class.getName(), path, ".js",
                 postBuild, false);
     }
 
-    private CompileResult compileToC(Method method, TeaVMTestConfiguration<CTarget> configuration,
+    private CompileResult compileToC(List<Method> methods, TeaVMTestConfiguration<CTarget> configuration,
             File path) {
         CompilePostProcessor postBuild = (vm, file) -> {
             try {
@@ -607,8 +824,8 @@ public class TeaVMTestRunner extends Runner implements Filterable {
                 throw new RuntimeException(e);
             }
         };
-        return compileTest(method, configuration, this::createCTarget, TestNativeEntryPoint.class.getName(), path, ".c",
-                postBuild, true);
+        return compileTest(methods, configuration, this::createCTarget, TestNativeEntryPoint.class.getName(), path,
+                ".c", postBuild, true);
     }
 
     private CTarget createCTarget() {
@@ -617,13 +834,14 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         return cTarget;
     }
 
-    private CompileResult compileToWasm(Method method, TeaVMTestConfiguration<WasmTarget> configuration,
+    private CompileResult compileToWasm(List<Method> methods, TeaVMTestConfiguration<WasmTarget> configuration,
             File path) {
-        return compileTest(method, configuration, WasmTarget::new, TestNativeEntryPoint.class.getName(), path,
+        return compileTest(methods, configuration, WasmTarget::new, TestNativeEntryPoint.class.getName(), path,
                 ".wasm", null, false);
     }
 
-    private <T extends TeaVMTarget> CompileResult compileTest(Method method, TeaVMTestConfiguration<T> configuration,
+    private <T extends TeaVMTarget> CompileResult compileTest(List<Method> methods,
+            TeaVMTestConfiguration<T> configuration,
             Supplier<T> targetSupplier, String entryPoint, File path, String extension,
             CompilePostProcessor postBuild, boolean separateDir) {
         CompileResult result = new CompileResult();
@@ -647,8 +865,11 @@ public class TeaVMTestRunner extends Runner implements Filterable {
 
         ClassLoader classLoader = TeaVMTestRunner.class.getClassLoader();
 
-        ClassHolder classHolder = classSource.get(method.getDeclaringClass().getName());
-        MethodHolder methodHolder = classHolder.getMethod(getDescriptor(method));
+        List<MethodReference> methodReferences = new ArrayList<>();
+        for (Method method : methods) {
+            ClassHolder classHolder = classSource.get(method.getDeclaringClass().getName());
+            methodReferences.add(classHolder.getMethod(getDescriptor(method)).getReference());
+        }
 
         T target = targetSupplier.get();
         configuration.apply(target);
@@ -662,19 +883,19 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         TeaVM vm = new TeaVMBuilder(target)
                 .setClassLoader(classLoader)
                 .setClassSource(classSource)
-                .setReferenceCache(referenceCache)
+                .setReferenceCache(new ReferenceCache())
                 .setDependencyAnalyzerFactory(dependencyAnalyzerFactory)
                 .build();
 
         Properties properties = new Properties();
-        applyProperties(method.getDeclaringClass(), properties);
+        applyProperties(testClass, properties);
         vm.setProperties(properties);
 
         configuration.apply(vm);
         vm.installPlugins();
 
         new TestExceptionPlugin().install(vm);
-        new TestEntryPointTransformer(methodHolder.getReference(), testClass.getName()).install(vm);
+        new TestEntryPointTransformer(methodReferences, testClass.getName()).install(vm);
 
         vm.entryPoint(entryPoint);
 
@@ -712,6 +933,18 @@ public class TeaVMTestRunner extends Runner implements Filterable {
             if (Boolean.getBoolean(OPTIMIZED)) {
                 configurations.add(TeaVMTestConfiguration.JS_OPTIMIZED);
             }
+            if (Boolean.getBoolean(JS_LAZY_STRING_POOL)) {
+                configurations.add(TeaVMTestConfiguration.JS_LAZY_STRING_POOL);
+            }
+            if (Boolean.getBoolean(JS_BIG_INT_LONG)) {
+                configurations.add(TeaVMTestConfiguration.JS_BIG_INT_LONG);
+            }
+            if (Boolean.getBoolean(JS_NATIVE_STRINGS)) {
+                configurations.add(TeaVMTestConfiguration.JS_NATIVE_STRINGS);
+            }
+            if (Boolean.getBoolean(JS_OBJECT_SIDE_TABLES)) {
+                configurations.add(TeaVMTestConfiguration.JS_OBJECT_SIDE_TABLES);
+            }
         }
         return configurations;
     }
@@ -734,6 +967,15 @@ public class TeaVMTestRunner extends Runner implements Filterable {
             if (Boolean.getBoolean(OPTIMIZED)) {
                 configurations.add(TeaVMTestConfiguration.C_OPTIMIZED);
             }
+            if (Boolean.getBoolean(C_GENERATIONAL_GC)) {
+                configurations.add(TeaVMTestConfiguration.C_GENERATIONAL_GC);
+            }
+            if (Boolean.getBoolean(C_HEAP_GROWTH)) {
+                configurations.add(TeaVMTestConfiguration.C_HEAP_GROWTH);
+            }
+            if (Boolean.getBoolean(C_MULTITHREADED)) {
+                configurations.add(TeaVMTestConfiguration.C_MULTITHREADED);
+            }
         }
         return configurations;
     }
@@ -778,9 +1020,22 @@ public class TeaVMTestRunner extends Runner implements Filterable {
         }
     }
 
-    private ClassHolderSource getClassSource(ClassLoader classLoader) {
-        return classSources.computeIfAbsent(classLoader, cl -> new PreOptimizingClassHolderSource(
-                new ClasspathClassHolderSource(classLoader, referenceCache)));
+    /*
+     * Class source is shared by all builds and tests may be compiled concurrently, so access is serialized.
+     * Builds copy classes they get from the source, so they don't interfere otherwise.
+     */
+    private static ClassHolderSource getClassSource(ClassLoader classLoader) {
+        synchronized (classSources) {
+            return classSources.computeIfAbsent(classLoader, cl -> {
+                ClassHolderSource source = new PreOptimizingClassHolderSource(
+                        new ClasspathClassHolderSource(classLoader, new ReferenceCache()));
+                return name -> {
+                    synchronized (source) {
+                        return source.get(name);
+                    }
+                };
+            });
+        }
     }
 
     @Override
@@ -798,10 +1053,11 @@ public class TeaVMTestRunner extends Runner implements Filterable {
     static class CompileResult {
         boolean success = true;
         String errorMessage;
+        Throwable exception;
         File file;
     }
 
     interface CompileFunction {
-        CompileResult compile(Method method);
+        CompileResult compile(List<Method> methods);
     }
 }
@@ -21,10 +21,10 @@ final class TestEntryPoint {
     private TestEntryPoint() {
     }
 
-    public static void run() {
+    public static void run(String testName) {
         before();
         try {
-            launchTest();
+            launchTest(testName);
         } finally {
             try {
                 after();
@@ -36,11 +36,11 @@ final class TestEntryPoint {
 
     private static native void before();
 
-    private static native void launchTest();
+    private static native void launchTest(String testName);
 
     private static native void after();
 
     public static void main(String[] args) throws Throwable {
-        run();
+        run(args.length > 0 ? args[0] : "");
     }
 }
@@ -41,16 +41,22 @@ import org.teavm.model.Program;
 import org.teavm.model.TryCatchBlock;
 import org.teavm.model.ValueType;
 import org.teavm.model.emit.ProgramEmitter;
+import org.teavm.model.emit.StringChooseEmitter;
 import org.teavm.model.emit.ValueEmitter;
 import org.teavm.vm.spi.TeaVMHost;
 import org.teavm.vm.spi.TeaVMPlugin;
 
 class TestEntryPointTransformer implements ClassHolderTransformer, TeaVMPlugin {
-    private MethodReference testMethod;
+    private List<MethodReference> testMethods;
     private String testClassName;
 
-    TestEntryPointTransformer(MethodReference testMethod, String testClassName) {
-        this.testMethod = testMethod;
+    /**
+     * @param testMethods methods to launch. When there are more than one, entry point chooses method
+     *                    by name passed to {@link TestEntryPoint#run(String)}.
+     * @param testClassName class to instantiate.
+     */
+    TestEntryPointTransformer(List<MethodReference> testMethods, String testClassName) {
+        this.testMethods = testMethods;
         this.testClassName = testClassName;
     }
 
@@ -91,11 +97,11 @@ class TestEntryPointTransformer implements ClassHolderTransformer, TeaVMPlugin {
                 });
         ValueEmitter testCaseVar = pe.getField(TestEntryPoint.class, "testCase", Object.class);
 
-        if (hierarchy.isSuperType(JUNIT3_BASE_CLASS, testMethod.getClassName(), false)) {
+        if (hierarchy.isSuperType(JUNIT3_BASE_CLASS, testClassName, false)) {
             testCaseVar.cast(ValueType.object(JUNIT3_BASE_CLASS)).invokeVirtual(JUNIT3_BEFORE);
         }
 
-        List<ClassReader> classes = collectSuperClasses(pe.getClassSource(), testMethod.getClassName());
+        List<ClassReader> classes = collectSuperClasses(pe.getClassSource(), testClassName);
         Collections.reverse(classes);
         classes.stream()
                 .flatMap(cls -> cls.getMethods().stream())
@@ -110,13 +116,13 @@ class TestEntryPointTransformer implements ClassHolderTransformer, TeaVMPlugin {
         ProgramEmitter pe = ProgramEmitter.create(method, hierarchy);
         ValueEmitter testCaseVar = pe.getField(TestEntryPoint.class, "testCase", Object.class);
 
-        List<ClassReader> classes = collectSuperClasses(pe.getClassSource(), testMethod.getClassName());
+        List<ClassReader> classes = collectSuperClasses(pe.getClassSource(), testClassName);
         classes.stream()
                 .flatMap(cls -> cls.getMethods().stream())
                 .filter(m -> m.getAnnotations().get(JUNIT4_AFTER) != null)
                 .forEach(m -> testCaseVar.cast(ValueType.object(m.getOwnerName())).invokeVirtual(m.getReference()));
 
-        if (hierarchy.isSuperType(JUNIT3_BASE_CLASS, testMethod.getClassName(), false)) {
+        if (hierarchy.isSuperType(JUNIT3_BASE_CLASS, testClassName, false)) {
             testCaseVar.cast(ValueType.object(JUNIT3_BASE_CLASS)).invokeVirtual(JUNIT3_AFTER);
         }
 
@@ -139,6 +145,22 @@ class TestEntryPointTransformer implements ClassHolderTransformer, TeaVMPlugin {
 
     private Program generateLaunchProgram(MethodHolder method, ClassHierarchy hierarchy) {
         ProgramEmitter pe = ProgramEmitter.create(method, hierarchy);
+        if (testMethods.size() == 1) {
+            emitTestMethodCall(pe, hierarchy, testMethods.get(0));
+        } else {
+            StringChooseEmitter choice = pe.stringChoice(pe.var(1, String.class));
+            for (MethodReference testMethod : testMethods) {
+                choice.option(testMethod.getName(), () -> emitTestMethodCall(pe, hierarchy, testMethod));
+            }
+            choice.otherwise(() -> {
+                pe.construct(IllegalArgumentException.class, pe.constant("Unknown test method")).raise();
+            });
+            pe.exit();
+        }
+        return pe.getProgram();
+    }
+
+    private void emitTestMethodCall(ProgramEmitter pe, ClassHierarchy hierarchy, MethodReference testMethod) {
         pe.getField(TestEntryPoint.class, "testCase", Object.class)
                 .cast(ValueType.object(testMethod.getClassName()))
                 .invokeSpecial(testMethod);
@@ -163,6 +185,5 @@ class TestEntryPointTransformer implements ClassHolderTransformer, TeaVMPlugin {
         } else {
             pe.exit();
         }
-        return pe.getProgram();
     }
 }
@@ -21,7 +21,7 @@ final class TestNativeEntryPoint {
 
     public static void main(String[] args) throws Exception {
         try {
-            TestEntryPoint.run();
+            TestEntryPoint.run(args.length > 0 ? args[0] : "");
             System.out.println("SUCCESS");
         } catch (Throwable e) {
             e.printStackTrace(System.out);
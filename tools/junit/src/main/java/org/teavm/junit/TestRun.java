@@ -26,15 +26,17 @@ class TestRun {
     private String fileName;
     private RunKind kind;
     private TestRunCallback callback;
+    private String argument;
 
     TestRun(File baseDirectory, Method method, Description description, String fileName, RunKind kind,
-            TestRunCallback callback) {
+            TestRunCallback callback, String argument) {
         this.baseDirectory = baseDirectory;
         this.method = method;
         this.description = description;
         this.fileName = fileName;
         this.kind = kind;
         this.callback = callback;
+        this.argument = argument;
     }
 
     public File getBaseDirectory() {
@@ -60,4 +62,13 @@ class TestRun {
     public TestRunCallback getCallback() {
         return callback;
     }
+
+    /**
+     * Gets name of test method to pass to entry point of a bundle that contains several tests.
+     *
+     * @return method name or {@code null} if test was compiled separately.
+     */
+    public String getArgument() {
+        return argument;
+    }
 }
@@ -1,8 +1,8 @@
 var $rt_decodeStack;
 
-function runMain(stackDecoder, callback) {
+function runMain(stackDecoder, callback, testName) {
     $rt_decodeStack = stackDecoder;
-    main([], function(result) {
+    main(testName ? [testName] : [], function(result) {
         var message = {};
         if (result instanceof Error) {
             makeErrorMessage(message, result);
@@ -0,0 +1,14 @@
+// Runs compiled test in a worker as run-test-worker.js?script=test.js&test=name, so tests can start
+// workers that load the same script as the test itself
+(function() {
+    var params = {};
+    var search = self.location.search.substring(1);
+    if (search.length > 0) {
+        search.split("&").forEach(function(part) {
+            var index = part.indexOf("=");
+            params[decodeURIComponent(part.substring(0, index))] = decodeURIComponent(part.substring(index + 1));
+        });
+    }
+    importScripts(params.script);
+    main(params.test ? [params.test] : []);
+})();
@@ -80,6 +80,18 @@ public class TeaVMCompileMojo extends AbstractMojo {
     @Parameter(property = "teavm.minifying", defaultValue = "true")
     private boolean minifying = true;
 
+    @Parameter(property = "teavm.lazyStringPool", defaultValue = "false")
+    private boolean lazyStringPool;
+
+    @Parameter(property = "teavm.longAsBigInt", defaultValue = "false")
+    private boolean longAsBigInt;
+
+    @Parameter(property = "teavm.objectSideTables", defaultValue = "false")
+    private boolean objectSideTables;
+
+    @Parameter(property = "teavm.nativeStrings", defaultValue = "false")
+    private boolean nativeStrings;
+
     @Parameter(property = "teavm.maxTopLevelNames", defaultValue = "10000")
     private int maxTopLevelNames = 10000;
 
@@ -125,6 +137,12 @@ public class TeaVMCompileMojo extends AbstractMojo {
     @Parameter(property = "teavm.optimizationLevel", defaultValue = "SIMPLE")
     private TeaVMOptimizationLevel optimizationLevel = TeaVMOptimizationLevel.SIMPLE;
 
+    @Parameter(property = "teavm.optimizationThreads", defaultValue = "1")
+    private int optimizationThreads = 1;
+
+    @Parameter(property = "teavm.dependencyAnalysisThreads", defaultValue = "1")
+    private int dependencyAnalysisThreads = 1;
+
     @Parameter(property = "teavm.fastGlobalAnalysis", defaultValue = "false")
     private boolean fastGlobalAnalysis;
 
@@ -134,12 +152,24 @@ public class TeaVMCompileMojo extends AbstractMojo {
     @Parameter(defaultValue = "${project.build.directory}/teavm-cache")
     private File cacheDirectory;
 
+    @Parameter(property = "teavm.packedCache", defaultValue = "false")
+    private boolean packedCache;
+
     @Parameter(property = "teavm.wasmVersion", defaultValue = "V_0x1")
     private WasmBinaryVersion wasmVersion = WasmBinaryVersion.V_0x1;
 
     @Parameter(property = "teavm.heapSize", defaultValue = "32")
     private int heapSize;
 
+    @Parameter(property = "teavm.maxHeapSize", defaultValue = "0")
+    private int maxHeapSize;
+
+    @Parameter(property = "teavm.minHeapFreeRatio", defaultValue = "0")
+    private int minHeapFreeRatio;
+
+    @Parameter(property = "teavm.maxHeapFreeRatio", defaultValue = "0")
+    private int maxHeapFreeRatio;
+
     @Parameter(property = "teavm.outOfProcess", defaultValue = "false")
     private boolean outOfProcess;
 
@@ -152,11 +182,21 @@ public class TeaVMCompileMojo extends AbstractMojo {
     @Parameter(property = "teavm.heapDump", defaultValue = "false")
     private boolean heapDump;
 
+    @Parameter(property = "teavm.generationalGC", defaultValue = "false")
+    private boolean generationalGC;
+
+    @Parameter(property = "teavm.multithreaded", defaultValue = "false")
+    private boolean multithreaded;
+
     private void setupBuilder(BuildStrategy builder) throws MojoExecutionException {
         builder.setLog(new MavenTeaVMToolLog(getLog()));
         try {
             builder.setClassPathEntries(prepareClassPath());
             builder.setMinifying(minifying);
+            builder.setLazyStringPool(lazyStringPool);
+            builder.setLongAsBigInt(longAsBigInt);
+            builder.setObjectSideTables(objectSideTables);
+            builder.setNativeStrings(nativeStrings);
             builder.setMaxTopLevelNames(maxTopLevelNames);
             builder.setTargetDirectory(targetDirectory.getAbsolutePath());
             if (transformers != null) {
@@ -173,7 +213,10 @@ public class TeaVMCompileMojo extends AbstractMojo {
             builder.setDebugInformationGenerated(debugInformationGenerated);
             builder.setSourceMapsFileGenerated(sourceMapsGenerated);
             builder.setSourceFilesCopied(sourceFilesCopied);
-            builder.setHeapSize(heapSize * 1024 * 1024);
+            builder.setHeapSize(heapSize * 1024L * 1024);
+            builder.setMaxHeapSize(maxHeapSize * 1024L * 1024);
+            builder.setMinHeapFreeRatio(minHeapFreeRatio);
+            builder.setMaxHeapFreeRatio(maxHeapFreeRatio);
         } catch (RuntimeException e) {
             throw new MojoExecutionException("Unexpected error occurred", e);
         }
@@ -276,15 +319,20 @@ public class TeaVMCompileMojo extends AbstractMojo {
                 builder.setTargetFileName(targetFileName);
             }
             builder.setOptimizationLevel(optimizationLevel);
+            builder.setOptimizationThreads(optimizationThreads);
+            builder.setDependencyAnalysisThreads(dependencyAnalysisThreads);
             builder.setFastDependencyAnalysis(fastGlobalAnalysis);
             if (classesToPreserve != null) {
                 builder.setClassesToPreserve(classesToPreserve);
             }
             builder.setCacheDirectory(cacheDirectory.getAbsolutePath());
+            builder.setPackedCache(packedCache);
             builder.setTargetType(targetType);
             builder.setWasmVersion(wasmVersion);
             builder.setLongjmpSupported(longjmpSupported);
             builder.setHeapDump(heapDump);
+            builder.setGenerationalGC(generationalGC);
+            builder.setMultithreaded(multithreaded);
             BuildResult result;
             result = builder.build();
             TeaVMProblemRenderer.describeProblems(result.getCallGraph(), result.getProblems(), toolLog);